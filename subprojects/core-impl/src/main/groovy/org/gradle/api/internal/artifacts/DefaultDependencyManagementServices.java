@@ -45,6 +45,7 @@ import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.SingleFileBa
 import org.gradle.api.internal.artifacts.ivyservice.filestore.ArtifactFileStore;
 import org.gradle.api.internal.artifacts.ivyservice.filestore.DefaultArtifactFileStore;
 import org.gradle.api.internal.artifacts.ivyservice.filestore.ExternalArtifactCacheBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryProbeExecutor;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveModeOverride;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleDescriptorCache;
@@ -57,19 +58,26 @@ import org.gradle.api.internal.artifacts.mvnsettings.DefaultLocalMavenCacheLocat
 import org.gradle.api.internal.artifacts.mvnsettings.LocalMavenCacheLocator;
 import org.gradle.api.internal.artifacts.repositories.DefaultResolverFactory;
 import org.gradle.api.internal.artifacts.repositories.transport.RepositoryTransportFactory;
+import org.gradle.api.internal.artifacts.repositories.transport.http.HttpClientConnectionPool;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.IdentityFileResolver;
 import org.gradle.api.internal.notations.*;
 import org.gradle.api.internal.notations.api.NotationParser;
+import org.gradle.api.internal.project.ProjectAccessListener;
 import org.gradle.cache.CacheRepository;
 import org.gradle.listener.ListenerManager;
 import org.gradle.logging.ProgressLoggerFactory;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.gradle.util.BuildCommencedTimeProvider;
 import org.gradle.util.WrapUtil;
 
 import java.util.List;
 
 public class DefaultDependencyManagementServices extends DefaultServiceRegistry implements DependencyManagementServices {
+    private static final int MODULE_METADATA_PREFETCH_THREADS = 8;
+    private static final int ARTIFACT_DOWNLOAD_THREADS = 4;
+    private static final int HTTP_CONNECTIONS_PER_HOST = 8;
+    private static final int HTTP_CONNECTIONS = 32;
 
     public DefaultDependencyManagementServices(ServiceRegistry parent) {
         super(parent);
@@ -131,11 +139,13 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
 
         ProjectDependencyFactory projectDependencyFactory = new ProjectDependencyFactory(
                 get(StartParameter.class).getProjectDependenciesBuildInstruction(),
-                instantiator);
+                instantiator,
+                get(ProjectAccessListener.class));
 
         DependencyProjectNotationParser projParser = new DependencyProjectNotationParser(
                 get(StartParameter.class).getProjectDependenciesBuildInstruction(),
-                instantiator);
+                instantiator,
+                get(ProjectAccessListener.class));
 
         NotationParser<? extends Dependency> moduleMapParser = new DependencyMapNotationParser<DefaultExternalModuleDependency>(instantiator, DefaultExternalModuleDependency.class);
         NotationParser<? extends Dependency> moduleStringParser = new DependencyStringNotationParser<DefaultExternalModuleDependency>(instantiator, DefaultExternalModuleDependency.class);
@@ -178,7 +188,8 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
         return new DefaultModuleDescriptorCache(
                 get(ArtifactCacheMetaData.class),
                 get(BuildCommencedTimeProvider.class),
-                get(CacheLockingManager.class)
+                get(CacheLockingManager.class),
+                get(StartParameter.class).isBinaryModuleDescriptors()
         );
     }
 
@@ -221,7 +232,19 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
         cacheBuilder.addMilestone6();
         cacheBuilder.addMilestone3();
         cacheBuilder.addMavenLocal();
-        return new RepositoryTransportFactory(cacheBuilder.getExternalArtifactCache(), get(ProgressLoggerFactory.class), get(ArtifactFileStore.class));
+
+        // Concurrent resolution needs more connections to each host than a repository opens on its own
+        StartParameter startParameter = get(StartParameter.class);
+        HttpClientConnectionPool httpConnectionPool = null;
+        if (startParameter.isPooledHttpConnections() || startParameter.isModuleMetadataPrefetching() || startParameter.isParallelArtifactDownloads()
+                || startParameter.isConcurrentRepositoryProbing()) {
+            httpConnectionPool = new HttpClientConnectionPool(HTTP_CONNECTIONS_PER_HOST, HTTP_CONNECTIONS);
+        }
+        return new RepositoryTransportFactory(cacheBuilder.getExternalArtifactCache(), get(ProgressLoggerFactory.class), get(ArtifactFileStore.class), httpConnectionPool);
+    }
+
+    protected RepositoryProbeExecutor createRepositoryProbeExecutor() {
+        return new RepositoryProbeExecutor(get(ExecutorFactory.class));
     }
 
     private class DefaultDependencyResolutionServices implements DependencyResolutionServices {
@@ -308,7 +331,8 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
                     get(ModuleDescriptorCache.class),
                     get(ArtifactResolutionCache.class),
                     get(CacheLockingManager.class),
-                    resolveModeOverride
+                    resolveModeOverride,
+                    startParameter.isConcurrentRepositoryProbing() ? get(RepositoryProbeExecutor.class) : null
             );
 
             ResolvedArtifactFactory resolvedArtifactFactory = new ResolvedArtifactFactory(
@@ -321,7 +345,11 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
                     resolvedArtifactFactory,
                     new DefaultProjectModuleRegistry(
                             get(PublishModuleDescriptorConverter.class)),
-                    get(ClientModuleRegistry.class));
+                    get(ClientModuleRegistry.class),
+                    get(CacheLockingManager.class),
+                    get(ExecutorFactory.class),
+                    startParameter.isModuleMetadataPrefetching() ? MODULE_METADATA_PREFETCH_THREADS : 0,
+                    startParameter.isParallelArtifactDownloads() ? new ConcurrentArtifactDownloader(get(ExecutorFactory.class), get(ProgressLoggerFactory.class), ARTIFACT_DOWNLOAD_THREADS) : null);
             return new ErrorHandlingArtifactDependencyResolver(
                     new EventBroadcastingArtifactDependencyResolver(
                             new ShortcircuitEmptyConfigsArtifactDependencyResolver(
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.logging.ProgressLogger;
+import org.gradle.logging.ProgressLoggerFactory;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Downloads the files of a set of resolved artifacts concurrently, using a bounded number of threads. Each artifact
+ * caches its file once downloaded, so that later calls to {@link ResolvedArtifact#getFile()} return immediately.
+ *
+ * <p>Each download takes ownership of the artifact cache while it uses it, and releases the cache while it transfers
+ * the file, so this must not be called by a thread which owns the artifact cache.</p>
+ */
+public class ConcurrentArtifactDownloader {
+    private final ExecutorFactory executorFactory;
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private final int maxThreads;
+
+    public ConcurrentArtifactDownloader(ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory, int maxThreads) {
+        this.executorFactory = executorFactory;
+        this.progressLoggerFactory = progressLoggerFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Downloads the file of each of the given artifacts, blocking until all downloads have completed. Failures are not
+     * thrown, but returned so that the caller can report them in the order of the artifacts.
+     *
+     * @return The failure for each artifact which could not be downloaded.
+     */
+    public Map<ResolvedArtifact, RuntimeException> download(Collection<? extends ResolvedArtifact> artifacts) {
+        if (artifacts.size() < 2) {
+            // Nothing to do concurrently, so let the caller download the file when it needs it
+            return Collections.emptyMap();
+        }
+
+        Queue<ResolvedArtifact> queue = new ConcurrentLinkedQueue<ResolvedArtifact>(artifacts);
+        Map<ResolvedArtifact, RuntimeException> failures = Collections.synchronizedMap(new HashMap<ResolvedArtifact, RuntimeException>());
+        DownloadProgress progress = new DownloadProgress(artifacts.size());
+
+        StoppableExecutor executor = executorFactory.create("Artifact download");
+        try {
+            int threads = Math.min(maxThreads, artifacts.size());
+            for (int i = 0; i < threads; i++) {
+                executor.execute(new DownloadWorker(queue, failures, progress));
+            }
+        } finally {
+            executor.stop();
+            progress.completed();
+        }
+        return failures;
+    }
+
+    private class DownloadProgress {
+        private final ProgressLogger progressLogger;
+        private final int total;
+        private int downloaded;
+
+        private DownloadProgress(int total) {
+            this.total = total;
+            progressLogger = progressLoggerFactory.newOperation(ConcurrentArtifactDownloader.class);
+            progressLogger.setDescription(String.format("Download %s artifacts", total));
+            progressLogger.started();
+        }
+
+        public synchronized void onDownloaded() {
+            downloaded++;
+            progressLogger.progress(String.format("%s/%s artifacts downloaded", downloaded, total));
+        }
+
+        public synchronized void completed() {
+            progressLogger.completed();
+        }
+    }
+
+    private static class DownloadWorker implements Runnable {
+        private final Queue<ResolvedArtifact> queue;
+        private final Map<ResolvedArtifact, RuntimeException> failures;
+        private final DownloadProgress progress;
+
+        private DownloadWorker(Queue<ResolvedArtifact> queue, Map<ResolvedArtifact, RuntimeException> failures, DownloadProgress progress) {
+            this.queue = queue;
+            this.failures = failures;
+            this.progress = progress;
+        }
+
+        public void run() {
+            ResolvedArtifact artifact;
+            while ((artifact = queue.poll()) != null) {
+                try {
+                    artifact.getFile();
+                } catch (RuntimeException e) {
+                    failures.put(artifact, e);
+                }
+                progress.onDownloaded();
+            }
+        }
+    }
+}
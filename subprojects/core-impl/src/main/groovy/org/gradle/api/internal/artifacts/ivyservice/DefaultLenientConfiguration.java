@@ -27,6 +27,7 @@ import java.util.*;
 public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder, LenientConfiguration {
     private final ResolvedDependency root;
     private final Configuration configuration;
+    private final ConcurrentArtifactDownloader artifactDownloader;
     private final Map<ModuleDependency, ResolvedDependency> firstLevelDependencies = new LinkedHashMap<ModuleDependency, ResolvedDependency>();
     private final Set<ResolvedArtifact> artifacts = new LinkedHashSet<ResolvedArtifact>();
     private final Set<UnresolvedDependency> unresolvedDependencies = new LinkedHashSet<UnresolvedDependency>();
@@ -34,8 +35,17 @@ public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder
             = new CachingDirectedGraphWalker<ResolvedDependency, ResolvedArtifact>(new ResolvedDependencyArtifactsGraph());
 
     public DefaultLenientConfiguration(Configuration configuration, ResolvedDependency root) {
+        this(configuration, root, null);
+    }
+
+    /**
+     * @param artifactDownloader Used to download the artifact files concurrently when the files are requested, or null
+     * to download each file as it is needed.
+     */
+    public DefaultLenientConfiguration(Configuration configuration, ResolvedDependency root, ConcurrentArtifactDownloader artifactDownloader) {
         this.configuration = configuration;
         this.root = root;
+        this.artifactDownloader = artifactDownloader;
     }
 
     public boolean hasError() {
@@ -110,9 +120,14 @@ public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder
 
         artifacts.addAll(walker.findValues());
 
+        Map<ResolvedArtifact, RuntimeException> downloadFailures = Collections.emptyMap();
+        if (artifactDownloader != null) {
+            downloadFailures = artifactDownloader.download(artifacts);
+        }
+
         Set<File> files = new LinkedHashSet<File>();
         for (ResolvedArtifact artifact : artifacts) {
-            File depFile = artifactFileResolver.getFile(artifact);
+            File depFile = artifactFileResolver.getFile(artifact, downloadFailures.get(artifact));
             if (depFile != null) {
                 files.add(depFile);
             }
@@ -133,15 +148,18 @@ public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder
     }
 
     private static class ArtifactFileResolver {
-        public File getFile(ResolvedArtifact artifact) {
+        public File getFile(ResolvedArtifact artifact, RuntimeException downloadFailure) {
+            if (downloadFailure != null) {
+                throw downloadFailure;
+            }
             return artifact.getFile();
         }
     }
     
     private static class LenientArtifactToFileResolver extends ArtifactFileResolver {
-        public File getFile(ResolvedArtifact artifact) {
+        public File getFile(ResolvedArtifact artifact, RuntimeException downloadFailure) {
             try {
-                return super.getFile(artifact);
+                return super.getFile(artifact, downloadFailure);
             } catch (ArtifactResolveException e) {
                 return null;
             }
@@ -43,4 +43,7 @@ class DefaultIvyAdapter implements IvyAdapter {
         return userResolver;
     }
 
+    public void stop() {
+        userResolver.stop();
+    }
 }
@@ -18,11 +18,18 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
 import org.apache.ivy.core.resolve.ResolveData;
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactToFileResolver;
 import org.gradle.api.internal.artifacts.ivyservice.DependencyToModuleResolver;
+import org.gradle.internal.Stoppable;
 
-public interface IvyAdapter {
+public interface IvyAdapter extends Stoppable {
     ResolveData getResolveData();
 
     DependencyToModuleResolver getDependencyToModuleResolver();
 
     ArtifactToFileResolver getArtifactToFileResolver();
+
+    /**
+     * Waits for any repository queries which are still running in the background. Must be called at the end of the
+     * resolve, by the thread which owns the artifact cache.
+     */
+    void stop();
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.internal.Stoppable;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The {@link Executor} which {@link UserResolverChain} uses to query repositories concurrently. A single instance is
+ * shared by all resolves of a build, and is stopped at the end of the build.
+ */
+public class RepositoryProbeExecutor implements Executor, Stoppable {
+    private final StoppableExecutor executor;
+
+    public RepositoryProbeExecutor(ExecutorFactory executorFactory) {
+        executor = executorFactory.create("Repository probe");
+    }
+
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    public void stop() {
+        executor.stop();
+    }
+}
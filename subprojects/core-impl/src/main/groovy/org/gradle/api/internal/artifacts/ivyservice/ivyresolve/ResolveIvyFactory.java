@@ -33,6 +33,7 @@ import org.gradle.util.WrapUtil;
 import org.jfrog.wharf.ivy.model.WharfResolverMetadata;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class ResolveIvyFactory {
     private final IvyFactory ivyFactory;
@@ -43,11 +44,24 @@ public class ResolveIvyFactory {
     private final ArtifactResolutionCache artifactResolutionCache;
     private final CacheLockingManager cacheLockingManager;
     private final ResolveModeOverride resolveModeOverride;
+    private final Executor repositoryProbeExecutor;
 
     public ResolveIvyFactory(IvyFactory ivyFactory, ResolverProvider resolverProvider, SettingsConverter settingsConverter,
                              ModuleResolutionCache moduleResolutionCache, ModuleDescriptorCache moduleDescriptorCache,
                              ArtifactResolutionCache artifactResolutionCache,
                              CacheLockingManager cacheLockingManager, ResolveModeOverride resolveModeOverride) {
+        this(ivyFactory, resolverProvider, settingsConverter, moduleResolutionCache, moduleDescriptorCache, artifactResolutionCache, cacheLockingManager, resolveModeOverride, null);
+    }
+
+    /**
+     * @param repositoryProbeExecutor Used to query the repositories for each module concurrently, or null to query them
+     * one at a time.
+     */
+    public ResolveIvyFactory(IvyFactory ivyFactory, ResolverProvider resolverProvider, SettingsConverter settingsConverter,
+                             ModuleResolutionCache moduleResolutionCache, ModuleDescriptorCache moduleDescriptorCache,
+                             ArtifactResolutionCache artifactResolutionCache,
+                             CacheLockingManager cacheLockingManager, ResolveModeOverride resolveModeOverride,
+                             Executor repositoryProbeExecutor) {
         this.ivyFactory = ivyFactory;
         this.resolverProvider = resolverProvider;
         this.settingsConverter = settingsConverter;
@@ -56,10 +70,11 @@ public class ResolveIvyFactory {
         this.artifactResolutionCache = artifactResolutionCache;
         this.cacheLockingManager = cacheLockingManager;
         this.resolveModeOverride = resolveModeOverride;
+        this.repositoryProbeExecutor = repositoryProbeExecutor;
     }
 
     public IvyAdapter create(ConfigurationInternal configuration) {
-        UserResolverChain userResolverChain = new UserResolverChain();
+        UserResolverChain userResolverChain = new UserResolverChain(cacheLockingManager, repositoryProbeExecutor);
         CachePolicy cachePolicy = configuration.getResolutionStrategy().getCachePolicy();
         cachePolicy = resolveModeOverride.overrideCachePolicy(cachePolicy);
 
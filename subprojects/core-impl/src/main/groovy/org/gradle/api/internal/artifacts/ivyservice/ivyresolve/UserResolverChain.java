@@ -24,21 +24,45 @@ import org.apache.ivy.plugins.latest.ComparatorLatestStrategy;
 import org.apache.ivy.plugins.resolver.ResolverSettings;
 import org.apache.ivy.util.StringUtils;
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactToFileResolver;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.DependencyToModuleResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolver;
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
-public class UserResolverChain implements DependencyToModuleResolver, ArtifactToFileResolver {
+public class UserResolverChain implements DependencyToModuleResolver, ArtifactToFileResolver, Stoppable {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserResolverChain.class);
 
-    private final Map<ModuleRevisionId, ModuleVersionRepository> artifactRepositories = new HashMap<ModuleRevisionId, ModuleVersionRepository>();
+    private final Map<ModuleRevisionId, ModuleVersionRepository> artifactRepositories = new ConcurrentHashMap<ModuleRevisionId, ModuleVersionRepository>();
     private final List<ModuleVersionRepository> moduleVersionRepositories = new ArrayList<ModuleVersionRepository>();
+    private final CacheLockingManager cacheLockingManager;
+    private final Executor probeExecutor;
+    private final LinkedList<RepositoryProbe> abandonedProbes = new LinkedList<RepositoryProbe>();
     private ResolverSettings settings;
 
+    public UserResolverChain() {
+        this(null, null);
+    }
+
+    /**
+     * @param probeExecutor Used to query the repositories for a module concurrently, or null to query them one at a
+     * time on the resolving thread. The executor must not limit the number of threads, as a repository may resolve a
+     * parent module through this chain while it is being queried.
+     */
+    public UserResolverChain(CacheLockingManager cacheLockingManager, Executor probeExecutor) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.probeExecutor = probeExecutor;
+    }
+
     public void setSettings(ResolverSettings settings) {
         this.settings = settings;
     }
@@ -61,27 +85,76 @@ public class UserResolverChain implements DependencyToModuleResolver, ArtifactTo
     private ModuleResolution findLatestModule(DependencyDescriptor dependencyDescriptor) {
         List<RuntimeException> errors = new ArrayList<RuntimeException>();
         boolean isStaticVersion = !settings.getVersionMatcher().isDynamic(dependencyDescriptor.getDependencyRevisionId());
-        
-        ModuleResolution best = null;
+
+        List<RepositoryProbe> probes = new ArrayList<RepositoryProbe>();
         for (ModuleVersionRepository repository : moduleVersionRepositories) {
-            try {
-                ModuleVersionDescriptor module = repository.getDependency(dependencyDescriptor);
-                if (module != null) {
-                    ModuleResolution moduleResolution = new ModuleResolution(repository, module);
-                    if (isStaticVersion && !moduleResolution.isGeneratedModuleDescriptor()) {
-                        return moduleResolution;
+            probes.add(new RepositoryProbe(repository, dependencyDescriptor));
+        }
+        if (probeExecutor != null && probes.size() > 1) {
+            for (RepositoryProbe probe : probes) {
+                probeExecutor.execute(probe);
+            }
+        }
+
+        // Use the results in declaration order, regardless of the order in which the repositories answer
+        try {
+            ModuleResolution best = null;
+            for (RepositoryProbe probe : probes) {
+                try {
+                    ModuleVersionDescriptor module = probe.getResult();
+                    if (module != null) {
+                        ModuleResolution moduleResolution = new ModuleResolution(probe.repository, module);
+                        if (isStaticVersion && !moduleResolution.isGeneratedModuleDescriptor()) {
+                            return moduleResolution;
+                        }
+                        best = chooseBest(best, moduleResolution);
+                    }
+                } catch (RuntimeException e) {
+                    errors.add(e);
+                }
+            }
+
+            if (best == null && !errors.isEmpty()) {
+                throwResolutionFailure(errors);
+            }
+            return best;
+        } finally {
+            // Don't wait for the probes which are still running in the background. They are waited for by stop().
+            for (RepositoryProbe probe : probes) {
+                if (probe.cancel()) {
+                    synchronized (abandonedProbes) {
+                        abandonedProbes.add(probe);
                     }
-                    best = chooseBest(best, moduleResolution);
                 }
-            } catch (RuntimeException e) {
-                errors.add(e);
             }
         }
+    }
 
-        if (best == null && !errors.isEmpty()) {
-            throwResolutionFailure(errors);
+    /**
+     * Waits for the probes which were still running in the background when their module was found, so that none of
+     * them uses the cache after the resolve. Must be called by the thread which owns the artifact cache.
+     */
+    public void stop() {
+        synchronized (abandonedProbes) {
+            if (abandonedProbes.isEmpty()) {
+                return;
+            }
         }
-        return best;
+        cacheLockingManager.longRunningOperation("Wait for repository probes to finish", new Runnable() {
+            public void run() {
+                while (true) {
+                    RepositoryProbe probe;
+                    synchronized (abandonedProbes) {
+                        // A probe which is finishing may resolve a parent module through this chain, and abandon more probes
+                        probe = abandonedProbes.poll();
+                    }
+                    if (probe == null) {
+                        return;
+                    }
+                    probe.waitForCompletion();
+                }
+            }
+        });
     }
 
     private ModuleResolution chooseBest(ModuleResolution one, ModuleResolution two) {
@@ -137,6 +210,8 @@ public class UserResolverChain implements DependencyToModuleResolver, ArtifactTo
         List<ModuleVersionRepository> artifactRepositories = getArtifactResolversForModule(artifact.getModuleRevisionId());
         LOGGER.debug("Attempting to download {} using resolvers {}", artifact, artifactRepositories);
         for (ModuleVersionRepository resolver : artifactRepositories) {
+            TimedOperation operation = OperationTimer.getInstance().start("download artifact", artifact.toString());
+            operation.addAttribute("repository", resolver);
             try {
                 File artifactDownload = resolver.download(artifact);
                 if (artifactDownload != null) {
@@ -145,12 +220,160 @@ public class UserResolverChain implements DependencyToModuleResolver, ArtifactTo
             } catch (ArtifactResolveException e) {
                 LOGGER.warn(e.getMessage());
                 exceptionBuilder.addDownloadFailure(e);
+            } finally {
+                operation.finish();
             }
         }
 
         throw exceptionBuilder.buildException();
     }
 
+    /**
+     * Queries a single repository for a module, either on the resolving thread or in the background. A probe which has
+     * not started when its result is needed is run on the resolving thread, which owns the artifact cache. A probe run
+     * in the background takes ownership of the cache, so the resolving thread releases the cache while it waits. A probe
+     * whose result is not needed is cancelled: it does not query the repository if it has not done so yet, and its
+     * result is discarded.
+     */
+    private class RepositoryProbe implements Runnable {
+        private final ModuleVersionRepository repository;
+        private final DependencyDescriptor dependencyDescriptor;
+        private ProbeState state = ProbeState.NotStarted;
+        private boolean cancelled;
+        private ModuleVersionDescriptor result;
+        private Throwable failure;
+
+        private RepositoryProbe(ModuleVersionRepository repository, DependencyDescriptor dependencyDescriptor) {
+            this.repository = repository;
+            this.dependencyDescriptor = dependencyDescriptor;
+        }
+
+        /**
+         * Called by the background thread.
+         */
+        public void run() {
+            if (!start()) {
+                return;
+            }
+            try {
+                cacheLockingManager.useCache(String.format("Probe %s for %s", repository, dependencyDescriptor.getDependencyRevisionId()), new Runnable() {
+                    public void run() {
+                        probe();
+                    }
+                });
+            } catch (Throwable e) {
+                finish(null, e);
+            }
+        }
+
+        /**
+         * Called by the resolving thread.
+         */
+        public ModuleVersionDescriptor getResult() {
+            if (start()) {
+                probe();
+            } else {
+                awaitCompletion();
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            if (failure != null) {
+                throw UncheckedException.asUncheckedException(failure);
+            }
+            return result;
+        }
+
+        /**
+         * Discards the result of this probe. A probe which has not started yet is not run.
+         *
+         * @return true when the probe is still running in the background.
+         */
+        public synchronized boolean cancel() {
+            cancelled = true;
+            if (state == ProbeState.NotStarted) {
+                state = ProbeState.Done;
+            }
+            return state != ProbeState.Done;
+        }
+
+        private synchronized boolean start() {
+            if (state != ProbeState.NotStarted) {
+                return false;
+            }
+            state = ProbeState.Running;
+            return true;
+        }
+
+        /**
+         * Called by the resolving thread.
+         */
+        public void awaitCompletion() {
+            synchronized (this) {
+                if (state == ProbeState.Done) {
+                    return;
+                }
+            }
+            cacheLockingManager.longRunningOperation(String.format("Wait for %s to find %s", repository, dependencyDescriptor.getDependencyRevisionId()), new Runnable() {
+                public void run() {
+                    waitForCompletion();
+                }
+            });
+        }
+
+        /**
+         * Waits for this probe to finish. The caller must not own the artifact cache.
+         */
+        public synchronized void waitForCompletion() {
+            try {
+                while (state != ProbeState.Done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.asUncheckedException(e);
+            }
+        }
+
+        private void probe() {
+            synchronized (this) {
+                if (cancelled) {
+                    // Cancelled while waiting for the cache, so don't query the repository
+                    finish(null, null);
+                    return;
+                }
+            }
+            ModuleVersionDescriptor module = null;
+            Throwable probeFailure = null;
+            TimedOperation operation = OperationTimer.getInstance().start("resolve module", dependencyDescriptor.getDependencyRevisionId().toString());
+            operation.addAttribute("repository", repository);
+            try {
+                module = repository.getDependency(dependencyDescriptor);
+                operation.addAttribute("found", module != null);
+            } catch (Throwable e) {
+                probeFailure = e;
+            } finally {
+                operation.finish();
+            }
+            finish(module, probeFailure);
+        }
+
+        private synchronized void finish(ModuleVersionDescriptor module, Throwable probeFailure) {
+            if (state == ProbeState.Done) {
+                return;
+            }
+            if (!cancelled) {
+                result = module;
+                failure = probeFailure;
+            }
+            state = ProbeState.Done;
+            notifyAll();
+        }
+    }
+
+    private enum ProbeState {
+        NotStarted, Running, Done
+    }
+
     private class ModuleResolution implements ArtifactInfo {
         public final ModuleVersionRepository repository;
         public final ModuleVersionDescriptor module;
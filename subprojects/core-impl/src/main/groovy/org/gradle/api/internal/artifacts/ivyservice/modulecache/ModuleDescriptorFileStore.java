@@ -28,6 +28,8 @@ import java.util.Collections;
 public class ModuleDescriptorFileStore {
     private static final String DESCRIPTOR_ARTIFACT_PATTERN =
             "module-metadata/[organisation]/[module](/[branch])/[revision]/[resolverId].ivy.xml";
+    private static final String BINARY_DESCRIPTOR_ARTIFACT_PATTERN =
+            "module-metadata/[organisation]/[module](/[branch])/[revision]/[resolverId].ivy.bin";
 
     private final ArtifactCacheMetaData cacheMetaData;
 
@@ -36,13 +38,21 @@ public class ModuleDescriptorFileStore {
     }
     
     public File getModuleDescriptorFile(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId) {
-        String filePath = getFilePath(repository, moduleRevisionId);
+        String filePath = getFilePath(DESCRIPTOR_ARTIFACT_PATTERN, repository, moduleRevisionId);
         return new File(cacheMetaData.getCacheDir(), filePath);
     }
 
-    private String getFilePath(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId) {
+    /**
+     * Returns the file holding the binary encoding of the module descriptor, which sits alongside the ivy.xml file.
+     */
+    public File getBinaryModuleDescriptorFile(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId) {
+        String filePath = getFilePath(BINARY_DESCRIPTOR_ARTIFACT_PATTERN, repository, moduleRevisionId);
+        return new File(cacheMetaData.getCacheDir(), filePath);
+    }
+
+    private String getFilePath(String pattern, ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId) {
         String resolverId = repository.getId();
         Artifact artifact = new DefaultArtifact(moduleRevisionId, null, "ivy", "ivy", "xml", Collections.singletonMap("resolverId", resolverId));
-        return IvyPatternHelper.substitute(DESCRIPTOR_ARTIFACT_PATTERN, artifact);
+        return IvyPatternHelper.substitute(pattern, artifact);
     }
 }
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.ivy.core.module.descriptor.*;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.parser.ParserSettings;
+import org.gradle.cache.Serializer;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Encodes the parts of a {@link ModuleDescriptor} used to resolve dependencies in a compact binary format, which is
+ * much faster to read back than the equivalent ivy.xml. This covers the module's info and extra info, configurations,
+ * artifacts, dependencies and exclude rules. Conflict managers and dependency overrides are not used by dependency
+ * resolution, and are not kept. Strings are written once per descriptor and referred to by index afterwards.
+ */
+public class ModuleDescriptorSerializer implements Serializer<ModuleDescriptor> {
+    private static final int FORMAT_VERSION = 1;
+    private static final int NEW_STRING = -1;
+    private final ParserSettings settings;
+
+    /**
+     * @param settings Used to look up the pattern matchers of exclude rules when reading a descriptor.
+     */
+    public ModuleDescriptorSerializer(ParserSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Returns true if the given descriptor can be written by this serializer without losing information needed to
+     * resolve dependencies.
+     */
+    public boolean canWrite(ModuleDescriptor descriptor) {
+        for (DependencyDescriptor dependency : descriptor.getDependencies()) {
+            if (dependency.getAllIncludeRules().length > 0) {
+                return false;
+            }
+            for (DependencyArtifactDescriptor artifact : dependency.getAllDependencyArtifacts()) {
+                if (artifact.getConfigurations().length == 0) {
+                    return false;
+                }
+            }
+            for (ExcludeRule excludeRule : dependency.getAllExcludeRules()) {
+                if (excludeRule.getConfigurations().length == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public ModuleDescriptor read(InputStream instr) throws Exception {
+        Decoder decoder = new Decoder(new DataInputStream(instr));
+        if (decoder.instr.readInt() != FORMAT_VERSION) {
+            // Written by a different version of this serializer: discard it
+            return null;
+        }
+        return decoder.readDescriptor();
+    }
+
+    public void write(OutputStream outstr, ModuleDescriptor value) throws Exception {
+        Encoder encoder = new Encoder(new DataOutputStream(outstr));
+        encoder.outstr.writeInt(FORMAT_VERSION);
+        encoder.writeDescriptor(value);
+        encoder.outstr.flush();
+    }
+
+    private static class Encoder {
+        private final DataOutputStream outstr;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        private Encoder(DataOutputStream outstr) {
+            this.outstr = outstr;
+        }
+
+        void writeDescriptor(ModuleDescriptor descriptor) throws IOException {
+            writeModuleRevisionId(descriptor.getModuleRevisionId());
+            writeModuleRevisionId(descriptor.getResolvedModuleRevisionId());
+            writeNullableString(descriptor.getStatus());
+            writeDate(descriptor.getPublicationDate());
+            writeDate(descriptor.getResolvedPublicationDate());
+            outstr.writeLong(descriptor.getLastModified());
+            outstr.writeBoolean(descriptor.isDefault());
+            writeNullableString(descriptor.getDescription());
+            writeNullableString(descriptor.getHomePage());
+            writeAttributes(descriptor.getExtraInfo());
+
+            Configuration[] configurations = descriptor.getConfigurations();
+            outstr.writeInt(configurations.length);
+            for (Configuration configuration : configurations) {
+                writeString(configuration.getName());
+                writeString(configuration.getVisibility().toString());
+                writeNullableString(configuration.getDescription());
+                writeStrings(configuration.getExtends());
+                outstr.writeBoolean(configuration.isTransitive());
+                writeNullableString(configuration.getDeprecated());
+            }
+
+            Artifact[] artifacts = descriptor.getAllArtifacts();
+            outstr.writeInt(artifacts.length);
+            for (Artifact artifact : artifacts) {
+                writeArtifact(artifact.getName(), artifact.getType(), artifact.getExt(), artifact.getUrl(), artifact.getQualifiedExtraAttributes(), artifact.getConfigurations());
+            }
+
+            DependencyDescriptor[] dependencies = descriptor.getDependencies();
+            outstr.writeInt(dependencies.length);
+            for (DependencyDescriptor dependency : dependencies) {
+                writeDependency(dependency);
+            }
+
+            writeExcludeRules(descriptor.getAllExcludeRules());
+        }
+
+        void writeDependency(DependencyDescriptor dependency) throws IOException {
+            writeModuleRevisionId(dependency.getDependencyRevisionId());
+            writeModuleRevisionId(dependency.getDynamicConstraintDependencyRevisionId());
+            outstr.writeBoolean(dependency.isForce());
+            outstr.writeBoolean(dependency.isChanging());
+            outstr.writeBoolean(dependency.isTransitive());
+
+            String[] moduleConfigurations = dependency.getModuleConfigurations();
+            outstr.writeInt(moduleConfigurations.length);
+            for (String moduleConfiguration : moduleConfigurations) {
+                writeString(moduleConfiguration);
+                writeStrings(dependency.getDependencyConfigurations(moduleConfiguration));
+            }
+
+            DependencyArtifactDescriptor[] artifacts = dependency.getAllDependencyArtifacts();
+            outstr.writeInt(artifacts.length);
+            for (DependencyArtifactDescriptor artifact : artifacts) {
+                writeArtifact(artifact.getName(), artifact.getType(), artifact.getExt(), artifact.getUrl(), artifact.getQualifiedExtraAttributes(), artifact.getConfigurations());
+            }
+
+            writeExcludeRules(dependency.getAllExcludeRules());
+        }
+
+        void writeArtifact(String name, String type, String ext, URL url, Map<?, ?> extraAttributes, String[] configurations) throws IOException {
+            writeString(name);
+            writeString(type);
+            writeString(ext);
+            writeNullableString(url == null ? null : url.toExternalForm());
+            writeAttributes(extraAttributes);
+            writeStrings(configurations);
+        }
+
+        void writeExcludeRules(ExcludeRule[] excludeRules) throws IOException {
+            outstr.writeInt(excludeRules.length);
+            for (ExcludeRule excludeRule : excludeRules) {
+                ArtifactId id = excludeRule.getId();
+                writeString(id.getModuleId().getOrganisation());
+                writeString(id.getModuleId().getName());
+                writeString(id.getName());
+                writeString(id.getType());
+                writeString(id.getExt());
+                writeString(excludeRule.getMatcher().getName());
+                writeAttributes(excludeRule.getQualifiedExtraAttributes());
+                writeStrings(excludeRule.getConfigurations());
+            }
+        }
+
+        void writeModuleRevisionId(ModuleRevisionId id) throws IOException {
+            outstr.writeBoolean(id != null);
+            if (id != null) {
+                writeString(id.getOrganisation());
+                writeString(id.getName());
+                writeNullableString(id.getBranch());
+                writeNullableString(id.getRevision());
+                writeAttributes(id.getQualifiedExtraAttributes());
+            }
+        }
+
+        void writeDate(Date date) throws IOException {
+            outstr.writeBoolean(date != null);
+            if (date != null) {
+                outstr.writeLong(date.getTime());
+            }
+        }
+
+        void writeAttributes(Map<?, ?> attributes) throws IOException {
+            outstr.writeInt(attributes.size());
+            for (Map.Entry<?, ?> entry : attributes.entrySet()) {
+                writeString(entry.getKey().toString());
+                writeNullableString(entry.getValue() == null ? null : entry.getValue().toString());
+            }
+        }
+
+        void writeStrings(String[] values) throws IOException {
+            outstr.writeInt(values.length);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        void writeNullableString(String value) throws IOException {
+            outstr.writeBoolean(value != null);
+            if (value != null) {
+                writeString(value);
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            Integer index = strings.get(value);
+            if (index != null) {
+                outstr.writeInt(index);
+                return;
+            }
+            strings.put(value, strings.size());
+            outstr.writeInt(NEW_STRING);
+            byte[] bytes = value.getBytes("UTF-8");
+            outstr.writeInt(bytes.length);
+            outstr.write(bytes);
+        }
+    }
+
+    private class Decoder {
+        private final DataInputStream instr;
+        private final List<String> strings = new ArrayList<String>();
+
+        private Decoder(DataInputStream instr) {
+            this.instr = instr;
+        }
+
+        ModuleDescriptor readDescriptor() throws IOException {
+            ModuleRevisionId id = readModuleRevisionId();
+            ModuleRevisionId resolvedId = readModuleRevisionId();
+            String status = readNullableString();
+            Date publicationDate = readDate();
+            Date resolvedPublicationDate = readDate();
+            long lastModified = instr.readLong();
+            boolean isDefault = instr.readBoolean();
+
+            DefaultModuleDescriptor descriptor = new DefaultModuleDescriptor(id, status, publicationDate, isDefault);
+            descriptor.setResolvedModuleRevisionId(resolvedId);
+            descriptor.setResolvedPublicationDate(resolvedPublicationDate);
+            descriptor.setLastModified(lastModified);
+            descriptor.setDescription(readNullableString());
+            descriptor.setHomePage(readNullableString());
+            for (Map.Entry<String, String> entry : readAttributes().entrySet()) {
+                descriptor.addExtraInfo(entry.getKey(), entry.getValue());
+            }
+
+            int configurationCount = instr.readInt();
+            for (int i = 0; i < configurationCount; i++) {
+                String name = readString();
+                Configuration.Visibility visibility = Configuration.Visibility.getVisibility(readString());
+                String description = readNullableString();
+                String[] extendsFrom = readStrings();
+                boolean transitive = instr.readBoolean();
+                String deprecated = readNullableString();
+                descriptor.addConfiguration(new Configuration(name, visibility, description, extendsFrom, transitive, deprecated));
+            }
+
+            int artifactCount = instr.readInt();
+            for (int i = 0; i < artifactCount; i++) {
+                MDArtifact artifact = new MDArtifact(descriptor, readString(), readString(), readString(), readUrl(), readAttributes());
+                for (String configuration : readStrings()) {
+                    artifact.addConfiguration(configuration);
+                    descriptor.addArtifact(configuration, artifact);
+                }
+            }
+
+            int dependencyCount = instr.readInt();
+            for (int i = 0; i < dependencyCount; i++) {
+                descriptor.addDependency(readDependency(descriptor));
+            }
+
+            int excludeRuleCount = instr.readInt();
+            for (int i = 0; i < excludeRuleCount; i++) {
+                descriptor.addExcludeRule(readExcludeRule());
+            }
+            return descriptor;
+        }
+
+        DependencyDescriptor readDependency(ModuleDescriptor descriptor) throws IOException {
+            ModuleRevisionId id = readModuleRevisionId();
+            ModuleRevisionId dynamicConstraintId = readModuleRevisionId();
+            boolean force = instr.readBoolean();
+            boolean changing = instr.readBoolean();
+            boolean transitive = instr.readBoolean();
+            DefaultDependencyDescriptor dependency = new DefaultDependencyDescriptor(descriptor, id, dynamicConstraintId, force, changing, transitive);
+
+            int moduleConfigurationCount = instr.readInt();
+            for (int i = 0; i < moduleConfigurationCount; i++) {
+                String moduleConfiguration = readString();
+                for (String dependencyConfiguration : readStrings()) {
+                    dependency.addDependencyConfiguration(moduleConfiguration, dependencyConfiguration);
+                }
+            }
+
+            int artifactCount = instr.readInt();
+            for (int i = 0; i < artifactCount; i++) {
+                DefaultDependencyArtifactDescriptor artifact = new DefaultDependencyArtifactDescriptor(dependency, readString(), readString(), readString(), readUrl(), readAttributes());
+                for (String configuration : readStrings()) {
+                    artifact.addConfiguration(configuration);
+                    dependency.addDependencyArtifact(configuration, artifact);
+                }
+            }
+
+            int excludeRuleCount = instr.readInt();
+            for (int i = 0; i < excludeRuleCount; i++) {
+                DefaultExcludeRule excludeRule = readExcludeRule();
+                for (String configuration : excludeRule.getConfigurations()) {
+                    dependency.addExcludeRule(configuration, excludeRule);
+                }
+            }
+            return dependency;
+        }
+
+        DefaultExcludeRule readExcludeRule() throws IOException {
+            ModuleId moduleId = ModuleId.newInstance(readString(), readString());
+            ArtifactId artifactId = new ArtifactId(moduleId, readString(), readString(), readString());
+            String matcherName = readString();
+            PatternMatcher matcher = settings.getMatcher(matcherName);
+            if (matcher == null) {
+                throw new IOException(String.format("Unknown pattern matcher '%s'.", matcherName));
+            }
+            DefaultExcludeRule excludeRule = new DefaultExcludeRule(artifactId, matcher, readAttributes());
+            for (String configuration : readStrings()) {
+                excludeRule.addConfiguration(configuration);
+            }
+            return excludeRule;
+        }
+
+        ModuleRevisionId readModuleRevisionId() throws IOException {
+            if (!instr.readBoolean()) {
+                return null;
+            }
+            String organisation = readString();
+            String name = readString();
+            String branch = readNullableString();
+            String revision = readNullableString();
+            return ModuleRevisionId.newInstance(organisation, name, branch, revision, readAttributes());
+        }
+
+        Date readDate() throws IOException {
+            return instr.readBoolean() ? new Date(instr.readLong()) : null;
+        }
+
+        URL readUrl() throws IOException {
+            String url = readNullableString();
+            return url == null ? null : new URL(url);
+        }
+
+        Map<String, String> readAttributes() throws IOException {
+            int count = instr.readInt();
+            Map<String, String> attributes = new LinkedHashMap<String, String>();
+            for (int i = 0; i < count; i++) {
+                String name = readString();
+                attributes.put(name, readNullableString());
+            }
+            return attributes;
+        }
+
+        String[] readStrings() throws IOException {
+            String[] values = new String[instr.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        String readNullableString() throws IOException {
+            return instr.readBoolean() ? readString() : null;
+        }
+
+        String readString() throws IOException {
+            int index = instr.readInt();
+            if (index != NEW_STRING) {
+                return strings.get(index);
+            }
+            byte[] bytes = new byte[instr.readInt()];
+            instr.readFully(bytes);
+            String value = new String(bytes, "UTF-8");
+            strings.add(value);
+            return value;
+        }
+    }
+}
@@ -23,22 +23,97 @@ import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorWriter;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.IvyContextualiser;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleVersionRepository;
 import org.gradle.internal.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.File;
+import java.io.*;
 import java.net.URL;
 
 public class ModuleDescriptorStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleDescriptorStore.class);
 
     private final ModuleDescriptorFileStore moduleDescriptorFileStore;
     private final XmlModuleDescriptorParser parser = XmlModuleDescriptorParser.getInstance();
+    private final boolean binaryDescriptors;
 
     public ModuleDescriptorStore(ModuleDescriptorFileStore moduleDescriptorFileStore) {
+        this(moduleDescriptorFileStore, false);
+    }
+
+    /**
+     * @param binaryDescriptors When true, a binary encoding of each descriptor is kept alongside the ivy.xml file, and
+     * is used instead of parsing the ivy.xml file whenever it is up-to-date.
+     */
+    public ModuleDescriptorStore(ModuleDescriptorFileStore moduleDescriptorFileStore, boolean binaryDescriptors) {
         this.moduleDescriptorFileStore = moduleDescriptorFileStore;
+        this.binaryDescriptors = binaryDescriptors;
     }
 
     public ModuleDescriptor getModuleDescriptor(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId) {
         File moduleDescriptorFile = moduleDescriptorFileStore.getModuleDescriptorFile(repository, moduleRevisionId);
-        return parseModuleDescriptorFile(moduleDescriptorFile);
+        if (!binaryDescriptors) {
+            return parseModuleDescriptorFile(moduleDescriptorFile);
+        }
+
+        ParserSettings settings = IvyContextualiser.getIvyContext().getSettings();
+        ModuleDescriptorSerializer serializer = new ModuleDescriptorSerializer(settings);
+        File binaryDescriptorFile = moduleDescriptorFileStore.getBinaryModuleDescriptorFile(repository, moduleRevisionId);
+        ModuleDescriptor moduleDescriptor = readBinaryDescriptor(serializer, moduleDescriptorFile, binaryDescriptorFile);
+        if (moduleDescriptor != null) {
+            return moduleDescriptor;
+        }
+
+        // Missing or out-of-date: parse the ivy.xml file and encode the result, so the next lookup can skip the parse
+        moduleDescriptor = parseModuleDescriptorFile(moduleDescriptorFile);
+        writeBinaryDescriptor(serializer, moduleDescriptor, moduleDescriptorFile, binaryDescriptorFile);
+        return moduleDescriptor;
+    }
+
+    private ModuleDescriptor readBinaryDescriptor(ModuleDescriptorSerializer serializer, File moduleDescriptorFile, File binaryDescriptorFile) {
+        if (!binaryDescriptorFile.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream instr = new DataInputStream(new BufferedInputStream(new FileInputStream(binaryDescriptorFile)));
+            try {
+                // The binary file records the length and timestamp of the ivy.xml file it was encoded from
+                if (instr.readLong() != moduleDescriptorFile.length() || instr.readLong() != moduleDescriptorFile.lastModified()) {
+                    LOGGER.debug("Ignoring out-of-date binary module descriptor {}.", binaryDescriptorFile);
+                    return null;
+                }
+                return serializer.read(instr);
+            } finally {
+                instr.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not read binary module descriptor %s. Using %s instead.", binaryDescriptorFile, moduleDescriptorFile), e);
+            return null;
+        }
+    }
+
+    private void writeBinaryDescriptor(ModuleDescriptorSerializer serializer, ModuleDescriptor moduleDescriptor, File moduleDescriptorFile, File binaryDescriptorFile) {
+        if (!serializer.canWrite(moduleDescriptor)) {
+            return;
+        }
+        // Write to a temporary file and move it into place, so that a partially written file is never read
+        File tempFile = new File(binaryDescriptorFile.getParentFile(), binaryDescriptorFile.getName() + ".tmp");
+        try {
+            DataOutputStream outstr = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                outstr.writeLong(moduleDescriptorFile.length());
+                outstr.writeLong(moduleDescriptorFile.lastModified());
+                serializer.write(outstr, moduleDescriptor);
+            } finally {
+                outstr.close();
+            }
+            binaryDescriptorFile.delete();
+            if (!tempFile.renameTo(binaryDescriptorFile)) {
+                throw new IOException(String.format("Could not rename %s to %s.", tempFile, binaryDescriptorFile));
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not write binary module descriptor %s.", binaryDescriptorFile), e);
+            tempFile.delete();
+        }
     }
 
     private ModuleDescriptor parseModuleDescriptorFile(File moduleDescriptorFile)  {
@@ -53,6 +128,10 @@ public class ModuleDescriptorStore {
 
     public void putModuleDescriptor(ModuleVersionRepository repository, ModuleDescriptor moduleDescriptor) {
         File moduleDescriptorFile = moduleDescriptorFileStore.getModuleDescriptorFile(repository, moduleDescriptor.getModuleRevisionId());
+        if (binaryDescriptors) {
+            // The binary form is written from the ivy.xml file on the next lookup, so that both always hold the same data
+            moduleDescriptorFileStore.getBinaryModuleDescriptorFile(repository, moduleDescriptor.getModuleRevisionId()).delete();
+        }
         try {
             XmlModuleDescriptorWriter.write(moduleDescriptor, moduleDescriptorFile);
         } catch (Exception e) {
@@ -27,6 +27,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.IvyAdapter;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectModuleRegistry;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,14 +38,35 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
     private final ResolveIvyFactory ivyFactory;
     private final ClientModuleRegistry clientModuleRegistry;
     private final ProjectModuleRegistry projectModuleRegistry;
+    private final CacheLockingManager cacheLockingManager;
+    private final ExecutorFactory executorFactory;
+    private final int prefetchThreadCount;
+    private final ConcurrentArtifactDownloader artifactDownloader;
 
     public DefaultDependencyResolver(ResolveIvyFactory ivyFactory, ModuleDescriptorConverter moduleDescriptorConverter, ResolvedArtifactFactory resolvedArtifactFactory,
                                      ProjectModuleRegistry projectModuleRegistry, ClientModuleRegistry clientModuleRegistry) {
+        this(ivyFactory, moduleDescriptorConverter, resolvedArtifactFactory, projectModuleRegistry, clientModuleRegistry, null, null, 0, null);
+    }
+
+    /**
+     * @param prefetchThreadCount The maximum number of threads used to download module descriptors concurrently, or 0
+     * to download them on the resolving thread.
+     * @param artifactDownloader Used to download the artifact files of each resolved configuration concurrently, or
+     * null to download each file as it is needed.
+     */
+    public DefaultDependencyResolver(ResolveIvyFactory ivyFactory, ModuleDescriptorConverter moduleDescriptorConverter, ResolvedArtifactFactory resolvedArtifactFactory,
+                                     ProjectModuleRegistry projectModuleRegistry, ClientModuleRegistry clientModuleRegistry,
+                                     CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, int prefetchThreadCount,
+                                     ConcurrentArtifactDownloader artifactDownloader) {
         this.ivyFactory = ivyFactory;
         this.moduleDescriptorConverter = moduleDescriptorConverter;
         this.resolvedArtifactFactory = resolvedArtifactFactory;
         this.clientModuleRegistry = clientModuleRegistry;
         this.projectModuleRegistry = projectModuleRegistry;
+        this.cacheLockingManager = cacheLockingManager;
+        this.executorFactory = executorFactory;
+        this.prefetchThreadCount = prefetchThreadCount;
+        this.artifactDownloader = artifactDownloader;
     }
 
     public ResolvedConfiguration resolve(ConfigurationInternal configuration) throws ResolveException {
@@ -52,7 +74,14 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
 
         IvyAdapter ivyAdapter = ivyFactory.create(configuration);
 
-        DependencyToModuleResolver dependencyResolver = constructDependencyResolver(configuration, ivyAdapter.getDependencyToModuleResolver());
+        DependencyToModuleResolver ivyBackedResolver = ivyAdapter.getDependencyToModuleResolver();
+        PrefetchingDependencyToModuleResolver prefetchingResolver = null;
+        if (prefetchThreadCount > 0) {
+            // Only modules from repositories are prefetched, as project and client modules are not expensive to resolve
+            prefetchingResolver = new PrefetchingDependencyToModuleResolver(ivyBackedResolver, cacheLockingManager, executorFactory, prefetchThreadCount);
+            ivyBackedResolver = prefetchingResolver;
+        }
+        DependencyToModuleResolver dependencyResolver = constructDependencyResolver(configuration, ivyBackedResolver);
         ArtifactToFileResolver artifactResolver = constructArtifactResolver(ivyAdapter.getArtifactToFileResolver());
 
         ModuleConflictResolver conflictResolver;
@@ -62,8 +91,16 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
             conflictResolver = new LatestModuleConflictResolver();
         }
 
-        DependencyGraphBuilder builder = new DependencyGraphBuilder(moduleDescriptorConverter, resolvedArtifactFactory, artifactResolver, dependencyResolver, conflictResolver);
-        DefaultLenientConfiguration result = builder.resolve(configuration, ivyAdapter.getResolveData());
+        DependencyGraphBuilder builder = new DependencyGraphBuilder(moduleDescriptorConverter, resolvedArtifactFactory, artifactResolver, dependencyResolver, conflictResolver, artifactDownloader);
+        DefaultLenientConfiguration result;
+        try {
+            result = builder.resolve(configuration, ivyAdapter.getResolveData());
+        } finally {
+            if (prefetchingResolver != null) {
+                prefetchingResolver.stop();
+            }
+            ivyAdapter.stop();
+        }
         return new DefaultResolvedConfiguration(result);
     }
 
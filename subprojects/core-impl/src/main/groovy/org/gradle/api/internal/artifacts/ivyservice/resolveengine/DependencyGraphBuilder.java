@@ -39,13 +39,20 @@ public class DependencyGraphBuilder {
     private final DependencyToModuleResolver dependencyResolver;
     private final ArtifactToFileResolver artifactResolver;
     private final ForcedModuleConflictResolver conflictResolver;
+    private final ConcurrentArtifactDownloader artifactDownloader;
 
     public DependencyGraphBuilder(ModuleDescriptorConverter moduleDescriptorConverter, ResolvedArtifactFactory resolvedArtifactFactory, ArtifactToFileResolver artifactResolver, DependencyToModuleResolver dependencyResolver, ModuleConflictResolver conflictResolver) {
+        this(moduleDescriptorConverter, resolvedArtifactFactory, artifactResolver, dependencyResolver, conflictResolver, null);
+    }
+
+    public DependencyGraphBuilder(ModuleDescriptorConverter moduleDescriptorConverter, ResolvedArtifactFactory resolvedArtifactFactory, ArtifactToFileResolver artifactResolver, DependencyToModuleResolver dependencyResolver, ModuleConflictResolver conflictResolver,
+                                  ConcurrentArtifactDownloader artifactDownloader) {
         this.moduleDescriptorConverter = moduleDescriptorConverter;
         this.resolvedArtifactFactory = resolvedArtifactFactory;
         this.artifactResolver = artifactResolver;
         this.dependencyResolver = dependencyResolver;
         this.conflictResolver = new ForcedModuleConflictResolver(conflictResolver);
+        this.artifactDownloader = artifactDownloader;
     }
 
     public DefaultLenientConfiguration resolve(ConfigurationInternal configuration, ResolveData resolveData) throws ResolveException {
@@ -54,7 +61,7 @@ public class DependencyGraphBuilder {
         ResolveState resolveState = new ResolveState(moduleDescriptor, configuration.getName(), dependencyResolver, resolveData);
         traverseGraph(resolveState);
 
-        DefaultLenientConfiguration result = new DefaultLenientConfiguration(configuration, resolveState.root.getResult());
+        DefaultLenientConfiguration result = new DefaultLenientConfiguration(configuration, resolveState.root.getResult(), artifactDownloader);
         assembleResult(resolveState, result);
 
         return result;
@@ -78,6 +85,12 @@ public class DependencyGraphBuilder {
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
 
+                // Create the selectors for all outgoing edges before resolving any of them, so that a prefetching
+                // resolver can fetch their module descriptors concurrently
+                for (DependencyEdge dependency : dependencies) {
+                    resolveState.getSelector(dependency.dependencyDescriptor);
+                }
+
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
 
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.DependencyToModuleResolver;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolveException;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolver;
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link DependencyToModuleResolver} which starts resolving the module descriptor of each dependency in the
+ * background as soon as a resolver is created for it, using a bounded number of threads. The returned resolvers wait
+ * for the background resolution to complete before answering, so the results do not depend on the order in which
+ * the descriptors are downloaded.
+ *
+ * <p>Only the dependencies which resolvers are created for are prefetched. {@link DependencyGraphBuilder} creates the
+ * selectors for the outgoing dependencies of the node it is visiting, so the descriptors of that node's dependencies
+ * are downloaded concurrently. The dependencies of the other nodes waiting in the traversal queue are not prefetched
+ * until the builder visits them.</p>
+ *
+ * <p>The background threads take ownership of the artifact cache while they use it, so the resolving thread releases
+ * the cache while it waits for them. The backing resolver must be safe to use from several threads, and the resolvers
+ * it creates must be usable from a thread other than the one that created them.</p>
+ */
+public class PrefetchingDependencyToModuleResolver implements DependencyToModuleResolver, Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchingDependencyToModuleResolver.class);
+    private final DependencyToModuleResolver resolver;
+    private final CacheLockingManager cacheLockingManager;
+    private final StoppableExecutor executor;
+    private final int maxThreads;
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final LinkedList<PrefetchingModuleVersionResolver> queue = new LinkedList<PrefetchingModuleVersionResolver>();
+    private int busyThreads;
+
+    public PrefetchingDependencyToModuleResolver(DependencyToModuleResolver resolver, CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, int maxThreads) {
+        this.resolver = resolver;
+        this.cacheLockingManager = cacheLockingManager;
+        this.maxThreads = maxThreads;
+        executor = executorFactory.create("Module metadata prefetch");
+    }
+
+    public ModuleVersionResolver create(DependencyDescriptor dependencyDescriptor) {
+        ModuleVersionResolver moduleVersionResolver = resolver.create(dependencyDescriptor);
+        if (moduleVersionResolver == null) {
+            return null;
+        }
+        PrefetchingModuleVersionResolver prefetchingResolver = new PrefetchingModuleVersionResolver(dependencyDescriptor, moduleVersionResolver);
+        lock.lock();
+        try {
+            queue.add(prefetchingResolver);
+            if (busyThreads < maxThreads) {
+                busyThreads++;
+                executor.execute(new PrefetchWorker());
+            }
+        } finally {
+            lock.unlock();
+        }
+        return prefetchingResolver;
+    }
+
+    /**
+     * Discards the descriptors which have not started downloading, and waits for the remaining downloads to finish.
+     * Must be called by the thread which owns the artifact cache.
+     */
+    public void stop() {
+        boolean busy;
+        lock.lock();
+        try {
+            for (PrefetchingModuleVersionResolver prefetchingResolver : queue) {
+                prefetchingResolver.state = PrefetchState.Done;
+            }
+            queue.clear();
+            busy = busyThreads > 0;
+        } finally {
+            lock.unlock();
+        }
+        if (busy) {
+            cacheLockingManager.longRunningOperation("Wait for module metadata prefetch to finish", new Runnable() {
+                public void run() {
+                    lock.lock();
+                    try {
+                        while (busyThreads > 0) {
+                            condition.await();
+                        }
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.asUncheckedException(e);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+        }
+        executor.stop();
+    }
+
+    private enum PrefetchState {
+        Queued, Running, Done
+    }
+
+    private class PrefetchWorker implements Runnable {
+        public void run() {
+            while (true) {
+                final PrefetchingModuleVersionResolver next;
+                lock.lock();
+                try {
+                    next = queue.poll();
+                    if (next == null) {
+                        busyThreads--;
+                        condition.signalAll();
+                        return;
+                    }
+                    next.state = PrefetchState.Running;
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    cacheLockingManager.useCache(String.format("Prefetch %s", next.dependencyDescriptor.getDependencyRevisionId()), new Runnable() {
+                        public void run() {
+                            next.resolver.getDescriptor();
+                        }
+                    });
+                } catch (Throwable t) {
+                    // The failure is reported when the descriptor is used
+                    LOGGER.debug(String.format("Could not prefetch %s.", next.dependencyDescriptor.getDependencyRevisionId()), t);
+                } finally {
+                    lock.lock();
+                    try {
+                        next.state = PrefetchState.Done;
+                        condition.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    private class PrefetchingModuleVersionResolver implements ModuleVersionResolver {
+        private final DependencyDescriptor dependencyDescriptor;
+        private final ModuleVersionResolver resolver;
+        private PrefetchState state = PrefetchState.Queued;
+
+        private PrefetchingModuleVersionResolver(DependencyDescriptor dependencyDescriptor, ModuleVersionResolver resolver) {
+            this.dependencyDescriptor = dependencyDescriptor;
+            this.resolver = resolver;
+        }
+
+        public ModuleRevisionId getId() throws ModuleVersionResolveException {
+            awaitPrefetch();
+            return resolver.getId();
+        }
+
+        public ModuleDescriptor getDescriptor() throws ModuleVersionResolveException {
+            awaitPrefetch();
+            return resolver.getDescriptor();
+        }
+
+        /**
+         * Waits for the background resolution of this descriptor to finish. When it has not started yet, takes it off
+         * the queue so that it is resolved by the calling thread instead.
+         */
+        private void awaitPrefetch() {
+            lock.lock();
+            try {
+                if (state == PrefetchState.Queued) {
+                    queue.remove(this);
+                    state = PrefetchState.Done;
+                }
+                if (state == PrefetchState.Done) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            cacheLockingManager.longRunningOperation(String.format("Wait for %s", dependencyDescriptor.getDependencyRevisionId()), new Runnable() {
+                public void run() {
+                    lock.lock();
+                    try {
+                        while (state != PrefetchState.Done) {
+                            condition.await();
+                        }
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.asUncheckedException(e);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -21,11 +21,14 @@ import org.apache.ivy.plugins.repository.TransferListener;
 import org.gradle.logging.ProgressLogger;
 import org.gradle.logging.ProgressLoggerFactory;
 
+/**
+ * Reports the progress of each transfer through a {@link ProgressLogger}. A single listener is shared by all
+ * repositories, so the state of each transfer is kept per thread to allow transfers to run concurrently.
+ */
 public class ProgressLoggingTransferListener implements TransferListener {
     private final ProgressLoggerFactory progressLoggerFactory;
     private final Class loggingClass;
-    private ProgressLogger logger;
-    private long total;
+    private final ThreadLocal<Transfer> currentTransfer = new ThreadLocal<Transfer>();
 
     public ProgressLoggingTransferListener(ProgressLoggerFactory progressLoggerFactory, Class loggingClass) {
         this.progressLoggerFactory = progressLoggerFactory;
@@ -37,19 +40,24 @@ public class ProgressLoggingTransferListener implements TransferListener {
             return;
         }
         if (evt.getEventType() == TransferEvent.TRANSFER_STARTED) {
-            total = 0;
-            logger = progressLoggerFactory.newOperation(loggingClass);
+            ProgressLogger logger = progressLoggerFactory.newOperation(loggingClass);
             String description = String.format("%s %s", StringUtils.capitalize(getRequestType(evt)), evt.getResource().getName());
             logger.setDescription(description);
             logger.setLoggingHeader(description);
             logger.started();
+            currentTransfer.set(new Transfer(logger));
+        }
+        Transfer transfer = currentTransfer.get();
+        if (transfer == null) {
+            return;
         }
         if (evt.getEventType() == TransferEvent.TRANSFER_PROGRESS) {
-            total += evt.getLength();
-            logger.progress(String.format("%s/%s %sed", getLengthText(total), getLengthText(evt), getRequestType(evt)));
+            transfer.total += evt.getLength();
+            transfer.logger.progress(String.format("%s/%s %sed", getLengthText(transfer.total), getLengthText(evt), getRequestType(evt)));
         }
         if (evt.getEventType() == TransferEvent.TRANSFER_COMPLETED) {
-            logger.completed();
+            transfer.logger.completed();
+            currentTransfer.remove();
         }
     }
 
@@ -78,4 +86,13 @@ public class ProgressLoggingTransferListener implements TransferListener {
         }
     }
 
+    private static class Transfer {
+        private final ProgressLogger logger;
+        private long total;
+
+        private Transfer(ProgressLogger logger) {
+            this.logger = logger;
+        }
+    }
+
 }
@@ -26,26 +26,39 @@ import org.gradle.api.internal.artifacts.repositories.ProgressLoggingTransferLis
 import org.gradle.api.internal.artifacts.repositories.cachemanager.DownloadingRepositoryCacheManager;
 import org.gradle.api.internal.artifacts.repositories.cachemanager.LocalFileRepositoryCacheManager;
 import org.gradle.api.internal.artifacts.repositories.transport.file.FileTransport;
+import org.gradle.api.internal.artifacts.repositories.transport.http.HttpClientConnectionPool;
 import org.gradle.api.internal.artifacts.repositories.transport.http.HttpTransport;
+import org.gradle.internal.Stoppable;
 import org.gradle.logging.ProgressLoggerFactory;
 
 import java.net.URI;
 
-public class RepositoryTransportFactory {
+public class RepositoryTransportFactory implements Stoppable {
     private final ExternalArtifactCache externalArtifactCache;
     private final TransferListener transferListener;
     private final RepositoryCacheManager downloadingCacheManager;
     private final RepositoryCacheManager localCacheManager;
+    private final HttpClientConnectionPool httpConnectionPool;
 
     public RepositoryTransportFactory(ExternalArtifactCache externalArtifactCache, ProgressLoggerFactory progressLoggerFactory, ArtifactFileStore fileStore) {
+        this(externalArtifactCache, progressLoggerFactory, fileStore, null);
+    }
+
+    /**
+     * @param httpConnectionPool The pool shared by all HTTP repositories, or null to give each HTTP repository
+     * connections of its own.
+     */
+    public RepositoryTransportFactory(ExternalArtifactCache externalArtifactCache, ProgressLoggerFactory progressLoggerFactory, ArtifactFileStore fileStore,
+                                      HttpClientConnectionPool httpConnectionPool) {
         this.externalArtifactCache = externalArtifactCache;
+        this.httpConnectionPool = httpConnectionPool;
         this.transferListener = new ProgressLoggingTransferListener(progressLoggerFactory, RepositoryTransport.class);
         this.downloadingCacheManager = new DownloadingRepositoryCacheManager("downloading", fileStore);
         this.localCacheManager = new LocalFileRepositoryCacheManager("local");
     }
 
     public RepositoryTransport createHttpTransport(String name, PasswordCredentials credentials) {
-        return decorate(new HttpTransport(name, credentials, externalArtifactCache, downloadingCacheManager));
+        return decorate(new HttpTransport(name, credentials, externalArtifactCache, downloadingCacheManager, httpConnectionPool));
     }
 
     public RepositoryTransport createFileTransport(String name) {
@@ -74,6 +87,12 @@ public class RepositoryTransportFactory {
         return transferListener;
     }
 
+    public void stop() {
+        if (httpConnectionPool != null) {
+            httpConnectionPool.stop();
+        }
+    }
+
     private class ListeningRepositoryTransport implements RepositoryTransport {
         private final RepositoryTransport delegate;
 
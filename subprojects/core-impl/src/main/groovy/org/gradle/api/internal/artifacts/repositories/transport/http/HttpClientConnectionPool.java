@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.repositories.transport.http;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.gradle.internal.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of HTTP connections which is shared by the clients of all HTTP repositories. Connections are kept alive
+ * between requests, so that later requests to the same host reuse them rather than connecting (and, for HTTPS,
+ * handshaking) again. The clients created by the pool may be used by several threads at once.
+ */
+public class HttpClientConnectionPool implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConnectionPool.class);
+    private final ThreadSafeClientConnManager connectionManager;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger openedConnections = new AtomicInteger();
+
+    public HttpClientConnectionPool(int maxConnectionsPerHost, int maxConnections) {
+        connectionManager = new CountingConnectionManager(SchemeRegistryFactory.createDefault());
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        connectionManager.setMaxTotal(maxConnections);
+    }
+
+    /**
+     * Creates a client which uses the connections of this pool.
+     */
+    public DefaultHttpClient createClient() {
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+        client.addRequestInterceptor(new HttpRequestInterceptor() {
+            public void process(HttpRequest request, HttpContext context) {
+                requests.incrementAndGet();
+            }
+        });
+        return client;
+    }
+
+    /**
+     * Returns the number of requests made by the clients of this pool.
+     */
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of connections opened by this pool. Each request which did not open a connection reused one.
+     */
+    public int getOpenedConnectionCount() {
+        return openedConnections.get();
+    }
+
+    /**
+     * Returns the number of connections currently open, both in use and idle.
+     */
+    public int getOpenConnectionCount() {
+        return connectionManager.getConnectionsInPool();
+    }
+
+    /**
+     * Closes all connections of this pool.
+     */
+    public void stop() {
+        if (requests.get() > 0) {
+            LOGGER.info("Made {} HTTP requests using {} connections.", requests.get(), openedConnections.get());
+        }
+        connectionManager.shutdown();
+    }
+
+    private class CountingConnectionManager extends ThreadSafeClientConnManager {
+        public CountingConnectionManager(SchemeRegistry schemeRegistry) {
+            super(schemeRegistry);
+        }
+
+        @Override
+        protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemeRegistry) {
+            return new DefaultClientConnectionOperator(schemeRegistry) {
+                @Override
+                public void openConnection(OperatedClientConnection conn, HttpHost target, InetAddress local, HttpContext context, HttpParams params) throws IOException {
+                    openedConnections.incrementAndGet();
+                    LOGGER.debug("Opening HTTP connection to {}.", target);
+                    super.openConnection(conn, target, local, context, params);
+                }
+            };
+        }
+    }
+}
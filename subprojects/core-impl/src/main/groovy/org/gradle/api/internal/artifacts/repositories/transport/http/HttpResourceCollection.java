@@ -28,15 +28,17 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.FileEntity;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.apache.http.impl.conn.ProxySelectorRoutePlanner;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.apache.ivy.core.module.id.ArtifactRevisionId;
 import org.apache.ivy.plugins.repository.AbstractRepository;
 import org.apache.ivy.plugins.repository.BasicResource;
-import org.apache.ivy.plugins.repository.RepositoryCopyProgressListener;
 import org.apache.ivy.plugins.repository.Resource;
 import org.apache.ivy.plugins.repository.TransferEvent;
+import org.apache.ivy.util.CopyProgressEvent;
+import org.apache.ivy.util.CopyProgressListener;
 import org.apache.ivy.util.url.ApacheURLLister;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.artifacts.repositories.PasswordCredentials;
@@ -60,17 +62,34 @@ import java.util.List;
 
 /**
  * A repository which uses commons-httpclient to access resources using HTTP/HTTPS.
+ *
+ * <p>Several threads may use the repository at once. Each thread keeps track of its own open resources, and each
+ * transfer fires its own transfer events. When created with a {@link HttpClientConnectionPool}, the repository shares
+ * its connections with the other repositories using the pool.</p>
  */
 public class HttpResourceCollection extends AbstractRepository implements ResourceCollection {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceCollection.class);
-    private final DefaultHttpClient client = new DefaultHttpClient();
-    private final RepositoryCopyProgressListener progress = new RepositoryCopyProgressListener(this);
-    private final List<HttpResource> openResources = new ArrayList<HttpResource>();
+    private final DefaultHttpClient client;
+    private final ThreadLocal<List<HttpResource>> openResources = new ThreadLocal<List<HttpResource>>() {
+        @Override
+        protected List<HttpResource> initialValue() {
+            return new ArrayList<HttpResource>();
+        }
+    };
 
     private final ExternalArtifactCache externalArtifactCache;
     private final UsernamePasswordCredentials httpClientCredentials;
 
     public HttpResourceCollection(HttpSettings httpSettings, ExternalArtifactCache externalArtifactCache) {
+        this(httpSettings, externalArtifactCache, null);
+    }
+
+    /**
+     * @param connectionPool The pool to take connections from, or null to use connections which are not shared with
+     * other repositories.
+     */
+    public HttpResourceCollection(HttpSettings httpSettings, ExternalArtifactCache externalArtifactCache, HttpClientConnectionPool connectionPool) {
+        client = connectionPool == null ? new DefaultHttpClient(new ThreadSafeClientConnManager()) : connectionPool.createClient();
         PasswordCredentials credentials = httpSettings.getCredentials();
         if (GUtil.isTrue(credentials.getUsername())) {
             httpClientCredentials = new UsernamePasswordCredentials(credentials.getUsername(), credentials.getPassword());
@@ -108,16 +127,17 @@ public class HttpResourceCollection extends AbstractRepository implements Resour
     }
 
     private void abortOpenResources() {
-        for (HttpResource openResource : openResources) {
+        List<HttpResource> resources = openResources.get();
+        for (HttpResource openResource : resources) {
             LOGGER.warn("Forcing close on abandoned resource: " + openResource);
             openResource.close();
         }
-        openResources.clear();
+        resources.clear();
     }
 
     private HttpResource recordOpenGetResource(HttpResource httpResource) {
         if (httpResource instanceof HttpResponseResource) {
-            openResources.add(httpResource);
+            openResources.get().add(httpResource);
         }
         return httpResource;
     }
@@ -201,11 +221,11 @@ public class HttpResourceCollection extends AbstractRepository implements Resour
             }
             return null;
         } catch (IOException e) {
+            // Discard the connection, as the response may not have been fully read. Otherwise the response has been
+            // consumed, and the connection can be reused.
+            get.abort();
             LOGGER.warn("Checksum missing at {} due to: {}", checksumUrl, e.getMessage());
             return null;
-        } finally {
-            // TODO:DAZ Don't need this
-            get.abort();
         }
     }
 
@@ -218,19 +238,18 @@ public class HttpResourceCollection extends AbstractRepository implements Resour
             throw new IllegalArgumentException("Can only download HttpResource");
         }
         HttpResource resource = (HttpResource) res;
-        fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+        Transfer transfer = new Transfer(resource, TransferEvent.REQUEST_GET, resource.getContentLength());
+        transfer.initiated();
         try {
-            progress.setTotalLength(resource.getContentLength());
-            resource.writeTo(destination, progress);
+            resource.writeTo(destination, transfer);
         } catch (IOException e) {
-            fireTransferError(e);
+            transfer.failed(e);
             throw e;
         } catch (Exception e) {
-            fireTransferError(e);
+            transfer.failed(e);
             throw UncheckedException.asUncheckedException(e);
         } finally {
-            progress.setTotalLength(null);
-            openResources.remove(resource);
+            openResources.get().remove(resource);
         }
     }
 
@@ -238,18 +257,17 @@ public class HttpResourceCollection extends AbstractRepository implements Resour
     protected void put(final File source, String destination, boolean overwrite) throws IOException {
         LOGGER.debug("Attempting to put resource {}.", destination);
         assert source.isFile();
-        fireTransferInitiated(new BasicResource(destination, true, source.length(), source.lastModified(), false), TransferEvent.REQUEST_PUT);
+        Resource resource = new BasicResource(destination, true, source.length(), source.lastModified(), false);
+        Transfer transfer = new Transfer(resource, TransferEvent.REQUEST_PUT, source.length());
+        transfer.initiated();
         try {
-            progress.setTotalLength(source.length());
             doPut(source, destination);
         } catch (IOException e) {
-            fireTransferError(e);
+            transfer.failed(e);
             throw e;
         } catch (Exception e) {
-            fireTransferError(e);
+            transfer.failed(e);
             throw UncheckedException.asUncheckedException(e);
-        } finally {
-            progress.setTotalLength(null);
         }
     }
 
@@ -314,4 +332,51 @@ public class HttpResourceCollection extends AbstractRepository implements Resour
         int statusCode = response.getStatusLine().getStatusCode();
         return statusCode >= 200 && statusCode < 300;
     }
+
+    /**
+     * Fires the events of a single transfer to the listeners of this repository. {@link AbstractRepository} keeps the
+     * resource being transferred in a field of the repository, which concurrent transfers would overwrite.
+     */
+    private class Transfer implements CopyProgressListener {
+        private final Resource resource;
+        private final int requestType;
+        private final Long totalLength;
+
+        private Transfer(Resource resource, int requestType, Long totalLength) {
+            this.resource = resource;
+            this.requestType = requestType;
+            this.totalLength = totalLength;
+        }
+
+        public void initiated() {
+            fireTransferEvent(new TransferEvent(HttpResourceCollection.this, resource, TransferEvent.TRANSFER_INITIATED, requestType));
+        }
+
+        public void start(CopyProgressEvent evt) {
+            fireTransferEvent(new LengthTransferEvent(HttpResourceCollection.this, resource, TransferEvent.TRANSFER_STARTED, requestType, totalLength));
+        }
+
+        public void progress(CopyProgressEvent evt) {
+            fireTransferEvent(new TransferEvent(HttpResourceCollection.this, resource, evt.getReadBytes(), requestType));
+        }
+
+        public void end(CopyProgressEvent evt) {
+            progress(evt);
+            fireTransferEvent(new LengthTransferEvent(HttpResourceCollection.this, resource, TransferEvent.TRANSFER_COMPLETED, requestType, evt.getTotalReadBytes()));
+        }
+
+        public void failed(Exception e) {
+            fireTransferEvent(new TransferEvent(HttpResourceCollection.this, resource, e, requestType));
+        }
+    }
+
+    private static class LengthTransferEvent extends TransferEvent {
+        private LengthTransferEvent(HttpResourceCollection repository, Resource resource, int eventType, int requestType, Long totalLength) {
+            super(repository, resource, eventType, requestType);
+            if (totalLength != null) {
+                setTotalLength(totalLength);
+                setTotalLengthSet(true);
+            }
+        }
+    }
 }
@@ -29,17 +29,24 @@ public class HttpTransport implements RepositoryTransport {
     private final PasswordCredentials credentials;
     private final ExternalArtifactCache externalArtifactCache;
     private final RepositoryCacheManager repositoryCacheManager;
+    private final HttpClientConnectionPool connectionPool;
 
     public HttpTransport(String name, PasswordCredentials credentials, ExternalArtifactCache externalArtifactCache, RepositoryCacheManager repositoryCacheManager) {
+        this(name, credentials, externalArtifactCache, repositoryCacheManager, null);
+    }
+
+    public HttpTransport(String name, PasswordCredentials credentials, ExternalArtifactCache externalArtifactCache, RepositoryCacheManager repositoryCacheManager,
+                         HttpClientConnectionPool connectionPool) {
         this.name = name;
         this.credentials = credentials;
         this.externalArtifactCache = externalArtifactCache;
         this.repositoryCacheManager = repositoryCacheManager;
+        this.connectionPool = connectionPool;
     }
 
     public ResourceCollection getRepositoryAccessor() {
         HttpSettings httpSettings = new DefaultHttpSettings(credentials);
-        HttpResourceCollection repository = new HttpResourceCollection(httpSettings, externalArtifactCache);
+        HttpResourceCollection repository = new HttpResourceCollection(httpSettings, externalArtifactCache, connectionPool);
         repository.setName(name);
         return repository;
     }
@@ -21,6 +21,7 @@ import org.gradle.api.artifacts.ProjectDependency;
 import org.gradle.api.internal.Instantiator;
 import org.gradle.api.internal.artifacts.ProjectDependenciesBuildInstruction;
 import org.gradle.api.internal.artifacts.dependencies.DefaultProjectDependency;
+import org.gradle.api.internal.project.ProjectAccessListener;
 import org.gradle.api.internal.notations.parsers.TypedNotationParser;
 
 import java.util.Collection;
@@ -32,11 +33,13 @@ public class DependencyProjectNotationParser extends TypedNotationParser<Project
 
     private final ProjectDependenciesBuildInstruction instruction;
     private final Instantiator instantiator;
+    private final ProjectAccessListener projectAccessListener;
 
-    public DependencyProjectNotationParser(ProjectDependenciesBuildInstruction instruction, Instantiator instantiator) {
+    public DependencyProjectNotationParser(ProjectDependenciesBuildInstruction instruction, Instantiator instantiator, ProjectAccessListener projectAccessListener) {
         super(Project.class);
         this.instruction = instruction;
         this.instantiator = instantiator;
+        this.projectAccessListener = projectAccessListener;
     }
 
     @Override
@@ -45,6 +48,6 @@ public class DependencyProjectNotationParser extends TypedNotationParser<Project
     }
 
     public ProjectDependency parseType(Project notation) {
-        return instantiator.newInstance(DefaultProjectDependency.class, notation, instruction);
+        return instantiator.newInstance(DefaultProjectDependency.class, notation, null, instruction, projectAccessListener);
     }
 }
@@ -19,6 +19,7 @@ import org.gradle.api.artifacts.ProjectDependency;
 import org.gradle.api.internal.Instantiator;
 import org.gradle.api.internal.artifacts.ProjectDependenciesBuildInstruction;
 import org.gradle.api.internal.artifacts.dependencies.DefaultProjectDependency;
+import org.gradle.api.internal.project.ProjectAccessListener;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.util.ConfigureUtil;
 
@@ -31,10 +32,12 @@ import java.util.Map;
 public class ProjectDependencyFactory {
     private final ProjectDependenciesBuildInstruction instruction;
     private final Instantiator instantiator;
+    private final ProjectAccessListener projectAccessListener;
 
-    public ProjectDependencyFactory(ProjectDependenciesBuildInstruction instruction, Instantiator instantiator) {
+    public ProjectDependencyFactory(ProjectDependenciesBuildInstruction instruction, Instantiator instantiator, ProjectAccessListener projectAccessListener) {
         this.instruction = instruction;
         this.instantiator = instantiator;
+        this.projectAccessListener = projectAccessListener;
     }
 
     public ProjectDependency createFromMap(ProjectFinder projectFinder,
@@ -42,7 +45,7 @@ public class ProjectDependencyFactory {
         Map<String, Object> args = new HashMap<String, Object>(map);
         String path = getAndRemove(args, "path");
         String configuration = getAndRemove(args, "configuration");
-        ProjectDependency dependency = instantiator.newInstance(DefaultProjectDependency.class, projectFinder.getProject(path), configuration, instruction);
+        ProjectDependency dependency = instantiator.newInstance(DefaultProjectDependency.class, projectFinder.getProject(path), configuration, instruction, projectAccessListener);
         ConfigureUtil.configureByMap(args, dependency);
         return dependency;
     }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.logging.ProgressLogger
+import org.gradle.logging.ProgressLoggerFactory
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ConcurrentArtifactDownloaderTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final ProgressLogger progressLogger = Mock()
+    final ProgressLoggerFactory progressLoggerFactory = Mock()
+    final Map<ResolvedArtifact, AtomicInteger> downloads = [:]
+
+    def setup() {
+        _ * progressLoggerFactory.newOperation(_) >> progressLogger
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "downloads the file of each artifact concurrently"() {
+        given:
+        def downloader = new ConcurrentArtifactDownloader(executorFactory, progressLoggerFactory, 3)
+        def allStarted = new CountDownLatch(3)
+        def artifacts = (1..3).collect { i ->
+            artifact {
+                allStarted.countDown()
+                allStarted.await(10, TimeUnit.SECONDS)
+                return new File("file$i")
+            }
+        }
+
+        when:
+        def failures = downloader.download(artifacts)
+
+        then:
+        failures.isEmpty()
+        allStarted.count == 0
+        artifacts.every { downloads[it].get() == 1 }
+    }
+
+    def "uses no more than the given number of threads"() {
+        given:
+        def downloader = new ConcurrentArtifactDownloader(executorFactory, progressLoggerFactory, 2)
+        def concurrent = new AtomicInteger()
+        def maxConcurrent = new AtomicInteger()
+        def artifacts = (1..10).collect {
+            artifact {
+                maxConcurrent.set(Math.max(maxConcurrent.get(), concurrent.incrementAndGet()))
+                Thread.sleep(20)
+                concurrent.decrementAndGet()
+                return new File("file")
+            }
+        }
+
+        when:
+        downloader.download(artifacts)
+
+        then:
+        maxConcurrent.get() <= 2
+        artifacts.every { downloads[it].get() == 1 }
+    }
+
+    def "returns failures instead of throwing them"() {
+        given:
+        def downloader = new ConcurrentArtifactDownloader(executorFactory, progressLoggerFactory, 2)
+        def failure = new RuntimeException("broken")
+        def broken = artifact { throw failure }
+        def ok = artifact { new File("file") }
+
+        when:
+        def failures = downloader.download([broken, ok])
+
+        then:
+        failures == [(broken): failure]
+    }
+
+    def "reports progress of the downloads"() {
+        given:
+        def downloader = new ConcurrentArtifactDownloader(executorFactory, progressLoggerFactory, 1)
+
+        when:
+        downloader.download([artifact { new File("a") }, artifact { new File("b") }])
+
+        then:
+        1 * progressLogger.setDescription("Download 2 artifacts")
+        1 * progressLogger.started()
+        1 * progressLogger.progress("1/2 artifacts downloaded")
+        1 * progressLogger.progress("2/2 artifacts downloaded")
+        1 * progressLogger.completed()
+    }
+
+    def "does not download a single artifact in the background"() {
+        given:
+        def downloader = new ConcurrentArtifactDownloader(executorFactory, progressLoggerFactory, 2)
+        def artifact = artifact { new File("file") }
+
+        when:
+        def failures = downloader.download([artifact])
+
+        then:
+        failures.isEmpty()
+        downloads[artifact].get() == 0
+        0 * progressLoggerFactory._
+    }
+
+    def artifact(Closure download) {
+        def artifact = Mock(ResolvedArtifact)
+        def count = new AtomicInteger()
+        downloads[artifact] = count
+        _ * artifact.getFile() >> {
+            count.incrementAndGet()
+            download.call()
+        }
+        return artifact
+    }
+}
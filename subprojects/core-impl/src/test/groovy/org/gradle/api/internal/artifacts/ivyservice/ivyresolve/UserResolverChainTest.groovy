@@ -0,0 +1,205 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.apache.ivy.plugins.resolver.ResolverSettings
+import org.apache.ivy.plugins.version.VersionMatcher
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+class UserResolverChainTest extends Specification {
+    final CacheLockingManager cacheLockingManager = [
+            useCache: { String operation, action -> run(action) },
+            longRunningOperation: { String operation, action -> run(action) }
+    ] as CacheLockingManager
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final VersionMatcher versionMatcher = Mock()
+    final ResolverSettings settings = Mock()
+    final ModuleRevisionId id = ModuleRevisionId.newInstance("group", "module", "1.0")
+    final DefaultDependencyDescriptor dependency = new DefaultDependencyDescriptor(id, false)
+    final ModuleVersionRepository repo1 = Mock()
+    final ModuleVersionRepository repo2 = Mock()
+
+    def setup() {
+        _ * settings.versionMatcher >> versionMatcher
+        _ * versionMatcher.isDynamic(_) >> false
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "uses first repository in declaration order which contains module, regardless of which answers first"() {
+        given:
+        def chain = chain(executorFactory.create("probe"))
+        def module1 = module()
+        def module2 = module()
+        def repo2Answered = new CountDownLatch(1)
+
+        when:
+        def result = chain.create(dependency)
+
+        then:
+        result == module1
+        1 * repo1.getDependency(dependency) >> {
+            repo2Answered.await(10, TimeUnit.SECONDS)
+            return module1
+        }
+        1 * repo2.getDependency(dependency) >> {
+            repo2Answered.countDown()
+            return module2
+        }
+    }
+
+    def "queries repositories concurrently"() {
+        given:
+        def chain = chain(executorFactory.create("probe"))
+        def module = module()
+        def bothStarted = new CountDownLatch(2)
+
+        when:
+        def result = chain.create(dependency)
+
+        then:
+        result == module
+        1 * repo1.getDependency(dependency) >> {
+            bothStarted.countDown()
+            bothStarted.await(10, TimeUnit.SECONDS)
+            return null
+        }
+        1 * repo2.getDependency(dependency) >> {
+            bothStarted.countDown()
+            bothStarted.await(10, TimeUnit.SECONDS)
+            return module
+        }
+        bothStarted.count == 0
+    }
+
+    def "does not query later repositories once the module has been found"() {
+        given:
+        def queued = []
+        def chain = chain({ Runnable probe -> queued << probe } as Executor)
+        def module = module()
+
+        when:
+        def result = chain.create(dependency)
+
+        then:
+        result == module
+        1 * repo1.getDependency(dependency) >> module
+
+        when:
+        queued*.run()
+
+        then:
+        0 * repo2._
+    }
+
+    def "does not wait for repositories which are still being queried once the module has been found"() {
+        given:
+        def chain = chain(executorFactory.create("probe"))
+        def module = module()
+        def repo2Started = new CountDownLatch(1)
+        def releaseRepo2 = new CountDownLatch(1)
+        def repo2Finished = false
+
+        when:
+        def result = chain.create(dependency)
+
+        then:
+        result == module
+        !repo2Finished
+        1 * repo1.getDependency(dependency) >> {
+            repo2Started.await(10, TimeUnit.SECONDS)
+            return module
+        }
+        1 * repo2.getDependency(dependency) >> {
+            repo2Started.countDown()
+            releaseRepo2.await(10, TimeUnit.SECONDS)
+            repo2Finished = true
+            return null
+        }
+
+        when:
+        releaseRepo2.countDown()
+        chain.stop()
+
+        then:
+        repo2Finished
+    }
+
+    def "ignores failure of a repository when a later repository contains module"() {
+        given:
+        def chain = chain(executorFactory.create("probe"))
+        def module = module()
+
+        when:
+        def result = chain.create(dependency)
+
+        then:
+        result == module
+        1 * repo1.getDependency(dependency) >> { throw new RuntimeException("broken") }
+        1 * repo2.getDependency(dependency) >> module
+    }
+
+    def "rethrows failure when no repository contains module"() {
+        given:
+        def chain = chain(executorFactory.create("probe"))
+        def failure = new RuntimeException("broken")
+
+        when:
+        chain.create(dependency)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        1 * repo1.getDependency(dependency) >> { throw failure }
+        1 * repo2.getDependency(dependency) >> null
+    }
+
+    def chain(Executor executor) {
+        def chain = new UserResolverChain(cacheLockingManager, executor)
+        chain.settings = settings
+        chain.add(repo1)
+        chain.add(repo2)
+        return chain
+    }
+
+    def module() {
+        ModuleDescriptor descriptor = Mock()
+        _ * descriptor.isDefault() >> false
+        ModuleVersionDescriptor module = Mock()
+        _ * module.id >> id
+        _ * module.descriptor >> descriptor
+        return module
+    }
+
+    def run(def action) {
+        if (action instanceof Runnable) {
+            action.run()
+            return null
+        }
+        return action.create()
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.*
+import org.apache.ivy.core.module.id.ArtifactId
+import org.apache.ivy.core.module.id.ModuleId
+import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.apache.ivy.core.settings.IvySettings
+import org.apache.ivy.plugins.matcher.ExactPatternMatcher
+import spock.lang.Specification
+
+class ModuleDescriptorSerializerTest extends Specification {
+    final IvySettings settings = new IvySettings()
+    final ModuleDescriptorSerializer serializer = new ModuleDescriptorSerializer(settings)
+
+    def "round trips module info and configurations"() {
+        def id = ModuleRevisionId.newInstance("org", "module", "branch", "1.2", [classifier: "jdk5"])
+        def md = new DefaultModuleDescriptor(id, "release", new Date(1000), false)
+        md.lastModified = 2000
+        md.description = "a module"
+        md.addExtraInfo("properties.version", "1.2")
+        md.addConfiguration(new Configuration("default", Configuration.Visibility.PUBLIC, null, ["runtime"] as String[], true, null))
+        md.addConfiguration(new Configuration("runtime", Configuration.Visibility.PRIVATE, "runtime classpath", [] as String[], false, "use default"))
+
+        when:
+        def result = roundTrip(md)
+
+        then:
+        result.moduleRevisionId == id
+        result.moduleRevisionId.qualifiedExtraAttributes == [classifier: "jdk5"]
+        result.status == "release"
+        result.publicationDate == new Date(1000)
+        result.lastModified == 2000
+        !result.default
+        result.description == "a module"
+        result.extraInfo == ["properties.version": "1.2"]
+        result.configurationsNames as List == ["default", "runtime"]
+        result.getConfiguration("default").extends as List == ["runtime"]
+        result.getConfiguration("runtime").visibility == Configuration.Visibility.PRIVATE
+        !result.getConfiguration("runtime").transitive
+        result.getConfiguration("runtime").deprecated == "use default"
+    }
+
+    def "round trips artifacts"() {
+        def md = descriptor()
+        def artifact = new MDArtifact(md, "module", "jar", "jar", new URL("http://repo/module.jar"), [classifier: "sources"])
+        artifact.addConfiguration("default")
+        artifact.addConfiguration("runtime")
+        md.addArtifact("default", artifact)
+        md.addArtifact("runtime", artifact)
+
+        when:
+        def result = roundTrip(md)
+
+        then:
+        result.allArtifacts.length == 1
+        def copy = result.allArtifacts[0]
+        copy.name == "module"
+        copy.type == "jar"
+        copy.ext == "jar"
+        copy.url == new URL("http://repo/module.jar")
+        copy.qualifiedExtraAttributes == [classifier: "sources"]
+        copy.configurations as List == ["default", "runtime"]
+        result.getArtifacts("runtime").length == 1
+    }
+
+    def "round trips dependencies and exclude rules"() {
+        def md = descriptor()
+        def dependency = new DefaultDependencyDescriptor(md, ModuleRevisionId.newInstance("org", "dep", "1.+"), ModuleRevisionId.newInstance("org", "dep", "latest.integration"), true, true, false)
+        dependency.addDependencyConfiguration("default", "compile")
+        dependency.addDependencyConfiguration("default", "runtime")
+        def dependencyArtifact = new DefaultDependencyArtifactDescriptor(dependency, "dep", "jar", "jar", null, [:])
+        dependencyArtifact.addConfiguration("default")
+        dependency.addDependencyArtifact("default", dependencyArtifact)
+        def excludeRule = excludeRule("other", "lib")
+        excludeRule.addConfiguration("default")
+        dependency.addExcludeRule("default", excludeRule)
+        md.addDependency(dependency)
+        md.addExcludeRule(excludeRule("org", "excluded"))
+
+        when:
+        def result = roundTrip(md)
+
+        then:
+        result.dependencies.length == 1
+        def copy = result.dependencies[0]
+        copy.dependencyRevisionId == ModuleRevisionId.newInstance("org", "dep", "1.+")
+        copy.dynamicConstraintDependencyRevisionId == ModuleRevisionId.newInstance("org", "dep", "latest.integration")
+        copy.force
+        copy.changing
+        !copy.transitive
+        copy.moduleConfigurations as List == ["default"]
+        copy.getDependencyConfigurations("default") as List == ["compile", "runtime"]
+        copy.getDependencyArtifacts("default")*.name == ["dep"]
+        copy.getExcludeRules("default")*.id == [excludeRule.id]
+        copy.getExcludeRules("default")[0].matcher == ExactPatternMatcher.INSTANCE
+
+        and:
+        result.allExcludeRules*.id*.moduleId == [ModuleId.newInstance("org", "excluded")]
+    }
+
+    def "cannot write dependencies with include rules"() {
+        def md = descriptor()
+        def dependency = new DefaultDependencyDescriptor(md, ModuleRevisionId.newInstance("org", "dep", "1.0"), false, false, true)
+        dependency.addDependencyConfiguration("default", "default")
+        dependency.addIncludeRule("default", new DefaultIncludeRule(new ArtifactId(ModuleId.newInstance("org", "dep"), "dep", "jar", "jar"), ExactPatternMatcher.INSTANCE, [:]))
+        md.addDependency(dependency)
+
+        expect:
+        !serializer.canWrite(md)
+        serializer.canWrite(descriptor())
+    }
+
+    def "discards descriptor written with different format version"() {
+        def outstr = new ByteArrayOutputStream()
+        new DataOutputStream(outstr).writeInt(-12)
+
+        expect:
+        serializer.read(new ByteArrayInputStream(outstr.toByteArray())) == null
+    }
+
+    def descriptor() {
+        def md = new DefaultModuleDescriptor(ModuleRevisionId.newInstance("org", "module", "1.0"), "integration", null, false)
+        md.addConfiguration(new Configuration("default"))
+        md.addConfiguration(new Configuration("runtime"))
+        return md
+    }
+
+    def excludeRule(String group, String module) {
+        return new DefaultExcludeRule(new ArtifactId(ModuleId.newInstance(group, module), "*", "*", "*"), ExactPatternMatcher.INSTANCE, [:])
+    }
+
+    ModuleDescriptor roundTrip(ModuleDescriptor md) {
+        def outstr = new ByteArrayOutputStream()
+        serializer.write(outstr, md)
+        return serializer.read(new ByteArrayInputStream(outstr.toByteArray()))
+    }
+}
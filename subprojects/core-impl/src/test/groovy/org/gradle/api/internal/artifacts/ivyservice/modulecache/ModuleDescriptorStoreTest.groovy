@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.Ivy
+import org.apache.ivy.core.IvyContext
+import org.apache.ivy.core.module.descriptor.Configuration
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor
+import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.apache.ivy.core.resolve.ResolveData
+import org.apache.ivy.core.resolve.ResolveEngine
+import org.apache.ivy.core.resolve.ResolveOptions
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorWriter
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetaData
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleVersionRepository
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleDescriptorStoreTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final ArtifactCacheMetaData cacheMetaData = Mock()
+    final ModuleVersionRepository repository = Mock()
+    final ResolveEngine resolveEngine = Mock()
+    final ModuleDescriptorFileStore fileStore = new ModuleDescriptorFileStore(cacheMetaData)
+    final ModuleDescriptorStore store = new ModuleDescriptorStore(fileStore, true)
+    final ModuleRevisionId id = ModuleRevisionId.newInstance("org", "module", "1.2")
+
+    def setup() {
+        _ * cacheMetaData.cacheDir >> tmpDir.dir
+        _ * repository.id >> "repo"
+        IvyContext context = IvyContext.pushNewContext()
+        context.ivy = Ivy.newInstance()
+        context.resolveData = new ResolveData(resolveEngine, new ResolveOptions())
+    }
+
+    def cleanup() {
+        IvyContext.popContext()
+    }
+
+    def "writes binary descriptor when descriptor is first read"() {
+        store.putModuleDescriptor(repository, descriptor("release"))
+
+        when:
+        def result = store.getModuleDescriptor(repository, id)
+
+        then:
+        result.moduleRevisionId == id
+        result.status == "release"
+        binaryFile.isFile()
+
+        when:
+        result = store.getModuleDescriptor(repository, id)
+
+        then:
+        result.moduleRevisionId == id
+        result.status == "release"
+    }
+
+    def "ignores binary descriptor when ivy.xml has changed since it was written"() {
+        store.putModuleDescriptor(repository, descriptor("release"))
+        store.getModuleDescriptor(repository, id)
+
+        when:
+        XmlModuleDescriptorWriter.write(descriptor("integration"), ivyFile)
+        ivyFile.setLastModified(ivyFile.lastModified() - 10000)
+        def result = store.getModuleDescriptor(repository, id)
+
+        then:
+        result.status == "integration"
+
+        when:
+        result = store.getModuleDescriptor(repository, id)
+
+        then:
+        result.status == "integration"
+    }
+
+    def "uses ivy.xml when binary descriptor was written by a different version"() {
+        store.putModuleDescriptor(repository, descriptor("release"))
+        writeBinaryFile([0, 0, 0, 99] as byte[])
+
+        when:
+        def result = store.getModuleDescriptor(repository, id)
+
+        then:
+        result.moduleRevisionId == id
+        result.status == "release"
+    }
+
+    def "uses ivy.xml when binary descriptor is corrupt"() {
+        store.putModuleDescriptor(repository, descriptor("release"))
+        writeBinaryFile([0, 0, 0, 1, 12, 34, 56] as byte[])
+
+        when:
+        def result = store.getModuleDescriptor(repository, id)
+
+        then:
+        result.moduleRevisionId == id
+        result.status == "release"
+    }
+
+    def "removes binary descriptor when descriptor is replaced"() {
+        store.putModuleDescriptor(repository, descriptor("release"))
+        store.getModuleDescriptor(repository, id)
+        assert binaryFile.isFile()
+
+        when:
+        store.putModuleDescriptor(repository, descriptor("integration"))
+
+        then:
+        !binaryFile.exists()
+        store.getModuleDescriptor(repository, id).status == "integration"
+    }
+
+    def descriptor(String status) {
+        def descriptor = new DefaultModuleDescriptor(id, status, new Date(1000), false)
+        descriptor.addConfiguration(new Configuration("default"))
+        return descriptor
+    }
+
+    def getIvyFile() {
+        return fileStore.getModuleDescriptorFile(repository, id)
+    }
+
+    def getBinaryFile() {
+        return fileStore.getBinaryModuleDescriptorFile(repository, id)
+    }
+
+    /**
+     * Writes a binary descriptor which is up-to-date with the ivy.xml file, with the given content.
+     */
+    def writeBinaryFile(byte[] content) {
+        binaryFile.parentFile.mkdirs()
+        binaryFile.withDataOutputStream { outstr ->
+            outstr.writeLong(ivyFile.length())
+            outstr.writeLong(ivyFile.lastModified())
+            outstr.write(content)
+        }
+    }
+}
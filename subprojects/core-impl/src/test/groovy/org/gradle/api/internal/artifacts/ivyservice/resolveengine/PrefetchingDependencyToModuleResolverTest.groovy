@@ -0,0 +1,206 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.DependencyToModuleResolver
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolveException
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolver
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class PrefetchingDependencyToModuleResolverTest extends Specification {
+    final CacheLockingManager cacheLockingManager = [
+            useCache: { String operation, action -> run(action) },
+            longRunningOperation: { String operation, action -> run(action) }
+    ] as CacheLockingManager
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final Map<ModuleRevisionId, StubModuleVersionResolver> resolvers = [:]
+    final DependencyToModuleResolver target = { DependencyDescriptor dependency -> resolvers[dependency.dependencyRevisionId] } as DependencyToModuleResolver
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "resolvers return the id and descriptor of the backing resolver"() {
+        given:
+        def resolver = new PrefetchingDependencyToModuleResolver(target, cacheLockingManager, executorFactory, 2)
+        def backingResolver = module("a")
+
+        when:
+        def moduleVersionResolver = resolver.create(dependency("a"))
+
+        then:
+        moduleVersionResolver.id == backingResolver.moduleDescriptor.moduleRevisionId
+        moduleVersionResolver.descriptor == backingResolver.moduleDescriptor
+        backingResolver.resolveCount.get() == 1
+
+        cleanup:
+        resolver.stop()
+    }
+
+    def "fetches descriptors concurrently in the background"() {
+        given:
+        def resolver = new PrefetchingDependencyToModuleResolver(target, cacheLockingManager, executorFactory, 3)
+        def allStarted = new CountDownLatch(3)
+        def backingResolvers = ["a", "b", "c"].collect { module(it, allStarted) }
+
+        when:
+        def moduleVersionResolvers = ["a", "b", "c"].collect { resolver.create(dependency(it)) }
+
+        then:
+        allStarted.await(10, TimeUnit.SECONDS)
+        moduleVersionResolvers*.descriptor == backingResolvers*.moduleDescriptor
+
+        cleanup:
+        resolver.stop()
+    }
+
+    def "uses no more than the given number of threads"() {
+        given:
+        def resolver = new PrefetchingDependencyToModuleResolver(target, cacheLockingManager, executorFactory, 2)
+        def concurrent = new AtomicInteger()
+        def maxConcurrent = new AtomicInteger()
+        def names = (1..10).collect { "module$it".toString() }
+        names.each { name ->
+            module(name).onResolve = {
+                maxConcurrent.set(Math.max(maxConcurrent.get(), concurrent.incrementAndGet()))
+                Thread.sleep(20)
+                concurrent.decrementAndGet()
+            }
+        }
+
+        when:
+        def moduleVersionResolvers = names.collect { resolver.create(dependency(it)) }
+        moduleVersionResolvers*.descriptor
+
+        then:
+        maxConcurrent.get() <= 2
+        resolvers.values().every { it.resolveCount.get() == 1 }
+
+        cleanup:
+        resolver.stop()
+    }
+
+    def "rethrows failure to resolve descriptor"() {
+        given:
+        def resolver = new PrefetchingDependencyToModuleResolver(target, cacheLockingManager, executorFactory, 1)
+        def failure = new ModuleVersionResolveException("broken")
+        module("a").onResolve = { throw failure }
+
+        when:
+        resolver.create(dependency("a")).descriptor
+
+        then:
+        ModuleVersionResolveException e = thrown()
+        e == failure
+
+        cleanup:
+        resolver.stop()
+    }
+
+    def "stop waits for descriptors being fetched and discards those not started"() {
+        given:
+        def resolver = new PrefetchingDependencyToModuleResolver(target, cacheLockingManager, executorFactory, 1)
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def first = module("a")
+        first.onResolve = {
+            started.countDown()
+            release.await()
+        }
+        def second = module("b")
+
+        when:
+        def resolver1 = resolver.create(dependency("a"))
+        resolver.create(dependency("b"))
+        started.await()
+        executorFactory.create("release").execute({ Thread.sleep(100); release.countDown() } as Runnable)
+        resolver.stop()
+
+        then:
+        first.resolveCount.get() == 1
+        second.resolveCount.get() == 0
+        resolver1.descriptor == first.moduleDescriptor
+    }
+
+    def run(def action) {
+        if (action instanceof Runnable) {
+            action.run()
+            return null
+        }
+        return action.create()
+    }
+
+    def dependency(String name) {
+        return new DefaultDependencyDescriptor(ModuleRevisionId.newInstance("group", name, "1.0"), false)
+    }
+
+    def module(String name, CountDownLatch allStarted = null) {
+        def id = ModuleRevisionId.newInstance("group", name, "1.0")
+        def resolver = new StubModuleVersionResolver(new DefaultModuleDescriptor(id, "release", null))
+        if (allStarted != null) {
+            resolver.onResolve = {
+                allStarted.countDown()
+                allStarted.await()
+            }
+        }
+        resolvers[id] = resolver
+        return resolver
+    }
+
+    static class StubModuleVersionResolver implements ModuleVersionResolver {
+        final ModuleDescriptor moduleDescriptor
+        final AtomicInteger resolveCount = new AtomicInteger()
+        Closure onResolve = {}
+        ModuleVersionResolveException failure
+        boolean resolved
+
+        StubModuleVersionResolver(ModuleDescriptor moduleDescriptor) {
+            this.moduleDescriptor = moduleDescriptor
+        }
+
+        ModuleRevisionId getId() {
+            return moduleDescriptor.moduleRevisionId
+        }
+
+        ModuleDescriptor getDescriptor() {
+            // Caches the result, like the resolvers created for dependencies on external modules
+            if (!resolved) {
+                resolved = true
+                resolveCount.incrementAndGet()
+                try {
+                    onResolve.call()
+                } catch (ModuleVersionResolveException e) {
+                    failure = e
+                }
+            }
+            if (failure != null) {
+                throw failure
+            }
+            return moduleDescriptor
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.repositories.transport.http
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.client.methods.HttpGet
+import org.apache.http.util.EntityUtils
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class HttpClientConnectionPoolTest extends Specification {
+    final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+    final ExecutorService serverExecutor = Executors.newCachedThreadPool()
+    final HttpClientConnectionPool pool = new HttpClientConnectionPool(2, 4)
+    CountDownLatch inHandler
+    CountDownLatch release
+
+    def setup() {
+        server.createContext("/", { HttpExchange exchange ->
+            if (inHandler != null) {
+                inHandler.countDown()
+                release.await(10, TimeUnit.SECONDS)
+            }
+            byte[] content = "content".bytes
+            exchange.sendResponseHeaders(200, content.length)
+            exchange.responseBody.write(content)
+            exchange.close()
+        } as HttpHandler)
+        server.executor = serverExecutor
+        server.start()
+    }
+
+    def cleanup() {
+        pool.stop()
+        server.stop(0)
+        serverExecutor.shutdownNow()
+    }
+
+    def "reuses connection for later requests"() {
+        def client = pool.createClient()
+
+        expect:
+        get(client, "/a") == "content"
+        get(client, "/b") == "content"
+        pool.requestCount == 2
+        pool.openedConnectionCount == 1
+        pool.openConnectionCount == 1
+    }
+
+    def "clients of the pool share connections"() {
+        expect:
+        get(pool.createClient(), "/a") == "content"
+        get(pool.createClient(), "/b") == "content"
+        pool.requestCount == 2
+        pool.openedConnectionCount == 1
+    }
+
+    def "client can be used by several threads at once"() {
+        given:
+        def client = pool.createClient()
+        inHandler = new CountDownLatch(2)
+        release = new CountDownLatch(1)
+        def results = Collections.synchronizedList([])
+
+        when:
+        def threads = (1..2).collect { i ->
+            Thread.start { results << get(client, "/$i") }
+        }
+        def bothInHandler = inHandler.await(10, TimeUnit.SECONDS)
+        release.countDown()
+        threads*.join()
+
+        then:
+        bothInHandler
+        results == ["content", "content"]
+        pool.openedConnectionCount == 2
+    }
+
+    def get(def client, String path) {
+        def response = client.execute(new HttpGet("http://localhost:${server.address.port}$path"))
+        return EntityUtils.toString(response.entity)
+    }
+}
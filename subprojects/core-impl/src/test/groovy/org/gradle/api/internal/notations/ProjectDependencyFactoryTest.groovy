@@ -19,6 +19,7 @@ package org.gradle.api.internal.notations;
 import org.gradle.api.internal.DirectInstantiator
 import org.gradle.api.internal.artifacts.ProjectDependenciesBuildInstruction
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder
+import org.gradle.api.internal.project.DefaultProjectAccessListener
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.util.GUtil
 import spock.lang.Specification
@@ -29,7 +30,7 @@ import spock.lang.Specification
 public class ProjectDependencyFactoryTest extends Specification {
 
     def ProjectDependenciesBuildInstruction projectDependenciesBuildInstruction = new ProjectDependenciesBuildInstruction(false);
-    def ProjectDependencyFactory factory = new ProjectDependencyFactory(projectDependenciesBuildInstruction, new DirectInstantiator());
+    def ProjectDependencyFactory factory = new ProjectDependencyFactory(projectDependenciesBuildInstruction, new DirectInstantiator(), new DefaultProjectAccessListener());
     def ProjectFinder projectFinder = Mock(ProjectFinder.class);
     def ProjectInternal projectDummy = Mock(ProjectInternal.class);
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.cache.DefaultSerializer;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.Factory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides the task artifact caches as {@link BTreePersistentIndexedCache} instances in a directory, without any
+ * locking, so that benchmarks measure the cost of the caches themselves.
+ */
+public class BenchmarkCacheAccess implements TaskArtifactStateCacheAccess {
+    private final File dir;
+    private final List<BTreePersistentIndexedCache<?, ?>> caches = new ArrayList<BTreePersistentIndexedCache<?, ?>>();
+
+    public BenchmarkCacheAccess(File dir) {
+        this.dir = dir;
+        dir.mkdirs();
+    }
+
+    public <T> T useCache(String operationDisplayName, Factory<? extends T> action) {
+        return action.create();
+    }
+
+    public void useCache(String operationDisplayName, Runnable action) {
+        action.run();
+    }
+
+    public void longRunningOperation(String operationDisplayName, Runnable action) {
+        action.run();
+    }
+
+    public <K, V> PersistentIndexedCache createCache(String cacheName, Class<K> keyType, Class<V> valueType) {
+        return createCache(cacheName, keyType, valueType, new DefaultSerializer<V>());
+    }
+
+    public <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Class<K> keyType, Class<V> valueType, Serializer<V> valueSerializer) {
+        BTreePersistentIndexedCache<K, V> cache = new BTreePersistentIndexedCache<K, V>(new File(dir, cacheName + ".bin"), new DefaultSerializer<K>(), valueSerializer);
+        caches.add(cache);
+        return cache;
+    }
+
+    public void close() {
+        for (BTreePersistentIndexedCache<?, ?> cache : caches) {
+            cache.close();
+        }
+        caches.clear();
+    }
+}
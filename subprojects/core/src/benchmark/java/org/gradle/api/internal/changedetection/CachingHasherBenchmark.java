@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of looking up the hashes of unchanged files using {@link CachingHasher}, with only the persistent
+ * cache and with the in-memory cache in front of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CachingHasherBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int fileCount;
+
+    @Param({"persistent", "inMemory"})
+    public String cache;
+
+    private SyntheticFileTree tree;
+    private BenchmarkCacheAccess cacheAccess;
+    private CachingHasher hasher;
+
+    @Setup
+    public void createTree() throws IOException {
+        tree = new SyntheticFileTree(fileCount);
+        cacheAccess = new BenchmarkCacheAccess(tree.getCacheDir());
+        long inMemoryCacheSize = cache.equals("inMemory") ? Long.MAX_VALUE : 0;
+        hasher = new CachingHasher(new DefaultHasher(), cacheAccess, new InMemoryFileHashCache(inMemoryCacheSize));
+        hasher.hashAll(tree.getFiles());
+    }
+
+    @TearDown
+    public void deleteTree() throws IOException {
+        cacheAccess.close();
+        tree.delete();
+    }
+
+    @Benchmark
+    public Map<File, byte[]> hashUnchangedFiles() {
+        return hasher.hashAll(tree.getFiles());
+    }
+}
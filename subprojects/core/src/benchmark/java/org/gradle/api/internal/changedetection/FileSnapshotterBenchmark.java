@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of snapshotting a tree of files with {@link DefaultFileSnapshotter}, using a warm persistent file
+ * hash cache as in a no-op build, and of comparing two snapshots of the tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileSnapshotterBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int fileCount;
+
+    private SyntheticFileTree tree;
+    private BenchmarkCacheAccess cacheAccess;
+    private DefaultFileSnapshotter snapshotter;
+    private FileCollectionSnapshot original;
+    private FileCollectionSnapshot changed;
+
+    @Setup
+    public void createTree() throws IOException {
+        tree = new SyntheticFileTree(fileCount);
+        cacheAccess = new BenchmarkCacheAccess(tree.getCacheDir());
+        snapshotter = new DefaultFileSnapshotter(new CachingHasher(new DefaultHasher(), cacheAccess));
+        original = snapshotter.snapshot(tree.getFileCollection());
+        tree.change(fileCount / 100);
+        changed = snapshotter.snapshot(tree.getFileCollection());
+    }
+
+    @TearDown
+    public void deleteTree() throws IOException {
+        cacheAccess.close();
+        tree.delete();
+    }
+
+    @Benchmark
+    public FileCollectionSnapshot snapshot() {
+        return snapshotter.snapshot(tree.getFileCollection());
+    }
+
+    @Benchmark
+    public FileCollectionSnapshot snapshotIncrementally() {
+        return snapshotter.snapshot(tree.getFileCollection(), changed);
+    }
+
+    @Benchmark
+    public FileCollectionSnapshot compareSnapshots() {
+        return changed.changesSince(original).applyTo(original);
+    }
+}
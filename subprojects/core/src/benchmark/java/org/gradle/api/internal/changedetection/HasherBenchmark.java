@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of hashing files using {@link DefaultHasher} and {@link Murmur3Hasher}, for a set of small source
+ * files and for a few large jars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HasherBenchmark {
+    @Param({"md5", "murmur3"})
+    public String algorithm;
+
+    @Param({"sources", "jars"})
+    public String files;
+
+    private Hasher hasher;
+    private File dir;
+    private final List<File> inputs = new ArrayList<File>();
+
+    @Setup
+    public void createFiles() throws IOException {
+        hasher = algorithm.equals("md5") ? new DefaultHasher() : new Murmur3Hasher();
+        dir = File.createTempFile("hasher", "benchmark");
+        dir.delete();
+        dir.mkdirs();
+        Random random = new Random(1);
+        if (files.equals("sources")) {
+            for (int i = 0; i < 1000; i++) {
+                inputs.add(createFile(random, "Source" + i + ".java", 2 * 1024 + random.nextInt(6 * 1024)));
+            }
+        } else {
+            for (int i = 0; i < 5; i++) {
+                inputs.add(createFile(random, "lib" + i + ".jar", 20 * 1024 * 1024));
+            }
+        }
+    }
+
+    @TearDown
+    public void deleteFiles() {
+        for (File input : inputs) {
+            input.delete();
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public int hashFiles() {
+        int result = 0;
+        for (File input : inputs) {
+            result += hasher.hash(input)[0];
+        }
+        return result;
+    }
+
+    private File createFile(Random random, String name, int length) throws IOException {
+        File file = new File(dir, name);
+        byte[] content = new byte[length];
+        random.nextBytes(content);
+        FileOutputStream outstr = new FileOutputStream(file);
+        try {
+            outstr.write(content);
+        } finally {
+            outstr.close();
+        }
+        return file;
+    }
+}
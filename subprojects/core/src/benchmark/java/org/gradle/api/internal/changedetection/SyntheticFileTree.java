@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A tree of generated files in a temporary directory, laid out like a source tree with 100 files of 1 to 8KB in each
+ * directory.
+ */
+public class SyntheticFileTree {
+    private static final int FILES_PER_DIR = 100;
+    private final File rootDir;
+    private final List<File> files = new ArrayList<File>();
+
+    public SyntheticFileTree(int fileCount) throws IOException {
+        rootDir = File.createTempFile("benchmark", "tree");
+        rootDir.delete();
+        Random random = new Random(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            File dir = new File(rootDir, "pkg" + (i / FILES_PER_DIR));
+            dir.mkdirs();
+            File file = new File(dir, "Source" + i + ".java");
+            byte[] content = new byte[1024 + random.nextInt(7 * 1024)];
+            random.nextBytes(content);
+            write(file, content);
+            files.add(file);
+        }
+    }
+
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * Returns a directory next to this tree, for caches which should not be part of the tree.
+     */
+    public File getCacheDir() {
+        return new File(rootDir.getParentFile(), rootDir.getName() + "-cache");
+    }
+
+    public List<File> getFiles() {
+        return files;
+    }
+
+    /**
+     * Returns a collection containing the root directory of this tree.
+     */
+    public FileCollection getFileCollection() {
+        return new SimpleFileCollection(rootDir);
+    }
+
+    /**
+     * Rewrites the given number of files, spread evenly over the tree.
+     */
+    public void change(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            File file = files.get(i * files.size() / count);
+            write(file, ("changed " + System.nanoTime()).getBytes());
+        }
+    }
+
+    public void delete() throws IOException {
+        FileUtils.deleteDirectory(rootDir);
+        FileUtils.deleteDirectory(getCacheDir());
+    }
+
+    private static void write(File file, byte[] content) throws IOException {
+        FileOutputStream outstr = new FileOutputStream(file);
+        try {
+            outstr.write(content);
+        } finally {
+            outstr.close();
+        }
+    }
+}
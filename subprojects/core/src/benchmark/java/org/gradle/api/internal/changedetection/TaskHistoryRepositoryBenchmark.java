@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of loading and updating the history of a task using {@link CacheBackedTaskHistoryRepository},
+ * when the history cache holds the history of many tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TaskHistoryRepositoryBenchmark {
+    @Param({"10000", "100000"})
+    public int taskCount;
+
+    private final Random random = new Random(1);
+    private File cacheDir;
+    private BenchmarkCacheAccess cacheAccess;
+    private TaskHistoryRepository repository;
+    private FileCollectionSnapshot snapshot;
+    private TaskInternal[] tasks;
+
+    @Setup
+    public void createHistory() throws IOException {
+        cacheDir = File.createTempFile("benchmark", "cache");
+        cacheDir.delete();
+        cacheAccess = new BenchmarkCacheAccess(cacheDir);
+        repository = new CacheBackedTaskHistoryRepository(cacheAccess, new CacheBackedFileSnapshotRepository(cacheAccess));
+        snapshot = new DefaultFileSnapshotter(new DefaultHasher()).emptySnapshot();
+        tasks = new TaskInternal[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            tasks[i] = task(":project" + (i / 20) + ":task" + i, new File(cacheDir, "build" + i));
+            execute(tasks[i]);
+        }
+    }
+
+    @TearDown
+    public void deleteHistory() throws IOException {
+        cacheAccess.close();
+        FileUtils.deleteDirectory(cacheDir);
+    }
+
+    @Benchmark
+    public TaskExecution loadHistory() {
+        return repository.getHistory(tasks[random.nextInt(taskCount)]).getPreviousExecution();
+    }
+
+    @Benchmark
+    public void updateHistory() {
+        execute(tasks[random.nextInt(taskCount)]);
+    }
+
+    private void execute(TaskInternal task) {
+        TaskHistoryRepository.History history = repository.getHistory(task);
+        history.getCurrentExecution().setInputFilesSnapshot(snapshot);
+        history.getCurrentExecution().setOutputFilesSnapshot(snapshot);
+        history.update();
+    }
+
+    private static TaskInternal task(final String path, final File outputDir) {
+        final TaskOutputsInternal outputs = proxy(TaskOutputsInternal.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getFiles")) {
+                    return new SimpleFileCollection(outputDir);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        return proxy(TaskInternal.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getPath")) {
+                    return path;
+                }
+                if (method.getName().equals("getOutputs")) {
+                    return outputs;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.cache.DefaultSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of reading and updating entries of a {@link BTreePersistentIndexedCache} holding many entries,
+ * keyed by path as the file hash cache is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BTreePersistentIndexedCacheBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int entryCount;
+
+    @Param({"false", "true"})
+    public boolean writeBehind;
+
+    private final Random random = new Random(1);
+    private File cacheFile;
+    private BTreePersistentIndexedCache<String, Long> cache;
+
+    @Setup
+    public void createCache() throws IOException {
+        cacheFile = File.createTempFile("benchmark", ".bin");
+        cacheFile.delete();
+        cache = new BTreePersistentIndexedCache<String, Long>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<Long>());
+        cache.setWriteBehind(true);
+        for (int i = 0; i < entryCount; i++) {
+            cache.put(key(i), (long) i);
+        }
+        cache.close();
+        cache = new BTreePersistentIndexedCache<String, Long>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<Long>());
+        cache.setWriteBehind(writeBehind);
+    }
+
+    @TearDown
+    public void deleteCache() {
+        cache.close();
+        cacheFile.delete();
+    }
+
+    @Benchmark
+    public Long get() {
+        return cache.get(key(random.nextInt(entryCount)));
+    }
+
+    @Benchmark
+    public void put() {
+        int index = random.nextInt(entryCount);
+        cache.put(key(index), (long) index);
+    }
+
+    private static String key(int index) {
+        return "/home/user/project/subproject" + (index / 1000) + "/src/main/java/org/gradle/Source" + index + ".java";
+    }
+}
@@ -74,6 +74,17 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     private boolean noOpt;
     private boolean profile;
     private boolean continueOnFailure;
+    private int parallelThreadCount;
+    private boolean parallelSnapshotting;
+    private boolean fastFileHashing;
+    private boolean parallelProjectConfiguration;
+    private boolean configureOnDemand;
+    private boolean taskGraphCaching;
+    private boolean moduleMetadataPrefetching;
+    private boolean parallelArtifactDownloads;
+    private boolean pooledHttpConnections;
+    private boolean concurrentRepositoryProbing;
+    private boolean binaryModuleDescriptors;
     private File projectCacheDir;
 
     /**
@@ -140,6 +151,17 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         startParameter.profile = profile;
         startParameter.projectCacheDir = projectCacheDir;
         startParameter.continueOnFailure = continueOnFailure;
+        startParameter.parallelThreadCount = parallelThreadCount;
+        startParameter.parallelSnapshotting = parallelSnapshotting;
+        startParameter.fastFileHashing = fastFileHashing;
+        startParameter.parallelProjectConfiguration = parallelProjectConfiguration;
+        startParameter.configureOnDemand = configureOnDemand;
+        startParameter.taskGraphCaching = taskGraphCaching;
+        startParameter.moduleMetadataPrefetching = moduleMetadataPrefetching;
+        startParameter.parallelArtifactDownloads = parallelArtifactDownloads;
+        startParameter.pooledHttpConnections = pooledHttpConnections;
+        startParameter.concurrentRepositoryProbing = concurrentRepositoryProbing;
+        startParameter.binaryModuleDescriptors = binaryModuleDescriptors;
         return startParameter;
     }
 
@@ -160,6 +182,17 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         startParameter.setShowStacktrace(getShowStacktrace());
         startParameter.profile = profile;
         startParameter.continueOnFailure = continueOnFailure;
+        startParameter.parallelThreadCount = parallelThreadCount;
+        startParameter.parallelSnapshotting = parallelSnapshotting;
+        startParameter.fastFileHashing = fastFileHashing;
+        startParameter.parallelProjectConfiguration = parallelProjectConfiguration;
+        startParameter.configureOnDemand = configureOnDemand;
+        startParameter.taskGraphCaching = taskGraphCaching;
+        startParameter.moduleMetadataPrefetching = moduleMetadataPrefetching;
+        startParameter.parallelArtifactDownloads = parallelArtifactDownloads;
+        startParameter.pooledHttpConnections = pooledHttpConnections;
+        startParameter.concurrentRepositoryProbing = concurrentRepositoryProbing;
+        startParameter.binaryModuleDescriptors = binaryModuleDescriptors;
         return startParameter;
     }
 
@@ -514,6 +547,189 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         this.continueOnFailure = continueOnFailure;
     }
 
+    /**
+     * Returns the number of worker threads to use to execute tasks in parallel. A value of 0 means that tasks are
+     * executed serially, on the build thread. The default is 0.
+     *
+     * @return The number of worker threads.
+     */
+    public int getParallelThreadCount() {
+        return parallelThreadCount;
+    }
+
+    /**
+     * Specifies the number of worker threads to use to execute tasks in parallel. Use 0 to execute tasks serially.
+     *
+     * @param parallelThreadCount The number of worker threads. Must not be negative.
+     */
+    public void setParallelThreadCount(int parallelThreadCount) {
+        if (parallelThreadCount < 0) {
+            throw new IllegalArgumentException(String.format("Cannot use %s parallel threads.", parallelThreadCount));
+        }
+        this.parallelThreadCount = parallelThreadCount;
+    }
+
+    /**
+     * Returns true if the files of tasks should be hashed using several threads when checking whether the tasks are
+     * up-to-date. The default is false.
+     */
+    public boolean isParallelSnapshotting() {
+        return parallelSnapshotting;
+    }
+
+    /**
+     * Specifies whether the files of tasks should be hashed using several threads when checking whether the tasks are
+     * up-to-date.
+     */
+    public void setParallelSnapshotting(boolean parallelSnapshotting) {
+        this.parallelSnapshotting = parallelSnapshotting;
+    }
+
+    /**
+     * Returns true if the files of tasks should be hashed using a fast non-cryptographic hash function when checking
+     * whether the tasks are up-to-date. The default is false, which uses MD5.
+     */
+    public boolean isFastFileHashing() {
+        return fastFileHashing;
+    }
+
+    /**
+     * Specifies whether the files of tasks should be hashed using a fast non-cryptographic hash function when checking
+     * whether the tasks are up-to-date.
+     */
+    public void setFastFileHashing(boolean fastFileHashing) {
+        this.fastFileHashing = fastFileHashing;
+    }
+
+    /**
+     * Returns true if projects should be evaluated using several threads. The default is false.
+     */
+    public boolean isParallelProjectConfiguration() {
+        return parallelProjectConfiguration;
+    }
+
+    /**
+     * Specifies whether projects should be evaluated using several threads. A project is evaluated after its parent
+     * project, and projects named using {@code evaluationDependsOn()} or {@code dependsOn()} are evaluated first as
+     * usual. Projects which configure each other in other ways, for example through {@code allprojects} blocks in a
+     * project other than the root project, may not be configured correctly in this mode.
+     */
+    public void setParallelProjectConfiguration(boolean parallelProjectConfiguration) {
+        this.parallelProjectConfiguration = parallelProjectConfiguration;
+    }
+
+    /**
+     * Returns true if only the projects needed by the build should be evaluated. The default is false.
+     */
+    public boolean isConfigureOnDemand() {
+        return configureOnDemand;
+    }
+
+    /**
+     * Specifies whether only the projects needed by the build should be evaluated. The root project and the default
+     * project are always evaluated. Other projects are evaluated when tasks are selected from them, when a task is
+     * located in them by path or when a dependency on them is resolved. Projects which are never evaluated do not
+     * show up in reports such as {@code gradle tasks}. This mode takes precedence over {@link
+     * #setParallelProjectConfiguration(boolean)}.
+     */
+    public void setConfigureOnDemand(boolean configureOnDemand) {
+        this.configureOnDemand = configureOnDemand;
+    }
+
+    /**
+     * Returns true if the task graph calculated by a previous identical build should be reused. The default is false.
+     */
+    public boolean isTaskGraphCaching() {
+        return taskGraphCaching;
+    }
+
+    /**
+     * Specifies whether the task graph calculated by a previous identical build should be reused. A build is
+     * identical when it requests the same tasks, with the same scripts, {@code gradle.properties} files, excluded tasks,
+     * and project and system properties. Task dependencies which depend on anything else, such as the contents of
+     * {@code buildSrc} or of the file system, are not detected.
+     */
+    public void setTaskGraphCaching(boolean taskGraphCaching) {
+        this.taskGraphCaching = taskGraphCaching;
+    }
+
+    /**
+     * Returns true if module descriptors should be downloaded in the background while resolving dependencies. The
+     * default is false.
+     */
+    public boolean isModuleMetadataPrefetching() {
+        return moduleMetadataPrefetching;
+    }
+
+    /**
+     * Specifies whether the module descriptors of the dependencies of each module should be downloaded concurrently,
+     * as soon as the dependencies are found. The resolved dependency graph is the same either way.
+     */
+    public void setModuleMetadataPrefetching(boolean moduleMetadataPrefetching) {
+        this.moduleMetadataPrefetching = moduleMetadataPrefetching;
+    }
+
+    /**
+     * Returns true if the artifact files of a resolved configuration should be downloaded concurrently. The default is
+     * false.
+     */
+    public boolean isParallelArtifactDownloads() {
+        return parallelArtifactDownloads;
+    }
+
+    /**
+     * Specifies whether the artifact files of a resolved configuration should be downloaded concurrently, when the
+     * files of the configuration are requested.
+     */
+    public void setParallelArtifactDownloads(boolean parallelArtifactDownloads) {
+        this.parallelArtifactDownloads = parallelArtifactDownloads;
+    }
+
+    /**
+     * Returns true if HTTP repositories should share a pool of keep-alive connections. The default is false.
+     */
+    public boolean isPooledHttpConnections() {
+        return pooledHttpConnections;
+    }
+
+    /**
+     * Specifies whether HTTP repositories should share a pool of connections which are kept alive between requests
+     * and may be used by several threads at once.
+     */
+    public void setPooledHttpConnections(boolean pooledHttpConnections) {
+        this.pooledHttpConnections = pooledHttpConnections;
+    }
+
+    /**
+     * Returns true if the repositories should be queried for a module concurrently. The default is false.
+     */
+    public boolean isConcurrentRepositoryProbing() {
+        return concurrentRepositoryProbing;
+    }
+
+    /**
+     * Specifies whether the repositories should be queried for a module concurrently. The module is chosen from the
+     * results in the order the repositories are declared, so the resolved module is the same either way.
+     */
+    public void setConcurrentRepositoryProbing(boolean concurrentRepositoryProbing) {
+        this.concurrentRepositoryProbing = concurrentRepositoryProbing;
+    }
+
+    /**
+     * Returns true if cached module descriptors should also be stored in a binary format. The default is false.
+     */
+    public boolean isBinaryModuleDescriptors() {
+        return binaryModuleDescriptors;
+    }
+
+    /**
+     * Specifies whether cached module descriptors should also be stored in a binary format, which is read in place of
+     * the cached ivy.xml file when it is up-to-date.
+     */
+    public void setBinaryModuleDescriptors(boolean binaryModuleDescriptors) {
+        this.binaryModuleDescriptors = binaryModuleDescriptors;
+    }
+
     @Override
     public String toString() {
         return "StartParameter{"
@@ -535,6 +751,17 @@ public class StartParameter extends LoggingConfiguration implements Serializable
                 + ", dryRun=" + dryRun
                 + ", noOpt=" + noOpt
                 + ", profile=" + profile
+                + ", parallelThreadCount=" + parallelThreadCount
+                + ", parallelSnapshotting=" + parallelSnapshotting
+                + ", fastFileHashing=" + fastFileHashing
+                + ", parallelProjectConfiguration=" + parallelProjectConfiguration
+                + ", configureOnDemand=" + configureOnDemand
+                + ", taskGraphCaching=" + taskGraphCaching
+                + ", moduleMetadataPrefetching=" + moduleMetadataPrefetching
+                + ", parallelArtifactDownloads=" + parallelArtifactDownloads
+                + ", pooledHttpConnections=" + pooledHttpConnections
+                + ", concurrentRepositoryProbing=" + concurrentRepositoryProbing
+                + ", binaryModuleDescriptors=" + binaryModuleDescriptors
                 + '}';
     }
 }
\ No newline at end of file
@@ -199,6 +199,7 @@ public class DefaultDomainObjectCollection<T> extends AbstractCollection<T> impl
 
     private boolean doAdd(T toAdd) {
         if (getStore().add(toAdd)) {
+            didAdd(toAdd);
             eventRegister.getAddAction().execute(toAdd);
             return true;
         } else {
@@ -222,6 +223,7 @@ public class DefaultDomainObjectCollection<T> extends AbstractCollection<T> impl
         Object[] c = toArray();
         getStore().clear();
         for (Object o : c) {
+            didRemove((T) o);
             eventRegister.getRemoveAction().execute((T)o);
         }
     }
@@ -245,6 +247,7 @@ public class DefaultDomainObjectCollection<T> extends AbstractCollection<T> impl
 
     private boolean doRemove(Object o) {
         if (getStore().remove(o)) {
+            didRemove((T) o);
             eventRegister.getRemoveAction().execute((T)o);
             return true;
         } else {
@@ -291,6 +294,18 @@ public class DefaultDomainObjectCollection<T> extends AbstractCollection<T> impl
         return matches;
     }
 
+    /**
+     * Subclass hook, called after the given object has been added to the store and before the add actions are executed.
+     */
+    protected void didAdd(T toAdd) {
+    }
+
+    /**
+     * Subclass hook, called after the given object has been removed from the store and before the remove actions are executed.
+     */
+    protected void didRemove(T removed) {
+    }
+
     protected void assertMutable() {
         for (Runnable action : mutateActions) {
             action.run();
@@ -317,6 +332,7 @@ public class DefaultDomainObjectCollection<T> extends AbstractCollection<T> impl
         public void remove() {
             assertMutable();
             iterator.remove();
+            didRemove(currentElement);
             getEventRegister().getRemoveAction().execute(currentElement);
             currentElement = null;
         }
@@ -20,6 +20,7 @@ import groovy.lang.MissingPropertyException;
 import org.gradle.api.*;
 import org.gradle.api.internal.collections.CollectionEventRegister;
 import org.gradle.api.internal.collections.CollectionFilter;
+import org.gradle.api.internal.collections.NameIndex;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.util.ConfigureUtil;
@@ -30,6 +31,7 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
 
     private final Instantiator instantiator;
     private final Namer<? super T> namer;
+    private final NameIndex<T> index;
 
     private final ContainerElementsDynamicObject elementsDynamicObject = new ContainerElementsDynamicObject();
     private final ContainerDynamicObject dynamicObject = new ContainerDynamicObject(elementsDynamicObject);
@@ -41,17 +43,26 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
         super(type, store);
         this.instantiator = instantiator;
         this.namer = namer;
+        this.index = new NameIndex<T>();
     }
 
     protected DefaultNamedDomainObjectCollection(Class<T> type, Collection<T> store, CollectionEventRegister<T> eventRegister, Instantiator instantiator, Namer<? super T> namer) {
+        this(type, store, eventRegister, new NameIndex<T>(), instantiator, namer);
+    }
+
+    /**
+     * Subclasses using this constructor with a filtered {@code store} must pass an {@code index} filtered in the same way, as created by {@link #filteredIndex(CollectionFilter)}.
+     */
+    protected DefaultNamedDomainObjectCollection(Class<T> type, Collection<T> store, CollectionEventRegister<T> eventRegister, NameIndex<T> index, Instantiator instantiator, Namer<? super T> namer) {
         super(type, store, eventRegister);
         this.instantiator = instantiator;
         this.namer = namer;
+        this.index = index;
     }
 
     // should be protected, but use of the class generator forces it to be public
     public DefaultNamedDomainObjectCollection(DefaultNamedDomainObjectCollection<? super T> collection, CollectionFilter<T> filter, Instantiator instantiator, Namer<? super T> namer) {
-        this(filter.getType(), collection.filteredStore(filter), collection.filteredEvents(filter), instantiator, namer);
+        this(filter.getType(), collection.filteredStore(filter), collection.filteredEvents(filter), collection.filteredIndex(filter), instantiator, namer);
     }
 
     /**
@@ -66,6 +77,16 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
         }
     }
 
+    @Override
+    protected void didAdd(T toAdd) {
+        index.put(namer.determineName(toAdd), toAdd);
+    }
+
+    @Override
+    protected void didRemove(T removed) {
+        index.remove(namer.determineName(removed), removed);
+    }
+
     /**
      * <p>Subclass hook for implementations wanting to throw an exception when an attempt is made to add
      * an item with the same name as an existing item.</p>
@@ -109,6 +130,10 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
         return instantiator.newInstance(DefaultNamedDomainObjectCollection.class, this, filter, instantiator, namer);
     }
 
+    protected <S extends T> NameIndex<S> filteredIndex(CollectionFilter<S> filter) {
+        return index.filtered(filter);
+    }
+
     public String getDisplayName() {
         return String.format("%s container", getTypeDisplayName());
     }
@@ -147,12 +172,7 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
     }
 
     protected T findByNameWithoutRules(String name) {
-        for (T o : getStore()) {
-            if (name.equals(namer.determineName(o))) {
-                return o;
-            }
-        }
-        return null;
+        return index.get(name);
     }
 
     protected T removeByName(String name) {
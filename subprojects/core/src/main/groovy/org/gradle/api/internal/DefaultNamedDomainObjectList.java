@@ -43,6 +43,7 @@ public class DefaultNamedDomainObjectList<T> extends DefaultNamedDomainObjectCol
         assertMutable();
         assertCanAdd(element);
         getStore().add(index, element);
+        didAdd(element);
         getEventRegister().getAddAction().execute(element);
     }
 
@@ -53,6 +54,7 @@ public class DefaultNamedDomainObjectList<T> extends DefaultNamedDomainObjectCol
         for (T t : c) {
             if (!hasWithName(getNamer().determineName(t))) {
                 getStore().add(current, t);
+                didAdd(t);
                 getEventRegister().getAddAction().execute(t);
                 changed = true;
                 current++;
@@ -74,6 +76,8 @@ public class DefaultNamedDomainObjectList<T> extends DefaultNamedDomainObjectCol
         assertMutable();
         assertCanAdd(element);
         T oldElement = getStore().set(index, element);
+        didRemove(oldElement);
+        didAdd(element);
         getEventRegister().getRemoveAction().execute(oldElement);
         getEventRegister().getAddAction().execute(element);
         return oldElement;
@@ -82,6 +86,7 @@ public class DefaultNamedDomainObjectList<T> extends DefaultNamedDomainObjectCol
     public T remove(int index) {
         assertMutable();
         T element = getStore().remove(index);
+        didRemove(element);
         getEventRegister().getRemoveAction().execute(element);
         return element;
     }
@@ -94,6 +99,20 @@ public class DefaultNamedDomainObjectList<T> extends DefaultNamedDomainObjectCol
         return getStore().lastIndexOf(o);
     }
 
+    /**
+     * Elements of a list, such as repositories, may be renamed after they have been added, so these are found by
+     * checking the current name of each element rather than through the name index.
+     */
+    @Override
+    protected T findByNameWithoutRules(String name) {
+        for (T t : getStore()) {
+            if (name.equals(getNamer().determineName(t))) {
+                return t;
+            }
+        }
+        return null;
+    }
+
     public ListIterator<T> listIterator() {
         return new ListIteratorImpl(getStore().listIterator());
     }
@@ -169,12 +188,14 @@ public class DefaultNamedDomainObjectList<T> extends DefaultNamedDomainObjectCol
             assertMutable();
             assertCanAdd(t);
             iterator.add(t);
+            didAdd(t);
             getEventRegister().getAddAction().execute(t);
         }
 
         public void remove() {
             assertMutable();
             iterator.remove();
+            didRemove(lastElement);
             getEventRegister().getRemoveAction().execute(lastElement);
             lastElement = null;
         }
@@ -183,6 +204,8 @@ public class DefaultNamedDomainObjectList<T> extends DefaultNamedDomainObjectCol
             assertMutable();
             assertCanAdd(t);
             iterator.set(t);
+            didRemove(lastElement);
+            didAdd(t);
             getEventRegister().getRemoveAction().execute(lastElement);
             getEventRegister().getAddAction().execute(t);
             lastElement = null;
@@ -22,6 +22,7 @@ import org.gradle.api.Namer;
 import org.gradle.api.internal.collections.CollectionEventRegister;
 import org.gradle.api.internal.collections.CollectionFilter;
 import org.gradle.api.internal.collections.FilteredSet;
+import org.gradle.api.internal.collections.NameIndex;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 
@@ -46,9 +47,13 @@ public class DefaultNamedDomainObjectSet<T> extends DefaultNamedDomainObjectColl
         super(type, store, eventRegister, instantiator, namer);
     }
 
+    protected DefaultNamedDomainObjectSet(Class<T> type, Set<T> store, CollectionEventRegister<T> eventRegister, NameIndex<T> index, Instantiator instantiator, Namer<? super T> namer) {
+        super(type, store, eventRegister, index, instantiator, namer);
+    }
+
     // should be protected, but use of the class generator forces it to be public
     public DefaultNamedDomainObjectSet(DefaultNamedDomainObjectSet<? super T> collection, CollectionFilter<T> filter, Instantiator instantiator, Namer<? super T> namer) {
-        this(filter.getType(), collection.filteredStore(filter), collection.filteredEvents(filter), instantiator, namer);
+        this(filter.getType(), collection.filteredStore(filter), collection.filteredEvents(filter), collection.filteredIndex(filter), instantiator, namer);
     }
 
     @Override
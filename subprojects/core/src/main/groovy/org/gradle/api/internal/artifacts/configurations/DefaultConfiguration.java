@@ -34,6 +34,8 @@ import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.TaskDependency;
 import org.gradle.listener.ListenerBroadcast;
 import org.gradle.listener.ListenerManager;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 import org.gradle.util.ConfigureUtil;
 import org.gradle.util.CollectionUtils;
 import org.gradle.util.DeprecationLogger;
@@ -231,7 +233,12 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
     public ResolvedConfiguration getResolvedConfiguration() {
         synchronized (lock) {
             if (state == State.UNRESOLVED) {
-                cachedResolvedConfiguration = dependencyResolver.resolve(this);
+                TimedOperation operation = OperationTimer.getInstance().start("resolve", path);
+                try {
+                    cachedResolvedConfiguration = dependencyResolver.resolve(this);
+                } finally {
+                    operation.finish();
+                }
                 if (cachedResolvedConfiguration.hasError()) {
                     state = State.RESOLVED_WITH_FAILURES;
                 } else {
@@ -23,6 +23,8 @@ import org.gradle.api.internal.artifacts.ProjectDependenciesBuildInstruction;
 import org.gradle.api.artifacts.ProjectDependency;
 import org.gradle.api.internal.artifacts.CachingDependencyResolveContext;
 import org.gradle.api.internal.artifacts.DependencyResolveContext;
+import org.gradle.api.internal.project.DefaultProjectAccessListener;
+import org.gradle.api.internal.project.ProjectAccessListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.AbstractTaskDependency;
 import org.gradle.api.internal.tasks.TaskDependencyResolveContext;
@@ -37,6 +39,7 @@ import java.util.Set;
 public class DefaultProjectDependency extends AbstractModuleDependency implements ProjectDependency {
     private ProjectInternal dependencyProject;
     private final ProjectDependenciesBuildInstruction instruction;
+    private final ProjectAccessListener projectAccessListener;
     private final TaskDependencyImpl taskDependency = new TaskDependencyImpl();
 
     public DefaultProjectDependency(ProjectInternal dependencyProject, ProjectDependenciesBuildInstruction instruction) {
@@ -45,9 +48,15 @@ public class DefaultProjectDependency extends AbstractModuleDependency implement
 
     public DefaultProjectDependency(ProjectInternal dependencyProject, String configuration,
                                     ProjectDependenciesBuildInstruction instruction) {
+        this(dependencyProject, configuration, instruction, new DefaultProjectAccessListener());
+    }
+
+    public DefaultProjectDependency(ProjectInternal dependencyProject, String configuration,
+                                    ProjectDependenciesBuildInstruction instruction, ProjectAccessListener projectAccessListener) {
         super(configuration);
         this.dependencyProject = dependencyProject;
         this.instruction = instruction;
+        this.projectAccessListener = projectAccessListener;
     }
 
     public Project getDependencyProject() {
@@ -55,6 +64,7 @@ public class DefaultProjectDependency extends AbstractModuleDependency implement
     }
 
     public String getGroup() {
+        projectAccessListener.beforeResolvingProjectDependency(dependencyProject);
         return dependencyProject.getGroup().toString();
     }
 
@@ -63,16 +73,18 @@ public class DefaultProjectDependency extends AbstractModuleDependency implement
     }
 
     public String getVersion() {
+        projectAccessListener.beforeResolvingProjectDependency(dependencyProject);
         return dependencyProject.getVersion().toString();
     }
 
     public Configuration getProjectConfiguration() {
+        projectAccessListener.beforeResolvingProjectDependency(dependencyProject);
         return dependencyProject.getConfigurations().getByName(getConfiguration());
     }
 
     public ProjectDependency copy() {
         DefaultProjectDependency copiedProjectDependency = new DefaultProjectDependency(dependencyProject,
-                getConfiguration(), instruction);
+                getConfiguration(), instruction, projectAccessListener);
         copyTo(copiedProjectDependency);
         return copiedProjectDependency;
     }
@@ -18,10 +18,13 @@ package org.gradle.api.internal.changedetection;
 import org.gradle.cache.PersistentIndexedCache;
 
 public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository {
+    // Change the name whenever the serialized form of the snapshots changes, so that entries in an older format are
+    // never read
+    private static final String CACHE_NAME = "fileSnapshots2";
     private final PersistentIndexedCache<Object, Object> cache;
 
     public CacheBackedFileSnapshotRepository(TaskArtifactStateCacheAccess cacheAccess) {
-        cache = cacheAccess.createCache("fileSnapshots", Object.class, Object.class);
+        cache = cacheAccess.createCache(CACHE_NAME, Object.class, Object.class);
     }
 
     public Long add(FileCollectionSnapshot snapshot) {
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link TaskDurationRepository} which keeps the durations in the task artifact state cache. The expected duration of
+ * a task is the average of its previous expected duration and its latest execution time, so that a single unusual
+ * build does not dominate the estimate.
+ */
+public class CacheBackedTaskDurationRepository implements TaskDurationRepository {
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final PersistentIndexedCache<String, Long> durationCache;
+
+    public CacheBackedTaskDurationRepository(TaskArtifactStateCacheAccess cacheAccess) {
+        this.cacheAccess = cacheAccess;
+        durationCache = cacheAccess.createCache("taskDurations", String.class, Long.class);
+    }
+
+    public Map<String, Long> getExpectedDurations(final Collection<String> taskPaths) {
+        return cacheAccess.useCache("load task durations", new Factory<Map<String, Long>>() {
+            public Map<String, Long> create() {
+                Map<String, Long> durations = new HashMap<String, Long>();
+                for (String taskPath : taskPaths) {
+                    Long duration = durationCache.get(taskPath);
+                    if (duration != null) {
+                        durations.put(taskPath, duration);
+                    }
+                }
+                return durations;
+            }
+        });
+    }
+
+    public void recordDurations(final Map<String, Long> durations) {
+        if (durations.isEmpty()) {
+            return;
+        }
+        cacheAccess.useCache("store task durations", new Runnable() {
+            public void run() {
+                for (Map.Entry<String, Long> entry : durations.entrySet()) {
+                    Long previous = durationCache.get(entry.getKey());
+                    long expected = previous == null ? entry.getValue() : (previous + entry.getValue()) / 2;
+                    durationCache.put(entry.getKey(), expected);
+                }
+            }
+        });
+    }
+}
@@ -17,21 +17,18 @@ package org.gradle.api.internal.changedetection;
 
 import org.gradle.internal.Factory;
 import org.gradle.api.internal.TaskInternal;
-import org.gradle.cache.DefaultSerializer;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
+import org.gradle.util.ClassLoaderObjectInputStream;
 
-import java.io.File;
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.io.*;
+import java.util.*;
 
 public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
     private final TaskArtifactStateCacheAccess cacheAccess;
     private final FileSnapshotRepository snapshotRepository;
     private final PersistentIndexedCache<String, TaskHistory> taskHistoryCache;
-    private final DefaultSerializer<TaskHistory> serializer = new DefaultSerializer<TaskHistory>();
+    private final TaskHistorySerializer serializer = new TaskHistorySerializer();
 
     public CacheBackedTaskHistoryRepository(TaskArtifactStateCacheAccess cacheAccess, FileSnapshotRepository snapshotRepository) {
         this.cacheAccess = cacheAccess;
@@ -126,7 +123,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         return bestMatch;
     }
 
-    private static class TaskHistory implements Serializable {
+    private static class TaskHistory {
         private static final int MAX_HISTORY_ENTRIES = 3;
         private final List<LazyTaskExecution> configurations = new ArrayList<LazyTaskExecution>();
     }
@@ -171,4 +168,291 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             outputFilesSnapshotId = null;
         }
     }
+
+    /**
+     * Encodes task history using an explicit binary format. Strings are written once per entry and referred to by
+     * index afterwards. Input property values of types not known to this serializer fall back to Java serialization,
+     * using the task's class loader to read them back.
+     */
+    private static class TaskHistorySerializer implements Serializer<TaskHistory> {
+        // Also changed when the file snapshot cache is replaced, as the history refers to the snapshots by id
+        private static final int FORMAT_VERSION = 2;
+        private static final int NEW_STRING = -1;
+        private static final byte NULL = 0;
+        private static final byte STRING = 1;
+        private static final byte BOOLEAN = 2;
+        private static final byte INTEGER = 3;
+        private static final byte LONG = 4;
+        private static final byte SHORT = 5;
+        private static final byte BYTE = 6;
+        private static final byte DOUBLE = 7;
+        private static final byte FLOAT = 8;
+        private static final byte FILE = 9;
+        private static final byte LIST = 10;
+        private static final byte SET = 11;
+        private static final byte MAP = 12;
+        private static final byte SERIALIZED = 13;
+        private ClassLoader classLoader = getClass().getClassLoader();
+
+        public ClassLoader getClassLoader() {
+            return classLoader;
+        }
+
+        public void setClassLoader(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        public TaskHistory read(InputStream instr) throws Exception {
+            Decoder decoder = new Decoder(new DataInputStream(instr));
+            if (decoder.instr.readInt() != FORMAT_VERSION) {
+                // Written by a different version of this serializer: discard it
+                return null;
+            }
+            TaskHistory history = new TaskHistory();
+            int count = decoder.instr.readInt();
+            for (int i = 0; i < count; i++) {
+                history.configurations.add(decoder.readExecution());
+            }
+            return history;
+        }
+
+        public void write(OutputStream outstr, TaskHistory value) throws Exception {
+            Encoder encoder = new Encoder(new DataOutputStream(outstr));
+            encoder.outstr.writeInt(FORMAT_VERSION);
+            encoder.outstr.writeInt(value.configurations.size());
+            for (LazyTaskExecution execution : value.configurations) {
+                encoder.writeExecution(execution);
+            }
+            encoder.outstr.flush();
+        }
+
+        private static class Encoder {
+            private final DataOutputStream outstr;
+            private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+            private Encoder(DataOutputStream outstr) {
+                this.outstr = outstr;
+            }
+
+            void writeExecution(LazyTaskExecution execution) throws IOException {
+                writeNullableString(execution.getTaskClass());
+                writeId(execution.inputFilesSnapshotId);
+                writeId(execution.outputFilesSnapshotId);
+                Set<String> outputFiles = execution.getOutputFiles();
+                if (outputFiles == null) {
+                    outstr.writeInt(-1);
+                } else {
+                    outstr.writeInt(outputFiles.size());
+                    for (String outputFile : outputFiles) {
+                        writeString(outputFile);
+                    }
+                }
+                Map<String, Object> inputProperties = execution.getInputProperties();
+                if (inputProperties == null) {
+                    outstr.writeInt(-1);
+                } else {
+                    outstr.writeInt(inputProperties.size());
+                    for (Map.Entry<String, Object> entry : inputProperties.entrySet()) {
+                        writeString(entry.getKey());
+                        writeValue(entry.getValue());
+                    }
+                }
+            }
+
+            void writeId(Long id) throws IOException {
+                outstr.writeBoolean(id != null);
+                if (id != null) {
+                    outstr.writeLong(id);
+                }
+            }
+
+            void writeNullableString(String value) throws IOException {
+                outstr.writeBoolean(value != null);
+                if (value != null) {
+                    writeString(value);
+                }
+            }
+
+            void writeString(String value) throws IOException {
+                Integer index = strings.get(value);
+                if (index != null) {
+                    outstr.writeInt(index);
+                    return;
+                }
+                strings.put(value, strings.size());
+                outstr.writeInt(NEW_STRING);
+                byte[] bytes = value.getBytes("UTF-8");
+                outstr.writeInt(bytes.length);
+                outstr.write(bytes);
+            }
+
+            void writeValue(Object value) throws IOException {
+                if (value == null) {
+                    outstr.writeByte(NULL);
+                } else if (value instanceof String) {
+                    outstr.writeByte(STRING);
+                    writeString((String) value);
+                } else if (value instanceof Boolean) {
+                    outstr.writeByte(BOOLEAN);
+                    outstr.writeBoolean((Boolean) value);
+                } else if (value instanceof Integer) {
+                    outstr.writeByte(INTEGER);
+                    outstr.writeInt((Integer) value);
+                } else if (value instanceof Long) {
+                    outstr.writeByte(LONG);
+                    outstr.writeLong((Long) value);
+                } else if (value instanceof Short) {
+                    outstr.writeByte(SHORT);
+                    outstr.writeShort((Short) value);
+                } else if (value instanceof Byte) {
+                    outstr.writeByte(BYTE);
+                    outstr.writeByte((Byte) value);
+                } else if (value instanceof Double) {
+                    outstr.writeByte(DOUBLE);
+                    outstr.writeDouble((Double) value);
+                } else if (value instanceof Float) {
+                    outstr.writeByte(FLOAT);
+                    outstr.writeFloat((Float) value);
+                } else if (value.getClass() == File.class) {
+                    outstr.writeByte(FILE);
+                    writeString(((File) value).getPath());
+                } else if (value instanceof List) {
+                    outstr.writeByte(LIST);
+                    writeElements((List<?>) value);
+                } else if (value instanceof Set) {
+                    outstr.writeByte(SET);
+                    writeElements((Set<?>) value);
+                } else if (value instanceof Map) {
+                    Map<?, ?> map = (Map<?, ?>) value;
+                    outstr.writeByte(MAP);
+                    outstr.writeInt(map.size());
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        writeValue(entry.getKey());
+                        writeValue(entry.getValue());
+                    }
+                } else {
+                    outstr.writeByte(SERIALIZED);
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    ObjectOutputStream objectStr = new ObjectOutputStream(bytes);
+                    objectStr.writeObject(value);
+                    objectStr.close();
+                    outstr.writeInt(bytes.size());
+                    bytes.writeTo(outstr);
+                }
+            }
+
+            private void writeElements(Collection<?> elements) throws IOException {
+                outstr.writeInt(elements.size());
+                for (Object element : elements) {
+                    writeValue(element);
+                }
+            }
+        }
+
+        private class Decoder {
+            private final DataInputStream instr;
+            private final List<String> strings = new ArrayList<String>();
+
+            private Decoder(DataInputStream instr) {
+                this.instr = instr;
+            }
+
+            LazyTaskExecution readExecution() throws Exception {
+                LazyTaskExecution execution = new LazyTaskExecution();
+                execution.setTaskClass(readNullableString());
+                execution.inputFilesSnapshotId = readId();
+                execution.outputFilesSnapshotId = readId();
+                int outputFileCount = instr.readInt();
+                if (outputFileCount >= 0) {
+                    Set<String> outputFiles = new HashSet<String>();
+                    for (int i = 0; i < outputFileCount; i++) {
+                        outputFiles.add(readString());
+                    }
+                    execution.setOutputFiles(outputFiles);
+                }
+                int propertyCount = instr.readInt();
+                if (propertyCount >= 0) {
+                    Map<String, Object> inputProperties = new HashMap<String, Object>();
+                    for (int i = 0; i < propertyCount; i++) {
+                        String name = readString();
+                        inputProperties.put(name, readValue());
+                    }
+                    execution.setInputProperties(inputProperties);
+                }
+                return execution;
+            }
+
+            Long readId() throws IOException {
+                return instr.readBoolean() ? instr.readLong() : null;
+            }
+
+            String readNullableString() throws IOException {
+                return instr.readBoolean() ? readString() : null;
+            }
+
+            String readString() throws IOException {
+                int index = instr.readInt();
+                if (index != NEW_STRING) {
+                    return strings.get(index);
+                }
+                byte[] bytes = new byte[instr.readInt()];
+                instr.readFully(bytes);
+                String value = new String(bytes, "UTF-8");
+                strings.add(value);
+                return value;
+            }
+
+            Object readValue() throws Exception {
+                byte tag = instr.readByte();
+                switch (tag) {
+                    case NULL:
+                        return null;
+                    case STRING:
+                        return readString();
+                    case BOOLEAN:
+                        return instr.readBoolean();
+                    case INTEGER:
+                        return instr.readInt();
+                    case LONG:
+                        return instr.readLong();
+                    case SHORT:
+                        return instr.readShort();
+                    case BYTE:
+                        return instr.readByte();
+                    case DOUBLE:
+                        return instr.readDouble();
+                    case FLOAT:
+                        return instr.readFloat();
+                    case FILE:
+                        return new File(readString());
+                    case LIST:
+                        return readElements(new ArrayList<Object>());
+                    case SET:
+                        return readElements(new LinkedHashSet<Object>());
+                    case MAP:
+                        int size = instr.readInt();
+                        Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+                        for (int i = 0; i < size; i++) {
+                            Object key = readValue();
+                            map.put(key, readValue());
+                        }
+                        return map;
+                    case SERIALIZED:
+                        byte[] bytes = new byte[instr.readInt()];
+                        instr.readFully(bytes);
+                        return new ClassLoaderObjectInputStream(new ByteArrayInputStream(bytes), classLoader).readObject();
+                    default:
+                        throw new StreamCorruptedException(String.format("Unexpected value tag %s in task history.", tag));
+                }
+            }
+
+            private <T extends Collection<Object>> T readElements(T elements) throws Exception {
+                int size = instr.readInt();
+                for (int i = 0; i < size; i++) {
+                    elements.add(readValue());
+                }
+                return elements;
+            }
+        }
+    }
 }
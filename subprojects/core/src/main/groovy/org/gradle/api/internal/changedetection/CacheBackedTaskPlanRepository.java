@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.StartParameter;
+import org.gradle.api.Project;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.internal.resource.Resource;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.groovy.scripts.Script;
+import org.gradle.groovy.scripts.ScriptExecutionListener;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.initialization.IGradlePropertiesLoader;
+import org.gradle.internal.Factory;
+import org.gradle.listener.ListenerManager;
+import org.gradle.util.HashUtil;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A {@link TaskPlanRepository} which keeps the plans in the task artifact state cache. Plans are keyed by a hash of
+ * the inputs which determine the plan: the requested tasks, every script which was run while configuring the build,
+ * the {@value org.gradle.api.Project#GRADLE_PROPERTIES} files, and the relevant parameters and environment of the
+ * build.
+ */
+public class CacheBackedTaskPlanRepository implements TaskPlanRepository, ScriptExecutionListener {
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final Gradle gradle;
+    private final PersistentIndexedCache<String, TaskPlan> planCache;
+    private final Map<String, String> scriptHashes = new TreeMap<String, String>();
+    private String inputsHash;
+
+    public CacheBackedTaskPlanRepository(TaskArtifactStateCacheAccess cacheAccess, Gradle gradle, ListenerManager listenerManager) {
+        this.cacheAccess = cacheAccess;
+        this.gradle = gradle;
+        planCache = cacheAccess.createCache("taskPlans", String.class, TaskPlan.class);
+        listenerManager.addListener(this);
+    }
+
+    public void beforeScript(Script script) {
+        ScriptSource source = script.getScriptSource();
+        Resource resource = source.getResource();
+        String hash = resource.getExists() ? HashUtil.createShortMD5(resource.getText()) : "";
+        synchronized (scriptHashes) {
+            scriptHashes.put(source.getDisplayName(), hash);
+        }
+    }
+
+    public void afterScript(Script script, Throwable result) {
+    }
+
+    public Map<String, List<String>> getPlan(Collection<String> requestedTaskPaths, Collection<String> plannedTaskPaths) {
+        final String key = key(requestedTaskPaths, plannedTaskPaths);
+        return cacheAccess.useCache("load task plan", new Factory<Map<String, List<String>>>() {
+            public Map<String, List<String>> create() {
+                TaskPlan plan = planCache.get(key);
+                return plan == null ? null : plan.dependencies;
+            }
+        });
+    }
+
+    public void storePlan(Collection<String> requestedTaskPaths, Collection<String> plannedTaskPaths, Map<String, List<String>> plan) {
+        final String key = key(requestedTaskPaths, plannedTaskPaths);
+        final TaskPlan value = new TaskPlan(plan);
+        cacheAccess.useCache("store task plan", new Runnable() {
+            public void run() {
+                planCache.put(key, value);
+            }
+        });
+    }
+
+    private String key(Collection<String> requestedTaskPaths, Collection<String> plannedTaskPaths) {
+        return HashUtil.createShortMD5(getInputsHash() + '\n' + requestedTaskPaths + '\n' + plannedTaskPaths);
+    }
+
+    private String getInputsHash() {
+        if (inputsHash == null) {
+            StartParameter startParameter = gradle.getStartParameter();
+            StringBuilder inputs = new StringBuilder();
+            inputs.append(new TreeSet<String>(startParameter.getExcludedTaskNames())).append('\n');
+            inputs.append(new TreeMap<String, String>(startParameter.getProjectProperties())).append('\n');
+            inputs.append(new TreeMap<String, String>(startParameter.getSystemPropertiesArgs())).append('\n');
+            inputs.append(startParameter.getProjectDependenciesBuildInstruction().isRebuild()).append('\n');
+            inputs.append(getProjectPropertiesFromEnvironment()).append('\n');
+            for (File initScript : startParameter.getInitScripts()) {
+                appendFile(inputs, initScript);
+            }
+            appendFile(inputs, new File(startParameter.getGradleUserHomeDir(), Project.GRADLE_PROPERTIES));
+            Project rootProject = gradle.getRootProject();
+            appendFile(inputs, new File(rootProject.getProjectDir(), Settings.DEFAULT_SETTINGS_FILE));
+            for (Project project : rootProject.getAllprojects()) {
+                inputs.append(project.getPath()).append('\n');
+                appendFile(inputs, project.getBuildFile());
+                appendFile(inputs, new File(project.getProjectDir(), Project.GRADLE_PROPERTIES));
+            }
+            // Includes the scripts applied using 'apply from', which are not known up front
+            synchronized (scriptHashes) {
+                inputs.append(scriptHashes).append('\n');
+            }
+            inputsHash = HashUtil.createShortMD5(inputs.toString());
+        }
+        return inputsHash;
+    }
+
+    private static Map<String, String> getProjectPropertiesFromEnvironment() {
+        Map<String, String> properties = new TreeMap<String, String>();
+        for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
+            if (entry.getKey().startsWith(IGradlePropertiesLoader.ENV_PROJECT_PROPERTIES_PREFIX)) {
+                properties.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(IGradlePropertiesLoader.SYSTEM_PROJECT_PROPERTIES_PREFIX)) {
+                properties.put(name, System.getProperty(name));
+            }
+        }
+        return properties;
+    }
+
+    private static void appendFile(StringBuilder inputs, File file) {
+        inputs.append(file.getAbsolutePath()).append('=');
+        if (file.isFile()) {
+            inputs.append(HashUtil.createHashString(file, "MD5"));
+        }
+        inputs.append('\n');
+    }
+
+    private static class TaskPlan implements Serializable {
+        private final LinkedHashMap<String, List<String>> dependencies;
+
+        private TaskPlan(Map<String, List<String>> dependencies) {
+            this.dependencies = new LinkedHashMap<String, List<String>>();
+            for (Map.Entry<String, List<String>> entry : dependencies.entrySet()) {
+                this.dependencies.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+            }
+        }
+    }
+}
@@ -15,33 +15,95 @@
  */
 package org.gradle.api.internal.changedetection;
 
+import org.gradle.cache.BoundedSizeSerializer;
 import org.gradle.cache.PersistentIndexedCache;
-import org.gradle.cache.Serializer;
 
 import java.io.*;
+import java.util.*;
 
 public class CachingHasher implements Hasher {
     private final PersistentIndexedCache<File, FileInfo> cache;
+    private final InMemoryFileHashCache inMemoryCache;
     private final Hasher hasher;
-    private long timestamp;
+    private final String algorithm;
 
     public CachingHasher(Hasher hasher, TaskArtifactStateCacheAccess cacheAccess) {
+        this(hasher, cacheAccess, new InMemoryFileHashCache(0));
+    }
+
+    public CachingHasher(Hasher hasher, TaskArtifactStateCacheAccess cacheAccess, InMemoryFileHashCache inMemoryCache) {
         this.hasher = hasher;
-        cache = cacheAccess.createCache("fileHashes", File.class, FileInfo.class, new FileInfoSerializer());
+        this.inMemoryCache = inMemoryCache;
+        algorithm = hasher.getAlgorithm();
+        // Keep the hashes of each algorithm apart, as a build may use a different algorithm to the previous build
+        cache = cacheAccess.createCache("fileHashes-" + algorithm, File.class, FileInfo.class, new FileInfoSerializer());
     }
 
-    public byte[] hash(File file) {
-        FileInfo info = cache.get(file);
+    public String getAlgorithm() {
+        return algorithm;
+    }
 
+    public byte[] hash(File file) {
         long length = file.length();
-        timestamp = file.lastModified();
+        long timestamp = file.lastModified();
+        byte[] hash = lookup(file, length, timestamp);
+        if (hash != null) {
+            return hash;
+        }
+
+        hash = hasher.hash(file);
+        store(file, new FileInfo(hash, length, timestamp));
+        return hash;
+    }
+
+    /**
+     * Looks up the cached hashes on the calling thread, and hashes the remaining files as a single batch, so that the
+     * backing hasher can hash them concurrently.
+     */
+    public Map<File, byte[]> hashAll(Collection<File> files) {
+        Map<File, byte[]> hashes = new HashMap<File, byte[]>();
+        Map<File, FileInfo> staleFiles = new HashMap<File, FileInfo>();
+        for (File file : files) {
+            long length = file.length();
+            long timestamp = file.lastModified();
+            byte[] hash = lookup(file, length, timestamp);
+            if (hash != null) {
+                hashes.put(file, hash);
+            } else {
+                staleFiles.put(file, new FileInfo(null, length, timestamp));
+            }
+        }
+
+        if (!staleFiles.isEmpty()) {
+            for (Map.Entry<File, byte[]> entry : hasher.hashAll(staleFiles.keySet()).entrySet()) {
+                FileInfo info = staleFiles.get(entry.getKey());
+                store(entry.getKey(), new FileInfo(entry.getValue(), info.length, info.timestamp));
+                hashes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Looks up the hash in the in-memory cache first, and falls back to the persistent cache, copying any hash found
+     * there into the in-memory cache.
+     */
+    private byte[] lookup(File file, long length, long timestamp) {
+        byte[] hash = inMemoryCache.getHash(algorithm, file, length, timestamp);
+        if (hash != null) {
+            return hash;
+        }
+        FileInfo info = cache.get(file);
         if (info != null && length == info.length && timestamp == info.timestamp) {
+            inMemoryCache.put(algorithm, file, info);
             return info.hash;
         }
+        return null;
+    }
 
-        byte[] hash = hasher.hash(file);
-        cache.put(file, new FileInfo(hash, length, timestamp));
-        return hash;
+    private void store(File file, FileInfo info) {
+        cache.put(file, info);
+        inMemoryCache.put(algorithm, file, info);
     }
 
     public static class FileInfo implements Serializable {
@@ -54,9 +116,28 @@ public class CachingHasher implements Hasher {
             this.length = length;
             this.timestamp = timestamp;
         }
+
+        public byte[] getHash() {
+            return hash;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
     }
 
-    private static class FileInfoSerializer implements Serializer<FileInfo> {
+    private static class FileInfoSerializer implements BoundedSizeSerializer<FileInfo> {
+        // Large enough for a 128 bit hash, plus the hash length, timestamp and file length
+        private static final int MAX_SIZE = 4 + 16 + 8 + 8;
+
+        public int getMaxSize() {
+            return MAX_SIZE;
+        }
+
         public FileInfo read(InputStream instr) throws Exception {
             DataInputStream input = new DataInputStream(instr);
             int hashLength = input.readInt();
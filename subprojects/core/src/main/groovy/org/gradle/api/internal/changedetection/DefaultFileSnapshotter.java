@@ -13,17 +13,16 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.gradle.api.internal.changedetection;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
 
-import java.io.File;
-import java.io.Serializable;
-import java.math.BigInteger;
+import java.io.*;
 import java.util.*;
 
 public class DefaultFileSnapshotter implements FileSnapshotter {
@@ -34,108 +33,222 @@ public class DefaultFileSnapshotter implements FileSnapshotter {
     }
 
     public FileCollectionSnapshot emptySnapshot() {
-        return new FileCollectionSnapshotImpl(new HashMap<String, FileSnapshot>());
+        return new SnapshotBuilder().build();
     }
 
     public FileCollectionSnapshot snapshot(FileCollection sourceFiles) {
-        Map<String, FileSnapshot> snapshots = new HashMap<String, FileSnapshot>();
-        for (File file : sourceFiles.getAsFileTree()) {
-            if (file.isFile()) {
-                snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(hasher.hash(file)));
-            } else if (file.isDirectory()) {
-                snapshots.put(file.getAbsolutePath(), new DirSnapshot());
-            } else {
-                snapshots.put(file.getAbsolutePath(), new MissingFileSnapshot());
+        TimedOperation operation = OperationTimer.getInstance().start("snapshot", "Snapshot files");
+        try {
+            SnapshotBuilder builder = new SnapshotBuilder();
+            List<File> files = new ArrayList<File>();
+            for (File file : sourceFiles.getAsFileTree()) {
+                if (file.isFile()) {
+                    files.add(file);
+                } else if (file.isDirectory()) {
+                    builder.add(file.getAbsolutePath(), FileCollectionSnapshotImpl.TYPE_DIR, null);
+                } else {
+                    builder.add(file.getAbsolutePath(), FileCollectionSnapshotImpl.TYPE_MISSING, null);
+                }
+            }
+            // Hash the files as a batch, so that the hasher can spread the work across several threads
+            for (Map.Entry<File, byte[]> entry : hasher.hashAll(files).entrySet()) {
+                builder.add(entry.getKey().getAbsolutePath(), FileCollectionSnapshotImpl.TYPE_FILE, entry.getValue());
             }
+            operation.addAttribute("files", files.size());
+            return builder.build();
+        } finally {
+            operation.finish();
         }
-        return new FileCollectionSnapshotImpl(snapshots);
     }
 
-    private interface FileSnapshot extends Serializable {
-        boolean isUpToDate(FileSnapshot snapshot);
-    }
-
-    private static class FileHashSnapshot implements FileSnapshot {
+    private static class SnapshotEntry {
+        private final String path;
+        private final byte type;
         private final byte[] hash;
 
-        public FileHashSnapshot(byte[] hash) {
+        private SnapshotEntry(String path, byte type, byte[] hash) {
+            this.path = path;
+            this.type = type;
             this.hash = hash;
         }
+    }
 
-        public boolean isUpToDate(FileSnapshot snapshot) {
-            if (!(snapshot instanceof FileHashSnapshot)) {
-                return false;
-            }
+    /**
+     * Collects entries in any order, and builds a snapshot with the entries sorted by path. When a path is added more
+     * than once, the last entry wins.
+     */
+    private static class SnapshotBuilder {
+        private final List<SnapshotEntry> entries = new ArrayList<SnapshotEntry>();
+        private boolean sorted = true;
 
-            FileHashSnapshot other = (FileHashSnapshot) snapshot;
-            return Arrays.equals(hash, other.hash);
+        void add(String path, byte type, byte[] hash) {
+            if (sorted && !entries.isEmpty() && entries.get(entries.size() - 1).path.compareTo(path) >= 0) {
+                sorted = false;
+            }
+            entries.add(new SnapshotEntry(path, type, hash));
         }
 
-        @Override
-        public String toString() {
-            return new BigInteger(1, hash).toString(16);
+        void add(FileCollectionSnapshotImpl snapshot, int index) {
+            add(snapshot.paths[index], snapshot.types[index], snapshot.getHash(index));
         }
-    }
 
-    private static class DirSnapshot implements FileSnapshot {
-        public boolean isUpToDate(FileSnapshot snapshot) {
-            return snapshot instanceof DirSnapshot;
-        }
-    }
+        FileCollectionSnapshotImpl build() {
+            if (!sorted) {
+                // Stable sort, so that the last of several entries with the same path stays last
+                Collections.sort(entries, new Comparator<SnapshotEntry>() {
+                    public int compare(SnapshotEntry entry1, SnapshotEntry entry2) {
+                        return entry1.path.compareTo(entry2.path);
+                    }
+                });
+                List<SnapshotEntry> unique = new ArrayList<SnapshotEntry>(entries.size());
+                for (SnapshotEntry entry : entries) {
+                    if (!unique.isEmpty() && unique.get(unique.size() - 1).path.equals(entry.path)) {
+                        unique.set(unique.size() - 1, entry);
+                    } else {
+                        unique.add(entry);
+                    }
+                }
+                entries.clear();
+                entries.addAll(unique);
+            }
+
+            int hashWidth = 0;
+            for (SnapshotEntry entry : entries) {
+                if (entry.hash == null) {
+                    continue;
+                }
+                if (hashWidth == 0) {
+                    hashWidth = entry.hash.length;
+                } else if (entry.hash.length != hashWidth) {
+                    throw new IllegalArgumentException(String.format("Cannot add hash of %s bytes for '%s' to a snapshot of %s byte hashes.", entry.hash.length, entry.path, hashWidth));
+                }
+            }
 
-    private static class MissingFileSnapshot implements FileSnapshot {
-        public boolean isUpToDate(FileSnapshot snapshot) {
-            return snapshot instanceof MissingFileSnapshot;
+            String[] paths = new String[entries.size()];
+            byte[] types = new byte[entries.size()];
+            byte[] hashes = new byte[entries.size() * hashWidth];
+            for (int i = 0; i < paths.length; i++) {
+                SnapshotEntry entry = entries.get(i);
+                paths[i] = entry.path;
+                types[i] = entry.type;
+                if (entry.hash != null) {
+                    System.arraycopy(entry.hash, 0, hashes, i * hashWidth, hashWidth);
+                }
+            }
+            return new FileCollectionSnapshotImpl(paths, types, hashes, hashWidth);
         }
     }
 
+    /**
+     * A snapshot stored as a table of paths sorted by path, with a type tag for each path and a fixed-width hash for
+     * each path which is a regular file. Snapshots are compared using a single merge pass over the two tables.
+     *
+     * <p>The serialized form is compact: each path is written as the length of the prefix it shares with the previous
+     * path followed by the remaining characters, and the hashes are written as a single block.</p>
+     */
     private static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
-        private final Map<String, FileSnapshot> snapshots;
+        private static final long serialVersionUID = 1L;
+        private static final int FORMAT_VERSION = 2;
+        static final byte TYPE_FILE = 1;
+        static final byte TYPE_DIR = 2;
+        static final byte TYPE_MISSING = 3;
+
+        private transient String[] paths;
+        private transient byte[] types;
+        private transient byte[] hashes;
+        private transient int hashWidth;
+
+        public FileCollectionSnapshotImpl(String[] paths, byte[] types, byte[] hashes, int hashWidth) {
+            this.paths = paths;
+            this.types = types;
+            this.hashes = hashes;
+            this.hashWidth = hashWidth;
+        }
 
-        public FileCollectionSnapshotImpl(Map<String, FileSnapshot> snapshots) {
-            this.snapshots = snapshots;
+        private byte[] getHash(int index) {
+            if (types[index] != TYPE_FILE) {
+                return null;
+            }
+            byte[] hash = new byte[hashWidth];
+            System.arraycopy(hashes, index * hashWidth, hash, 0, hashWidth);
+            return hash;
+        }
+
+        private boolean isUpToDate(int index, FileCollectionSnapshotImpl oldSnapshot, int oldIndex) {
+            if (types[index] != oldSnapshot.types[oldIndex]) {
+                return false;
+            }
+            if (types[index] != TYPE_FILE) {
+                return true;
+            }
+            if (hashWidth != oldSnapshot.hashWidth) {
+                return false;
+            }
+            int offset = index * hashWidth;
+            int oldOffset = oldIndex * hashWidth;
+            for (int i = 0; i < hashWidth; i++) {
+                if (hashes[offset + i] != oldSnapshot.hashes[oldOffset + i]) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         public FileCollection getFiles() {
             List<File> files = new ArrayList<File>();
-            for (Map.Entry<String, FileSnapshot> entry : snapshots.entrySet()) {
-                if (entry.getValue() instanceof FileHashSnapshot) {
-                    files.add(new File(entry.getKey()));
+            for (int i = 0; i < paths.length; i++) {
+                if (types[i] == TYPE_FILE) {
+                    files.add(new File(paths[i]));
                 }
             }
             return new SimpleFileCollection(files);
         }
 
         public void changesSince(FileCollectionSnapshot oldSnapshot, final ChangeListener<File> listener) {
-            FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
-            diff(snapshots, other.snapshots, new ChangeListener<Map.Entry<String, FileSnapshot>>() {
-                public void added(Map.Entry<String, FileSnapshot> element) {
-                    listener.added(new File(element.getKey()));
+            final FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
+            diff(other, new DiffListener() {
+                public void added(int index) {
+                    listener.added(new File(paths[index]));
                 }
 
-                public void removed(Map.Entry<String, FileSnapshot> element) {
-                    listener.removed(new File(element.getKey()));
+                public void removed(int oldIndex) {
+                    listener.removed(new File(other.paths[oldIndex]));
                 }
 
-                public void changed(Map.Entry<String, FileSnapshot> element) {
-                    listener.changed(new File(element.getKey()));
+                public void changed(int index) {
+                    listener.changed(new File(paths[index]));
                 }
             });
         }
 
-        private void diff(Map<String, FileSnapshot> snapshots, Map<String, FileSnapshot> oldSnapshots,
-                          ChangeListener<Map.Entry<String, FileSnapshot>> listener) {
-            Map<String, FileSnapshot> otherSnapshots = new HashMap<String, FileSnapshot>(oldSnapshots);
-            for (Map.Entry<String, FileSnapshot> entry : snapshots.entrySet()) {
-                FileSnapshot otherFile = otherSnapshots.remove(entry.getKey());
-                if (otherFile == null) {
-                    listener.added(entry);
-                } else if (!entry.getValue().isUpToDate(otherFile)) {
-                    listener.changed(entry);
+        /**
+         * Walks this snapshot and the old snapshot in path order, notifying the listener of each difference.
+         */
+        private void diff(FileCollectionSnapshotImpl oldSnapshot, DiffListener listener) {
+            int index = 0;
+            int oldIndex = 0;
+            while (index < paths.length || oldIndex < oldSnapshot.paths.length) {
+                int comparison;
+                if (index == paths.length) {
+                    comparison = 1;
+                } else if (oldIndex == oldSnapshot.paths.length) {
+                    comparison = -1;
+                } else {
+                    comparison = paths[index].compareTo(oldSnapshot.paths[oldIndex]);
+                }
+                if (comparison < 0) {
+                    listener.added(index);
+                    index++;
+                } else if (comparison > 0) {
+                    listener.removed(oldIndex);
+                    oldIndex++;
+                } else {
+                    if (!isUpToDate(index, oldSnapshot, oldIndex)) {
+                        listener.changed(index);
+                    }
+                    index++;
+                    oldIndex++;
                 }
-            }
-            for (Map.Entry<String, FileSnapshot> entry : otherSnapshots.entrySet()) {
-                listener.removed(entry);
             }
         }
 
@@ -148,11 +261,127 @@ public class DefaultFileSnapshotter implements FileSnapshotter {
 
                 public FileCollectionSnapshot applyTo(FileCollectionSnapshot snapshot, final ChangeListener<Merge> listener) {
                     FileCollectionSnapshotImpl target = (FileCollectionSnapshotImpl) snapshot;
-                    final Map<String, FileSnapshot> newSnapshots = new HashMap<String, FileSnapshot>(target.snapshots);
-                    diff(snapshots, other.snapshots, new MapMergeChangeListener<String, FileSnapshot>(listener, newSnapshots));
-                    return new FileCollectionSnapshotImpl(newSnapshots);
+                    final SnapshotBuilder builder = new SnapshotBuilder();
+                    final Set<String> removed = new HashSet<String>();
+                    for (int i = 0; i < target.paths.length; i++) {
+                        builder.add(target, i);
+                    }
+                    diff(other, new DiffListener() {
+                        public void added(int index) {
+                            if (merge(listener, ChangeType.Added)) {
+                                builder.add(FileCollectionSnapshotImpl.this, index);
+                            }
+                        }
+
+                        public void removed(int oldIndex) {
+                            if (merge(listener, ChangeType.Removed)) {
+                                removed.add(other.paths[oldIndex]);
+                            }
+                        }
+
+                        public void changed(int index) {
+                            if (merge(listener, ChangeType.Changed)) {
+                                builder.add(FileCollectionSnapshotImpl.this, index);
+                            }
+                        }
+                    });
+                    FileCollectionSnapshotImpl merged = builder.build();
+                    return removed.isEmpty() ? merged : merged.without(removed);
                 }
             };
         }
+
+        private FileCollectionSnapshotImpl without(Set<String> removed) {
+            SnapshotBuilder builder = new SnapshotBuilder();
+            for (int i = 0; i < paths.length; i++) {
+                if (!removed.contains(paths[i])) {
+                    builder.add(this, i);
+                }
+            }
+            return builder.build();
+        }
+
+        private static boolean merge(ChangeListener<Merge> listener, ChangeType changeType) {
+            DefaultMerge merge = new DefaultMerge();
+            switch (changeType) {
+                case Added:
+                    listener.added(merge);
+                    break;
+                case Removed:
+                    listener.removed(merge);
+                    break;
+                default:
+                    listener.changed(merge);
+            }
+            return !merge.ignore;
+        }
+
+        private void writeObject(ObjectOutputStream outstr) throws IOException {
+            outstr.defaultWriteObject();
+            outstr.writeByte(FORMAT_VERSION);
+            outstr.writeInt(paths.length);
+            outstr.writeByte(hashWidth);
+            String previous = "";
+            for (int i = 0; i < paths.length; i++) {
+                String path = paths[i];
+                int prefix = 0;
+                int maxPrefix = Math.min(previous.length(), path.length());
+                while (prefix < maxPrefix && previous.charAt(prefix) == path.charAt(prefix)) {
+                    prefix++;
+                }
+                // Paths can be longer than writeUTF() allows, so write the length as an int
+                byte[] suffix = path.substring(prefix).getBytes("UTF-8");
+                outstr.writeInt(prefix);
+                outstr.writeInt(suffix.length);
+                outstr.write(suffix);
+                outstr.writeByte(types[i]);
+                previous = path;
+            }
+            outstr.write(hashes);
+        }
+
+        private void readObject(ObjectInputStream instr) throws IOException, ClassNotFoundException {
+            instr.defaultReadObject();
+            int version = instr.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new InvalidObjectException(String.format("Unexpected file snapshot format version %s.", version));
+            }
+            int count = instr.readInt();
+            hashWidth = instr.readUnsignedByte();
+            paths = new String[count];
+            types = new byte[count];
+            String previous = "";
+            for (int i = 0; i < count; i++) {
+                int prefix = instr.readInt();
+                byte[] suffix = new byte[instr.readInt()];
+                instr.readFully(suffix);
+                String path = previous.substring(0, prefix) + new String(suffix, "UTF-8");
+                paths[i] = path;
+                types[i] = instr.readByte();
+                previous = path;
+            }
+            hashes = new byte[count * hashWidth];
+            instr.readFully(hashes);
+        }
+    }
+
+    private enum ChangeType {
+        Added, Removed, Changed
+    }
+
+    private interface DiffListener {
+        void added(int index);
+
+        void removed(int oldIndex);
+
+        void changed(int index);
+    }
+
+    private static class DefaultMerge implements FileCollectionSnapshot.Merge {
+        private boolean ignore;
+
+        public void ignore() {
+            ignore = true;
+        }
     }
 }
@@ -36,13 +36,18 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
         this.cacheRepository = cacheRepository;
     }
 
-    private PersistentCache getCache() {
+    private synchronized PersistentCache getCache() {
         if (cache == null) {
+            // Tasks executed in parallel use the cache from several threads. An exclusive lock keeps the cache owned by
+            // the thread which opened it, so lock the cache on demand instead
+            FileLockManager.LockMode lockMode = gradle.getStartParameter().getParallelThreadCount() > 0
+                    ? FileLockManager.LockMode.None
+                    : FileLockManager.LockMode.Exclusive;
             cache = cacheRepository
                     .cache("taskArtifacts")
                     .forObject(gradle)
                     .withDisplayName("task artifact state cache")
-                    .withLockMode(FileLockManager.LockMode.Exclusive)
+                    .withLockMode(lockMode)
                     .open();
         }
         return cache;
@@ -16,7 +16,23 @@
 package org.gradle.api.internal.changedetection;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Map;
 
 public interface Hasher {
     byte[] hash(File file);
+
+    /**
+     * Returns the name of the algorithm this hasher uses, such as {@code md5}. Hashes calculated using different
+     * algorithms cannot be compared.
+     */
+    String getAlgorithm();
+
+    /**
+     * Hashes each of the given files.
+     *
+     * @param files The files to hash. Each file must be a regular file.
+     * @return A map from file to its hash.
+     */
+    Map<File, byte[]> hashAll(Collection<File> files);
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of file hashes which is kept in memory and shared by all builds run by a process, such as the daemon. The
+ * cache is bounded by the estimated number of bytes its entries take, and evicts the least recently used entries
+ * first. An entry is used only while the length and timestamp of its file are unchanged.
+ *
+ * <p>The hashes of each algorithm are kept in a separate map, as the builds run by a process may use different
+ * algorithms. When the cache is full, the entries of the other algorithms are evicted before those of the algorithm
+ * being added to.</p>
+ */
+public class InMemoryFileHashCache {
+    // Rough size of an entry, not counting the path and hash: the map entry, the file, the path string and the info
+    private static final int ENTRY_OVERHEAD = 160;
+    private final long maxSize;
+    private final Map<String, Map<File, CachingHasher.FileInfo>> entriesByAlgorithm = new HashMap<String, Map<File, CachingHasher.FileInfo>>();
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxSize The maximum number of bytes the cached entries may take.
+     */
+    public InMemoryFileHashCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the hash of the given file calculated using the given algorithm, or null when the hash of the file with
+     * the given length and timestamp is not cached.
+     */
+    public synchronized byte[] getHash(String algorithm, File file, long length, long timestamp) {
+        Map<File, CachingHasher.FileInfo> entries = entriesByAlgorithm.get(algorithm);
+        CachingHasher.FileInfo info = entries == null ? null : entries.get(file);
+        if (info == null) {
+            misses++;
+            return null;
+        }
+        if (info.getLength() != length || info.getTimestamp() != timestamp) {
+            entries.remove(file);
+            size -= sizeOf(file, info);
+            misses++;
+            return null;
+        }
+        hits++;
+        return info.getHash();
+    }
+
+    public synchronized void put(String algorithm, File file, CachingHasher.FileInfo info) {
+        long entrySize = sizeOf(file, info);
+        if (entrySize > maxSize) {
+            return;
+        }
+        Map<File, CachingHasher.FileInfo> entries = entriesByAlgorithm.get(algorithm);
+        if (entries == null) {
+            entries = new LinkedHashMap<File, CachingHasher.FileInfo>(16, 0.75f, true);
+            entriesByAlgorithm.put(algorithm, entries);
+        }
+        CachingHasher.FileInfo previous = entries.put(file, info);
+        if (previous != null) {
+            size -= sizeOf(file, previous);
+        }
+        size += entrySize;
+        for (Map<File, CachingHasher.FileInfo> otherEntries : entriesByAlgorithm.values()) {
+            if (otherEntries != entries) {
+                evict(otherEntries);
+            }
+        }
+        evict(entries);
+    }
+
+    private void evict(Map<File, CachingHasher.FileInfo> entries) {
+        Iterator<Map.Entry<File, CachingHasher.FileInfo>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<File, CachingHasher.FileInfo> eldest = iterator.next();
+            iterator.remove();
+            size -= sizeOf(eldest.getKey(), eldest.getValue());
+            evictions++;
+        }
+    }
+
+    public synchronized Statistics getStatistics() {
+        int entryCount = 0;
+        for (Map<File, CachingHasher.FileInfo> entries : entriesByAlgorithm.values()) {
+            entryCount += entries.size();
+        }
+        return new Statistics(hits, misses, evictions, entryCount, size);
+    }
+
+    private static long sizeOf(File file, CachingHasher.FileInfo info) {
+        return ENTRY_OVERHEAD + 2L * file.getPath().length() + info.getHash().length;
+    }
+
+    /**
+     * A snapshot of the usage of the cache.
+     */
+    public static class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int entryCount;
+        private final long size;
+
+        public Statistics(long hits, long misses, long evictions, int entryCount, long size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entryCount = entryCount;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        /**
+         * Returns the estimated number of bytes taken by the cached entries.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the percentage of lookups which found a hash, or 0 when there have been no lookups.
+         */
+        public int getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (int) (hits * 100 / lookups);
+        }
+
+        /**
+         * Returns the usage of the cache since the given earlier snapshot was taken. The entry count and size are those
+         * of this snapshot.
+         */
+        public Statistics since(Statistics earlier) {
+            return new Statistics(hits - earlier.hits, misses - earlier.misses, evictions - earlier.evictions, entryCount, size);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.nativeplatform.OperatingSystem;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hashes files using the 128 bit variant of MurmurHash3, which is much cheaper to calculate than MD5 but is not a
+ * cryptographic hash. Files are read using a {@link FileChannel}, and large files are memory mapped rather than
+ * copied into a buffer. Files are not mapped on Windows, where a mapped file cannot be deleted until the mapping is
+ * garbage collected.
+ */
+public class Murmur3Hasher implements Hasher {
+    private static final long DEFAULT_MAPPING_THRESHOLD = 1024 * 1024;
+    private static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final long mappingThreshold;
+
+    public Murmur3Hasher() {
+        this(OperatingSystem.current().isWindows() ? Long.MAX_VALUE : DEFAULT_MAPPING_THRESHOLD);
+    }
+
+    /**
+     * @param mappingThreshold The length from which files are memory mapped.
+     */
+    public Murmur3Hasher(long mappingThreshold) {
+        this.mappingThreshold = mappingThreshold;
+    }
+
+    public String getAlgorithm() {
+        return "murmur3";
+    }
+
+    public byte[] hash(File file) {
+        try {
+            FileInputStream instr = new FileInputStream(file);
+            try {
+                FileChannel channel = instr.getChannel();
+                Murmur3 hash = new Murmur3();
+                long size = channel.size();
+                if (size >= mappingThreshold) {
+                    for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+                        hash.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position)));
+                    }
+                } else {
+                    ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(16, Math.min(size, BUFFER_SIZE)));
+                    while (channel.read(buffer) >= 0) {
+                        buffer.flip();
+                        hash.update(buffer);
+                        buffer.clear();
+                    }
+                }
+                return hash.finish();
+            } finally {
+                instr.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Map<File, byte[]> hashAll(Collection<File> files) {
+        Map<File, byte[]> hashes = new HashMap<File, byte[]>();
+        for (File file : files) {
+            hashes.put(file, hash(file));
+        }
+        return hashes;
+    }
+
+    /**
+     * Calculates MurmurHash3 x64 128 with a seed of 0 over a sequence of buffers of any length.
+     */
+    private static class Murmur3 {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+        private final ByteBuffer pending = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        private long h1;
+        private long h2;
+        private long length;
+
+        void update(ByteBuffer data) {
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            length += data.remaining();
+            if (pending.position() > 0) {
+                while (pending.hasRemaining() && data.hasRemaining()) {
+                    pending.put(data.get());
+                }
+                if (pending.hasRemaining()) {
+                    return;
+                }
+                pending.flip();
+                mixBlock(pending.getLong(), pending.getLong());
+                pending.clear();
+            }
+            while (data.remaining() >= 16) {
+                mixBlock(data.getLong(), data.getLong());
+            }
+            pending.put(data);
+        }
+
+        byte[] finish() {
+            pending.flip();
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = pending.limit() - 1; i >= 0; i--) {
+                long b = pending.get(i) & 0xffL;
+                if (i >= 8) {
+                    k2 = (k2 << 8) | b;
+                } else {
+                    k1 = (k1 << 8) | b;
+                }
+            }
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+
+            return ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(h1).putLong(h2).array();
+        }
+
+        private void mixBlock(long k1, long k2) {
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link Hasher} which hashes a batch of files using a fixed number of threads, shared by all batches. The backing
+ * hasher must be thread-safe. Small batches are hashed on the calling thread. The threads are released when this
+ * hasher is stopped.
+ */
+public class ParallelHasher implements Hasher, Stoppable {
+    private static final int MIN_FILES_PER_THREAD = 8;
+    private final Hasher hasher;
+    private final int threadCount;
+    private final StoppableExecutor executor;
+
+    public ParallelHasher(Hasher hasher, ExecutorFactory executorFactory, int threadCount) {
+        this.hasher = hasher;
+        this.threadCount = threadCount;
+        executor = executorFactory.create("File hasher", threadCount);
+    }
+
+    public byte[] hash(File file) {
+        return hasher.hash(file);
+    }
+
+    public String getAlgorithm() {
+        return hasher.getAlgorithm();
+    }
+
+    public void stop() {
+        executor.stop();
+    }
+
+    public Map<File, byte[]> hashAll(Collection<File> files) {
+        int workerCount = Math.min(threadCount, files.size() / MIN_FILES_PER_THREAD);
+        if (workerCount < 2) {
+            return hasher.hashAll(files);
+        }
+
+        final List<File> fileList = new ArrayList<File>(files);
+        final byte[][] hashes = new byte[fileList.size()][];
+        final AtomicInteger nextFile = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch finished = new CountDownLatch(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        int index;
+                        while (failure.get() == null && (index = nextFile.getAndIncrement()) < hashes.length) {
+                            hashes[index] = hasher.hash(fileList.get(index));
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            });
+        }
+
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+        if (failure.get() != null) {
+            throw UncheckedException.asUncheckedException(failure.get());
+        }
+
+        Map<File, byte[]> result = new HashMap<File, byte[]>();
+        for (int i = 0; i < hashes.length; i++) {
+            result.put(fileList.get(i), hashes[i]);
+        }
+        return result;
+    }
+}
@@ -28,7 +28,17 @@ public class TaskCacheLockHandlingBuildExecuter implements BuildExecutionAction
     public void execute(final BuildExecutionContext context) {
         cacheAccess.useCache("execute tasks", new Runnable(){
             public void run() {
-                context.proceed();
+                if (context.getGradle().getStartParameter().getParallelThreadCount() > 0) {
+                    // Tasks are executed on worker threads, which lock the cache as required. Release the cache while
+                    // waiting for them
+                    cacheAccess.longRunningOperation("execute tasks in parallel", new Runnable() {
+                        public void run() {
+                            context.proceed();
+                        }
+                    });
+                } else {
+                    context.proceed();
+                }
             }
         });
     }
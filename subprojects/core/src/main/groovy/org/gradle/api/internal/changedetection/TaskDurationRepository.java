@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps track of how long tasks have taken to execute in previous builds.
+ */
+public interface TaskDurationRepository {
+    /**
+     * Returns the expected execution time of each of the given tasks, in milliseconds. Tasks which have not been
+     * executed before are not included in the result.
+     *
+     * @param taskPaths The paths of the tasks.
+     * @return A map from task path to expected execution time.
+     */
+    Map<String, Long> getExpectedDurations(Collection<String> taskPaths);
+
+    /**
+     * Records the execution time of the given tasks.
+     *
+     * @param durations A map from task path to the execution time of the task in this build, in milliseconds.
+     */
+    void recordDurations(Map<String, Long> durations);
+}
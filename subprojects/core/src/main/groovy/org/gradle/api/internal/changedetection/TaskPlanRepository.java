@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the task execution plans calculated by previous builds, so that an identical build can reuse a plan rather
+ * than resolving the task dependencies again. A plan is described as a map from task path to the paths of the tasks
+ * it depends on, with the tasks in execution order.
+ */
+public interface TaskPlanRepository {
+    /**
+     * Returns the plan which was calculated for the given requested tasks, when starting from a plan which already
+     * contained the given planned tasks. Returns null when there is no such plan, or when the inputs of the build
+     * have changed since it was calculated.
+     */
+    Map<String, List<String>> getPlan(Collection<String> requestedTaskPaths, Collection<String> plannedTaskPaths);
+
+    /**
+     * Records the plan calculated for the given requested tasks, when starting from a plan which already contained
+     * the given planned tasks.
+     */
+    void storePlan(Collection<String> requestedTaskPaths, Collection<String> plannedTaskPaths, Map<String, List<String>> plan);
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.collections;
+
+import org.gradle.api.specs.Specs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index from name to element for a named domain object collection. A filtered index shares the entries of the
+ * index it was created from, so only the index of the unfiltered collection is updated.
+ */
+public class NameIndex<T> {
+    private final Map<String, T> elements;
+
+    public NameIndex() {
+        this(new HashMap<String, T>());
+    }
+
+    private NameIndex(Map<String, T> elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Returns the element with the given name, or null if there is no such element.
+     */
+    public T get(String name) {
+        return elements.get(name);
+    }
+
+    public void put(String name, T element) {
+        elements.put(name, element);
+    }
+
+    /**
+     * Removes the given element, if it is currently indexed under the given name.
+     */
+    public void remove(String name, T element) {
+        if (elements.get(name) == element) {
+            elements.remove(name);
+        }
+    }
+
+    public <S extends T> NameIndex<S> filtered(CollectionFilter<S> filter) {
+        return new FilteringNameIndex<S>(filter, (Map) elements);
+    }
+
+    private static class FilteringNameIndex<S> extends NameIndex<S> {
+        private final CollectionFilter<S> filter;
+
+        public FilteringNameIndex(CollectionFilter<S> filter, Map<String, S> elements) {
+            super(elements);
+            this.filter = filter;
+        }
+
+        @Override
+        public S get(String name) {
+            return filter.filter(super.get(name));
+        }
+
+        @Override
+        public void put(String name, S element) {
+            throw new UnsupportedOperationException(String.format("Cannot add '%s' to a filtered index.", element));
+        }
+
+        @Override
+        public void remove(String name, S element) {
+            throw new UnsupportedOperationException(String.format("Cannot remove '%s' from a filtered index.", element));
+        }
+
+        @Override
+        public <K extends S> NameIndex<K> filtered(CollectionFilter<K> filter) {
+            return super.filtered(new CollectionFilter<K>(filter.getType(), Specs.<K>and(filter, this.filter)));
+        }
+    }
+}
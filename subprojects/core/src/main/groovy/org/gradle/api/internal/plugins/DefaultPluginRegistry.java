@@ -70,7 +70,7 @@ public class DefaultPluginRegistry implements PluginRegistry {
         }
     }
 
-    public Class<? extends Plugin> getTypeForId(String pluginId) {
+    public synchronized Class<? extends Plugin> getTypeForId(String pluginId) {
         if (parent != null) {
             try {
                 return parent.getTypeForId(pluginId);
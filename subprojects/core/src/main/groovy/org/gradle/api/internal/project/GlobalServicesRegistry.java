@@ -18,6 +18,7 @@ package org.gradle.api.internal.project;
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.*;
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -104,4 +105,10 @@ public class GlobalServicesRegistry extends DefaultServiceRegistry {
     protected FileLockManager createFileLockManager() {
         return new DefaultFileLockManager(new DefaultProcessMetaDataProvider(get(ProcessEnvironment.class)));
     }
+
+    protected InMemoryFileHashCache createInMemoryFileHashCache() {
+        // Use at most 1/32 of the heap, up to 32MB, so that a long lived daemon keeps the hashes of its recent builds
+        long maxSize = Math.min(Runtime.getRuntime().maxMemory() / 32, 32L * 1024 * 1024);
+        return new InMemoryFileHashCache(maxSize);
+    }
 }
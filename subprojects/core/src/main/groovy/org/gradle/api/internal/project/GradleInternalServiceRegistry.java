@@ -19,12 +19,15 @@ import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.changedetection.TaskArtifactStateCacheAccess;
 import org.gradle.api.internal.changedetection.TaskCacheLockHandlingBuildExecuter;
+import org.gradle.api.internal.changedetection.TaskDurationRepository;
+import org.gradle.api.internal.changedetection.TaskPlanRepository;
 import org.gradle.api.internal.plugins.DefaultPluginRegistry;
 import org.gradle.api.internal.plugins.PluginRegistry;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.execution.*;
 import org.gradle.listener.ListenerManager;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 
 import static java.util.Arrays.asList;
 
@@ -41,10 +44,11 @@ public class GradleInternalServiceRegistry extends DefaultServiceRegistry implem
     }
 
     protected BuildExecuter createBuildExecuter() {
+        TaskNameResolver taskNameResolver = new TaskNameResolver(get(ProjectAccessListener.class));
         return new DefaultBuildExecuter(
                 asList(new DefaultTasksBuildExecutionAction(),
-                        new ExcludedTaskFilteringBuildConfigurationAction(),
-                        new TaskNameResolvingBuildConfigurationAction()),
+                        new ExcludedTaskFilteringBuildConfigurationAction(taskNameResolver),
+                        new TaskNameResolvingBuildConfigurationAction(taskNameResolver)),
                 asList(new DryRunBuildExecutionAction(),
                         new TaskCacheLockHandlingBuildExecuter(get(TaskArtifactStateCacheAccess.class)),
                         new SelectedTaskExecutionAction()));
@@ -63,7 +67,18 @@ public class GradleInternalServiceRegistry extends DefaultServiceRegistry implem
     }
 
     protected TaskGraphExecuter createTaskGraphExecuter() {
-        return new DefaultTaskGraphExecuter(get(ListenerManager.class));
+        if (gradle.getStartParameter().isTaskGraphCaching()) {
+            return new DefaultTaskGraphExecuter(get(ListenerManager.class), get(TaskPlanExecutor.class), get(TaskPlanRepository.class));
+        }
+        return new DefaultTaskGraphExecuter(get(ListenerManager.class), get(TaskPlanExecutor.class));
+    }
+
+    protected TaskPlanExecutor createTaskPlanExecutor() {
+        int parallelThreadCount = gradle.getStartParameter().getParallelThreadCount();
+        if (parallelThreadCount > 0) {
+            return new ParallelTaskPlanExecutor(get(ExecutorFactory.class), parallelThreadCount, get(TaskDurationRepository.class));
+        }
+        return new DefaultTaskPlanExecutor();
     }
 
     protected PluginRegistry createPluginRegistry() {
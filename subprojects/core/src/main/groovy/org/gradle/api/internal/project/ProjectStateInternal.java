@@ -20,8 +20,8 @@ import org.gradle.api.ProjectState;
 import org.gradle.internal.UncheckedException;
 
 public class ProjectStateInternal implements ProjectState {
-    private boolean executing;
-    private boolean executed;
+    private volatile Thread executingThread;
+    private volatile boolean executed;
     private Throwable failure;
 
     public boolean getExecuted() {
@@ -39,11 +39,18 @@ public class ProjectStateInternal implements ProjectState {
     }
 
     public boolean getExecuting() {
-        return executing;
+        return executingThread != null;
+    }
+
+    /**
+     * Returns true if the project is being evaluated by the calling thread.
+     */
+    public boolean isExecutingInCurrentThread() {
+        return executingThread == Thread.currentThread();
     }
 
     public void setExecuting(boolean executing) {
-        this.executing = executing;
+        this.executingThread = executing ? Thread.currentThread() : null;
     }
 
     public Throwable getFailure() {
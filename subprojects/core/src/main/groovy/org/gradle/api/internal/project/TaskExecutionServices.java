@@ -36,31 +36,44 @@ public class TaskExecutionServices extends DefaultServiceRegistry {
     }
 
     protected TaskExecuter createTaskExecuter() {
+        TaskArtifactStateCacheAccess cacheAccess = get(TaskArtifactStateCacheAccess.class);
+        TaskExecuter upToDateExecuter = new SkipUpToDateTaskExecuter(
+                new CacheLockHandlingTaskExecuter(
+                        new PostExecutionAnalysisTaskExecuter(
+                                new ExecuteActionsTaskExecuter(
+                                        get(ListenerManager.class).getBroadcaster(TaskActionListener.class))),
+                        cacheAccess),
+                get(TaskArtifactStateRepository.class));
+        if (get(StartParameter.class).getParallelThreadCount() > 0) {
+            upToDateExecuter = new CacheLockAcquiringTaskExecuter(upToDateExecuter, cacheAccess);
+        }
         return new ExecuteAtMostOnceTaskExecuter(
                 new SkipOnlyIfTaskExecuter(
                         new SkipTaskWithNoActionsExecuter(
                                 new SkipEmptySourceFilesTaskExecuter(
-                                        new ValidatingTaskExecuter(
-                                                new SkipUpToDateTaskExecuter(
-                                                        new CacheLockHandlingTaskExecuter(
-                                                                new PostExecutionAnalysisTaskExecuter(
-                                                                        new ExecuteActionsTaskExecuter(
-                                                                                get(ListenerManager.class).getBroadcaster(TaskActionListener.class))),
-                                                                get(TaskArtifactStateCacheAccess.class)),
-                                                        get(TaskArtifactStateRepository.class)))))));
+                                        new ValidatingTaskExecuter(upToDateExecuter)))));
     }
 
     protected TaskArtifactStateCacheAccess createCacheAccess() {
         return new DefaultTaskArtifactStateCacheAccess(gradle, get(CacheRepository.class));
     }
 
+    protected TaskDurationRepository createTaskDurationRepository() {
+        return new CacheBackedTaskDurationRepository(get(TaskArtifactStateCacheAccess.class));
+    }
+
+    protected TaskPlanRepository createTaskPlanRepository() {
+        return new CacheBackedTaskPlanRepository(get(TaskArtifactStateCacheAccess.class), gradle, get(ListenerManager.class));
+    }
+
     protected TaskArtifactStateRepository createTaskArtifactStateRepository() {
         TaskArtifactStateCacheAccess cacheAccess = get(TaskArtifactStateCacheAccess.class);
 
         FileSnapshotter fileSnapshotter = new DefaultFileSnapshotter(
                 new CachingHasher(
-                        new DefaultHasher(),
-                        cacheAccess));
+                        get(Hasher.class),
+                        cacheAccess,
+                        get(InMemoryFileHashCache.class)));
 
         FileSnapshotter outputFilesSnapshotter = new OutputFilesSnapshotter(fileSnapshotter, new RandomLongIdGenerator(), cacheAccess);
 
@@ -23,6 +23,7 @@ import org.gradle.api.internal.*;
 import org.gradle.api.internal.artifacts.DefaultModule;
 import org.gradle.api.internal.artifacts.DependencyManagementServices;
 import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvider;
+import org.gradle.api.internal.changedetection.*;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
 import org.gradle.api.internal.file.FileResolver;
@@ -82,6 +83,15 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
         return new DefaultExecutorFactory();
     }
 
+    protected Hasher createHasher() {
+        Hasher hasher = startParameter.isFastFileHashing() ? new Murmur3Hasher() : new DefaultHasher();
+        if (startParameter.isParallelSnapshotting()) {
+            // Owned by this registry, so the hashing threads are stopped when the build finishes
+            hasher = new ParallelHasher(hasher, get(ExecutorFactory.class), Runtime.getRuntime().availableProcessors());
+        }
+        return hasher;
+    }
+
     protected IProjectFactory createProjectFactory() {
         return new ProjectFactory(
                 startParameter.getBuildScriptSource(),
@@ -128,9 +138,19 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
     }
     
     protected ProjectEvaluator createProjectEvaluator() {
-        return new LifecycleProjectEvaluator(
+        ProjectEvaluator evaluator = new LifecycleProjectEvaluator(
                 new BuildScriptProcessor(
                         get(ScriptPluginFactory.class)));
+        if (startParameter.isConfigureOnDemand()) {
+            return new ConfigureOnDemandProjectEvaluator(
+                    evaluator,
+                    new ProjectDependencies2TaskResolver(),
+                    new ImplicitTasksConfigurer());
+        }
+        if (startParameter.isParallelProjectConfiguration()) {
+            return new ConcurrentProjectEvaluator(evaluator);
+        }
+        return evaluator;
     }
 
     protected ITaskFactory createITaskFactory() {
@@ -210,8 +230,24 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
                 new IdentityFileResolver(), new LongIdGenerator());
     }
 
+    protected ProjectAccessListener createProjectAccessListener() {
+        if (startParameter.isConfigureOnDemand()) {
+            return new EvaluatingProjectAccessListener();
+        }
+        return new DefaultProjectAccessListener();
+    }
+
     protected BuildConfigurer createBuildConfigurer() {
+        if (startParameter.isConfigureOnDemand()) {
+            return new ConfigureOnDemandBuildConfigurer();
+        }
+        int workerCount = 0;
+        if (startParameter.isParallelProjectConfiguration()) {
+            workerCount = startParameter.getParallelThreadCount() > 0 ? startParameter.getParallelThreadCount() : Runtime.getRuntime().availableProcessors();
+        }
         return new DefaultBuildConfigurer(
+                get(ExecutorFactory.class),
+                workerCount,
                 new ProjectEvaluationConfigurer(),
                 new ProjectDependencies2TaskResolver(),
                 new ImplicitTasksConfigurer());
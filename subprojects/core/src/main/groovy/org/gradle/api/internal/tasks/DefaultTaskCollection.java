@@ -24,6 +24,7 @@ import org.gradle.api.internal.DefaultNamedDomainObjectSet;
 import org.gradle.api.internal.Instantiator;
 import org.gradle.api.internal.collections.CollectionEventRegister;
 import org.gradle.api.internal.collections.CollectionFilter;
+import org.gradle.api.internal.collections.NameIndex;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
@@ -45,8 +46,13 @@ public class DefaultTaskCollection<T extends Task> extends DefaultNamedDomainObj
         this.project = project;
     }
 
+    protected DefaultTaskCollection(Class<T> type, Set<T> store, CollectionEventRegister<T> eventRegister, NameIndex<T> index, Instantiator instantiator, ProjectInternal project) {
+        super(type, store, eventRegister, index, instantiator, new Task.Namer());
+        this.project = project;
+    }
+
     public DefaultTaskCollection(DefaultTaskCollection<? super T> collection, CollectionFilter<T> filter, Instantiator instantiator, ProjectInternal project) {
-        this(filter.getType(), collection.filteredStore(filter), collection.filteredEvents(filter), instantiator, project);
+        this(filter.getType(), collection.filteredStore(filter), collection.filteredEvents(filter), collection.filteredIndex(filter), instantiator, project);
     }
 
     protected <S extends T> DefaultTaskCollection<S> filtered(CollectionFilter<S> filter) {
@@ -24,6 +24,8 @@ import org.gradle.api.UnknownTaskException;
 import org.gradle.api.internal.DynamicObject;
 import org.gradle.api.internal.Instantiator;
 import org.gradle.api.internal.NamedDomainObjectContainerConfigureDelegate;
+import org.gradle.api.internal.project.DefaultProjectAccessListener;
+import org.gradle.api.internal.project.ProjectAccessListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
 import org.gradle.util.ConfigureUtil;
@@ -34,10 +36,16 @@ import java.util.Map;
 
 public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements TaskContainerInternal {
     private final ITaskFactory taskFactory;
+    private final ProjectAccessListener projectAccessListener;
 
     public DefaultTaskContainer(ProjectInternal project, Instantiator instantiator, ITaskFactory taskFactory) {
+        this(project, instantiator, taskFactory, new DefaultProjectAccessListener());
+    }
+
+    public DefaultTaskContainer(ProjectInternal project, Instantiator instantiator, ITaskFactory taskFactory, ProjectAccessListener projectAccessListener) {
         super(Task.class, instantiator, project);
         this.taskFactory = taskFactory;
+        this.projectAccessListener = projectAccessListener;
     }
 
     public Task add(Map<String, ?> options) {
@@ -105,10 +113,11 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         }
 
         String projectPath = StringUtils.substringBeforeLast(path, Project.PATH_SEPARATOR);
-        Project project = this.project.findProject(!GUtil.isTrue(projectPath) ? Project.PATH_SEPARATOR : projectPath);
+        ProjectInternal project = this.project.findProject(!GUtil.isTrue(projectPath) ? Project.PATH_SEPARATOR : projectPath);
         if (project == null) {
             return null;
         }
+        projectAccessListener.beforeRequestingTaskByPath(project);
         return project.getTasks().findByName(StringUtils.substringAfterLast(path, Project.PATH_SEPARATOR));
     }
 
@@ -21,6 +21,8 @@ import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskStateInternal;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 
 /**
  * A {@link org.gradle.api.internal.tasks.TaskExecuter} which will execute a task once only.
@@ -38,10 +40,15 @@ public class ExecuteAtMostOnceTaskExecuter implements TaskExecuter {
             return;
         }
         LOGGER.debug("Starting to execute {}", task);
+        TimedOperation operation = OperationTimer.getInstance().start("task", task.getPath());
         try {
             executer.execute(task, state);
         } finally {
             state.executed();
+            if (state.getSkipped()) {
+                operation.addAttribute("skipMessage", state.getSkipMessage());
+            }
+            operation.finish();
             LOGGER.debug("Finished executing {}", task);
         }
     }
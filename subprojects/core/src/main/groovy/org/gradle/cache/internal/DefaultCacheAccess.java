@@ -23,6 +23,8 @@ import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.Serializer;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.internal.UncheckedException;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -49,6 +51,7 @@ public class DefaultCacheAccess implements CacheAccess {
     private FileLock fileLock;
     private boolean started;
     private final List<String> operationStack = new ArrayList<String>();
+    private final List<Thread> longRunningOperationThreads = new ArrayList<Thread>();
 
     public DefaultCacheAccess(String cacheDisplayName, File lockFile, FileLockManager lockManager) {
         this.cacheDiplayName = cacheDisplayName;
@@ -121,12 +124,17 @@ public class DefaultCacheAccess implements CacheAccess {
 
         lockCache(operationDisplayName);
         try {
+            boolean outermost = isOutermostOperation();
             boolean wasStarted = onStartWork();
             try {
                 return action.create();
             } finally {
                 if (wasStarted) {
                     onEndWork();
+                } else if (outermost) {
+                    // The caches stay open while the cache is locked for the whole build, so write the updates held
+                    // in memory now, rather than losing all of them if the process dies
+                    flushCaches();
                 }
             }
         } finally {
@@ -134,7 +142,36 @@ public class DefaultCacheAccess implements CacheAccess {
         }
     }
 
+    /**
+     * Returns true if the current thread is running the outermost cache action. When the cache has been opened with a
+     * lock mode other than {@link FileLockManager.LockMode#None}, the cache holds an operation for as long as it is
+     * open.
+     */
+    private boolean isOutermostOperation() {
+        lock.lock();
+        try {
+            return operationStack.size() == (lockMode == FileLockManager.LockMode.None ? 1 : 2);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushCaches() {
+        List<MultiProcessSafePersistentIndexedCache<?, ?>> caches;
+        lock.lock();
+        try {
+            caches = new ArrayList<MultiProcessSafePersistentIndexedCache<?, ?>>(this.caches);
+        } finally {
+            lock.unlock();
+        }
+        for (MultiProcessSafePersistentIndexedCache<?, ?> cache : caches) {
+            cache.flush();
+        }
+    }
+
     private void lockCache(String operationDisplayName) {
+        TimedOperation timedOperation = OperationTimer.getInstance().start("cache lock", cacheDiplayName);
+        timedOperation.addAttribute("operation", operationDisplayName);
         lock.lock();
         try {
             while (owner != null && owner != Thread.currentThread()) {
@@ -148,6 +185,7 @@ public class DefaultCacheAccess implements CacheAccess {
             operationStack.add(0, operationDisplayName);
         } finally {
             lock.unlock();
+            timedOperation.finish();
         }
     }
 
@@ -164,13 +202,27 @@ public class DefaultCacheAccess implements CacheAccess {
         }
     }
 
+    /**
+     * Runs the given action while this thread releases its locks on the cache. When the cache was opened with
+     * {@link org.gradle.cache.internal.FileLockManager.LockMode#Exclusive}, this thread keeps ownership of the cache for
+     * the whole operation. Otherwise, ownership is released, so that other threads can use the cache until the action
+     * completes.
+     */
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
-        startLongRunningOperation();
+        if (lockMode == Exclusive) {
+            return exclusiveLongRunningOperation(action);
+        }
+        if (!startLongRunningOperation()) {
+            // Already running a long running operation on this thread, so the locks have already been released
+            return action.create();
+        }
         try {
             boolean wasEnded = onEndWork();
+            List<String> operations = releaseCache();
             try {
                 return action.create();
             } finally {
+                reacquireCache(operations);
                 if (wasEnded) {
                     onStartWork();
                 }
@@ -180,7 +232,7 @@ public class DefaultCacheAccess implements CacheAccess {
         }
     }
 
-    private void startLongRunningOperation() {
+    private <T> T exclusiveLongRunningOperation(Factory<? extends T> action) {
         lock.lock();
         try {
             if (owner != Thread.currentThread()) {
@@ -189,9 +241,79 @@ public class DefaultCacheAccess implements CacheAccess {
         } finally {
             lock.unlock();
         }
+        boolean wasEnded = onEndWork();
+        try {
+            return action.create();
+        } finally {
+            if (wasEnded) {
+                onStartWork();
+            }
+        }
+    }
+
+    /**
+     * Returns true if the current thread owns the cache, false if the current thread has already released the cache
+     * for a long running operation.
+     */
+    private boolean startLongRunningOperation() {
+        lock.lock();
+        try {
+            if (owner != Thread.currentThread()) {
+                if (longRunningOperationThreads.contains(Thread.currentThread())) {
+                    return false;
+                }
+                throw new IllegalStateException(String.format("Cannot start long running operation, as the %s has not been locked.", cacheDiplayName));
+            }
+            longRunningOperationThreads.add(Thread.currentThread());
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     private void endLongRunningOperation() {
+        lock.lock();
+        try {
+            longRunningOperationThreads.remove(Thread.currentThread());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases ownership of the cache, so that other threads can use the cache while this thread runs a long running
+     * operation. Returns the operations that were in progress on this thread.
+     */
+    private List<String> releaseCache() {
+        lock.lock();
+        try {
+            List<String> operations = new ArrayList<String>(operationStack);
+            operationStack.clear();
+            owner = null;
+            condition.signalAll();
+            return operations;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reacquireCache(List<String> operations) {
+        TimedOperation timedOperation = OperationTimer.getInstance().start("cache lock", cacheDiplayName);
+        lock.lock();
+        try {
+            while (owner != null) {
+                try {
+                    condition.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.asUncheckedException(e);
+                }
+            }
+            owner = Thread.currentThread();
+            operationStack.addAll(operations);
+        } finally {
+            lock.unlock();
+            timedOperation.finish();
+        }
     }
 
     public void longRunningOperation(String operationDisplayName, final Runnable action) {
@@ -227,7 +349,11 @@ public class DefaultCacheAccess implements CacheAccess {
     }
 
     <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(final File cacheFile, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
-        return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+        BTreePersistentIndexedCache<K, V> cache = new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+        // The cache is flushed at the end of each outermost cache action, and closed at the end of each unit of work,
+        // so updates can be written at those points rather than after every update
+        cache.setWriteBehind(true);
+        return cache;
     }
 
     private boolean onStartWork() {
@@ -17,6 +17,8 @@ package org.gradle.cache.internal;
 
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 import org.gradle.util.GFileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,11 +66,15 @@ public class DefaultFileLockManager implements FileLockManager {
         if (!lockedFiles.add(canonicalTarget)) {
             throw new IllegalStateException(String.format("Cannot lock %s as it has already been locked by this process.", targetDisplayName));
         }
+        TimedOperation operation = OperationTimer.getInstance().start("file lock", targetDisplayName);
+        operation.addAttribute("mode", mode);
         try {
             return new DefaultFileLock(canonicalTarget, mode, targetDisplayName, operationDisplayName);
         } catch (Throwable t) {
             lockedFiles.remove(canonicalTarget);
             throw UncheckedException.asUncheckedException(t);
+        } finally {
+            operation.finish();
         }
     }
 
@@ -65,6 +65,19 @@ public class MultiProcessSafePersistentIndexedCache<K, V> implements PersistentI
         close();
     }
 
+    /**
+     * Writes any pending updates to the file, keeping the cache open.
+     */
+    public void flush() {
+        if (cache != null) {
+            fileAccess.writeToFile(new Runnable() {
+                public void run() {
+                    cache.flush();
+                }
+            });
+        }
+    }
+
     public void close() {
         if (cache != null) {
             try {
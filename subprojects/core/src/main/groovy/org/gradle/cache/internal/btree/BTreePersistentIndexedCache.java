@@ -16,6 +16,7 @@
 package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.BoundedSizeSerializer;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.Serializer;
 import org.slf4j.Logger;
@@ -26,27 +27,46 @@ import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 // todo - stream serialised value to file
 // todo - handle hash collisions (properly, this time)
 // todo - don't store null links to child blocks in leaf index blocks
 // todo - align block boundaries
-// todo - thread safety control
 // todo - remove the check-sum from each block
 // todo - merge small values into a single data block
 // todo - discard when file corrupt
-// todo - include data directly in index entry when serializer can guarantee small fixed sized data
-// todo - free list leaks disk space
-// todo - merge adjacent free blocks
-// todo - use more efficient lookup for free block with nearest size
+/**
+ * A {@link PersistentIndexedCache} stored as a B-tree in a single file.
+ *
+ * <p>Any number of threads may read from the cache concurrently. Updates are exclusive: they wait for the readers to
+ * finish and block readers until the update is complete.</p>
+ */
 public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
+    /**
+     * The system property used to select the memory mapped block store. Defaults to {@code false}.
+     */
+    public static final String MAPPED_BLOCK_STORE_PROPERTY = "org.gradle.cache.mappedBlockStore";
+    // Compact the file when it is at least this large and less than this proportion of it is in use
+    static final long MIN_COMPACTION_FILE_SIZE = 1024 * 1024;
+    static final double MIN_LIVE_RATIO = 0.5;
+    // Increment when the layout of the blocks changes. A file with a different version is discarded
+    static final int FORMAT_VERSION = 2;
     private final File cacheFile;
     private final Serializer<K> keySerializer;
     private final Serializer<V> serializer;
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
+    private final int maxFreeListEntries;
+    private final int maxInlineValueSize;
+    private final BlockStore backingStore;
     private final StateCheckBlockStore store;
+    private final CachingBlockStore cachingStore;
+    private final FreeListBlockStore freeListStore;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean writeBehind;
     private HeaderBlock header;
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
@@ -55,13 +75,23 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries, createBackingStore(cacheFile));
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries, BlockStore backingStore) {
         this.cacheFile = cacheFile;
         this.keySerializer = keySerializer;
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
-        store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
+        this.maxFreeListEntries = maxFreeListEntries;
+        // Small values are stored in the index entries, rather than in a separate data block
+        this.maxInlineValueSize = valueSerializer instanceof BoundedSizeSerializer ? ((BoundedSizeSerializer<V>) valueSerializer).getMaxSize() : 0;
+        this.backingStore = backingStore;
+        cachingStore = new CachingBlockStore(backingStore, IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
+        freeListStore = new FreeListBlockStore(cachingStore, maxFreeListEntries);
+        store = new StateCheckBlockStore(freeListStore);
         try {
             open();
         } catch (Exception e) {
@@ -69,6 +99,37 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    /**
+     * Enables or disables write-behind. When enabled, updates are held in memory and written to the file when this
+     * cache is closed, or when too many updates are pending. The caller is responsible for making sure this cache
+     * is closed before the file is released to other processes. Disabled by default.
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * Creates the store which holds the blocks of the given file. Uses a memory mapped store when the {@value
+     * #MAPPED_BLOCK_STORE_PROPERTY} system property is set to {@code true}.
+     */
+    static BlockStore createBackingStore(File cacheFile) {
+        if (Boolean.getBoolean(MAPPED_BLOCK_STORE_PROPERTY)) {
+            return new MappedFileBlockStore(cacheFile);
+        }
+        return new FileBackedBlockStore(cacheFile);
+    }
+
+    /**
+     * Creates the store for the compacted copy of this cache. Uses the same kind of store as this cache, as the
+     * compacted file replaces the cache file.
+     */
+    private BlockStore createCompactionStore(File compactedFile) {
+        if (backingStore instanceof MappedFileBlockStore) {
+            return new MappedFileBlockStore(compactedFile);
+        }
+        return new FileBackedBlockStore(compactedFile);
+    }
+
     @Override
     public String toString() {
         return String.format("cache %s (%s)", cacheFile.getName(), cacheFile);
@@ -76,11 +137,88 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     private void open() throws Exception {
         LOGGER.debug("Opening {}", this);
+        // Take the size before opening, as the store may grow the file when it is opened
+        long fileSize = cacheFile.length();
         try {
             doOpen();
         } catch (CorruptedCacheException e) {
             rebuild();
         }
+        if (fileSize >= MIN_COMPACTION_FILE_SIZE && fileSize - freeListStore.getFreeSpace() < fileSize * MIN_LIVE_RATIO) {
+            try {
+                compact();
+            } catch (UncheckedIOException e) {
+                // The cache is still usable, it is just larger than it needs to be
+                LOGGER.warn(String.format("Could not compact %s.", this), e);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the cache file so that it contains only the live blocks.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            doCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doCompact() {
+        LOGGER.debug("Compacting {}", this);
+        File compactedFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".compact");
+        try {
+            compactedFile.delete();
+            BTreePersistentIndexedCache<K, V> target = new BTreePersistentIndexedCache<K, V>(compactedFile, keySerializer, serializer, maxChildIndexEntries, maxFreeListEntries, createCompactionStore(compactedFile));
+            target.setWriteBehind(true);
+            try {
+                copyTo(header.getRoot(), target);
+            } finally {
+                target.close();
+            }
+            store.close();
+            try {
+                if (!cacheFile.delete() || !compactedFile.renameTo(cacheFile)) {
+                    throw new IOException(String.format("Could not replace %s with compacted file %s.", cacheFile, compactedFile));
+                }
+            } finally {
+                doOpen();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not compact %s.", this), e);
+        }
+    }
+
+    private void copyTo(IndexBlock current, BTreePersistentIndexedCache<K, V> target) throws Exception {
+        for (IndexEntry entry : current.entries) {
+            if (!entry.childIndexBlock.isNull()) {
+                copyTo(load(entry.childIndexBlock, current.root, current, 0), target);
+            }
+            if (entry.inlineValue != null) {
+                target.put(entry.hashCode, entry.inlineValue);
+            } else {
+                DataBlock block = store.read(entry.dataBlock, DataBlock.class);
+                target.put(entry.hashCode, block.serialisedValue);
+            }
+        }
+        if (!current.tailPos.isNull()) {
+            copyTo(load(current.tailPos, current.root, current, current.entries.size()), target);
+        }
+    }
+
+    private void put(long hashCode, byte[] serialisedValue) throws Exception {
+        Lookup lookup = header.getRoot().find(hashCode);
+        if (serialisedValue.length <= maxInlineValueSize) {
+            lookup.indexBlock.put(hashCode, new BlockPointer(), serialisedValue);
+        } else {
+            DataBlock block = new DataBlock();
+            block.setSerialisedValue(serialisedValue);
+            store.write(block);
+            lookup.indexBlock.put(hashCode, block.getPos(), null);
+        }
+        flushUpdate();
     }
 
     private void doOpen() throws Exception {
@@ -114,13 +252,28 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     public V get(K key) {
         try {
             try {
-                DataBlock block = header.getRoot().get(key);
-                if (block != null) {
+                lock.readLock().lock();
+                try {
+                    IndexEntry entry = header.index.readRoot().get(key);
+                    if (entry == null) {
+                        return null;
+                    }
+                    if (entry.inlineValue != null) {
+                        return serializer.read(new ByteArrayInputStream(entry.inlineValue));
+                    }
+                    DataBlock block = store.read(entry.dataBlock, DataBlock.class);
                     return block.getValue();
+                } finally {
+                    lock.readLock().unlock();
                 }
-                return null;
             } catch (CorruptedCacheException e) {
-                rebuild();
+                // Cannot upgrade a read lock, so take the write lock once the read lock has been released
+                lock.writeLock().lock();
+                try {
+                    rebuild();
+                } finally {
+                    lock.writeLock().unlock();
+                }
                 return null;
             }
         } catch (Exception e) {
@@ -129,13 +282,35 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public void put(K key, V value) {
+        lock.writeLock().lock();
+        try {
+            doPut(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doPut(K key, V value) {
         try {
             MessageDigestStream digestStream = new MessageDigestStream();
             keySerializer.write(digestStream, key);
             long hashCode = digestStream.getChecksum();
             Lookup lookup = header.getRoot().find(hashCode);
+            boolean hasDataBlock = lookup.entry != null && !lookup.entry.dataBlock.isNull();
+            if (maxInlineValueSize > 0) {
+                ByteArrayOutputStream outStr = new ByteArrayOutputStream();
+                serializer.write(outStr, value);
+                if (outStr.size() <= maxInlineValueSize) {
+                    if (hasDataBlock) {
+                        store.remove(store.read(lookup.entry.dataBlock, DataBlock.class));
+                    }
+                    lookup.indexBlock.put(hashCode, new BlockPointer(), outStr.toByteArray());
+                    flushUpdate();
+                    return;
+                }
+            }
             boolean needNewBlock = true;
-            if (lookup.entry != null) {
+            if (hasDataBlock) {
                 DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
                 needNewBlock = !block.useNewValue(value);
                 if (needNewBlock) {
@@ -145,29 +320,46 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             if (needNewBlock) {
                 DataBlock block = new DataBlock(value);
                 store.write(block);
-                lookup.indexBlock.put(hashCode, block.getPos());
+                lookup.indexBlock.put(hashCode, block.getPos(), null);
             }
-            store.flush();
+            flushUpdate();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
         }
     }
 
     public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            doRemove(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doRemove(K key) {
         try {
             Lookup lookup = header.getRoot().find(key);
             if (lookup.entry == null) {
                 return;
             }
             lookup.indexBlock.remove(lookup.entry);
-            DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
-            store.remove(block);
-            store.flush();
+            if (!lookup.entry.dataBlock.isNull()) {
+                DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
+                store.remove(block);
+            }
+            flushUpdate();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
         }
     }
 
+    private void flushUpdate() {
+        if (!writeBehind || cachingStore.isFull()) {
+            store.flush();
+        }
+    }
+
     private IndexBlock load(BlockPointer pos, IndexRoot root, IndexBlock parent, int index) {
         IndexBlock block = store.read(pos, IndexBlock.class);
         block.root = root;
@@ -176,26 +368,55 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         return block;
     }
 
-    public void reset() {
-        close();
+    /**
+     * Writes any updates held in memory because of write-behind to the file.
+     */
+    public void flush() {
+        lock.writeLock().lock();
         try {
-            open();
+            store.flush();
         } catch (Exception e) {
-            throw new UncheckedIOException(e);
+            throw new UncheckedIOException(String.format("Could not flush %s.", this), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            close();
+            try {
+                open();
+            } catch (Exception e) {
+                throw new UncheckedIOException(e);
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     public void close() {
-        LOGGER.debug("Closing {}", this);
+        lock.writeLock().lock();
         try {
-            store.close();
-        } catch (Exception e) {
-            throw new UncheckedIOException(e);
+            LOGGER.debug("Closing {}", this);
+            try {
+                store.close();
+            } catch (Exception e) {
+                throw new UncheckedIOException(e);
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     public boolean isOpen() {
-        return store.isOpen();
+        lock.readLock().lock();
+        try {
+            return store.isOpen();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     private void rebuild() throws Exception {
@@ -206,11 +427,14 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public void verify() {
+        lock.readLock().lock();
         try {
             doVerify();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Some problems were found when checking the integrity of %s.",
                     this), e);
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
@@ -219,7 +443,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
         HeaderBlock header = store.readFirst(HeaderBlock.class);
         blocks.add(header);
-        verifyTree(header.getRoot(), "", blocks, Long.MAX_VALUE, true);
+        verifyTree(header.index.readRoot(), "", blocks, Long.MAX_VALUE, true);
 
         Collections.sort(blocks, new Comparator<BlockPayload>() {
             public int compare(BlockPayload block, BlockPayload block1) {
@@ -265,7 +489,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 IndexBlock child = store.read(entry.childIndexBlock, IndexBlock.class);
                 verifyTree(child, "   " + prefix, blocks, entry.hashCode, loadData);
             }
-            if (loadData) {
+            if (loadData && entry.inlineValue == null) {
                 DataBlock block = store.read(entry.dataBlock, DataBlock.class);
                 blocks.add(block);
             }
@@ -293,8 +517,16 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             return load(rootPos, this, null, 0);
         }
 
+        /**
+         * Reads the root block without updating its transient fields. Used for lookups which do not modify the tree.
+         */
+        public IndexBlock readRoot() {
+            return store.read(rootPos, IndexBlock.class);
+        }
+
         public IndexBlock newRoot() {
             IndexBlock block = new IndexBlock();
+            block.root = this;
             store.write(block);
             setRootPos(block.getPos());
             return block;
@@ -315,23 +547,33 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
         @Override
         protected int getSize() {
-            return Block.LONG_SIZE + Block.SHORT_SIZE;
+            return Block.INT_SIZE + Block.LONG_SIZE + Block.SHORT_SIZE + Block.INT_SIZE;
         }
 
         @Override
         protected void read(DataInputStream instr) throws Exception {
+            int actualFormatVersion = instr.readInt();
+            if (actualFormatVersion != FORMAT_VERSION) {
+                throw blockCorruptedException();
+            }
             index.rootPos = new BlockPointer(instr.readLong());
 
             short actualChildIndexEntries = instr.readShort();
             if (actualChildIndexEntries != maxChildIndexEntries) {
                 throw blockCorruptedException();
             }
+            int actualMaxInlineValueSize = instr.readInt();
+            if (actualMaxInlineValueSize != maxInlineValueSize) {
+                throw blockCorruptedException();
+            }
         }
 
         @Override
         protected void write(DataOutputStream outstr) throws Exception {
+            outstr.writeInt(FORMAT_VERSION);
             outstr.writeLong(index.rootPos.getPos());
             outstr.writeShort(maxChildIndexEntries);
+            outstr.writeInt(maxInlineValueSize);
         }
 
         public IndexBlock getRoot() throws Exception {
@@ -342,7 +584,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private class IndexBlock extends BlockPayload {
         private final List<IndexEntry> entries = new ArrayList<IndexEntry>();
         private BlockPointer tailPos = new BlockPointer();
-        // Transient fields
+        // Transient fields. Set when the block is loaded to modify the tree, which happens only under the write lock
         private IndexBlock parent;
         private int parentEntryIndex;
         private IndexRoot root;
@@ -352,9 +594,59 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             return 0x77;
         }
 
+        /**
+         * Returns the space to allocate for this block: room for a full block of entries, with inline values the
+         * average size of those currently held. When the entries outgrow this, the block is moved, see {@link #save()}.
+         */
         @Override
         protected int getSize() {
-            return Block.INT_SIZE + Block.LONG_SIZE + (3 * Block.LONG_SIZE) * maxChildIndexEntries;
+            int count = entries.size();
+            int averageInlineValueSize = count == 0 ? 0 : (getInlineValuesSize() + count - 1) / count;
+            return Block.INT_SIZE + Block.LONG_SIZE + (getEntryOverhead() + averageInlineValueSize) * Math.max(count, maxChildIndexEntries);
+        }
+
+        private int getRequiredSize() {
+            return Block.INT_SIZE + Block.LONG_SIZE + getEntryOverhead() * entries.size() + getInlineValuesSize();
+        }
+
+        private int getEntryOverhead() {
+            int entrySize = 3 * Block.LONG_SIZE;
+            if (maxInlineValueSize > 0) {
+                entrySize += Block.INT_SIZE;
+            }
+            return entrySize;
+        }
+
+        private int getInlineValuesSize() {
+            int size = 0;
+            for (IndexEntry entry : entries) {
+                if (entry.inlineValue != null) {
+                    size += entry.inlineValue.length;
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Writes this block, first moving it to a larger block when its entries no longer fit in the space allocated
+         * to it.
+         */
+        private void save() throws Exception {
+            if (getBlock() == null || getRequiredSize() <= getBlock().getPayloadSize()) {
+                store.write(this);
+                return;
+            }
+            store.remove(this);
+            store.write(this);
+            if (parent == null) {
+                root.setRootPos(getPos());
+            } else if (parentEntryIndex < parent.entries.size()) {
+                parent.entries.get(parentEntryIndex).childIndexBlock = getPos();
+                store.write(parent);
+            } else {
+                parent.tailPos = getPos();
+                store.write(parent);
+            }
         }
 
         public void read(DataInputStream instr) throws IOException {
@@ -365,6 +657,16 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 entry.hashCode = instr.readLong();
                 entry.dataBlock = new BlockPointer(instr.readLong());
                 entry.childIndexBlock = new BlockPointer(instr.readLong());
+                if (maxInlineValueSize > 0) {
+                    int inlineValueSize = instr.readInt();
+                    if (inlineValueSize > maxInlineValueSize) {
+                        throw blockCorruptedException();
+                    }
+                    if (inlineValueSize >= 0) {
+                        entry.inlineValue = new byte[inlineValueSize];
+                        instr.readFully(entry.inlineValue);
+                    }
+                }
                 entries.add(entry);
             }
             tailPos = new BlockPointer(instr.readLong());
@@ -376,11 +678,19 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 outstr.writeLong(entry.hashCode);
                 outstr.writeLong(entry.dataBlock.getPos());
                 outstr.writeLong(entry.childIndexBlock.getPos());
+                if (maxInlineValueSize > 0) {
+                    if (entry.inlineValue == null) {
+                        outstr.writeInt(-1);
+                    } else {
+                        outstr.writeInt(entry.inlineValue.length);
+                        outstr.write(entry.inlineValue);
+                    }
+                }
             }
             outstr.writeLong(tailPos.getPos());
         }
 
-        public void put(long hashCode, BlockPointer pos) throws Exception {
+        public void put(long hashCode, BlockPointer pos, byte[] inlineValue) throws Exception {
             int index = Collections.binarySearch(entries, new IndexEntry(hashCode));
             IndexEntry entry;
             if (index >= 0) {
@@ -395,28 +705,35 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             }
 
             entry.dataBlock = pos;
-            store.write(this);
+            entry.inlineValue = inlineValue;
 
             maybeSplit();
         }
 
+        /**
+         * Splits this block when it holds too many entries, then writes it.
+         */
         private void maybeSplit() throws Exception {
-            if (entries.size() > maxChildIndexEntries) {
-                int splitPos = entries.size() / 2;
-                IndexEntry splitEntry = entries.remove(splitPos);
-                if (parent == null) {
-                    parent = root.newRoot();
-                }
-                IndexBlock sibling = new IndexBlock();
-                store.write(sibling);
-                List<IndexEntry> siblingEntries = entries.subList(splitPos, entries.size());
-                sibling.entries.addAll(siblingEntries);
-                siblingEntries.clear();
-                sibling.tailPos = tailPos;
-                tailPos = splitEntry.childIndexBlock;
-                splitEntry.childIndexBlock = new BlockPointer();
-                parent.add(this, splitEntry, sibling);
+            if (entries.size() <= maxChildIndexEntries) {
+                save();
+                return;
+            }
+            int splitPos = entries.size() / 2;
+            IndexEntry splitEntry = entries.remove(splitPos);
+            if (parent == null) {
+                parent = root.newRoot();
             }
+            IndexBlock sibling = new IndexBlock();
+            List<IndexEntry> siblingEntries = entries.subList(splitPos, entries.size());
+            sibling.entries.addAll(siblingEntries);
+            siblingEntries.clear();
+            sibling.tailPos = tailPos;
+            tailPos = splitEntry.childIndexBlock;
+            splitEntry.childIndexBlock = new BlockPointer();
+            // Write both halves before adding them to the parent, so that they are allocated space for their entries
+            save();
+            store.write(sibling);
+            parent.add(this, splitEntry, sibling);
         }
 
         private void add(IndexBlock left, IndexEntry entry, IndexBlock right) throws Exception {
@@ -431,20 +748,10 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             }
             entries.add(index, entry);
             entry.childIndexBlock = left.getPos();
-            store.write(this);
 
             maybeSplit();
         }
 
-        public DataBlock get(K key) throws Exception {
-            Lookup lookup = find(key);
-            if (lookup.entry == null) {
-                return null;
-            }
-
-            return store.read(lookup.entry.dataBlock, DataBlock.class);
-        }
-
         public Lookup find(K key) throws Exception {
             MessageDigestStream digestStream = new MessageDigestStream();
             keySerializer.write(digestStream, key);
@@ -452,6 +759,29 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             return find(checksum);
         }
 
+        /**
+         * Finds the entry for the given key, if any. Unlike {@link #find(Object)}, does not update the transient fields
+         * of the blocks it visits, so any number of threads can use this concurrently.
+         */
+        public IndexEntry get(K key) throws Exception {
+            MessageDigestStream digestStream = new MessageDigestStream();
+            keySerializer.write(digestStream, key);
+            IndexEntry probe = new IndexEntry(digestStream.getChecksum());
+            IndexBlock current = this;
+            while (true) {
+                int index = Collections.binarySearch(current.entries, probe);
+                if (index >= 0) {
+                    return current.entries.get(index);
+                }
+                index = -index - 1;
+                BlockPointer childBlockPos = index == current.entries.size() ? current.tailPos : current.entries.get(index).childIndexBlock;
+                if (childBlockPos.isNull()) {
+                    return null;
+                }
+                current = store.read(childBlockPos, IndexBlock.class);
+            }
+        }
+
         private Lookup find(long hashCode) throws Exception {
             int index = Collections.binarySearch(entries, new IndexEntry(hashCode));
             if (index >= 0) {
@@ -477,9 +807,9 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             int index = entries.indexOf(entry);
             assert index >= 0;
             entries.remove(index);
-            store.write(this);
 
             if (entry.childIndexBlock.isNull()) {
+                save();
                 maybeMerge();
             } else {
                 // Not a leaf node. Move up an entry from a leaf node, then possibly merge the leaf node
@@ -488,6 +818,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 IndexEntry highestEntry = leafBlock.entries.remove(leafBlock.entries.size() - 1);
                 highestEntry.childIndexBlock = entry.childIndexBlock;
                 entries.add(index, highestEntry);
+                save();
                 store.write(leafBlock);
                 leafBlock.maybeMerge();
             }
@@ -523,6 +854,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                     // There are only enough entries to make up 1 block, so move the entries of the left sibling into
                     // this block and discard the left sibling. Might also need to merge the parent
                     left.mergeFrom(this);
+                    left.save();
                     parent.maybeMerge();
                     return;
                 }
@@ -542,6 +874,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                     // There are only enough entries to make up 1 block, so move the entries of the right sibling into
                     // this block and discard this block. Might also need to merge the parent
                     mergeFrom(right);
+                    save();
                     parent.maybeMerge();
                     return;
                 }
@@ -564,8 +897,8 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             entries.addAll(right.entries);
             newChildEntry.childIndexBlock = tailPos;
             tailPos = right.tailPos;
+            // The caller writes this block, once it has been split if required
             store.write(parent);
-            store.write(this);
             store.remove(right);
         }
 
@@ -600,6 +933,8 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         long hashCode;
         BlockPointer dataBlock;
         BlockPointer childIndexBlock;
+        // The serialised value, when it is small enough to be stored in the entry. Null when stored in a data block
+        byte[] inlineValue;
 
         private IndexEntry() {
         }
@@ -632,13 +967,11 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private class DataBlock extends BlockPayload {
         private int size;
         private byte[] serialisedValue;
-        private V value;
 
         private DataBlock() {
         }
 
         public DataBlock(V value) throws Exception {
-            this.value = value;
             setValue(value);
             size = serialisedValue.length;
         }
@@ -649,11 +982,14 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             this.serialisedValue = outStr.toByteArray();
         }
 
+        private void setSerialisedValue(byte[] serialisedValue) {
+            this.serialisedValue = serialisedValue;
+            size = serialisedValue.length;
+        }
+
         public V getValue() throws Exception {
-            if (value == null) {
-                value = serializer.read(new ByteArrayInputStream(serialisedValue));
-            }
-            return value;
+            // Not kept, as several readers may use this block concurrently
+            return serializer.read(new ByteArrayInputStream(serialisedValue));
         }
 
         @Override
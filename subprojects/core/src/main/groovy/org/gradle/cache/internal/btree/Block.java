@@ -40,6 +40,11 @@ public abstract class Block {
 
     public abstract int getSize();
 
+    /**
+     * Returns the number of bytes available to the payload of this block.
+     */
+    public abstract int getPayloadSize();
+
     public abstract RuntimeException blockCorruptedException();
 
     @Override
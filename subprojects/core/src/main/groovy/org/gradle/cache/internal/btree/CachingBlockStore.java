@@ -19,14 +19,26 @@ import org.apache.commons.collections.map.LRUMap;
 
 import java.util.*;
 
+/**
+ * A {@link BlockStore} which caches recently used blocks of certain types, and holds modified blocks until the store is
+ * flushed. Blocks may be read by several threads concurrently. Updates must not run concurrently with any other
+ * operation.
+ */
 public class CachingBlockStore implements BlockStore {
+    static final int DEFAULT_MAX_DIRTY_BLOCKS = 1000;
     private final BlockStore store;
     private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
     private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
     private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
+    private final int maxDirtyBlocks;
 
     public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
+        this(store, DEFAULT_MAX_DIRTY_BLOCKS, cacheableBlockTypes);
+    }
+
+    public CachingBlockStore(BlockStore store, int maxDirtyBlocks, Class<? extends BlockPayload>... cacheableBlockTypes) {
         this.store = store;
+        this.maxDirtyBlocks = maxDirtyBlocks;
         cachableTypes.addAll(Arrays.asList(cacheableBlockTypes));
     }
 
@@ -34,19 +46,19 @@ public class CachingBlockStore implements BlockStore {
         store.open(initAction, factory);
     }
 
-    public void close() {
+    public synchronized void close() {
         flush();
         indexBlockCache.clear();
         store.close();
     }
 
-    public void clear() {
+    public synchronized void clear() {
         dirty.clear();
         indexBlockCache.clear();
         store.clear();
     }
 
-    public void flush() {
+    public synchronized void flush() {
         Iterator<BlockPayload> iterator = dirty.values().iterator();
         while (iterator.hasNext()) {
             BlockPayload block = iterator.next();
@@ -56,11 +68,19 @@ public class CachingBlockStore implements BlockStore {
         store.flush();
     }
 
+    /**
+     * Returns true when more than the maximum number of dirty blocks are being held, and so the pending updates should
+     * be flushed.
+     */
+    public synchronized boolean isFull() {
+        return dirty.size() > maxDirtyBlocks;
+    }
+
     public void attach(BlockPayload block) {
         store.attach(block);
     }
 
-    public void remove(BlockPayload block) {
+    public synchronized void remove(BlockPayload block) {
         dirty.remove(block.getPos());
         indexBlockCache.remove(block.getPos());
         store.remove(block);
@@ -73,26 +93,31 @@ public class CachingBlockStore implements BlockStore {
     }
 
     public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
-        T block = payloadType.cast(dirty.get(pos));
-        if (block != null) {
-            return block;
-        }
-        block = payloadType.cast(indexBlockCache.get(pos));
+        T block = getCached(pos, payloadType);
         if (block != null) {
             return block;
         }
+        // Read outside the lock, so that concurrent reads of uncached blocks are not serialised
         block = store.read(pos, payloadType);
         maybeCache(block);
         return block;
     }
 
-    public void write(BlockPayload block) {
+    private synchronized <T extends BlockPayload> T getCached(BlockPointer pos, Class<T> payloadType) {
+        T block = payloadType.cast(dirty.get(pos));
+        if (block != null) {
+            return block;
+        }
+        return payloadType.cast(indexBlockCache.get(pos));
+    }
+
+    public synchronized void write(BlockPayload block) {
         store.attach(block);
         maybeCache(block);
         dirty.put(block.getPos(), block);
     }
 
-    private <T extends BlockPayload> void maybeCache(T block) {
+    private synchronized <T extends BlockPayload> void maybeCache(T block) {
         if (cachableTypes.contains(block.getClass())) {
             indexBlockCache.put(block.getPos(), block);
         }
@@ -19,4 +19,8 @@ class CorruptedCacheException extends RuntimeException {
     CorruptedCacheException(String message) {
         super(message);
     }
+
+    CorruptedCacheException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -18,10 +18,17 @@ package org.gradle.cache.internal.btree;
 import org.gradle.api.UncheckedIOException;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.zip.CRC32;
 
+/**
+ * A {@link BlockStore} backed by a {@link RandomAccessFile}. Blocks are read using positional reads, so that several
+ * threads can read blocks concurrently. Writes must not run concurrently with any other operation.
+ */
 public class FileBackedBlockStore implements BlockStore {
     private RandomAccessFile file;
+    private FileChannel channel;
     private final File cacheFile;
     private long nextBlock;
     private Factory factory;
@@ -39,6 +46,7 @@ public class FileBackedBlockStore implements BlockStore {
         this.factory = factory;
         try {
             file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
             nextBlock = file.length();
             if (file.length() == 0) {
                 runnable.run();
@@ -77,6 +85,15 @@ public class FileBackedBlockStore implements BlockStore {
     }
 
     public void flush() {
+        try {
+            // A block may be removed before it is ever written. Extend the file to cover the space allocated to such
+            // blocks, as the free list may refer to it
+            if (file.length() < nextBlock) {
+                file.setLength(nextBlock);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
@@ -159,6 +176,11 @@ public class FileBackedBlockStore implements BlockStore {
             return payloadSize + HEADER_SIZE + TAIL_SIZE;
         }
 
+        @Override
+        public int getPayloadSize() {
+            return getSize() - HEADER_SIZE - TAIL_SIZE;
+        }
+
         @Override
         public void setSize(int size) {
             int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
@@ -198,72 +220,64 @@ public class FileBackedBlockStore implements BlockStore {
         public void read() throws Exception {
             long pos = getPos().getPos();
             assert pos >= 0;
-            if (pos + HEADER_SIZE >= file.length()) {
+            long length = file.length();
+            if (pos + HEADER_SIZE >= length) {
                 throw blockCorruptedException();
             }
-            file.seek(pos);
 
-            Crc32InputStream checkSumInputStream = new Crc32InputStream(new BufferedInputStream(
-                    new RandomAccessFileInputStream(file)));
-            DataInputStream inputStream = new DataInputStream(checkSumInputStream);
+            byte[] header = new byte[HEADER_SIZE];
+            readFully(pos, header);
+            DataInputStream headerStream = new DataInputStream(new ByteArrayInputStream(header));
 
             BlockPayload payload = getPayload();
 
             // Read header
-            byte type = inputStream.readByte();
+            byte type = headerStream.readByte();
             if (type != (byte) BLOCK_MARKER) {
                 throw blockCorruptedException();
             }
-            type = inputStream.readByte();
+            type = headerStream.readByte();
             if (type != (byte) payload.getType()) {
                 throw blockCorruptedException();
             }
-
-            // Read body
-            payloadSize = inputStream.readInt();
-            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > file.length()) {
+            payloadSize = headerStream.readInt();
+            if (payloadSize < 0 || pos + HEADER_SIZE + TAIL_SIZE + payloadSize > length) {
                 throw blockCorruptedException();
             }
+
+            // Read body
+            byte[] bytes = new byte[HEADER_SIZE + payloadSize + TAIL_SIZE];
+            readFully(pos, bytes);
+            DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(bytes, HEADER_SIZE, payloadSize + TAIL_SIZE));
             payload.read(inputStream);
 
             // Read and verify checksum
-            long actualChecksum = checkSumInputStream.checksum.getValue();
-            long checksum = inputStream.readLong();
-            if (actualChecksum != checksum) {
+            int checksummedSize = bytes.length - inputStream.available();
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes, 0, checksummedSize);
+            long expectedChecksum = inputStream.readLong();
+            if (checksum.getValue() != expectedChecksum) {
                 throw blockCorruptedException();
             }
             inputStream.close();
         }
 
+        private void readFully(long pos, byte[] buffer) throws IOException {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            while (byteBuffer.hasRemaining()) {
+                int count = channel.read(byteBuffer, pos + byteBuffer.position());
+                if (count < 0) {
+                    throw blockCorruptedException();
+                }
+            }
+        }
+
         public RuntimeException blockCorruptedException() {
             return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
                     FileBackedBlockStore.this));
         }
     }
 
-    private static class RandomAccessFileInputStream extends InputStream {
-        private final RandomAccessFile file;
-
-        private RandomAccessFileInputStream(RandomAccessFile file) {
-            this.file = file;
-        }
-
-        @Override
-        public int read(byte[] bytes) throws IOException {
-            return file.read(bytes);
-        }
-
-        @Override
-        public int read() throws IOException {
-            return file.read();
-        }
-
-        @Override
-        public int read(byte[] bytes, int offset, int length) throws IOException {
-            return file.read(bytes, offset, length);
-        }
-    }
-
     private static class RandomAccessFileOutputStream extends OutputStream {
         private final RandomAccessFile file;
 
@@ -287,42 +301,6 @@ public class FileBackedBlockStore implements BlockStore {
         }
     }
 
-    private static class Crc32InputStream extends FilterInputStream {
-        private final CRC32 checksum;
-
-        private Crc32InputStream(InputStream inputStream) {
-            super(inputStream);
-            checksum = new CRC32();
-        }
-
-        @Override
-        public int read() throws IOException {
-            int b = in.read();
-            if (b >= 0) {
-                checksum.update(b);
-            }
-            return b;
-        }
-
-        @Override
-        public int read(byte[] bytes) throws IOException {
-            int count = in.read(bytes);
-            if (count > 0) {
-                checksum.update(bytes, 0, count);
-            }
-            return count;
-        }
-
-        @Override
-        public int read(byte[] bytes, int offset, int max) throws IOException {
-            int count = in.read(bytes, offset, max);
-            if (count > 0) {
-                checksum.update(bytes, offset, count);
-            }
-            return count;
-        }
-    }
-
     private static class Crc32OutputStream extends FilterOutputStream {
         private final CRC32 checksum;
 
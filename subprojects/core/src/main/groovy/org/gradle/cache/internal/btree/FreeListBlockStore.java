@@ -17,26 +17,36 @@ package org.gradle.cache.internal.btree;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
+/**
+ * A {@link BlockStore} which reuses the space of removed blocks.
+ *
+ * <p>The free list is loaded into memory when the store is opened, where it is indexed both by position, so that
+ * adjacent free blocks can be merged, and by size, so that the smallest free block which can hold a new block can be
+ * found quickly. When a free block is larger than required, the remainder is kept on the free list. The free list is
+ * written back to a chain of {@link FreeListBlock}s, largest entries first, when the store is flushed or closed.</p>
+ */
 public class FreeListBlockStore implements BlockStore {
+    // Don't bother keeping the remainder of a split free block when it is too small to hold any useful block
+    static final int MIN_FREE_BLOCK_SIZE = 32;
     private final BlockStore store;
-    private final BlockStore freeListStore;
     private final int maxBlockEntries;
-    private FreeListBlock freeListBlock;
+    private final List<FreeListBlock> freeListBlocks = new ArrayList<FreeListBlock>();
+    private final TreeMap<Long, FreeListEntry> entriesByPos = new TreeMap<Long, FreeListEntry>();
+    private final TreeSet<FreeListEntry> entriesBySize = new TreeSet<FreeListEntry>();
+    private long freeSpace;
+    private boolean dirty;
 
     public FreeListBlockStore(BlockStore store, int maxBlockEntries) {
         this.store = store;
-        freeListStore = this;
         this.maxBlockEntries = maxBlockEntries;
     }
 
     public void open(final Runnable initAction, final Factory factory) {
         Runnable freeListInitAction = new Runnable() {
             public void run() {
-                freeListBlock = new FreeListBlock();
+                FreeListBlock freeListBlock = new FreeListBlock();
                 store.write(freeListBlock);
                 store.flush();
                 initAction.run();
@@ -52,26 +62,65 @@ public class FreeListBlockStore implements BlockStore {
         };
 
         store.open(freeListInitAction, freeListFactory);
-        freeListBlock = store.readFirst(FreeListBlock.class);
+        freeListBlocks.clear();
+        FreeListBlock freeListBlock = store.readFirst(FreeListBlock.class);
+        while (true) {
+            freeListBlocks.add(freeListBlock);
+            for (FreeListEntry entry : freeListBlock.entries) {
+                release(entry.pos, entry.size);
+            }
+            if (freeListBlock.nextBlock.isNull()) {
+                break;
+            }
+            freeListBlock = store.read(freeListBlock.nextBlock, FreeListBlock.class);
+        }
+        // Only need to write the free list back if some entries were merged while loading
+        int loadedEntries = 0;
+        for (FreeListBlock block : freeListBlocks) {
+            loadedEntries += block.entries.size();
+        }
+        dirty = loadedEntries != entriesBySize.size();
     }
 
     public void close() {
-        freeListBlock = null;
-        store.close();
+        try {
+            if (!freeListBlocks.isEmpty()) {
+                writeFreeList();
+            }
+        } finally {
+            reset();
+            store.close();
+        }
     }
 
     public void clear() {
+        reset();
         store.clear();
     }
 
+    private void reset() {
+        freeListBlocks.clear();
+        entriesByPos.clear();
+        entriesBySize.clear();
+        freeSpace = 0;
+        dirty = false;
+    }
+
+    /**
+     * Returns the total size of the free blocks in this store.
+     */
+    public long getFreeSpace() {
+        return freeSpace;
+    }
+
     public void remove(BlockPayload block) {
         Block container = block.getBlock();
         store.remove(block);
-        freeListBlock.add(container.getPos(), container.getSize());
+        release(container.getPos(), container.getSize());
     }
 
     public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
-        return store.read(freeListBlock.getNextPos(), payloadType);
+        return store.read(freeListBlocks.get(0).getNextPos(), payloadType);
     }
 
     public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
@@ -85,47 +134,137 @@ public class FreeListBlockStore implements BlockStore {
 
     public void attach(BlockPayload block) {
         store.attach(block);
-        freeListBlock.alloc(block.getBlock());
+        alloc(block.getBlock());
     }
 
     public void flush() {
+        writeFreeList();
         store.flush();
     }
 
-    private void verify() {
-        FreeListBlock block = store.readFirst(FreeListBlock.class);
-        verify(block, Integer.MAX_VALUE);
+    private void release(BlockPointer pos, int size) {
+        assert !pos.isNull() && size >= 0;
+        if (size == 0) {
+            return;
+        }
+        freeSpace += size;
+        dirty = true;
+
+        long start = pos.getPos();
+        long end = start + size;
+        SortedMap<Long, FreeListEntry> entriesBefore = entriesByPos.headMap(start);
+        if (!entriesBefore.isEmpty()) {
+            FreeListEntry before = entriesBefore.get(entriesBefore.lastKey());
+            long beforeStart = before.pos.getPos();
+            if (beforeStart + before.size == start && end - beforeStart <= Integer.MAX_VALUE) {
+                removeEntry(before);
+                start = beforeStart;
+            }
+        }
+        FreeListEntry after = entriesByPos.get(end);
+        if (after != null && end + after.size - start <= Integer.MAX_VALUE) {
+            removeEntry(after);
+            end += after.size;
+        }
+        addEntry(new FreeListEntry(new BlockPointer(start), (int) (end - start)));
+    }
+
+    private void alloc(Block block) {
+        if (block.hasPos()) {
+            return;
+        }
+
+        int requiredSize = block.getSize();
+        SortedSet<FreeListEntry> largeEnough = entriesBySize.tailSet(new FreeListEntry(new BlockPointer(Long.MIN_VALUE), requiredSize));
+        if (largeEnough.isEmpty()) {
+            // Largest free block is too small
+            return;
+        }
+        FreeListEntry entry = largeEnough.first();
+
+        removeEntry(entry);
+        dirty = true;
+        block.setPos(entry.pos);
+        int remainder = entry.size - requiredSize;
+        if (remainder >= MIN_FREE_BLOCK_SIZE) {
+            addEntry(new FreeListEntry(new BlockPointer(entry.pos.getPos() + requiredSize), remainder));
+            freeSpace -= requiredSize;
+        } else {
+            block.setSize(entry.size);
+            freeSpace -= entry.size;
+        }
+    }
+
+    private void addEntry(FreeListEntry entry) {
+        entriesByPos.put(entry.pos.getPos(), entry);
+        entriesBySize.add(entry);
+    }
+
+    private void removeEntry(FreeListEntry entry) {
+        entriesByPos.remove(entry.pos.getPos());
+        entriesBySize.remove(entry);
     }
 
-    private void verify(FreeListBlock block, int maxValue) {
-        if (block.largestInNextBlock > maxValue) {
-            throw new RuntimeException("corrupt free list");
+    private void writeFreeList() {
+        if (!dirty) {
+            return;
         }
-        int current = 0;
-        for (FreeListEntry entry : block.entries) {
-            if (entry.size > maxValue) {
-                throw new RuntimeException("corrupt free list");
-            }
-            if (entry.size < block.largestInNextBlock) {
-                throw new RuntimeException("corrupt free list");
+
+        // Adjust the length of the chain. Discarding a block from the chain can add an entry to the free list, so only
+        // discard a block when the remaining blocks have room for that extra entry
+        while (true) {
+            int requiredBlocks = blocksRequiredFor(entriesBySize.size());
+            if (freeListBlocks.size() < requiredBlocks) {
+                FreeListBlock newBlock = new FreeListBlock();
+                store.attach(newBlock);
+                freeListBlocks.add(newBlock);
+            } else if (freeListBlocks.size() > blocksRequiredFor(entriesBySize.size() + 1)) {
+                FreeListBlock discarded = freeListBlocks.remove(freeListBlocks.size() - 1);
+                Block container = discarded.getBlock();
+                BlockPointer pos = container.getPos();
+                int size = container.getSize();
+                store.remove(discarded);
+                release(pos, size);
+            } else {
+                break;
             }
-            if (entry.size < current) {
-                throw new RuntimeException("corrupt free list");
+        }
+
+        // Fill the blocks, largest entries first
+        List<FreeListEntry> largestFirst = new ArrayList<FreeListEntry>(entriesBySize);
+        Collections.reverse(largestFirst);
+        Iterator<FreeListEntry> iterator = largestFirst.iterator();
+        for (int i = 0; i < freeListBlocks.size(); i++) {
+            FreeListBlock block = freeListBlocks.get(i);
+            block.entries.clear();
+            while (iterator.hasNext() && block.entries.size() < maxBlockEntries) {
+                block.entries.add(iterator.next());
             }
-            current = entry.size;
+            Collections.reverse(block.entries);
         }
-        if (!block.nextBlock.isNull()) {
-            verify(store.read(block.nextBlock, FreeListBlock.class), block.largestInNextBlock);
+        for (int i = 0; i < freeListBlocks.size(); i++) {
+            FreeListBlock block = freeListBlocks.get(i);
+            if (i + 1 < freeListBlocks.size()) {
+                FreeListBlock next = freeListBlocks.get(i + 1);
+                block.nextBlock = next.getPos();
+                block.largestInNextBlock = next.entries.isEmpty() ? 0 : next.entries.get(next.entries.size() - 1).size;
+            } else {
+                block.nextBlock = new BlockPointer();
+                block.largestInNextBlock = 0;
+            }
+            store.write(block);
         }
+        dirty = false;
+    }
+
+    private int blocksRequiredFor(int entryCount) {
+        return Math.max(1, (entryCount + maxBlockEntries - 1) / maxBlockEntries);
     }
 
     public class FreeListBlock extends BlockPayload {
         private List<FreeListEntry> entries = new ArrayList<FreeListEntry>();
         private int largestInNextBlock;
         private BlockPointer nextBlock = new BlockPointer();
-        // Transient fields
-        private FreeListBlock prev;
-        private FreeListBlock next;
 
         @Override
         protected int getSize() {
@@ -160,93 +299,6 @@ public class FreeListBlockStore implements BlockStore {
                 outputStream.writeInt(entry.size);
             }
         }
-
-        public void add(BlockPointer pos, int size) {
-            assert !pos.isNull() && size >= 0;
-            if (size == 0) {
-                return;
-            }
-
-            if (size < largestInNextBlock) {
-                FreeListBlock next = getNextBlock();
-                next.add(pos, size);
-                return;
-            }
-
-            FreeListEntry entry = new FreeListEntry(pos, size);
-            int index = Collections.binarySearch(entries, entry);
-            if (index < 0) {
-                index = -index - 1;
-            }
-            entries.add(index, entry);
-
-            if (entries.size() > maxBlockEntries) {
-                FreeListBlock newBlock = new FreeListBlock();
-                newBlock.largestInNextBlock = largestInNextBlock;
-                newBlock.nextBlock = nextBlock;
-                newBlock.prev = this;
-                newBlock.next = next;
-                next = newBlock;
-
-                List<FreeListEntry> newBlockEntries = entries.subList(0, entries.size() / 2);
-                newBlock.entries.addAll(newBlockEntries);
-                newBlockEntries.clear();
-                largestInNextBlock = newBlock.entries.get(newBlock.entries.size() - 1).size;
-                freeListStore.write(newBlock);
-                nextBlock = newBlock.getPos();
-            }
-
-            freeListStore.write(this);
-        }
-
-        private FreeListBlock getNextBlock() {
-            if (next == null) {
-                next = freeListStore.read(nextBlock, FreeListBlock.class);
-                next.prev = this;
-            }
-            return next;
-        }
-
-        public void alloc(Block block) {
-            if (block.hasPos()) {
-                return;
-            }
-
-            int requiredSize = block.getSize();
-
-            if (entries.isEmpty() || requiredSize <= largestInNextBlock) {
-                if (nextBlock.isNull()) {
-                    return;
-                }
-                getNextBlock().alloc(block);
-                return;
-            }
-
-            int index = Collections.binarySearch(entries, new FreeListEntry(null, requiredSize));
-            if (index < 0) {
-                index = -index - 1;
-            }
-            if (index == entries.size()) {
-                // Largest free block is too small
-                return;
-            }
-
-            FreeListEntry entry = entries.remove(index);
-            block.setPos(entry.pos);
-            block.setSize(entry.size);
-            freeListStore.write(this);
-
-            if (entries.size() == 0 && prev != null) {
-                prev.nextBlock = nextBlock;
-                prev.largestInNextBlock = largestInNextBlock;
-                prev.next = next;
-                if (next != null) {
-                    next.prev = prev;
-                }
-                freeListStore.write(prev);
-                freeListStore.remove(this);
-            }
-        }
     }
 
     private static class FreeListEntry implements Comparable<FreeListEntry> {
@@ -265,7 +317,7 @@ public class FreeListBlockStore implements BlockStore {
             if (size < o.size) {
                 return -1;
             }
-            return 0;
+            return pos.compareTo(o.pos);
         }
     }
 }
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link BlockStore} which reads and writes blocks through memory mapped regions of the backing file, rather than
+ * seeking and streaming through a {@link RandomAccessFile}.
+ *
+ * <p>The file is mapped in fixed size regions and grows a region at a time, so the file is usually longer than the
+ * blocks it contains. The file starts with a header which holds the logical length of the file, and the blocks follow
+ * the header. The unused space at the end of the last region is trimmed when the store is closed, where the platform
+ * allows it. Because of the header, the file format is not compatible with {@link FileBackedBlockStore}.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    static final int DEFAULT_REGION_SIZE = 1024 * 1024;
+    static final int FILE_MARKER = 0xCAFEB10C;
+    static final int FILE_HEADER_SIZE = Block.INT_SIZE + Block.LONG_SIZE;
+    private final File cacheFile;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long length;
+    private long nextBlock;
+    private Factory factory;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    public MappedFileBlockStore(File cacheFile, int regionSize) {
+        this.cacheFile = cacheFile;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache '%s'", cacheFile);
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            long fileLength = file.length();
+            if (fileLength == 0) {
+                initFile();
+            } else {
+                readFileHeader(fileLength);
+            }
+            if (length == FILE_HEADER_SIZE) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        try {
+            unmap();
+            try {
+                file.setLength(length);
+            } catch (IOException e) {
+                // Some platforms do not allow a file to be truncated while it may still be mapped. The header holds
+                // the logical length of the file, so the padding is ignored when the file is next opened
+            }
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        try {
+            unmap();
+            file.setLength(0);
+            initFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+        try {
+            // A block may be removed before it is ever written. Extend the file to cover the space allocated to such
+            // blocks, as the free list may refer to it
+            if (length < nextBlock) {
+                setLength(nextBlock);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(new BlockPointer(FILE_HEADER_SIZE), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CorruptedCacheException(String.format("Could not read block at %s from %s.", pos, this), e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void initFile() throws IOException {
+        nextBlock = FILE_HEADER_SIZE;
+        setLength(FILE_HEADER_SIZE);
+    }
+
+    private void readFileHeader(long fileLength) throws IOException {
+        if (fileLength < FILE_HEADER_SIZE) {
+            throw fileCorruptedException();
+        }
+        ensureMapped(FILE_HEADER_SIZE);
+        ByteBuffer header = regions.get(0).duplicate();
+        if (header.getInt(0) != FILE_MARKER) {
+            throw fileCorruptedException();
+        }
+        long logicalLength = header.getLong(Block.INT_SIZE);
+        if (logicalLength < FILE_HEADER_SIZE || logicalLength > fileLength) {
+            throw fileCorruptedException();
+        }
+        ensureMapped(logicalLength);
+        length = logicalLength;
+        nextBlock = logicalLength;
+    }
+
+    private CorruptedCacheException fileCorruptedException() {
+        return new CorruptedCacheException(String.format("Corrupted file header found in %s.", this));
+    }
+
+    /**
+     * Sets the logical length of the file, and records it in the file header.
+     */
+    private void setLength(long length) throws IOException {
+        ensureMapped(length);
+        this.length = length;
+        ByteBuffer header = regions.get(0).duplicate();
+        header.putInt(0, FILE_MARKER);
+        header.putLong(Block.INT_SIZE, length);
+    }
+
+    /**
+     * Releases the mapped regions, so that the file can be truncated. A mapped region is otherwise only released
+     * when it is garbage collected.
+     */
+    private void unmap() {
+        for (MappedByteBuffer region : regions) {
+            region.force();
+            release(region);
+        }
+        regions.clear();
+    }
+
+    private static void release(MappedByteBuffer region) {
+        try {
+            Method cleanerMethod = region.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(region);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            // Not supported by this JVM. The region is released when it is garbage collected
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Maps enough regions to cover the given number of bytes, growing the file as required.
+     */
+    private void ensureMapped(long size) throws IOException {
+        int required = (int) ((size + regionSize - 1) / regionSize);
+        if (required <= regions.size()) {
+            return;
+        }
+        long mappedSize = (long) required * regionSize;
+        if (file.length() < mappedSize) {
+            file.setLength(mappedSize);
+        }
+        while (regions.size() < required) {
+            regions.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) regions.size() * regionSize, regionSize));
+        }
+    }
+
+    private void get(long pos, byte[] buffer, int offset, int count) {
+        while (count > 0) {
+            ByteBuffer region = regions.get((int) (pos / regionSize)).duplicate();
+            int regionOffset = (int) (pos % regionSize);
+            int chunk = Math.min(count, regionSize - regionOffset);
+            region.position(regionOffset);
+            region.get(buffer, offset, chunk);
+            pos += chunk;
+            offset += chunk;
+            count -= chunk;
+        }
+    }
+
+    private void put(long pos, byte[] buffer, int offset, int count) {
+        while (count > 0) {
+            ByteBuffer region = regions.get((int) (pos / regionSize)).duplicate();
+            int regionOffset = (int) (pos % regionSize);
+            int chunk = Math.min(count, regionSize - regionOffset);
+            region.position(regionOffset);
+            region.put(buffer, offset, chunk);
+            pos += chunk;
+            offset += chunk;
+            count -= chunk;
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 2 + INT_SIZE;
+        private static final int TAIL_SIZE = LONG_SIZE;
+        static final int BLOCK_MARKER = 0xCC;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = new BlockPointer(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public int getPayloadSize() {
+            return getSize() - HEADER_SIZE - TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(HEADER_SIZE + TAIL_SIZE + payloadSize);
+            DataOutputStream outputStream = new DataOutputStream(buffer);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(BLOCK_MARKER);
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write checksum
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.toByteArray());
+            outputStream.writeLong(checksum.getValue());
+            outputStream.close();
+
+            byte[] bytes = buffer.toByteArray();
+            long end = Math.max(finalSize, pos + bytes.length);
+            ensureMapped(end);
+            put(pos, bytes, 0, bytes.length);
+
+            // Pad
+            if (end > length) {
+                setLength(end);
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= length) {
+                throw blockCorruptedException();
+            }
+
+            byte[] header = new byte[HEADER_SIZE];
+            get(pos, header, 0, HEADER_SIZE);
+            DataInputStream headerStream = new DataInputStream(new ByteArrayInputStream(header));
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = headerStream.readByte();
+            if (type != (byte) BLOCK_MARKER) {
+                throw blockCorruptedException();
+            }
+            type = headerStream.readByte();
+            if (type != (byte) payload.getType()) {
+                throw blockCorruptedException();
+            }
+            payloadSize = headerStream.readInt();
+            if (payloadSize < 0 || pos + HEADER_SIZE + TAIL_SIZE + payloadSize > length) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            byte[] bytes = new byte[HEADER_SIZE + payloadSize + TAIL_SIZE];
+            get(pos, bytes, 0, bytes.length);
+            DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(bytes, HEADER_SIZE, payloadSize + TAIL_SIZE));
+            payload.read(inputStream);
+
+            // Read and verify checksum
+            int checksummedSize = bytes.length - inputStream.available();
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes, 0, checksummedSize);
+            long expectedChecksum = inputStream.readLong();
+            if (checksum.getValue() != expectedChecksum) {
+                throw blockCorruptedException();
+            }
+            inputStream.close();
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.CircularReferenceException;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.UncheckedException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allows projects to be evaluated by several threads. A project is evaluated by the first thread which asks for it.
+ * Other threads which ask for the project while it is being evaluated wait until the evaluation has completed. A
+ * thread which would wait, directly or indirectly, for a project which it is itself evaluating fails with a {@link
+ * CircularReferenceException} instead.
+ */
+public class ConcurrentProjectEvaluator implements ProjectEvaluator {
+    private final ProjectEvaluator evaluator;
+    private final Lock lock = new ReentrantLock();
+    private final Condition projectEvaluated = lock.newCondition();
+    private final Map<ProjectInternal, Thread> evaluatingThreads = new HashMap<ProjectInternal, Thread>();
+    private final Map<Thread, ProjectInternal> waitingFor = new HashMap<Thread, ProjectInternal>();
+
+    public ConcurrentProjectEvaluator(ProjectEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    public void evaluate(ProjectInternal project, ProjectStateInternal state) {
+        Thread currentThread = Thread.currentThread();
+        boolean claimed = false;
+        lock.lock();
+        try {
+            while (true) {
+                if (state.getExecuted()) {
+                    return;
+                }
+                Thread owner = evaluatingThreads.get(project);
+                if (owner == null) {
+                    evaluatingThreads.put(project, currentThread);
+                    claimed = true;
+                    break;
+                }
+                if (owner == currentThread) {
+                    // Let the delegate deal with a project which is evaluated again by the thread evaluating it
+                    break;
+                }
+                assertNotWaitingFor(owner, project);
+                waitingFor.put(currentThread, project);
+                try {
+                    projectEvaluated.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.asUncheckedException(e);
+                } finally {
+                    waitingFor.remove(currentThread);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            evaluator.evaluate(project, state);
+        } finally {
+            if (claimed) {
+                lock.lock();
+                try {
+                    evaluatingThreads.remove(project);
+                    projectEvaluated.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Fails when the given thread is waiting, directly or through other threads, for a project that the current thread
+     * is evaluating.
+     */
+    private void assertNotWaitingFor(Thread owner, ProjectInternal project) {
+        Thread thread = owner;
+        while (thread != null) {
+            ProjectInternal blockedOn = waitingFor.get(thread);
+            if (blockedOn == null) {
+                return;
+            }
+            thread = evaluatingThreads.get(blockedOn);
+            if (thread == Thread.currentThread()) {
+                throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", project));
+            }
+        }
+    }
+}
@@ -19,19 +19,50 @@ import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Configures the projects of a build by executing the given actions for each project, in turn.
+ *
+ * <p>When created with a number of worker threads, the projects are first evaluated using those threads. A project is
+ * evaluated once its parent has been evaluated, so projects in different branches of the project tree are evaluated
+ * concurrently. Projects which a project asks for using {@code evaluationDependsOn()} are evaluated on demand, as
+ * usual. The actions are then executed serially, for each project. When the evaluation of a project fails, no further
+ * projects are evaluated and the failure is rethrown once the projects currently being evaluated have completed.</p>
+ */
 public class DefaultBuildConfigurer implements BuildConfigurer {
-    private List<Action<? super ProjectInternal>> actions;
+    private final List<Action<? super ProjectInternal>> actions;
+    private final ExecutorFactory executorFactory;
+    private final int workerCount;
 
     public DefaultBuildConfigurer(Action<? super ProjectInternal>... actions) {
+        this(null, 0, actions);
+    }
+
+    /**
+     * Creates a configurer which evaluates the projects using the given number of worker threads. Use 0 to evaluate
+     * the projects serially, using the build thread.
+     */
+    public DefaultBuildConfigurer(ExecutorFactory executorFactory, int workerCount, Action<? super ProjectInternal>... actions) {
+        if (workerCount < 0) {
+            throw new IllegalArgumentException(String.format("Cannot evaluate projects using %s worker threads.", workerCount));
+        }
+        this.executorFactory = executorFactory;
+        this.workerCount = workerCount;
         this.actions = new ArrayList<Action<? super ProjectInternal>>(Arrays.asList(actions));
     }
 
     public void configure(GradleInternal gradle) {
+        if (workerCount > 0) {
+            evaluateInParallel(gradle.getRootProject());
+        }
         gradle.getRootProject().allprojects(new Action<Project>() {
             public void execute(Project project) {
                 for (Action<? super ProjectInternal> action : actions) {
@@ -40,4 +71,110 @@ public class DefaultBuildConfigurer implements BuildConfigurer {
             }
         });
     }
+
+    private void evaluateInParallel(ProjectInternal rootProject) {
+        List<ProjectInternal> projects = new ArrayList<ProjectInternal>();
+        for (Project project : rootProject.getAllprojects()) {
+            projects.add((ProjectInternal) project);
+        }
+        ProjectEvaluation evaluation = new ProjectEvaluation(projects);
+        StoppableExecutor executor = executorFactory.create("Project evaluation");
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                executor.execute(new ProjectEvaluationWorker(evaluation));
+            }
+        } finally {
+            executor.stop();
+        }
+        evaluation.rethrowFailure();
+    }
+
+    private static class ProjectEvaluationWorker implements Runnable {
+        private final ProjectEvaluation evaluation;
+
+        private ProjectEvaluationWorker(ProjectEvaluation evaluation) {
+            this.evaluation = evaluation;
+        }
+
+        public void run() {
+            ProjectInternal project;
+            while ((project = evaluation.takeNextProject()) != null) {
+                Throwable failure = null;
+                try {
+                    project.evaluate();
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                evaluation.projectCompleted(failure);
+            }
+        }
+    }
+
+    private static class ProjectEvaluation {
+        private final Lock lock = new ReentrantLock();
+        private final Condition projectCompleted = lock.newCondition();
+        private final List<ProjectInternal> pending;
+        private int evaluating;
+        private Throwable failure;
+
+        private ProjectEvaluation(List<ProjectInternal> projects) {
+            this.pending = new LinkedList<ProjectInternal>(projects);
+        }
+
+        /**
+         * Blocks until a project is ready to evaluate. Returns null when there are no further projects to evaluate.
+         */
+        ProjectInternal takeNextProject() {
+            lock.lock();
+            try {
+                while (true) {
+                    if (failure != null) {
+                        return null;
+                    }
+                    Iterator<ProjectInternal> iterator = pending.iterator();
+                    while (iterator.hasNext()) {
+                        ProjectInternal project = iterator.next();
+                        ProjectInternal parent = project.getParent();
+                        if (parent == null || parent.getState().getExecuted()) {
+                            iterator.remove();
+                            evaluating++;
+                            return project;
+                        }
+                    }
+                    if (pending.isEmpty()) {
+                        return null;
+                    }
+                    if (evaluating == 0) {
+                        throw new IllegalStateException(String.format("Cannot evaluate remaining projects %s, as none of them are ready to evaluate.", pending));
+                    }
+                    try {
+                        projectCompleted.await();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.asUncheckedException(e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void projectCompleted(Throwable projectFailure) {
+            lock.lock();
+            try {
+                evaluating--;
+                if (failure == null) {
+                    failure = projectFailure;
+                }
+                projectCompleted.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void rethrowFailure() {
+            if (failure != null) {
+                throw UncheckedException.asUncheckedException(failure);
+            }
+        }
+    }
 }
@@ -26,7 +26,16 @@ import org.gradle.api.internal.initialization.ScriptHandlerInternal;
 import org.gradle.groovy.scripts.*;
 import org.gradle.logging.LoggingManagerInternal;
 
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Creates script plugins. Scripts can be applied by several threads at the same time. Compiling a script and running
+ * its classpath closure are done by one thread at a time, as the compiled script cache and dependency resolution
+ * are not thread-safe. The body of the script then runs without holding the lock.
+ */
 public class DefaultScriptPluginFactory implements ScriptPluginFactory {
+    private final Lock compileLock = new ReentrantLock();
     private final ScriptCompilerFactory scriptCompilerFactory;
     private final ImportsReader importsReader;
     private final ScriptHandlerFactory scriptHandlerFactory;
@@ -94,31 +103,37 @@ public class DefaultScriptPluginFactory implements ScriptPluginFactory {
                 scriptAware = (ScriptAware) target;
                 scriptAware.beforeCompile(this);
             }
-            ScriptClassLoaderProvider classLoaderProvider = this.classLoaderProvider;
-            ScriptSource withImports = importsReader.withImports(scriptSource);
+            ScriptRunner<? extends BasicScript> runner;
+            compileLock.lock();
+            try {
+                ScriptClassLoaderProvider classLoaderProvider = this.classLoaderProvider;
+                ScriptSource withImports = importsReader.withImports(scriptSource);
 
-            if (classLoaderProvider == null) {
-                ScriptHandlerInternal defaultScriptHandler = scriptHandlerFactory.create(withImports, classLoader);
-                services.add(ScriptHandlerInternal.class, defaultScriptHandler);
-                classLoaderProvider = defaultScriptHandler;
-            }
-            
-            ScriptCompiler compiler = scriptCompilerFactory.createCompiler(withImports);
+                if (classLoaderProvider == null) {
+                    ScriptHandlerInternal defaultScriptHandler = scriptHandlerFactory.create(withImports, classLoader);
+                    services.add(ScriptHandlerInternal.class, defaultScriptHandler);
+                    classLoaderProvider = defaultScriptHandler;
+                }
 
-            compiler.setClassloader(classLoaderProvider.getClassLoader());
+                ScriptCompiler compiler = scriptCompilerFactory.createCompiler(withImports);
 
-            BuildScriptClasspathScriptTransformer classpathScriptTransformer
-                    = new BuildScriptClasspathScriptTransformer(classpathClosureName);
-            compiler.setTransformer(classpathScriptTransformer);
+                compiler.setClassloader(classLoaderProvider.getClassLoader());
 
-            ScriptRunner<? extends BasicScript> classPathScriptRunner = compiler.compile(scriptType);
-            classPathScriptRunner.getScript().init(target, services);
-            classPathScriptRunner.run();
+                BuildScriptClasspathScriptTransformer classpathScriptTransformer
+                        = new BuildScriptClasspathScriptTransformer(classpathClosureName);
+                compiler.setTransformer(classpathScriptTransformer);
 
-            classLoaderProvider.updateClassPath();
+                ScriptRunner<? extends BasicScript> classPathScriptRunner = compiler.compile(scriptType);
+                classPathScriptRunner.getScript().init(target, services);
+                classPathScriptRunner.run();
 
-            compiler.setTransformer(new BuildScriptTransformer(classpathScriptTransformer));
-            ScriptRunner<? extends BasicScript> runner = compiler.compile(scriptType);
+                classLoaderProvider.updateClassPath();
+
+                compiler.setTransformer(new BuildScriptTransformer(classpathScriptTransformer));
+                runner = compiler.compile(scriptType);
+            } finally {
+                compileLock.unlock();
+            }
 
             runner.getScript().init(target, services);
             if (scriptAware != null) {
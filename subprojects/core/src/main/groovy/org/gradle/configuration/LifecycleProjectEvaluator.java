@@ -18,14 +18,20 @@ package org.gradle.configuration;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 
 /**
  * Manages lifecycle concerns while delegating actual evaluation to another evaluator
+ *
+ * <p>Listener notifications are delivered one at a time, even when projects are evaluated by several threads, so that
+ * listeners do not need to be thread-safe.</p>
  * 
  * @see org.gradle.api.internal.project.TopLevelBuildServiceRegistry#createProjectEvaluator()
  */
 public class LifecycleProjectEvaluator implements ProjectEvaluator {
     private final ProjectEvaluator evaluator;
+    private final Object listenerLock = new Object();
 
     public LifecycleProjectEvaluator(ProjectEvaluator evaluator) {
         this.evaluator = evaluator;
@@ -37,14 +43,20 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
         }
 
         ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
-        listener.beforeEvaluate(project);
+        synchronized (listenerLock) {
+            listener.beforeEvaluate(project);
+        }
         state.setExecuting(true);
+        TimedOperation operation = OperationTimer.getInstance().start("configure", project.getPath());
         try {
             evaluator.evaluate(project, state);
         } finally {
+            operation.finish();
             state.setExecuting(false);
             state.executed();
-            listener.afterEvaluate(project, state);
+            synchronized (listenerLock) {
+                listener.afterEvaluate(project, state);
+            }
         }
     }
 }
@@ -22,8 +22,10 @@ import org.gradle.api.Task;
 import org.gradle.api.execution.TaskExecutionGraphListener;
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.TaskPlanRepository;
 import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.specs.Specs;
 import org.gradle.listener.ListenerBroadcast;
 import org.gradle.listener.ListenerManager;
@@ -41,6 +43,8 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
 
     private final ListenerBroadcast<TaskExecutionGraphListener> graphListeners;
     private final ListenerBroadcast<TaskExecutionListener> taskListeners;
+    private final TaskPlanExecutor taskPlanExecutor;
+    private final TaskPlanRepository taskPlanRepository;
     private final Map<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
     private boolean populated;
     private Spec<? super Task> filter = Specs.satisfyAll();
@@ -51,6 +55,19 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     };
 
     public DefaultTaskGraphExecuter(ListenerManager listenerManager) {
+        this(listenerManager, new DefaultTaskPlanExecutor());
+    }
+
+    public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor) {
+        this(listenerManager, taskPlanExecutor, null);
+    }
+
+    /**
+     * Creates an executer which reuses the plans kept in the given repository, when not null.
+     */
+    public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, TaskPlanRepository taskPlanRepository) {
+        this.taskPlanExecutor = taskPlanExecutor;
+        this.taskPlanRepository = taskPlanRepository;
         graphListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionGraphListener.class);
         taskListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionListener.class);
     }
@@ -68,10 +85,87 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         for (Task task : tasks) {
             sortedTasks.add(task);
         }
+        if (taskPlanRepository == null) {
+            fillDag(sortedTasks);
+            populated = true;
+            logger.debug("Timing: Creating the DAG took " + clock.getTime());
+            return;
+        }
+
+        List<String> requestedTaskPaths = paths(sortedTasks);
+        List<String> plannedTaskPaths = paths(executionPlan.keySet());
+        Map<String, List<String>> cachedPlan = taskPlanRepository.getPlan(requestedTaskPaths, plannedTaskPaths);
+        if (cachedPlan != null && fillDagFromPlan(sortedTasks, cachedPlan)) {
+            populated = true;
+            logger.info("Timing: Creating the DAG from the cached plan took " + clock.getTime());
+            return;
+        }
+
+        Set<Task> previouslyPlanned = new HashSet<Task>(executionPlan.keySet());
         fillDag(sortedTasks);
         populated = true;
+        logger.info("Timing: Creating the DAG by resolving task dependencies took " + clock.getTime());
+
+        Map<String, List<String>> plan = new LinkedHashMap<String, List<String>>();
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            if (previouslyPlanned.contains(taskInfo.getTask())) {
+                continue;
+            }
+            List<String> dependencyPaths = new ArrayList<String>();
+            for (TaskInfo dependency : taskInfo.getDependencies()) {
+                dependencyPaths.add(dependency.getTask().getPath());
+            }
+            plan.put(taskInfo.getTask().getPath(), dependencyPaths);
+        }
+        taskPlanRepository.storePlan(requestedTaskPaths, plannedTaskPaths, plan);
+    }
+
+    /**
+     * Adds the tasks of a previously calculated plan to the execution plan. Returns false, leaving the execution plan
+     * unchanged, when the plan no longer matches the tasks of the build.
+     */
+    private boolean fillDagFromPlan(Collection<? extends Task> tasks, Map<String, List<String>> plan) {
+        if (tasks.isEmpty()) {
+            return plan.isEmpty();
+        }
+        TaskContainer taskContainer = tasks.iterator().next().getProject().getTasks();
+        Map<String, TaskInfo> taskInfos = new HashMap<String, TaskInfo>();
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            taskInfos.put(taskInfo.getTask().getPath(), taskInfo);
+        }
+        Map<Task, TaskInfo> additions = new LinkedHashMap<Task, TaskInfo>();
+        for (Map.Entry<String, List<String>> entry : plan.entrySet()) {
+            Task task = taskContainer.findByPath(entry.getKey());
+            if (task == null || !filter.isSatisfiedBy(task) || executionPlan.containsKey(task)) {
+                return false;
+            }
+            Set<TaskInfo> dependencies = new HashSet<TaskInfo>();
+            for (String dependencyPath : entry.getValue()) {
+                TaskInfo dependency = taskInfos.get(dependencyPath);
+                if (dependency == null) {
+                    return false;
+                }
+                dependencies.add(dependency);
+            }
+            TaskInfo taskInfo = new TaskInfo((TaskInternal) task, dependencies);
+            taskInfos.put(entry.getKey(), taskInfo);
+            additions.put(task, taskInfo);
+        }
+        for (Task task : tasks) {
+            if (filter.isSatisfiedBy(task) && !executionPlan.containsKey(task) && !additions.containsKey(task)) {
+                return false;
+            }
+        }
+        executionPlan.putAll(additions);
+        return true;
+    }
 
-        logger.debug("Timing: Creating the DAG took " + clock.getTime());
+    private static List<String> paths(Collection<? extends Task> tasks) {
+        List<String> paths = new ArrayList<String>();
+        for (Task task : tasks) {
+            paths.add(task.getPath());
+        }
+        return paths;
     }
 
     public void execute() {
@@ -80,7 +174,7 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         graphListeners.getSource().graphPopulated(this);
 
         try {
-            doExecute(executionPlan.values());
+            taskPlanExecutor.process(executionPlan.values(), taskListeners.getSource(), failureHandler);
             logger.debug("Timing: Executing the DAG took " + clock.getTime());
         } finally {
             executionPlan.clear();
@@ -172,34 +266,6 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         this.failureHandler = handler;
     }
 
-    private void doExecute(Iterable<? extends TaskInfo> tasks) {
-        for (TaskInfo task : tasks) {
-            executeTask(task);
-        }
-    }
-
-    private void executeTask(TaskInfo taskInfo) {
-        TaskInternal task = taskInfo.task;
-        for (TaskInfo dependency : taskInfo.dependencies) {
-            if (!dependency.executed) {
-                // Cannot execute this task, as some dependencies have not been executed
-                return;
-            }
-        }
-        
-        taskListeners.getSource().beforeExecute(task);
-        try {
-            task.executeWithoutThrowingTaskFailure();
-            if (task.getState().getFailure() != null) {
-                failureHandler.onTaskFailure(task);
-            } else {
-                taskInfo.executed = true;
-            }
-        } finally {
-            taskListeners.getSource().afterExecute(task, task.getState());
-        }
-    }
-
     public boolean hasTask(Task task) {
         assertPopulated();
         return executionPlan.containsKey(task);
@@ -227,15 +293,4 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
                     "Task information is not available, as this task execution graph has not been populated.");
         }
     }
-    
-    private static class TaskInfo {
-        private final TaskInternal task;
-        private final Set<TaskInfo> dependencies;
-        private boolean executed;
-
-        private TaskInfo(TaskInternal task, Set<TaskInfo> dependencies) {
-            this.task = task;
-            this.dependencies = dependencies;
-        }
-    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution;
+
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.internal.TaskInternal;
+
+import java.util.Collection;
+
+/**
+ * Executes the tasks of the plan one at a time, on the calling thread.
+ */
+public class DefaultTaskPlanExecutor implements TaskPlanExecutor {
+    public void process(Collection<TaskInfo> taskPlan, TaskExecutionListener taskListener, TaskFailureHandler failureHandler) {
+        for (TaskInfo taskInfo : taskPlan) {
+            executeTask(taskInfo, taskListener, failureHandler);
+        }
+    }
+
+    private void executeTask(TaskInfo taskInfo, TaskExecutionListener taskListener, TaskFailureHandler failureHandler) {
+        if (!taskInfo.allDependenciesExecuted()) {
+            // Cannot execute this task, as some dependencies have not been executed
+            taskInfo.skipExecution();
+            return;
+        }
+
+        TaskInternal task = taskInfo.getTask();
+        taskInfo.startExecution();
+        taskListener.beforeExecute(task);
+        try {
+            task.executeWithoutThrowingTaskFailure();
+            if (task.getState().getFailure() != null) {
+                taskInfo.executionFailed();
+                failureHandler.onTaskFailure(task);
+            } else {
+                taskInfo.executionSucceeded();
+            }
+        } finally {
+            taskListener.afterExecute(task, task.getState());
+        }
+    }
+}
@@ -32,6 +32,10 @@ public class ExcludedTaskFilteringBuildConfigurationAction implements BuildConfi
         this(new TaskSelector());
     }
 
+    public ExcludedTaskFilteringBuildConfigurationAction(TaskNameResolver taskNameResolver) {
+        this(new TaskSelector(taskNameResolver));
+    }
+
     ExcludedTaskFilteringBuildConfigurationAction(TaskSelector taskSelector) {
         selector = taskSelector;
     }
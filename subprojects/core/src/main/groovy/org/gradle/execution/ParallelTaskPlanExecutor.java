@@ -0,0 +1,265 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution;
+
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.TaskDurationRepository;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Executes the tasks of the plan using a fixed number of worker threads. A task is started as soon as all of its
+ * dependencies have been executed, so independent tasks run concurrently. When several tasks are ready to execute,
+ * the task with the longest remaining path through the task graph is started first, using the execution times recorded
+ * in previous builds. This way the tasks on the critical path of the build are not left until last.
+ *
+ * <p>Task listener notifications are delivered one at a time, so that listeners do not need to be thread-safe. The
+ * failure handler is also called one failure at a time, without blocking the other workers. When the failure handler
+ * throws an exception, no further tasks are started, the tasks currently executing are allowed to complete, and the
+ * exception is rethrown.</p>
+ */
+public class ParallelTaskPlanExecutor implements TaskPlanExecutor {
+    private final ExecutorFactory executorFactory;
+    private final int workerCount;
+    private final TaskDurationRepository durationRepository;
+
+    public ParallelTaskPlanExecutor(ExecutorFactory executorFactory, int workerCount, TaskDurationRepository durationRepository) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException(String.format("Cannot execute tasks using %s worker threads.", workerCount));
+        }
+        this.executorFactory = executorFactory;
+        this.workerCount = workerCount;
+        this.durationRepository = durationRepository;
+    }
+
+    public void process(Collection<TaskInfo> taskPlan, TaskExecutionListener taskListener, TaskFailureHandler failureHandler) {
+        TaskExecution execution = new TaskExecution(prioritise(taskPlan), taskListener, failureHandler);
+        StoppableExecutor executor = executorFactory.create("Task worker");
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                executor.execute(new TaskWorker(execution));
+            }
+        } finally {
+            executor.stop();
+        }
+        durationRepository.recordDurations(execution.getDurations());
+        execution.rethrowFailure();
+    }
+
+    /**
+     * Orders the plan by the expected execution time of the longest path from each task to the end of the graph. Each
+     * task is counted as taking at least 1ms, so that a task always sorts before the tasks which depend on it, and a
+     * longer chain of tasks sorts first when there is no history. The sort is stable, so the plan order is otherwise
+     * kept.
+     */
+    private List<TaskInfo> prioritise(Collection<TaskInfo> taskPlan) {
+        List<String> taskPaths = new ArrayList<String>();
+        for (TaskInfo taskInfo : taskPlan) {
+            taskPaths.add(taskInfo.getTask().getPath());
+        }
+        Map<String, Long> durations = durationRepository.getExpectedDurations(taskPaths);
+
+        final Map<TaskInfo, Long> remainingDurations = new HashMap<TaskInfo, Long>();
+        Map<TaskInfo, Long> longestDependentPaths = new HashMap<TaskInfo, Long>();
+        List<TaskInfo> reversePlan = new ArrayList<TaskInfo>(taskPlan);
+        Collections.reverse(reversePlan);
+        for (TaskInfo taskInfo : reversePlan) {
+            Long expectedDuration = durations.get(taskInfo.getTask().getPath());
+            Long longestDependentPath = longestDependentPaths.get(taskInfo);
+            long remainingDuration = Math.max(1, expectedDuration == null ? 0 : expectedDuration)
+                    + (longestDependentPath == null ? 0 : longestDependentPath);
+            remainingDurations.put(taskInfo, remainingDuration);
+            for (TaskInfo dependency : taskInfo.getDependencies()) {
+                Long current = longestDependentPaths.get(dependency);
+                if (current == null || current < remainingDuration) {
+                    longestDependentPaths.put(dependency, remainingDuration);
+                }
+            }
+        }
+
+        List<TaskInfo> prioritisedPlan = new ArrayList<TaskInfo>(taskPlan);
+        Collections.sort(prioritisedPlan, new Comparator<TaskInfo>() {
+            public int compare(TaskInfo task1, TaskInfo task2) {
+                return remainingDurations.get(task2).compareTo(remainingDurations.get(task1));
+            }
+        });
+        return prioritisedPlan;
+    }
+
+    private static class TaskWorker implements Runnable {
+        private final TaskExecution execution;
+
+        private TaskWorker(TaskExecution execution) {
+            this.execution = execution;
+        }
+
+        public void run() {
+            TaskInfo taskInfo;
+            while ((taskInfo = execution.takeNextTask()) != null) {
+                execution.executeTask(taskInfo);
+            }
+        }
+    }
+
+    private static class TaskExecution {
+        private final Lock lock = new ReentrantLock();
+        private final Condition taskCompleted = lock.newCondition();
+        private final Object listenerLock = new Object();
+        private final Object failureHandlerLock = new Object();
+        private final List<TaskInfo> pending;
+        private final TaskExecutionListener taskListener;
+        private final TaskFailureHandler failureHandler;
+        private final Map<String, Long> durations = new HashMap<String, Long>();
+        private int executing;
+        private Throwable failure;
+
+        private TaskExecution(List<TaskInfo> taskPlan, TaskExecutionListener taskListener, TaskFailureHandler failureHandler) {
+            this.pending = new LinkedList<TaskInfo>(taskPlan);
+            this.taskListener = taskListener;
+            this.failureHandler = failureHandler;
+        }
+
+        /**
+         * Blocks until a task is ready to execute. Returns null when there are no further tasks to execute.
+         */
+        TaskInfo takeNextTask() {
+            lock.lock();
+            try {
+                while (true) {
+                    if (failure != null) {
+                        return null;
+                    }
+                    // The plan is ordered so that dependencies come first, so a single pass is enough to skip all tasks
+                    // that are blocked by a failure. The first ready task is the one with the highest priority
+                    Iterator<TaskInfo> iterator = pending.iterator();
+                    while (iterator.hasNext()) {
+                        TaskInfo taskInfo = iterator.next();
+                        if (taskInfo.isBlockedByFailure()) {
+                            iterator.remove();
+                            taskInfo.skipExecution();
+                        } else if (taskInfo.allDependenciesExecuted()) {
+                            iterator.remove();
+                            taskInfo.startExecution();
+                            executing++;
+                            return taskInfo;
+                        }
+                    }
+                    if (pending.isEmpty()) {
+                        return null;
+                    }
+                    if (executing == 0) {
+                        throw new IllegalStateException(String.format("Cannot execute remaining tasks %s, as none of them are ready to execute.", pending));
+                    }
+                    try {
+                        taskCompleted.await();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.asUncheckedException(e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void executeTask(TaskInfo taskInfo) {
+            TaskInternal task = taskInfo.getTask();
+            try {
+                synchronized (listenerLock) {
+                    taskListener.beforeExecute(task);
+                }
+                try {
+                    long start = System.currentTimeMillis();
+                    task.executeWithoutThrowingTaskFailure();
+                    if (task.getState().getFailure() != null) {
+                        onTaskFailure(taskInfo);
+                    } else if (task.getState().getDidWork() && !task.getState().getSkipped()) {
+                        // Up-to-date and skipped tasks take almost no time, which says nothing about their next run
+                        recordDuration(task, System.currentTimeMillis() - start);
+                    }
+                } finally {
+                    synchronized (listenerLock) {
+                        taskListener.afterExecute(task, task.getState());
+                    }
+                }
+                taskCompleted(taskInfo, null);
+            } catch (Throwable t) {
+                taskCompleted(taskInfo, t);
+            }
+        }
+
+        private void onTaskFailure(TaskInfo taskInfo) {
+            lock.lock();
+            try {
+                taskInfo.executionFailed();
+            } finally {
+                lock.unlock();
+            }
+            // The handler may do arbitrary work, so call it without holding the lock
+            synchronized (failureHandlerLock) {
+                failureHandler.onTaskFailure(taskInfo.getTask());
+            }
+        }
+
+        private void recordDuration(TaskInternal task, long duration) {
+            lock.lock();
+            try {
+                durations.put(task.getPath(), duration);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Map<String, Long> getDurations() {
+            lock.lock();
+            try {
+                return new HashMap<String, Long>(durations);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void taskCompleted(TaskInfo taskInfo, Throwable executionFailure) {
+            lock.lock();
+            try {
+                if (executionFailure != null) {
+                    taskInfo.executionFailed();
+                    if (failure == null) {
+                        failure = executionFailure;
+                    }
+                } else if (!taskInfo.isComplete()) {
+                    taskInfo.executionSucceeded();
+                }
+                executing--;
+                taskCompleted.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void rethrowFailure() {
+            if (failure != null) {
+                throw UncheckedException.asUncheckedException(failure);
+            }
+        }
+    }
+}
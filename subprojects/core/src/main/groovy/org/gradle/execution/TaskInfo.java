@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution;
+
+import org.gradle.api.internal.TaskInternal;
+
+import java.util.Set;
+
+/**
+ * A node in the task execution plan. Tracks the execution state of a task and the tasks that it depends on.
+ */
+public class TaskInfo {
+    private enum State {
+        NotExecuted, Executing, Executed, Failed, Skipped
+    }
+
+    private final TaskInternal task;
+    private final Set<TaskInfo> dependencies;
+    private State state = State.NotExecuted;
+
+    TaskInfo(TaskInternal task, Set<TaskInfo> dependencies) {
+        this.task = task;
+        this.dependencies = dependencies;
+    }
+
+    public TaskInternal getTask() {
+        return task;
+    }
+
+    public Set<TaskInfo> getDependencies() {
+        return dependencies;
+    }
+
+    public boolean isExecuted() {
+        return state == State.Executed;
+    }
+
+    /**
+     * Returns true when this task has finished, either by executing or by being skipped.
+     */
+    public boolean isComplete() {
+        return state == State.Executed || state == State.Failed || state == State.Skipped;
+    }
+
+    /**
+     * Returns true when all dependencies of this task have been successfully executed.
+     */
+    public boolean allDependenciesExecuted() {
+        for (TaskInfo dependency : dependencies) {
+            if (!dependency.isExecuted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true when some dependency of this task has failed or has been skipped, so that this task can never be
+     * executed.
+     */
+    public boolean isBlockedByFailure() {
+        for (TaskInfo dependency : dependencies) {
+            if (dependency.state == State.Failed || dependency.state == State.Skipped) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void startExecution() {
+        assertState(State.NotExecuted);
+        state = State.Executing;
+    }
+
+    public void executionSucceeded() {
+        state = State.Executed;
+    }
+
+    public void executionFailed() {
+        state = State.Failed;
+    }
+
+    public void skipExecution() {
+        assertState(State.NotExecuted);
+        state = State.Skipped;
+    }
+
+    private void assertState(State expected) {
+        if (state != expected) {
+            throw new IllegalStateException(String.format("Cannot change the state of %s, as it is %s.", task, state));
+        }
+    }
+}
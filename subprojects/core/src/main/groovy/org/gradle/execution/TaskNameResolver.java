@@ -19,12 +19,23 @@ import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.SetMultimap;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.internal.project.DefaultProjectAccessListener;
+import org.gradle.api.internal.project.ProjectAccessListener;
 import org.gradle.api.internal.project.ProjectInternal;
 
 import java.util.Collections;
 
 public class TaskNameResolver {
-    
+    private final ProjectAccessListener projectAccessListener;
+
+    public TaskNameResolver() {
+        this(new DefaultProjectAccessListener());
+    }
+
+    public TaskNameResolver(ProjectAccessListener projectAccessListener) {
+        this.projectAccessListener = projectAccessListener;
+    }
+
     public SetMultimap<String, Task> select(String name, Project project) {
         return select(name, (ProjectInternal) project, Collections.<Project>emptySet());
     }
@@ -34,6 +45,12 @@ public class TaskNameResolver {
     }
 
     private SetMultimap<String, Task> select(String name, ProjectInternal project, Iterable<Project> additionalProjects) {
+        // Let the listener prepare the projects, for builds which configure projects on demand
+        projectAccessListener.beforeRequestingTaskByPath(project);
+        for (Project additionalProject : additionalProjects) {
+            projectAccessListener.beforeRequestingTaskByPath((ProjectInternal) additionalProject);
+        }
+
         SetMultimap<String, Task> selected = LinkedHashMultimap.create();
         Task task = project.getTasks().findByName(name);
         if (task != null) {
@@ -46,7 +46,7 @@ public class TaskNameResolvingBuildConfigurationAction implements BuildConfigura
         this(new TaskNameResolver());
     }
 
-    TaskNameResolvingBuildConfigurationAction(TaskNameResolver taskNameResolver) {
+    public TaskNameResolvingBuildConfigurationAction(TaskNameResolver taskNameResolver) {
         this.taskNameResolver = taskNameResolver;
     }
 
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution;
+
+import org.gradle.api.execution.TaskExecutionListener;
+
+import java.util.Collection;
+
+/**
+ * Executes the tasks of an execution plan.
+ */
+public interface TaskPlanExecutor {
+    /**
+     * Executes the given plan. The plan is ordered so that every task appears after all of its dependencies. A task
+     * is not executed when any of its dependencies did not execute successfully.
+     *
+     * @param taskPlan The tasks to execute.
+     * @param taskListener The listener to notify before and after each task is executed.
+     * @param failureHandler The handler to notify when a task fails. Can throw an exception to abort execution.
+     */
+    void process(Collection<TaskInfo> taskPlan, TaskExecutionListener taskListener, TaskFailureHandler failureHandler);
+}
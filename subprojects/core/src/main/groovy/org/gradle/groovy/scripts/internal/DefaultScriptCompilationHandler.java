@@ -32,6 +32,8 @@ import org.gradle.api.ScriptCompilationException;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.Transformer;
 import org.gradle.internal.UncheckedException;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 import org.gradle.util.Clock;
 import org.gradle.util.GFileUtils;
 import org.gradle.util.WrapUtil;
@@ -63,11 +65,14 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
         classesDir.mkdirs();
         CompilerConfiguration configuration = createBaseCompilerConfiguration(scriptBaseClass);
         configuration.setTargetDirectory(classesDir);
+        TimedOperation operation = OperationTimer.getInstance().start("compile script", source.getDisplayName());
         try {
             compileScript(source, classLoader, configuration, classesDir, transformer);
         } catch (GradleException e) {
             GFileUtils.deleteDirectory(classesDir);
             throw e;
+        } finally {
+            operation.finish();
         }
 
         logger.debug("Timing: Writing script to cache at {} took: {}", classesDir.getAbsolutePath(),
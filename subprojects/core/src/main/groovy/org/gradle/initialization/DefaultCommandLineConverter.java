@@ -55,6 +55,17 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
     private static final String EXCLUDE_TASK = "x";
     private static final String PROFILE = "profile";
     private static final String CONTINUE = "continue";
+    private static final String PARALLEL_THREADS = "parallel-threads";
+    private static final String PARALLEL_SNAPSHOTTING = "parallel-snapshotting";
+    private static final String FAST_FILE_HASHING = "fast-file-hashing";
+    private static final String PARALLEL_CONFIGURATION = "parallel-configuration";
+    private static final String CONFIGURE_ON_DEMAND = "configure-on-demand";
+    private static final String CACHE_TASK_GRAPH = "cache-task-graph";
+    private static final String PREFETCH_MODULE_METADATA = "prefetch-module-metadata";
+    private static final String PARALLEL_ARTIFACT_DOWNLOADS = "parallel-artifact-downloads";
+    private static final String POOLED_HTTP_CONNECTIONS = "pooled-http-connections";
+    private static final String CONCURRENT_REPOSITORY_PROBING = "concurrent-repository-probing";
+    private static final String BINARY_MODULE_DESCRIPTORS = "binary-module-descriptors";
     private static final String PROJECT_CACHE_DIR = "project-cache-dir";
 
     private final CommandLineConverter<LoggingConfiguration> loggingConfigurationCommandLineConverter = new LoggingCommandLineConverter();
@@ -84,6 +95,19 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
         parser.option(EXCLUDE_TASK, "exclude-task").hasArguments().hasDescription("Specify a task to be excluded from execution.");
         parser.option(PROFILE).hasDescription("Profiles build execution time and generates a report in the <build_dir>/reports/profile directory.");
         parser.option(CONTINUE).hasDescription("Continues task execution after a task failure. [experimental]");
+        parser.option(PARALLEL_THREADS).hasArgument().hasDescription("Executes independent tasks in parallel, using the given number of worker threads. [experimental]");
+        parser.option(PARALLEL_SNAPSHOTTING).hasDescription("Hashes task input and output files using several threads. [experimental]");
+        parser.option(FAST_FILE_HASHING).hasDescription("Hashes task input and output files using a fast non-cryptographic hash function. [experimental]");
+        parser.option(PARALLEL_CONFIGURATION).hasDescription("Evaluates independent projects in parallel. [experimental]");
+        parser.option(CONFIGURE_ON_DEMAND).hasDescription("Only evaluates the projects needed by the requested tasks. [experimental]");
+        parser.option(CACHE_TASK_GRAPH).hasDescription("Reuses the task graph calculated by a previous identical build. [experimental]");
+        parser.option(PREFETCH_MODULE_METADATA).hasDescription("Downloads the module descriptors of dependencies concurrently. [experimental]");
+        parser.option(BINARY_MODULE_DESCRIPTORS).hasDescription("Caches module descriptors in a binary format that is faster to read. [experimental]");
+        parser.option(PARALLEL_ARTIFACT_DOWNLOADS).hasDescription("Downloads the artifacts of a configuration concurrently. [experimental]");
+        parser.option(BINARY_MODULE_DESCRIPTORS).hasDescription("Caches module descriptors in a binary format that is faster to read. [experimental]");
+        parser.option(POOLED_HTTP_CONNECTIONS).hasDescription("Reuses HTTP connections to repositories across requests and threads. [experimental]");
+        parser.option(CONCURRENT_REPOSITORY_PROBING).hasDescription("Queries all repositories for a module concurrently. [experimental]");
+        parser.option(BINARY_MODULE_DESCRIPTORS).hasDescription("Caches module descriptors in a binary format that is faster to read. [experimental]");
     }
 
     @Override
@@ -192,6 +216,55 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
             startParameter.setContinueOnFailure(true);
         }
 
+        if (options.hasOption(PARALLEL_THREADS)) {
+            String value = options.option(PARALLEL_THREADS).getValue();
+            try {
+                startParameter.setParallelThreadCount(Integer.parseInt(value));
+            } catch (IllegalArgumentException e) {
+                throw new CommandLineArgumentException(String.format("Invalid number of parallel threads '%s' specified.", value));
+            }
+        }
+
+        if (options.hasOption(PARALLEL_SNAPSHOTTING)) {
+            startParameter.setParallelSnapshotting(true);
+        }
+
+        if (options.hasOption(FAST_FILE_HASHING)) {
+            startParameter.setFastFileHashing(true);
+        }
+
+        if (options.hasOption(PARALLEL_CONFIGURATION)) {
+            startParameter.setParallelProjectConfiguration(true);
+        }
+
+        if (options.hasOption(CONFIGURE_ON_DEMAND)) {
+            startParameter.setConfigureOnDemand(true);
+        }
+
+        if (options.hasOption(CACHE_TASK_GRAPH)) {
+            startParameter.setTaskGraphCaching(true);
+        }
+
+        if (options.hasOption(PREFETCH_MODULE_METADATA)) {
+            startParameter.setModuleMetadataPrefetching(true);
+        }
+
+        if (options.hasOption(PARALLEL_ARTIFACT_DOWNLOADS)) {
+            startParameter.setParallelArtifactDownloads(true);
+        }
+
+        if (options.hasOption(POOLED_HTTP_CONNECTIONS)) {
+            startParameter.setPooledHttpConnections(true);
+        }
+
+        if (options.hasOption(CONCURRENT_REPOSITORY_PROBING)) {
+            startParameter.setConcurrentRepositoryProbing(true);
+        }
+
+        if (options.hasOption(BINARY_MODULE_DESCRIPTORS)) {
+            startParameter.setBinaryModuleDescriptors(true);
+        }
+
         return startParameter;
     }
 }
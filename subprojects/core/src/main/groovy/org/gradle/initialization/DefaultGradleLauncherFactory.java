@@ -20,6 +20,7 @@ import org.gradle.*;
 import org.gradle.api.internal.ExceptionAnalyser;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.Instantiator;
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache;
 import org.gradle.api.internal.project.GlobalServicesRegistry;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.api.internal.project.TopLevelBuildServiceRegistry;
@@ -119,7 +120,7 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         listenerManager.addListener(new BuildCleanupListener(serviceRegistry));
 
         if (startParameter.isProfile()) {
-            listenerManager.addListener(new ProfileListener(requestMetaData.getBuildTimeClock().getStartTime()));
+            listenerManager.addListener(new ProfileListener(requestMetaData.getBuildTimeClock().getStartTime(), serviceRegistry.get(InMemoryFileHashCache.class)));
         }
 
         GradleInternal gradle = serviceRegistry.get(Instantiator.class).newInstance(DefaultGradle.class, tracker.getCurrentBuild(), startParameter, serviceRegistry);
@@ -17,10 +17,10 @@
 package org.gradle.listener;
 
 import groovy.lang.Closure;
-import org.gradle.messaging.dispatch.BroadcastDispatch;
-import org.gradle.messaging.dispatch.Dispatch;
-import org.gradle.messaging.dispatch.MethodInvocation;
-import org.gradle.messaging.dispatch.ReflectionDispatch;
+import org.gradle.api.Transformer;
+import org.gradle.messaging.dispatch.*;
+import org.gradle.profile.OperationTimer;
+import org.gradle.profile.TimedOperation;
 
 import java.util.*;
 
@@ -86,11 +86,15 @@ public class DefaultListenerManager implements ListenerManager {
         return broadcast;
     }
 
-    private <T> ListenerBroadcast<T> getBroadcasterInternal(Class<T> listenerClass) {
+    private <T> ListenerBroadcast<T> getBroadcasterInternal(final Class<T> listenerClass) {
         synchronized (lock) {
             ListenerBroadcast<T> broadcaster = broadcasters.get(listenerClass);
             if (broadcaster == null) {
-                broadcaster = new ListenerBroadcast<T>(listenerClass);
+                broadcaster = new ListenerBroadcast<T>(listenerClass, new Transformer<StoppableDispatch<MethodInvocation>, StoppableDispatch<MethodInvocation>>() {
+                    public StoppableDispatch<MethodInvocation> transform(StoppableDispatch<MethodInvocation> original) {
+                        return new TimedDispatch(listenerClass, original);
+                    }
+                });
                 broadcaster.add(getLogger(listenerClass));
                 broadcaster.add(getDispatcher(listenerClass));
                 if (parent != null) {
@@ -158,6 +162,37 @@ public class DefaultListenerManager implements ListenerManager {
         }
     }
 
+    /**
+     * Times the delivery of each event to the listeners, so that slow listeners show up in the profile.
+     */
+    private static class TimedDispatch implements StoppableDispatch<MethodInvocation> {
+        private final String typeName;
+        private final StoppableDispatch<MethodInvocation> dispatch;
+
+        private TimedDispatch(Class<?> type, StoppableDispatch<MethodInvocation> dispatch) {
+            this.typeName = type.getSimpleName();
+            this.dispatch = dispatch;
+        }
+
+        public void dispatch(MethodInvocation message) {
+            OperationTimer timer = OperationTimer.getInstance();
+            if (!timer.isRecording()) {
+                dispatch.dispatch(message);
+                return;
+            }
+            TimedOperation operation = timer.start("listener", typeName + "." + message.getMethod().getName());
+            try {
+                dispatch.dispatch(message);
+            } finally {
+                operation.finish();
+            }
+        }
+
+        public void stop() {
+            dispatch.stop();
+        }
+    }
+
     private static class LoggerDispatch implements Dispatch<MethodInvocation> {
         private final Class<?> type;
         private Dispatch<MethodInvocation> dispatch;
@@ -27,8 +27,13 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Dispatches each method invocation to all registered handlers. Handlers can be added and removed by any thread,
+ * including while an invocation is being dispatched. A dispatch is delivered to the handlers registered when it starts.
+ */
 public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BroadcastDispatch.class);
     private final Class<T> type;
@@ -43,20 +48,20 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
         return type;
     }
 
-    public void add(Dispatch<MethodInvocation> dispatch) {
+    public synchronized void add(Dispatch<MethodInvocation> dispatch) {
         handlers.put(dispatch, dispatch);
     }
 
-    public void add(T listener) {
+    public synchronized void add(T listener) {
         handlers.put(listener, new ReflectionDispatch(listener));
     }
 
-    public void add(String methodName, Closure closure) {
+    public synchronized void add(String methodName, Closure closure) {
         assertIsMethod(methodName);
         handlers.put(closure, new ClosureInvocationHandler(methodName, closure));
     }
 
-    public void add(String methodName, Action<?> action) {
+    public synchronized void add(String methodName, Action<?> action) {
         assertIsMethod(methodName);
         handlers.put(action, new ActionInvocationHandler(methodName, action));
     }
@@ -71,7 +76,7 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
                 type.getSimpleName()));
     }
 
-    public void remove(Object listener) {
+    public synchronized void remove(Object listener) {
         handlers.remove(listener);
     }
 
@@ -83,7 +88,7 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
     public void dispatch(MethodInvocation invocation) {
         try {
             ExceptionTrackingFailureHandler tracker = new ExceptionTrackingFailureHandler(LOGGER);
-            for (Dispatch<MethodInvocation> handler : new ArrayList<Dispatch<MethodInvocation>>(handlers.values())) {
+            for (Dispatch<MethodInvocation> handler : getHandlers()) {
                 try {
                     handler.dispatch(invocation);
                 } catch (UncheckedException e) {
@@ -98,6 +103,10 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
         }
     }
 
+    private synchronized List<Dispatch<MethodInvocation>> getHandlers() {
+        return new ArrayList<Dispatch<MethodInvocation>>(handlers.values());
+    }
+
     public void stop() {
     }
 
@@ -17,6 +17,7 @@ package org.gradle.profile;
 
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ResolvableDependencies;
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache;
 import org.gradle.api.invocation.Gradle;
 
 import java.util.ArrayList;
@@ -49,6 +50,7 @@ public class BuildProfile {
     private long projectsLoaded;
     private long projectsEvaluated;
     private long buildFinished;
+    private InMemoryFileHashCache.Statistics fileHashCacheStatistics;
 
     public BuildProfile(Gradle gradle) {
         this.gradle = gradle;
@@ -236,4 +238,16 @@ public class BuildProfile {
         }
         return result;
     }
+
+    /**
+     * Get the usage of the in-memory file hash cache during this build, or null when it was not recorded.
+     * @return
+     */
+    public InMemoryFileHashCache.Statistics getFileHashCacheStatistics() {
+        return fileHashCacheStatistics;
+    }
+
+    public void setFileHashCacheStatistics(InMemoryFileHashCache.Statistics fileHashCacheStatistics) {
+        this.fileHashCacheStatistics = fileHashCacheStatistics;
+    }
 }
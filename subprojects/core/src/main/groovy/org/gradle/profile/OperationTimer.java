@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times fine-grained operations of a build, such as snapshotting task files, locking caches or compiling scripts. An
+ * operation started by a thread is nested in the operation in progress on that thread, if any.
+ *
+ * <p>There is a single timer per process, so that operations can be timed wherever they happen. Nothing is recorded
+ * unless recording has been started using {@link #startRecording()}, and starting an operation is cheap while
+ * it is not.</p>
+ */
+public class OperationTimer {
+    private static final OperationTimer INSTANCE = new OperationTimer();
+    private final AtomicLong nextId = new AtomicLong();
+    private final ThreadLocal<TimedOperation> currentOperation = new ThreadLocal<TimedOperation>();
+    private volatile List<TimedOperation> recording;
+
+    public static OperationTimer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts an operation on the calling thread. The operation must be finished on the same thread.
+     */
+    public TimedOperation start(String category, String name) {
+        List<TimedOperation> recording = this.recording;
+        if (recording == null) {
+            return TimedOperation.NONE;
+        }
+        TimedOperation parent = currentOperation.get();
+        if (parent != null && parent.getRecording() != recording) {
+            // Left over from an earlier recording
+            parent = null;
+        }
+        TimedOperation operation = new TimedOperation(this, recording, nextId.incrementAndGet(), parent, category, name);
+        currentOperation.set(operation);
+        return operation;
+    }
+
+    void finished(TimedOperation operation) {
+        if (currentOperation.get() == operation) {
+            currentOperation.set(operation.getParent());
+        }
+        operation.getRecording().add(operation);
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Starts recording operations, discarding any operations recorded so far.
+     */
+    public void startRecording() {
+        recording = Collections.synchronizedList(new ArrayList<TimedOperation>());
+    }
+
+    /**
+     * Stops recording operations.
+     *
+     * @return the operations finished since recording was started, in the order they finished.
+     */
+    public List<TimedOperation> stopRecording() {
+        List<TimedOperation> recording = this.recording;
+        this.recording = null;
+        if (recording == null) {
+            return Collections.emptyList();
+        }
+        synchronized (recording) {
+            return new ArrayList<TimedOperation>(recording);
+        }
+    }
+}
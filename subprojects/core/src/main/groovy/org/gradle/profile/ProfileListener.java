@@ -24,6 +24,7 @@ import org.gradle.api.Task;
 import org.gradle.api.artifacts.DependencyResolutionListener;
 import org.gradle.api.artifacts.ResolvableDependencies;
 import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.api.tasks.TaskState;
@@ -31,14 +32,24 @@ import org.gradle.api.tasks.TaskState;
 import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 public class ProfileListener implements BuildListener, ProjectEvaluationListener, TaskExecutionListener, DependencyResolutionListener {
     private BuildProfile buildProfile;
     private static final SimpleDateFormat FILE_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss");
     private long profileStarted;
+    private final InMemoryFileHashCache fileHashCache;
+    private final OperationTimer operationTimer = OperationTimer.getInstance();
+    private boolean recordingOperations;
+    private InMemoryFileHashCache.Statistics fileHashCacheAtStart;
 
     public ProfileListener(long profileStarted) {
+        this(profileStarted, null);
+    }
+
+    public ProfileListener(long profileStarted, InMemoryFileHashCache fileHashCache) {
         this.profileStarted = profileStarted;
+        this.fileHashCache = fileHashCache;
     }
 
     // BuildListener
@@ -46,6 +57,14 @@ public class ProfileListener implements BuildListener, ProjectEvaluationListener
         buildProfile = new BuildProfile(gradle);
         buildProfile.setBuildStarted(System.currentTimeMillis());
         buildProfile.setProfilingStarted(profileStarted);
+        // A nested build, such as buildSrc, is recorded as part of the build which started the recording
+        if (!operationTimer.isRecording()) {
+            operationTimer.startRecording();
+            recordingOperations = true;
+        }
+        if (fileHashCache != null) {
+            fileHashCacheAtStart = fileHashCache.getStatistics();
+        }
     }
 
     public void settingsEvaluated(Settings settings) {
@@ -62,10 +81,23 @@ public class ProfileListener implements BuildListener, ProjectEvaluationListener
 
     public void buildFinished(BuildResult result) {
         buildProfile.setBuildFinished(System.currentTimeMillis());
-
+        if (fileHashCache != null) {
+            buildProfile.setFileHashCacheStatistics(fileHashCache.getStatistics().since(fileHashCacheAtStart));
+        }
+        // Stop recording before anything else, so that the timer is reset even when a report cannot be written
+        List<TimedOperation> operations = null;
+        if (recordingOperations) {
+            operations = operationTimer.stopRecording();
+            recordingOperations = false;
+        }
+
+        String baseName = "reports/profile/profile-" + FILE_DATE_FORMAT.format(new Date(profileStarted));
+        File buildDir = result.getGradle().getRootProject().getBuildDir();
         ProfileReportRenderer renderer = new ProfileReportRenderer();
-        File file = new File(result.getGradle().getRootProject().getBuildDir(), "reports/profile/profile-" + FILE_DATE_FORMAT.format(new Date(profileStarted)) + ".html");
-        renderer.writeTo(buildProfile, file);
+        renderer.writeTo(buildProfile, new File(buildDir, baseName + ".html"));
+        if (operations != null) {
+            new TraceEventReportRenderer().writeTo(operations, new File(buildDir, baseName + ".json"));
+        }
     }
 
     // ProjectEvaluationListener
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fine-grained operation timed by an {@link OperationTimer}. An operation is finished by calling {@link #finish()},
+ * usually from a {@code finally} block.
+ */
+public class TimedOperation {
+    static final TimedOperation NONE = new TimedOperation(null, null, 0, null, null, null);
+
+    private final OperationTimer timer;
+    private final List<TimedOperation> recording;
+    private final long id;
+    private final TimedOperation parent;
+    private final String category;
+    private final String name;
+    private final long threadId;
+    private final String threadName;
+    private final long start;
+    private long finish;
+    private Map<String, Object> attributes;
+
+    TimedOperation(OperationTimer timer, List<TimedOperation> recording, long id, TimedOperation parent, String category, String name) {
+        this.timer = timer;
+        this.recording = recording;
+        this.id = id;
+        this.parent = parent;
+        this.category = category;
+        this.name = name;
+        Thread thread = Thread.currentThread();
+        threadId = thread.getId();
+        threadName = thread.getName();
+        start = System.nanoTime();
+    }
+
+    /**
+     * Adds an attribute describing this operation.
+     *
+     * @return this operation.
+     */
+    public TimedOperation addAttribute(String name, Object value) {
+        if (recording == null) {
+            return this;
+        }
+        if (attributes == null) {
+            attributes = new LinkedHashMap<String, Object>();
+        }
+        attributes.put(name, value);
+        return this;
+    }
+
+    /**
+     * Marks this operation as finished. Its parent, if any, becomes the current operation of the calling thread.
+     */
+    public void finish() {
+        if (recording == null) {
+            return;
+        }
+        finish = System.nanoTime();
+        timer.finished(this);
+    }
+
+    List<TimedOperation> getRecording() {
+        return recording;
+    }
+
+    TimedOperation getParent() {
+        return parent;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the id of the operation this operation is nested in, or 0 when it is not nested in another operation.
+     */
+    public long getParentId() {
+        return parent == null ? 0 : parent.id;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Returns the time this operation started at, in nanoseconds, as returned by {@link System#nanoTime()}.
+     */
+    public long getStartTime() {
+        return start;
+    }
+
+    /**
+     * Returns the elapsed time of this operation, in nanoseconds.
+     */
+    public long getElapsedTime() {
+        return finish - start;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes == null ? Collections.<String, Object>emptyMap() : attributes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s", category, name);
+    }
+}
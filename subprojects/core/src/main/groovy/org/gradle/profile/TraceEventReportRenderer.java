@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Writes timed operations as a JSON file in the trace event format, which can be loaded into trace viewers such as
+ * chrome://tracing. Each operation is written as a complete event, on the thread it ran on, with its id, the id of
+ * its parent and its attributes as arguments.
+ */
+public class TraceEventReportRenderer {
+    public void writeTo(List<TimedOperation> operations, File file) {
+        file.getParentFile().mkdirs();
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            try {
+                render(operations, writer);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void render(List<TimedOperation> operations, Writer writer) throws IOException {
+        long origin = Long.MAX_VALUE;
+        Map<Long, String> threads = new TreeMap<Long, String>();
+        for (TimedOperation operation : operations) {
+            origin = Math.min(origin, operation.getStartTime());
+            threads.put(operation.getThreadId(), operation.getThreadName());
+        }
+
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean first = true;
+        for (Map.Entry<Long, String> thread : threads.entrySet()) {
+            first = separate(first, writer);
+            writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+            writer.write(String.valueOf(thread.getKey()));
+            writer.write(",\"args\":{\"name\":");
+            writeString(thread.getValue(), writer);
+            writer.write("}}");
+        }
+        for (TimedOperation operation : operations) {
+            first = separate(first, writer);
+            writer.write("{\"name\":");
+            writeString(operation.getName(), writer);
+            writer.write(",\"cat\":");
+            writeString(operation.getCategory(), writer);
+            writer.write(",\"ph\":\"X\",\"pid\":1,\"tid\":");
+            writer.write(String.valueOf(operation.getThreadId()));
+            writer.write(",\"ts\":");
+            writer.write(String.valueOf((operation.getStartTime() - origin) / 1000));
+            writer.write(",\"dur\":");
+            writer.write(String.valueOf(operation.getElapsedTime() / 1000));
+            writer.write(",\"args\":{\"id\":");
+            writer.write(String.valueOf(operation.getId()));
+            writer.write(",\"parentId\":");
+            writer.write(String.valueOf(operation.getParentId()));
+            for (Map.Entry<String, Object> attribute : operation.getAttributes().entrySet()) {
+                writer.write(",");
+                writeString(attribute.getKey(), writer);
+                writer.write(":");
+                writeValue(attribute.getValue(), writer);
+            }
+            writer.write("}}");
+        }
+        writer.write("]}");
+    }
+
+    private boolean separate(boolean first, Writer writer) throws IOException {
+        if (!first) {
+            writer.write(",");
+        }
+        writer.write("\n");
+        return false;
+    }
+
+    private void writeValue(Object value, Writer writer) throws IOException {
+        if (value instanceof Number || value instanceof Boolean) {
+            writer.write(value.toString());
+        } else {
+            writeString(String.valueOf(value), writer);
+        }
+    }
+
+    private void writeString(String value, Writer writer) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) ch));
+                    } else {
+                        writer.write(ch);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
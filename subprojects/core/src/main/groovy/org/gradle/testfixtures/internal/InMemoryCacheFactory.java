@@ -41,7 +41,7 @@ public class InMemoryCacheFactory implements CacheFactory {
     }
 
     public <K, V> PersistentIndexedCache<K, V> openIndexedCache(File cacheDir, CacheUsage usage, Map<String, ?> properties, FileLockManager.LockMode lockMode, Serializer<V> serializer) {
-        return new InMemoryIndexedCache<K, V>();
+        return new InMemoryIndexedCache<K, V>(serializer);
     }
 
     public <E> PersistentStateCache<E> openStateCache(File cacheDir, CacheUsage usage, Map<String, ?> properties, FileLockManager.LockMode lockMode, Serializer<E> serializer) {
@@ -78,7 +78,7 @@ public class InMemoryCacheFactory implements CacheFactory {
         }
 
         public <K, V> PersistentIndexedCache<K, V> createCache(File cacheFile, Class<K> keyType, Serializer<V> valueSerializer) {
-            return new InMemoryIndexedCache<K, V>();
+            return new InMemoryIndexedCache<K, V>(valueSerializer);
         }
 
         public <T> T useCache(String operationDisplayName, Factory<? extends T> action) {
@@ -453,4 +453,19 @@ class DefaultNamedDomainObjectListTest extends Specification {
         iter.next() == "c"
         !iter.hasNext()
     }
+
+    def "can find element by name after it has been renamed"() {
+        def element = new StringBuilder("a")
+        def stringBuilderList = new DefaultNamedDomainObjectList<StringBuilder>(StringBuilder, new DirectInstantiator(), toStringNamer)
+
+        given:
+        stringBuilderList.add(element)
+
+        when:
+        element.replace(0, 1, "b")
+
+        then:
+        stringBuilderList.findByName("a") == null
+        stringBuilderList.findByName("b").is(element)
+    }
 }
@@ -395,6 +395,52 @@ public class DefaultNamedDomainObjectSetTest {
         assertThat(container.findByName("a"), nullValue());
     }
 
+    @Test
+    public void cannotFindDomainObjectByNameAfterItHasBeenRemoved() {
+        Bean bean1 = new Bean("a");
+        Bean bean2 = new Bean("b");
+        Bean bean3 = new Bean("c");
+        container.addAll(toList(bean1, bean2, bean3));
+
+        container.remove(bean1);
+        Iterator<Bean> iterator = container.iterator();
+        iterator.next();
+        iterator.remove();
+
+        assertThat(container.findByName("a"), nullValue());
+        assertThat(container.findByName("b"), nullValue());
+        assertThat(container.findByName("c"), sameInstance(bean3));
+
+        container.clear();
+
+        assertThat(container.findByName("c"), nullValue());
+    }
+
+    @Test
+    public void canFindReplacementDomainObjectByName() {
+        Bean bean = new Bean("a");
+        Bean replacement = new Bean("a");
+        container.add(bean);
+
+        container.remove(bean);
+        container.add(replacement);
+
+        assertThat(container.findByName("a"), sameInstance(replacement));
+        assertThat(container.matching(Specs.<Bean>satisfyAll()).findByName("a"), sameInstance(replacement));
+    }
+
+    @Test
+    public void canFindDomainObjectByNameFromActionCalledWhenObjectAdded() {
+        final Bean bean = new Bean("a");
+        container.whenObjectAdded(new Action<Bean>() {
+            public void execute(Bean element) {
+                assertThat(container.findByName("a"), sameInstance(bean));
+            }
+        });
+
+        container.add(bean);
+    }
+
     @Test
     public void findDomainObjectByNameInvokesRulesForUnknownDomainObject() {
         Bean bean = new Bean("bean");
@@ -22,6 +22,7 @@ import org.gradle.api.internal.artifacts.DependencyResolveContext;
 import org.gradle.api.internal.artifacts.ProjectDependenciesBuildInstruction;
 import org.gradle.api.internal.artifacts.configurations.ConfigurationContainerInternal;
 import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.project.ProjectAccessListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.TaskDependency;
@@ -108,6 +109,21 @@ public class DefaultProjectDependencyTest extends AbstractModuleDependencyTest {
         assertThat(projectDependency.getProjectConfiguration(), sameInstance((Configuration) projectConfigurationStub));
     }
 
+    @Test
+    public void notifiesListenerBeforeAccessingDependencyProject() {
+        final ProjectAccessListener projectAccessListener = context.mock(ProjectAccessListener.class);
+        context.checking(new Expectations() {{
+            allowing(projectConfigurationsStub).getByName("conf1");
+            will(returnValue(projectConfigurationStub));
+            exactly(3).of(projectAccessListener).beforeResolvingProjectDependency(dependencyProjectStub);
+        }});
+
+        DefaultProjectDependency projectDependency = new DefaultProjectDependency(dependencyProjectStub, "conf1", instruction, projectAccessListener);
+        assertThat(projectDependency.getProjectConfiguration(), sameInstance((Configuration) projectConfigurationStub));
+        assertEquals("target-group", projectDependency.getGroup());
+        assertEquals("target-version", projectDependency.getVersion());
+    }
+
     @Test
     public void resolveDelegatesToAllSelfResolvingDependenciesInTargetConfiguration() {
         final DependencyResolveContext resolveContext = context.mock(DependencyResolveContext.class);
@@ -24,7 +24,7 @@ class CacheBackedFileSnapshotRepositoryTest extends Specification {
     FileSnapshotRepository repository
 
     def setup() {
-        1 * cacheAccess.createCache("fileSnapshots", Object, Object) >> indexedCache
+        1 * cacheAccess.createCache("fileSnapshots2", Object, Object) >> indexedCache
         repository = new CacheBackedFileSnapshotRepository(cacheAccess)
     }
 
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class CacheBackedTaskDurationRepositoryTest extends Specification {
+    final TaskArtifactStateCacheAccess cacheAccess = Mock()
+    final InMemoryIndexedCache<String, Long> cache = new InMemoryIndexedCache<String, Long>()
+    CacheBackedTaskDurationRepository repository
+
+    def setup() {
+        _ * cacheAccess.createCache("taskDurations", String, Long) >> cache
+        _ * cacheAccess.useCache(!null, !null) >> { args ->
+            args[1] instanceof Factory ? args[1].create() : args[1].run()
+        }
+        repository = new CacheBackedTaskDurationRepository(cacheAccess)
+    }
+
+    def "returns durations for tasks which have executed before"() {
+        when:
+        repository.recordDurations([":a": 100L])
+
+        then:
+        repository.getExpectedDurations([":a", ":b"]) == [":a": 100L]
+    }
+
+    def "expected duration is average of previous expectation and latest duration"() {
+        when:
+        repository.recordDurations([":a": 100L])
+        repository.recordDurations([":a": 300L])
+
+        then:
+        repository.getExpectedDurations([":a"]) == [":a": 200L]
+    }
+}
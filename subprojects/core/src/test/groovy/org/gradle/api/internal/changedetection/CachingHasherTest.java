@@ -27,8 +27,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.util.Map;
 
 import static org.gradle.util.Matchers.reflectionEquals;
+import static org.gradle.util.WrapUtil.toList;
+import static org.gradle.util.WrapUtil.toMap;
+import static org.gradle.util.WrapUtil.toSet;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
@@ -48,7 +52,9 @@ public class CachingHasherTest {
     @Before
     public void setup() {
         context.checking(new Expectations(){{
-            one(cacheAccess).createCache(with(equalTo("fileHashes")), with(equalTo(File.class)), with(notNullValue(Class.class)), with(notNullValue(Serializer.class)));
+            allowing(delegate).getAlgorithm();
+            will(returnValue("md5"));
+            one(cacheAccess).createCache(with(equalTo("fileHashes-md5")), with(equalTo(File.class)), with(notNullValue(Class.class)), with(notNullValue(Serializer.class)));
             will(returnValue(cache));
         }});
         hasher = new CachingHasher(delegate, cacheAccess);
@@ -105,4 +111,76 @@ public class CachingHasherTest {
 
         assertThat(hasher.hash(file), sameInstance(hash));
     }
+
+    @Test
+    public void hashesOnlyStaleFilesOfBatch() {
+        final File other = tmpDir.createFile("otherfile").write("other content");
+        final byte[] otherHash = "other hash".getBytes();
+        context.checking(new Expectations() {{
+            one(cache).get(file);
+            will(returnValue(new CachingHasher.FileInfo(hash, file.length(), file.lastModified())));
+            one(cache).get(other);
+            will(returnValue(null));
+            one(delegate).hashAll(toSet(other));
+            will(returnValue(toMap(other, otherHash)));
+            one(cache).put(with(equalTo(other)), with(reflectionEquals(new CachingHasher.FileInfo(otherHash, other.length(),
+                    other.lastModified()))));
+        }});
+
+        Map<File, byte[]> hashes = hasher.hashAll(toList(file, other));
+        assertThat(hashes.size(), equalTo(2));
+        assertThat(hashes.get(file), sameInstance(hash));
+        assertThat(hashes.get(other), sameInstance(otherHash));
+    }
+
+    @Test
+    public void usesHashFromInMemoryCacheWithoutLookingUpPersistentCache() {
+        InMemoryFileHashCache inMemoryCache = new InMemoryFileHashCache(4096);
+        inMemoryCache.put("md5", file, new CachingHasher.FileInfo(hash, file.length(), file.lastModified()));
+        CachingHasher hasher = createHasher(inMemoryCache);
+
+        assertThat(hasher.hash(file), sameInstance(hash));
+        assertThat(inMemoryCache.getStatistics().getHits(), equalTo(1L));
+    }
+
+    @Test
+    public void copiesHashFromPersistentCacheIntoInMemoryCache() {
+        InMemoryFileHashCache inMemoryCache = new InMemoryFileHashCache(4096);
+        CachingHasher hasher = createHasher(inMemoryCache);
+        context.checking(new Expectations() {{
+            one(cache).get(file);
+            will(returnValue(new CachingHasher.FileInfo(hash, file.length(), file.lastModified())));
+        }});
+
+        assertThat(hasher.hash(file), sameInstance(hash));
+        assertThat(hasher.hash(file), sameInstance(hash));
+        assertThat(inMemoryCache.getStatistics().getHits(), equalTo(1L));
+    }
+
+    @Test
+    public void storesNewHashInInMemoryCache() {
+        InMemoryFileHashCache inMemoryCache = new InMemoryFileHashCache(4096);
+        CachingHasher hasher = createHasher(inMemoryCache);
+        context.checking(new Expectations() {{
+            one(cache).get(file);
+            will(returnValue(null));
+            one(delegate).hash(file);
+            will(returnValue(hash));
+            one(cache).put(with(equalTo(file)), with(reflectionEquals(new CachingHasher.FileInfo(hash, file.length(),
+                    file.lastModified()))));
+        }});
+
+        assertThat(hasher.hash(file), sameInstance(hash));
+        assertThat(inMemoryCache.getHash("md5", file, file.length(), file.lastModified()), sameInstance(hash));
+    }
+
+    private CachingHasher createHasher(InMemoryFileHashCache inMemoryCache) {
+        context.checking(new Expectations(){{
+            allowing(delegate).getAlgorithm();
+            will(returnValue("md5"));
+            one(cacheAccess).createCache(with(equalTo("fileHashes-md5")), with(equalTo(File.class)), with(notNullValue(Class.class)), with(notNullValue(Serializer.class)));
+            will(returnValue(cache));
+        }});
+        return new CachingHasher(delegate, cacheAccess, inMemoryCache);
+    }
 }
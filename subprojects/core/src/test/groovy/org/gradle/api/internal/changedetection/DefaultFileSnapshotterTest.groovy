@@ -316,6 +316,75 @@ public class DefaultFileSnapshotterTest {
         target.changesSince(snapshotter.emptySnapshot(), listener)
     }
 
+    @Test
+    public void canSerializeAndDeserializeSnapshot() {
+        TestFile file1 = tmpDir.createFile('dir/file1')
+        TestFile file2 = tmpDir.createFile('dir/file2')
+        TestFile dir = tmpDir.createDir('dir/subdir')
+        TestFile noExist = tmpDir.file('dir/missing')
+
+        FileCollectionSnapshot original = snapshotter.snapshot(files(file2, dir, noExist, file1))
+        FileCollectionSnapshot copy = serialize(original)
+
+        assertThat(copy.files.files as List, equalTo([file1, file2]))
+        copy.changesSince(original, listener)
+
+        file1.write('new content')
+        FileCollectionSnapshot modified = snapshotter.snapshot(files(file1, file2, dir))
+
+        context.checking {
+            one(listener).changed(file1)
+            one(listener).removed(noExist)
+        }
+        modified.changesSince(copy, listener)
+    }
+
+    @Test
+    public void canSerializeAndDeserializeSnapshotWithVeryLongPaths() {
+        TestFile longPath = tmpDir.file('\u00e9' * 40000)
+        TestFile longerPath = tmpDir.file('\u00e9' * 40000 + 'x')
+
+        FileCollectionSnapshot original = snapshotter.snapshot(files(longPath, longerPath))
+        FileCollectionSnapshot copy = serialize(original)
+
+        copy.changesSince(original, listener)
+        original.changesSince(copy, listener)
+    }
+
+    @Test
+    public void reportsChangesInPathOrder() {
+        TestFile file1 = tmpDir.createFile('a')
+        TestFile file2 = tmpDir.createFile('b')
+        TestFile file3 = tmpDir.createFile('c')
+        TestFile file4 = tmpDir.createFile('d')
+
+        FileCollectionSnapshot original = snapshotter.snapshot(files(file4, file2, file1))
+        file2.write('new content')
+        FileCollectionSnapshot modified = snapshotter.snapshot(files(file3, file2))
+
+        def sequence = context.sequence('changes')
+        context.checking {
+            one(listener).removed(file1)
+            inSequence(sequence)
+            one(listener).changed(file2)
+            inSequence(sequence)
+            one(listener).added(file3)
+            inSequence(sequence)
+            one(listener).removed(file4)
+            inSequence(sequence)
+        }
+        modified.changesSince(original, listener)
+    }
+
+    private FileCollectionSnapshot serialize(FileCollectionSnapshot snapshot) {
+        ByteArrayOutputStream outstr = new ByteArrayOutputStream()
+        ObjectOutputStream objOutstr = new ObjectOutputStream(outstr)
+        objOutstr.writeObject(snapshot)
+        objOutstr.close()
+        ObjectInputStream objInstr = new ObjectInputStream(new ByteArrayInputStream(outstr.toByteArray()))
+        return objInstr.readObject() as FileCollectionSnapshot
+    }
+
     private FileCollection files(File... files) {
         FileTree collection = context.mock(FileTree.class)
         context.checking {
@@ -17,10 +17,12 @@ package org.gradle.api.internal.changedetection
 
 import org.gradle.cache.CacheRepository
 import spock.lang.Specification
+import org.gradle.StartParameter
 import org.gradle.api.internal.GradleInternal
 import org.gradle.cache.DirectoryCacheBuilder
 import org.gradle.cache.PersistentCache
 import org.gradle.cache.PersistentIndexedCache
+import org.gradle.cache.internal.FileLockManager
 
 class DefaultTaskArtifactStateCacheAccessTest extends Specification {
     final GradleInternal gradle = Mock()
@@ -42,7 +44,9 @@ class DefaultTaskArtifactStateCacheAccessTest extends Specification {
         indexedCache.get("key")
 
         then:
+        _ * gradle.startParameter >> new StartParameter()
         1 * cacheRepository.cache("taskArtifacts") >> cacheBuilder
+        1 * cacheBuilder.withLockMode(FileLockManager.LockMode.Exclusive) >> cacheBuilder
         1 * cacheBuilder.open() >> backingCache
         _ * cacheBuilder._ >> cacheBuilder
         _ * backingCache.baseDir >> new File("baseDir")
@@ -50,4 +54,23 @@ class DefaultTaskArtifactStateCacheAccessTest extends Specification {
         1 * backingIndexedCache.get("key")
         0 * _._
     }
+
+    def "locks backing cache on demand when tasks are executed in parallel"() {
+        DirectoryCacheBuilder cacheBuilder = Mock()
+        PersistentCache backingCache = Mock()
+        def startParameter = new StartParameter()
+        startParameter.parallelThreadCount = 2
+
+        when:
+        cacheAccess.useCache("operation", Mock(Runnable))
+
+        then:
+        _ * gradle.startParameter >> startParameter
+        1 * cacheRepository.cache("taskArtifacts") >> cacheBuilder
+        1 * cacheBuilder.withLockMode(FileLockManager.LockMode.None) >> cacheBuilder
+        1 * cacheBuilder.open() >> backingCache
+        _ * cacheBuilder._ >> cacheBuilder
+        1 * backingCache.useCache("operation", _ as Runnable)
+        0 * _._
+    }
 }
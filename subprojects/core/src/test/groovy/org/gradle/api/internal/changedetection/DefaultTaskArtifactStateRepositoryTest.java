@@ -278,6 +278,21 @@ public class DefaultTaskArtifactStateRepositoryTest {
         assertTrue(state.isUpToDate());
     }
 
+    @Test
+    public void inputPropertyValuesAreUpToDateAfterTheyAreReadFromCache() {
+        Map<String, Object> map = toMap("key", (Object) 12L);
+        map.put("other", null);
+        TaskInternal task = builder().withProperty("list", toList("a", 1, (short) 2, (byte) 3, 4.5d, 6.5f, true))
+                .withProperty("set", toSet(new File("file"), "a"))
+                .withProperty("map", map)
+                .withProperty("date", new Date(1234L))
+                .task();
+        execute(task);
+
+        TaskArtifactState state = repository.getStateFor(task);
+        assertTrue(state.isUpToDate());
+    }
+
     @Test
     public void artifactsAreNotUpToDateWhenAnyInputPropertyAdded() {
         execute();
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import spock.lang.Specification
+
+class InMemoryFileHashCacheTest extends Specification {
+    final File file = new File("file")
+    final byte[] hash = "hash".bytes
+
+    def "returns hash when length and timestamp are unchanged"() {
+        def cache = new InMemoryFileHashCache(1024)
+
+        when:
+        cache.put("md5", file, new CachingHasher.FileInfo(hash, 12, 34))
+
+        then:
+        cache.getHash("md5", file, 12, 34).is(hash)
+        cache.statistics.hits == 1
+        cache.statistics.misses == 0
+    }
+
+    def "discards hash when length or timestamp has changed"() {
+        def cache = new InMemoryFileHashCache(1024)
+        cache.put("md5", file, new CachingHasher.FileInfo(hash, 12, 34))
+
+        expect:
+        cache.getHash("md5", file, 13, 34) == null
+        cache.getHash("md5", file, 12, 34) == null
+        cache.statistics.misses == 2
+        cache.statistics.entryCount == 0
+        cache.statistics.size == 0
+    }
+
+    def "evicts least recently used entries when full"() {
+        def entrySize = sizeOf(new File("a"))
+        def cache = new InMemoryFileHashCache(entrySize * 2)
+        cache.put("md5", new File("a"), new CachingHasher.FileInfo(hash, 1, 1))
+        cache.put("md5", new File("b"), new CachingHasher.FileInfo(hash, 1, 1))
+
+        when:
+        cache.getHash("md5", new File("a"), 1, 1)
+        cache.put("md5", new File("c"), new CachingHasher.FileInfo(hash, 1, 1))
+
+        then:
+        cache.statistics.evictions == 1
+        cache.statistics.entryCount == 2
+        cache.getHash("md5", new File("a"), 1, 1).is(hash)
+        cache.getHash("md5", new File("b"), 1, 1) == null
+        cache.getHash("md5", new File("c"), 1, 1).is(hash)
+    }
+
+    def "does not cache anything when max size is zero"() {
+        def cache = new InMemoryFileHashCache(0)
+
+        when:
+        cache.put("md5", file, new CachingHasher.FileInfo(hash, 12, 34))
+
+        then:
+        cache.getHash("md5", file, 12, 34) == null
+        cache.statistics.entryCount == 0
+    }
+
+    def "statistics can be calculated since an earlier snapshot"() {
+        def cache = new InMemoryFileHashCache(1024)
+        cache.put("md5", file, new CachingHasher.FileInfo(hash, 12, 34))
+        cache.getHash("md5", file, 12, 34)
+        def start = cache.statistics
+
+        when:
+        cache.getHash("md5", file, 12, 34)
+        cache.getHash("md5", file, 12, 34)
+        cache.getHash("md5", new File("other"), 12, 34)
+        def statistics = cache.statistics.since(start)
+
+        then:
+        statistics.hits == 2
+        statistics.misses == 1
+        statistics.hitRate == 66
+        statistics.entryCount == 1
+    }
+
+    def "keeps hashes of each algorithm apart"() {
+        def cache = new InMemoryFileHashCache(1024)
+        def otherHash = "other".bytes
+        cache.put("md5", file, new CachingHasher.FileInfo(hash, 12, 34))
+
+        when:
+        cache.put("murmur3", file, new CachingHasher.FileInfo(otherHash, 12, 34))
+
+        then:
+        cache.getHash("md5", file, 12, 34).is(hash)
+        cache.getHash("murmur3", file, 12, 34).is(otherHash)
+        cache.getHash("sha1", file, 12, 34) == null
+        cache.statistics.entryCount == 2
+    }
+
+    def "evicts entries of other algorithms first when full"() {
+        def entrySize = sizeOf(new File("a"))
+        def cache = new InMemoryFileHashCache(entrySize * 2)
+        cache.put("md5", new File("a"), new CachingHasher.FileInfo(hash, 1, 1))
+        cache.put("murmur3", new File("a"), new CachingHasher.FileInfo(hash, 1, 1))
+
+        when:
+        cache.put("murmur3", new File("b"), new CachingHasher.FileInfo(hash, 1, 1))
+
+        then:
+        cache.statistics.evictions == 1
+        cache.getHash("md5", new File("a"), 1, 1) == null
+        cache.getHash("murmur3", new File("a"), 1, 1).is(hash)
+        cache.getHash("murmur3", new File("b"), 1, 1).is(hash)
+    }
+
+    private long sizeOf(File file) {
+        def cache = new InMemoryFileHashCache(Long.MAX_VALUE)
+        cache.put("md5", file, new CachingHasher.FileInfo(hash, 1, 1))
+        return cache.statistics.size
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class Murmur3HasherTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final Hasher hasher = new Murmur3Hasher()
+
+    def "hashes empty file"() {
+        def file = tmpDir.createFile("empty.txt")
+
+        expect:
+        hasher.hash(file) == new byte[16]
+    }
+
+    def "calculates MurmurHash3 x64 128 of file content"() {
+        def file = tmpDir.createFile("file.txt").write("The quick brown fox jumps over the lazy dog")
+
+        expect:
+        hex(hasher.hash(file)) == "6c1b07bc7bbc4be347939ac4a93c437a"
+    }
+
+    def "produces same hash for mapped and buffered reads"() {
+        def file = tmpDir.file("large.bin")
+        def content = new byte[100003]
+        new Random(12).nextBytes(content)
+        file.bytes = content
+
+        expect:
+        new Murmur3Hasher(0).hash(file) == new Murmur3Hasher(Long.MAX_VALUE).hash(file)
+    }
+
+    def "produces different hashes for different content"() {
+        def a = tmpDir.createFile("a.txt").write("content a")
+        def b = tmpDir.createFile("b.txt").write("content b")
+
+        expect:
+        hasher.hash(a) != hasher.hash(b)
+    }
+
+    def "hashes each file of batch"() {
+        def a = tmpDir.createFile("a.txt").write("content a")
+        def b = tmpDir.createFile("b.txt").write("content b")
+
+        when:
+        def hashes = hasher.hashAll([a, b])
+
+        then:
+        hashes.keySet() == [a, b] as Set
+        hashes[a] == hasher.hash(a)
+        hashes[b] == hasher.hash(b)
+    }
+
+    private static String hex(byte[] hash) {
+        return hash.collect { String.format("%02x", it) }.join()
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import org.gradle.messaging.concurrent.ExecutorFactory
+import org.gradle.messaging.concurrent.StoppableExecutor
+import org.gradle.util.ConcurrentSpecification
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+
+class ParallelHasherTest extends ConcurrentSpecification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final Hasher hasher = new DefaultHasher()
+
+    def "produces same hashes as backing hasher"() {
+        def files = (1..50).collect { tmpDir.createFile("file${it}.txt").write("content ${it}") }
+        def parallelHasher = new ParallelHasher(hasher, executorFactory, 4)
+
+        when:
+        def hashes = parallelHasher.hashAll(files)
+
+        then:
+        hashes.size() == files.size()
+        files.every { hashes[it] == hasher.hash(it) }
+    }
+
+    def "hashes small batches on calling thread"() {
+        Hasher backingHasher = Mock()
+        def files = [tmpDir.createFile("a.txt"), tmpDir.createFile("b.txt")]
+        def parallelHasher = new ParallelHasher(backingHasher, executorFactory, 4)
+
+        when:
+        def hashes = parallelHasher.hashAll(files)
+
+        then:
+        1 * backingHasher.hashAll(files) >> [:]
+        hashes == [:]
+    }
+
+    def "hashes using fixed size executor which is stopped with the hasher"() {
+        ExecutorFactory factory = Mock()
+        StoppableExecutor executor = Mock()
+
+        when:
+        def parallelHasher = new ParallelHasher(hasher, factory, 4)
+        parallelHasher.stop()
+
+        then:
+        1 * factory.create("File hasher", 4) >> executor
+        1 * executor.stop()
+    }
+
+    def "rethrows failure to hash a file"() {
+        def failure = new RuntimeException()
+        Hasher backingHasher = Mock()
+        def files = (1..50).collect { tmpDir.file("file${it}.txt") }
+        def parallelHasher = new ParallelHasher(backingHasher, executorFactory, 4)
+
+        given:
+        _ * backingHasher.hash(_) >> { throw failure }
+
+        when:
+        parallelHasher.hashAll(files)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+}
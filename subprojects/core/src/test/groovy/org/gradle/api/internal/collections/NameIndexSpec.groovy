@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.collections
+
+import org.gradle.api.specs.Spec
+import spock.lang.Specification
+
+class NameIndexSpec extends Specification {
+    final NameIndex index = new NameIndex()
+
+    def "can find element by name"() {
+        when:
+        index.put("a", 1)
+        index.put("b", 2)
+
+        then:
+        index.get("a") == 1
+        index.get("b") == 2
+        index.get("c") == null
+    }
+
+    def "removes element only when it is indexed under the given name"() {
+        given:
+        index.put("a", 1)
+
+        when:
+        index.remove("a", 2)
+
+        then:
+        index.get("a") == 1
+
+        when:
+        index.remove("a", 1)
+
+        then:
+        index.get("a") == null
+    }
+
+    def "filtered index sees elements added to original index"() {
+        given:
+        def filtered = index.filtered(new CollectionFilter(Integer, { it > 1 } as Spec))
+
+        when:
+        index.put("a", 1)
+        index.put("b", 2)
+        index.put("c", "not an integer")
+
+        then:
+        filtered.get("a") == null
+        filtered.get("b") == 2
+        filtered.get("c") == null
+    }
+
+    def "can filter a filtered index"() {
+        given:
+        def filtered = index.filtered(new CollectionFilter(Number)).filtered(new CollectionFilter(Integer, { it > 1 } as Spec))
+
+        when:
+        index.put("a", 1)
+        index.put("b", 2)
+        index.put("c", 2.5)
+
+        then:
+        filtered.get("a") == null
+        filtered.get("b") == 2
+        filtered.get("c") == null
+    }
+
+    def "cannot add to filtered index"() {
+        given:
+        def filtered = index.filtered(new CollectionFilter(Integer))
+
+        when:
+        filtered.put("a", 1)
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.project;
 
 import org.gradle.api.internal.*;
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -43,6 +44,7 @@ import org.junit.Test;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class GlobalServicesRegistryTest {
@@ -133,4 +135,9 @@ public class GlobalServicesRegistryTest {
     public void providesAFileSystem() {
         assertThat(registry.get(FileSystem.class), notNullValue());
     }
+
+    @Test
+    public void providesAnInMemoryFileHashCache() {
+        assertThat(registry.get(InMemoryFileHashCache.class), sameInstance(registry.get(InMemoryFileHashCache.class)));
+    }
 }
@@ -87,6 +87,8 @@ public class GradleInternalServiceRegistryTest {
         context.checking(new Expectations(){{
             allowing(parent).get(CacheRepository.class);
             will(returnValue(context.mock(CacheRepository.class)));
+            allowing(parent).get(ProjectAccessListener.class);
+            will(returnValue(new DefaultProjectAccessListener()));
         }});
 
         assertThat(registry.get(BuildExecuter.class), instanceOf(DefaultBuildExecuter.class));
@@ -96,6 +96,8 @@ public class ProjectInternalServiceRegistryTest {
             will(returnValue(new DirectInstantiator()));
             allowing(parent).get(FileSystem.class);
             will(returnValue(context.mock(FileSystem.class)));
+            allowing(parent).get(ProjectAccessListener.class);
+            will(returnValue(new DefaultProjectAccessListener()));
         }});
     }
 
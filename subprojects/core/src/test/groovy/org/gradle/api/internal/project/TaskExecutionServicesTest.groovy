@@ -25,6 +25,9 @@ import org.gradle.api.invocation.Gradle
 import org.gradle.cache.DirectoryCacheBuilder
 import org.gradle.cache.PersistentCache
 import org.gradle.internal.service.ServiceRegistry
+import org.gradle.api.internal.changedetection.DefaultHasher
+import org.gradle.api.internal.changedetection.Hasher
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache
 
 class TaskExecutionServicesTest extends Specification {
     final ServiceRegistry parent = Mock()
@@ -41,6 +44,8 @@ class TaskExecutionServicesTest extends Specification {
         _ * parent.get(ListenerManager) >> listenerManager
         _ * parent.get(StartParameter) >> startParameter
         _ * parent.get(CacheRepository) >> cacheRepository
+        _ * parent.get(InMemoryFileHashCache) >> new InMemoryFileHashCache(0)
+        _ * parent.get(Hasher) >> new DefaultHasher()
         _ * cacheRepository.cache(!null) >> cacheBuilder
         _ * cacheBuilder.forObject(gradle) >> cacheBuilder
         _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
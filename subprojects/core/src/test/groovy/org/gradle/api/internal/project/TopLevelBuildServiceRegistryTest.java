@@ -18,6 +18,9 @@ package org.gradle.api.internal.project;
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.*;
+import org.gradle.api.internal.changedetection.DefaultHasher;
+import org.gradle.api.internal.changedetection.Hasher;
+import org.gradle.api.internal.changedetection.ParallelHasher;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
@@ -26,6 +29,7 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.DefaultCacheRepository;
 import org.gradle.configuration.BuildConfigurer;
+import org.gradle.configuration.ConfigureOnDemandBuildConfigurer;
 import org.gradle.configuration.DefaultBuildConfigurer;
 import org.gradle.configuration.DefaultScriptPluginFactory;
 import org.gradle.configuration.ScriptPluginFactory;
@@ -217,6 +221,34 @@ public class TopLevelBuildServiceRegistryTest {
         assertThat(registry.get(BuildConfigurer.class), sameInstance(registry.get(BuildConfigurer.class)));
     }
 
+    @Test
+    public void providesAProjectAccessListener() {
+        assertThat(registry.get(ProjectAccessListener.class), instanceOf(DefaultProjectAccessListener.class));
+        assertThat(registry.get(ProjectAccessListener.class), sameInstance(registry.get(ProjectAccessListener.class)));
+    }
+
+    @Test
+    public void providesServicesWhichConfigureProjectsOnDemand() {
+        startParameter.setConfigureOnDemand(true);
+
+        assertThat(registry.get(BuildConfigurer.class), instanceOf(ConfigureOnDemandBuildConfigurer.class));
+        assertThat(registry.get(ProjectAccessListener.class), instanceOf(EvaluatingProjectAccessListener.class));
+    }
+
+    @Test
+    public void providesAHasher() {
+        assertThat(registry.get(Hasher.class), instanceOf(DefaultHasher.class));
+        assertThat(registry.get(Hasher.class), sameInstance(registry.get(Hasher.class)));
+    }
+
+    @Test
+    public void providesAParallelHasherWhichIsStoppedOnClose() {
+        startParameter.setParallelSnapshotting(true);
+
+        assertThat(registry.get(Hasher.class), instanceOf(ParallelHasher.class));
+        registry.close();
+    }
+
     @Test
     public void providesAPropertiesLoader() {
         assertThat(registry.get(IGradlePropertiesLoader.class), instanceOf(DefaultGradlePropertiesLoader.class));
@@ -22,11 +22,13 @@ import org.gradle.api.Task;
 import org.gradle.api.UnknownTaskException;
 import org.gradle.api.internal.Instantiator;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.project.ProjectAccessListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
 import org.gradle.util.GUtil;
 import org.gradle.util.HelperUtil;
 import org.jmock.Expectations;
+import org.jmock.Sequence;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import org.junit.Test;
@@ -223,6 +225,31 @@ public class DefaultTaskContainerTest {
         assertThat(container.findByPath(":other:task"), nullValue());
     }
 
+    @Test
+    public void notifiesListenerBeforeFindingTaskInOtherProject() {
+        final ProjectAccessListener projectAccessListener = context.mock(ProjectAccessListener.class);
+        final ProjectInternal otherProject = context.mock(ProjectInternal.class, "<other>");
+        final TaskContainerInternal otherTaskContainer = context.mock(TaskContainerInternal.class, "<other tasks>");
+        final Task task = task("task");
+        final Sequence sequence = context.sequence("lookup");
+        DefaultTaskContainer container = new DefaultTaskContainer(project, context.mock(Instantiator.class, "<instantiator>"), taskFactory, projectAccessListener);
+
+        context.checking(new Expectations() {{
+            allowing(project).findProject(":other");
+            will(returnValue(otherProject));
+            one(projectAccessListener).beforeRequestingTaskByPath(otherProject);
+            inSequence(sequence);
+            one(otherProject).getTasks();
+            will(returnValue(otherTaskContainer));
+            inSequence(sequence);
+            one(otherTaskContainer).findByName("task");
+            will(returnValue(task));
+            inSequence(sequence);
+        }});
+
+        assertThat(container.findByPath(":other:task"), sameInstance(task));
+    }
+
     @Test
     public void canGetTaskByName() {
         Task task = addTask("task");
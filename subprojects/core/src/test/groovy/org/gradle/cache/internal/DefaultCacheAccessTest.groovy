@@ -262,6 +262,70 @@ class DefaultCacheAccessTest extends Specification {
         0 * _._
     }
 
+    def "other threads can use cache while long running operation is running"() {
+        Factory<String> action = Mock()
+        Factory<String> longRunningAction = Mock()
+        Factory<String> otherThreadAction = Mock()
+
+        given:
+        manager.open(None)
+        def cache = manager.newCache(targetFile, String, Integer)
+
+        when:
+        manager.useCache("some operation", action)
+
+        then:
+        1 * action.create() >> {
+            cache.get("key")
+            manager.longRunningOperation("nested", longRunningAction)
+            cache.get("key")
+        }
+        1 * longRunningAction.create() >> {
+            def thread = Thread.start {
+                manager.useCache("other thread", otherThreadAction)
+            }
+            thread.join()
+        }
+        1 * otherThreadAction.create() >> {
+            cache.get("key")
+        }
+        2 * lockManager.lock(lockFile, Exclusive, "<display-name>", "some operation") >> lock
+        1 * lockManager.lock(lockFile, Exclusive, "<display-name>", "other thread") >> lock
+        _ * lock.readFromFile(_)
+        _ * lock.writeToFile(_)
+        3 * lock.close()
+        0 * _._
+    }
+
+    def "keeps ownership of cache during long running operation when initial lock mode is exclusive"() {
+        Factory<String> longRunningAction = Mock()
+        Runnable otherThreadAction = Mock()
+
+        given:
+        1 * lockManager.lock(lockFile, Exclusive, "<display-name>") >> lock
+        manager.open(Exclusive)
+
+        when:
+        manager.longRunningOperation("operation", longRunningAction)
+
+        then:
+        1 * longRunningAction.create() >> {
+            def thread = Thread.start {
+                try {
+                    manager.useCache("other thread", otherThreadAction)
+                } catch (RuntimeException e) {
+                    // Interrupted while waiting for the cache
+                }
+            }
+            thread.join(200)
+            assert thread.alive
+            thread.interrupt()
+            thread.join()
+        }
+        1 * lock.close()
+        0 * otherThreadAction.run()
+    }
+
     def "can execute long running operation from within long running operation"() {
         Factory<String> action = Mock()
         Factory<String> longRunningAction = Mock()
@@ -362,4 +426,29 @@ class DefaultCacheAccessTest extends Specification {
         0 * _._
     }
 
+    def "flushes caches at the end of the outermost cache action when initial lock mode is exclusive"() {
+        Factory<String> action = Mock()
+        Factory<String> nestedAction = Mock()
+
+        given:
+        1 * lockManager.lock(lockFile, Exclusive, "<display-name>") >> lock
+        manager.open(Exclusive)
+        def cache = manager.newCache(targetFile, String, Integer)
+
+        when:
+        manager.useCache("some operation", action)
+
+        then:
+        1 * action.create() >> {
+            cache.put("key", 1)
+            manager.useCache("nested", nestedAction)
+        }
+        1 * nestedAction.create() >> {
+            cache.put("key", 2)
+        }
+        _ * lock.writeToFile(_) >> {Runnable runnable -> runnable.run()}
+        2 * backingCache.put("key", _)
+        1 * backingCache.flush()
+        0 * _._
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree
+
+import org.gradle.cache.DefaultSerializer
+import org.gradle.util.ConcurrentSpecification
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Unroll
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+class BTreePersistentIndexedCacheConcurrencyTest extends ConcurrentSpecification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final serializer = new DefaultSerializer<String>()
+
+    @Unroll
+    def "readers see consistent values while #storeType store is updated"() {
+        def cacheFile = tmpDir.file("cache.bin")
+        def cache = new BTreePersistentIndexedCache<String, String>(cacheFile, serializer, serializer, (short) 4, 4, backingStore.call(cacheFile))
+        def writerDone = new AtomicBoolean()
+        def expected = [:]
+
+        when:
+        4.times { reader ->
+            start {
+                def random = new Random(reader)
+                while (!writerDone.get()) {
+                    def i = random.nextInt(100)
+                    def value = cache.get(key(i))
+                    assert value == null || value.startsWith("value_${i}_")
+                }
+            }
+        }
+        start {
+            try {
+                def random = new Random()
+                2000.times { n ->
+                    def i = random.nextInt(100)
+                    if (random.nextInt(4) == 0) {
+                        cache.remove(key(i))
+                        expected.remove(key(i))
+                    } else {
+                        String value = "value_${i}_" + ("x" * random.nextInt(50))
+                        cache.put(key(i), value)
+                        expected[key(i)] = value
+                    }
+                }
+            } finally {
+                writerDone.set(true)
+            }
+        }
+        finished()
+
+        then:
+        cache.verify()
+        (0..<100).every { cache.get(key(it)) == expected[key(it)] }
+
+        cleanup:
+        cache.close()
+
+        where:
+        storeType     | backingStore
+        "file backed" | { File file -> new FileBackedBlockStore(file) }
+        "mapped"      | { File file -> new MappedFileBlockStore(file) }
+    }
+
+    def "concurrent readers find every entry of a tree with several levels"() {
+        def cacheFile = tmpDir.file("cache.bin")
+        def cache = new BTreePersistentIndexedCache<String, String>(cacheFile, serializer, serializer, (short) 4, 4)
+        500.times { cache.put(key(it), value(it)) }
+        // Start with no blocks cached, so that the readers load the index blocks concurrently
+        cache.reset()
+
+        when:
+        8.times { reader ->
+            start {
+                def random = new Random(reader)
+                2000.times {
+                    def i = random.nextInt(500)
+                    assert cache.get(key(i)) == value(i)
+                }
+            }
+        }
+        finished()
+
+        and:
+        cache.put(key(500), value(500))
+        cache.remove(key(0))
+
+        then:
+        cache.verify()
+        cache.get(key(0)) == null
+        (1..500).every { cache.get(key(it)) == value(it) }
+
+        cleanup:
+        cache.close()
+    }
+
+    private static String value(int i) {
+        return "value_" + i
+    }
+
+    private static String key(int i) {
+        return "key_" + i
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.gradle.cache.internal.btree;
 
+import org.gradle.cache.BoundedSizeSerializer;
 import org.gradle.cache.DefaultSerializer;
 import org.gradle.cache.Serializer;
 import org.gradle.util.TemporaryFolder;
@@ -23,9 +24,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.*;
 import java.util.*;
 
 import static org.hamcrest.Matchers.*;
@@ -234,6 +233,148 @@ public class BTreePersistentIndexedCacheTest {
         cache.verify();
     }
 
+    @Test
+    public void mergesAdjacentFreeBlocks() {
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100);
+
+        cache.put("key_1", "abcd");
+        cache.put("key_2", "abcd");
+        cache.put("key_3", "abcd");
+
+        long len = cacheFile.length();
+
+        cache.remove("key_1");
+        cache.remove("key_2");
+        cache.put("key_new", "a value which needs two blocks");
+        assertThat(cacheFile.length(), equalTo(len));
+        assertThat(cache.get("key_new"), equalTo("a value which needs two blocks"));
+        cache.verify();
+    }
+
+    @Test
+    public void compactionDiscardsFreeSpace() {
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.format("key_%s", i), String.format("value %s", i));
+        }
+        for (int i = 0; i < 100; i += 5) {
+            cache.put(String.format("key_%s", i), String.format("a longer value %s", i));
+        }
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 != 0) {
+                cache.remove(String.format("key_%s", i));
+            }
+        }
+
+        long len = cacheFile.length();
+        cache.compact();
+
+        assertThat(cacheFile.length(), lessThan(len));
+        for (int i = 0; i < 100; i += 10) {
+            assertThat(cache.get(String.format("key_%s", i)), equalTo(String.format("a longer value %s", i)));
+        }
+        assertNull(cache.get("key_1"));
+        cache.verify();
+    }
+
+    @Test
+    public void storesSmallValuesInIndexEntries() {
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, new BoundedStringSerializer(8), (short) 4, 100);
+
+        cache.put("key_1", "small");
+        cache.put("key_2", "a value which is too large to inline");
+        long len = cacheFile.length();
+
+        // Replacing an inline value with an inline value does not need any more space
+        cache.put("key_1", "other");
+        assertThat(cacheFile.length(), equalTo(len));
+
+        cache.put("key_2", "tiny");
+        cache.put("key_3", "another value which is too large to inline");
+        cache.reset();
+
+        assertThat(cache.get("key_1"), equalTo("other"));
+        assertThat(cache.get("key_2"), equalTo("tiny"));
+        assertThat(cache.get("key_3"), equalTo("another value which is too large to inline"));
+        cache.verify();
+
+        cache.remove("key_1");
+        cache.remove("key_3");
+        assertNull(cache.get("key_1"));
+        assertNull(cache.get("key_3"));
+        cache.verify();
+    }
+
+    @Test
+    public void allocatesIndexBlocksForTheInlineValuesTheyHold() {
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, new BoundedStringSerializer(1000), (short) 4, 100);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(String.format("key_%d", i), "small");
+        }
+        // Less than a single index block with room for 4 values of the maximum size
+        assertThat(cacheFile.length(), lessThan(4000L));
+
+        // Index blocks move when their values outgrow them
+        StringBuilder largeValue = new StringBuilder();
+        for (int i = 0; i < 900; i++) {
+            largeValue.append('v');
+        }
+        for (int i = 0; i < 10; i++) {
+            cache.put(String.format("key_%d", i), largeValue.toString());
+        }
+        cache.reset();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get(String.format("key_%d", i)), equalTo(largeValue.toString()));
+        }
+        cache.verify();
+    }
+
+    @Test
+    public void writeBehindDefersWritesUntilCacheIsClosed() {
+        cache.setWriteBehind(true);
+        long len = cacheFile.length();
+
+        cache.put("key_1", 1);
+        cache.put("key_2", 2);
+        cache.put("key_3", 3);
+        cache.remove("key_2");
+
+        assertThat(cacheFile.length(), equalTo(len));
+        assertThat(cache.get("key_1"), equalTo(1));
+        assertNull(cache.get("key_2"));
+
+        cache.reset();
+
+        assertThat(cacheFile.length(), greaterThan(len));
+        assertThat(cache.get("key_1"), equalTo(1));
+        assertNull(cache.get("key_2"));
+        assertThat(cache.get("key_3"), equalTo(3));
+        cache.verify();
+    }
+
+    @Test
+    public void writeBehindKeepsSpaceOfBlocksRemovedBeforeTheyAreWritten() {
+        cache.setWriteBehind(true);
+
+        cache.put("key_1", 1);
+        cache.put("key_2", 2);
+        cache.remove("key_2");
+        cache.reset();
+
+        cache.put("key_3", 3);
+        cache.put("key_4", 4);
+        cache.verify();
+
+        cache.reset();
+
+        assertThat(cache.get("key_1"), equalTo(1));
+        assertThat(cache.get("key_3"), equalTo(3));
+        assertThat(cache.get("key_4"), equalTo(4));
+        cache.verify();
+    }
+
     @Test
     public void canUseFileAsKey() {
         BTreePersistentIndexedCache<File, Integer> cache = new BTreePersistentIndexedCache<File, Integer>(cacheFile, new DefaultSerializer<File>(), integerSerializer);
@@ -313,4 +454,26 @@ public class BTreePersistentIndexedCacheTest {
         }
     }
 
-}
\ No newline at end of file
+
+    private static class BoundedStringSerializer implements BoundedSizeSerializer<String> {
+        private final int maxSize;
+
+        private BoundedStringSerializer(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public String read(InputStream instr) throws Exception {
+            return new DataInputStream(instr).readUTF();
+        }
+
+        public void write(OutputStream outstr, String value) throws Exception {
+            DataOutputStream output = new DataOutputStream(outstr);
+            output.writeUTF(value);
+            output.flush();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree
+
+import org.gradle.cache.DefaultSerializer
+import org.gradle.cache.Serializer
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedFileBlockStoreTest extends Specification {
+    @Rule TemporaryFolder tmpDir = new TemporaryFolder()
+    final Serializer<String> serializer = new DefaultSerializer<String>()
+    final TestFile cacheFile = tmpDir.file("cache.bin")
+
+    def "persists entries which span several regions"() {
+        def cache = mappedCache()
+        def values = (1..50).collectEntries { ["key_$it" as String, "value_$it" * it] }
+
+        when:
+        values.each { key, value -> cache.put(key, value) }
+        cache.reset()
+
+        then:
+        values.every { key, value -> cache.get(key) == value }
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    def "trims unused space from end of file on close and records length in header"() {
+        def cache = mappedCache(64 * 1024)
+        cache.put("key", "value")
+        cache.close()
+
+        expect:
+        cacheFile.length() > MappedFileBlockStore.FILE_HEADER_SIZE
+        cacheFile.length() < 64 * 1024
+        def header = new DataInputStream(new FileInputStream(cacheFile))
+        header.readInt() == MappedFileBlockStore.FILE_MARKER
+        header.readLong() == cacheFile.length()
+
+        cleanup:
+        header?.close()
+    }
+
+    def "ignores padding beyond the logical length of the file"() {
+        def cache = mappedCache()
+        cache.put("key", "value")
+        cache.close()
+        def file = new RandomAccessFile(cacheFile, "rw")
+        file.setLength(file.length() + 300)
+        file.close()
+
+        when:
+        cache = mappedCache()
+
+        then:
+        cache.get("key") == "value"
+        cache.verify()
+
+        when:
+        cache.put("other", "value 2")
+        cache.reset()
+
+        then:
+        cache.get("key") == "value"
+        cache.get("other") == "value 2"
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    def "clear truncates the file"() {
+        def cache = mappedCache()
+        (1..20).each { cache.put("key_$it" as String, "value_$it" * 10) }
+        cache.close()
+        def store = new MappedFileBlockStore(cacheFile, 256)
+
+        when:
+        store.open({} as Runnable, {} as BlockStore.Factory)
+        store.clear()
+        store.close()
+
+        then:
+        cacheFile.length() == MappedFileBlockStore.FILE_HEADER_SIZE
+    }
+
+    def "keeps entries when cache is compacted"() {
+        def cache = mappedCache()
+        (1..50).each { cache.put("key_$it" as String, "value_$it" * it) }
+        (1..40).each { cache.remove("key_$it" as String) }
+
+        when:
+        cache.compact()
+
+        then:
+        (41..50).every { cache.get("key_$it" as String) == "value_$it" * it }
+        cache.get("key_1") == null
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    def "rebuilds cache when file is corrupt"() {
+        cacheFile.write("some junk")
+
+        when:
+        def cache = mappedCache()
+
+        then:
+        cache.get("key") == null
+
+        when:
+        cache.put("key", "value")
+
+        then:
+        cache.get("key") == "value"
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    def "rebuilds cache when file header refers to missing content"() {
+        def cache = mappedCache()
+        cache.put("key", "value")
+        cache.close()
+        def file = new RandomAccessFile(cacheFile, "rw")
+        file.seek(4)
+        file.writeLong(cacheFile.length() + 1000)
+        file.close()
+
+        when:
+        cache = mappedCache()
+
+        then:
+        cache.get("key") == null
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    private BTreePersistentIndexedCache<String, String> mappedCache(int regionSize = 256) {
+        return new BTreePersistentIndexedCache<String, String>(cacheFile, serializer, serializer, (short) 4, 100, new MappedFileBlockStore(cacheFile, regionSize))
+    }
+}
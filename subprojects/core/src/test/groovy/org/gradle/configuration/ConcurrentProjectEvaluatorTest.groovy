@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+import org.gradle.api.CircularReferenceException
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.util.ConcurrentSpecification
+
+class ConcurrentProjectEvaluatorTest extends ConcurrentSpecification {
+    final ProjectInternal project1 = Mock()
+    final ProjectInternal project2 = Mock()
+    final ProjectStateInternal state1 = new ProjectStateInternal()
+    final ProjectStateInternal state2 = new ProjectStateInternal()
+    final List<ProjectInternal> evaluated = new CopyOnWriteArrayList<ProjectInternal>()
+    final Map<ProjectInternal, Closure> evaluateActions = [:]
+    final ConcurrentProjectEvaluator evaluator = new ConcurrentProjectEvaluator({ ProjectInternal project, ProjectStateInternal state ->
+        evaluated << project
+        try {
+            evaluateActions[project]?.call()
+        } finally {
+            state.executed()
+        }
+    } as ProjectEvaluator)
+
+    def "evaluates project once when requested by several threads"() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        evaluateActions[project1] = {
+            started.countDown()
+            release.await()
+        }
+
+        when:
+        start { evaluator.evaluate(project1, state1) }
+        started.await()
+        start {
+            evaluator.evaluate(project1, state1)
+            assert state1.executed
+        }
+        release.countDown()
+        finished()
+
+        then:
+        evaluated == [project1]
+    }
+
+    def "does not evaluate project which has already been evaluated"() {
+        state1.executed()
+
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        evaluated.empty
+    }
+
+    def "delegates when project is evaluated again by the thread evaluating it"() {
+        evaluateActions[project1] = {
+            evaluateActions.remove(project1)
+            evaluator.evaluate(project1, state1)
+        }
+
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        evaluated == [project1, project1]
+    }
+
+    def "fails when threads wait for the projects each other are evaluating"() {
+        def barrier = new CyclicBarrier(2)
+        def failures = new CopyOnWriteArrayList<Throwable>()
+        evaluateActions[project1] = {
+            barrier.await()
+            evaluator.evaluate(project2, state2)
+        }
+        evaluateActions[project2] = {
+            barrier.await()
+            evaluator.evaluate(project1, state1)
+        }
+
+        when:
+        start {
+            try {
+                evaluator.evaluate(project1, state1)
+            } catch (CircularReferenceException e) {
+                failures << e
+            }
+        }
+        start {
+            try {
+                evaluator.evaluate(project2, state2)
+            } catch (CircularReferenceException e) {
+                failures << e
+            }
+        }
+        finished()
+
+        then:
+        failures.size() == 1
+        state1.executed
+        state2.executed
+    }
+}
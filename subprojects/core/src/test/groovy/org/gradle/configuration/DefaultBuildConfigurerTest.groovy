@@ -17,6 +17,8 @@ package org.gradle.configuration
 
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
 import spock.lang.Specification
 import org.gradle.api.Action
 
@@ -37,4 +39,63 @@ class DefaultBuildConfigurerTest extends Specification {
         }
         1 * action.execute(rootProject)
     }
+
+    def evaluatesEachProjectAfterItsParentWhenUsingWorkerThreads() {
+        def parallelConfigurer = new DefaultBuildConfigurer(new DefaultExecutorFactory(), 3, action)
+        def evaluated = [].asSynchronized()
+        def root = project(null) { evaluated << it }
+        def child1 = project(root) { evaluated << it }
+        def child2 = project(root) { evaluated << it }
+        def grandChild = project(child1) { evaluated << it }
+        def allprojects = [grandChild, child2, child1, root] as LinkedHashSet
+
+        when:
+        parallelConfigurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        _ * root.allprojects >> allprojects
+        1 * root.allprojects(!null) >> { args ->
+            assert evaluated.size() == 4
+            args[0].execute(root)
+        }
+        1 * action.execute(root)
+
+        and:
+        evaluated[0] == root
+        evaluated.indexOf(grandChild) > evaluated.indexOf(child1)
+    }
+
+    def rethrowsEvaluationFailureAndDoesNotEvaluateChildProjects() {
+        def parallelConfigurer = new DefaultBuildConfigurer(new DefaultExecutorFactory(), 2, action)
+        def failure = new RuntimeException("broken")
+        def root = project(null) { throw failure }
+        def child = project(root) { throw new AssertionError("should not be evaluated") }
+
+        when:
+        parallelConfigurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        _ * root.allprojects >> ([root, child] as LinkedHashSet)
+        0 * root.allprojects(_)
+        0 * action._
+        RuntimeException e = thrown()
+        e == failure
+    }
+
+    private ProjectInternal project(ProjectInternal parent, Closure evaluateAction) {
+        def state = new ProjectStateInternal()
+        ProjectInternal project = Mock()
+        project.parent >> parent
+        project.state >> state
+        project.evaluate() >> {
+            try {
+                evaluateAction(project)
+            } finally {
+                state.executed()
+            }
+        }
+        return project
+    }
 }
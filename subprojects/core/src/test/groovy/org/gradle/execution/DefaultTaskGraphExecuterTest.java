@@ -21,7 +21,9 @@ import org.gradle.api.Task;
 import org.gradle.api.execution.TaskExecutionGraphListener;
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.TaskPlanRepository;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.tasks.TaskContainerInternal;
 import org.gradle.api.internal.tasks.TaskStateInternal;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.TaskDependency;
@@ -39,8 +41,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import static org.gradle.util.HelperUtil.createRootProject;
 import static org.gradle.util.HelperUtil.toClosure;
@@ -498,6 +499,110 @@ public class DefaultTaskGraphExecuterTest {
         assertThat(executedTasks, equalTo(toList(a, c)));
     }
 
+    @Test
+    public void storesPlanWhenNoPlanHasBeenCached() {
+        final TaskPlanRepository repository = context.mock(TaskPlanRepository.class);
+        final Task a = task("a");
+        final Task b = task("b", a);
+        final Map<String, List<String>> plan = new LinkedHashMap<String, List<String>>();
+        plan.put(":a", Collections.<String>emptyList());
+        plan.put(":b", toList(":a"));
+
+        context.checking(new Expectations() {{
+            one(repository).getPlan(toList(":b"), Collections.<String>emptyList());
+            will(returnValue(null));
+            one(repository).storePlan(toList(":b"), Collections.<String>emptyList(), plan);
+        }});
+
+        DefaultTaskGraphExecuter taskExecuter = createExecuter(repository);
+        taskExecuter.execute(toList(b));
+
+        assertThat(executedTasks, equalTo(toList(a, b)));
+    }
+
+    @Test
+    public void reusesCachedPlanWithoutResolvingTaskDependencies() {
+        final TaskPlanRepository repository = context.mock(TaskPlanRepository.class);
+        final TaskInternal a = taskWithoutDependencies("a");
+        final TaskInternal b = taskWithoutDependencies("b");
+        final Map<String, List<String>> plan = new LinkedHashMap<String, List<String>>();
+        plan.put(":a", Collections.<String>emptyList());
+        plan.put(":b", toList(":a"));
+        expectTasksFoundByPath(b, a, b);
+
+        context.checking(new Expectations() {{
+            one(repository).getPlan(toList(":b"), Collections.<String>emptyList());
+            will(returnValue(plan));
+        }});
+
+        DefaultTaskGraphExecuter taskExecuter = createExecuter(repository);
+        taskExecuter.execute(toList(b));
+
+        assertThat(executedTasks, equalTo(toList((Task) a, b)));
+    }
+
+    @Test
+    public void ignoresCachedPlanWhichRefersToUnknownTask() {
+        final TaskPlanRepository repository = context.mock(TaskPlanRepository.class);
+        final Task a = task("a");
+        final Task b = task("b", a);
+        final Map<String, List<String>> cachedPlan = new LinkedHashMap<String, List<String>>();
+        cachedPlan.put(":unknown", Collections.<String>emptyList());
+        cachedPlan.put(":b", toList(":unknown"));
+        final TaskContainerInternal taskContainer = expectTasksFoundByPath(b, a, b);
+
+        context.checking(new Expectations() {{
+            allowing(taskContainer).findByPath(":unknown");
+            will(returnValue(null));
+            one(repository).getPlan(toList(":b"), Collections.<String>emptyList());
+            will(returnValue(cachedPlan));
+            one(repository).storePlan(with(equalTo(toList(":b"))), with(equalTo(Collections.<String>emptyList())), with(notNullValue(Map.class)));
+        }});
+
+        DefaultTaskGraphExecuter taskExecuter = createExecuter(repository);
+        taskExecuter.execute(toList(b));
+
+        assertThat(executedTasks, equalTo(toList(a, b)));
+    }
+
+    private DefaultTaskGraphExecuter createExecuter(final TaskPlanRepository repository) {
+        final ListenerManager listenerManager = context.mock(ListenerManager.class, "<listenerManager>");
+        context.checking(new Expectations(){{
+            one(listenerManager).createAnonymousBroadcaster(TaskExecutionGraphListener.class);
+            will(returnValue(new ListenerBroadcast<TaskExecutionGraphListener>(TaskExecutionGraphListener.class)));
+            one(listenerManager).createAnonymousBroadcaster(TaskExecutionListener.class);
+            will(returnValue(new ListenerBroadcast<TaskExecutionListener>(TaskExecutionListener.class)));
+        }});
+        return new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(), repository);
+    }
+
+    private TaskContainerInternal expectTasksFoundByPath(final Task requestedTask, final Task... tasks) {
+        final TaskContainerInternal taskContainer = context.mock(TaskContainerInternal.class);
+        context.checking(new Expectations() {{
+            ProjectInternal project = context.mock(ProjectInternal.class);
+            allowing(requestedTask).getProject();
+            will(returnValue(project));
+            allowing(project).getTasks();
+            will(returnValue(taskContainer));
+            for (Task task : tasks) {
+                allowing(taskContainer).findByPath(task.getPath());
+                will(returnValue(task));
+            }
+        }});
+        return taskContainer;
+    }
+
+    private TaskInternal taskWithoutDependencies(final String name) {
+        final TaskInternal task = createTask(name);
+        context.checking(new Expectations() {{
+            atMost(1).of(task).executeWithoutThrowingTaskFailure();
+            will(new ExecuteTaskAction(task));
+            allowing(task.getState()).getFailure();
+            will(returnValue(null));
+        }});
+        return task;
+    }
+
     private void dependsOn(final Task task, final Task... dependsOn) {
         context.checking(new Expectations() {{
             TaskDependency taskDependency = context.mock(TaskDependency.class);
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+import org.gradle.api.execution.TaskExecutionListener
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.changedetection.TaskDurationRepository
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.util.ConcurrentSpecification
+
+class ParallelTaskPlanExecutorTest extends ConcurrentSpecification {
+    final TaskExecutionListener listener = Mock()
+    final TaskFailureHandler failureHandler = Mock()
+    final TaskDurationRepository durationRepository = Mock()
+    final List<TaskInternal> executed = new CopyOnWriteArrayList<TaskInternal>()
+    final ParallelTaskPlanExecutor executor = new ParallelTaskPlanExecutor(executorFactory, 2, durationRepository)
+
+    def setup() {
+        _ * durationRepository.getExpectedDurations(_) >> [:]
+    }
+
+    def "executes each task after its dependencies"() {
+        def a = taskInfo("a")
+        def b = taskInfo("b", a)
+        def c = taskInfo("c", a)
+        def d = taskInfo("d", b, c)
+
+        when:
+        executor.process([a, b, c, d], listener, failureHandler)
+
+        then:
+        executed.size() == 4
+        executed.first() == a.task
+        executed.last() == d.task
+        [a, b, c, d].every { it.executed }
+    }
+
+    def "executes independent tasks concurrently"() {
+        def barrier = new CyclicBarrier(2)
+        def a = taskInfo("a") { barrier.await(5, TimeUnit.SECONDS) }
+        def b = taskInfo("b") { barrier.await(5, TimeUnit.SECONDS) }
+        def c = taskInfo("c", a, b)
+
+        when:
+        executor.process([a, b, c], listener, failureHandler)
+
+        then:
+        executed.size() == 3
+        executed.last() == c.task
+    }
+
+    def "notifies listener before and after each task"() {
+        def a = taskInfo("a")
+        def b = taskInfo("b")
+
+        when:
+        executor.process([a, b], listener, failureHandler)
+
+        then:
+        1 * listener.beforeExecute(a.task)
+        1 * listener.afterExecute(a.task, a.task.state)
+        1 * listener.beforeExecute(b.task)
+        1 * listener.afterExecute(b.task, b.task.state)
+    }
+
+    def "does not execute tasks whose dependencies failed"() {
+        def failure = new RuntimeException()
+        def a = brokenTaskInfo("a", failure)
+        def b = taskInfo("b", a)
+        def c = taskInfo("c", b)
+        def d = taskInfo("d")
+
+        when:
+        executor.process([a, b, c, d], listener, failureHandler)
+
+        then:
+        1 * failureHandler.onTaskFailure(a.task)
+        executed as Set == [a.task, d.task] as Set
+        !b.executed
+        !c.executed
+    }
+
+    def "stops starting tasks and rethrows failure when failure handler aborts execution"() {
+        def failure = new RuntimeException()
+        def a = brokenTaskInfo("a", failure)
+        def b = taskInfo("b", a)
+        def single = new ParallelTaskPlanExecutor(executorFactory, 1, durationRepository)
+
+        when:
+        single.process([a, b], listener, failureHandler)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        1 * failureHandler.onTaskFailure(a.task) >> { throw failure }
+        executed == [a.task]
+    }
+
+    def "other workers continue to execute tasks while failure handler runs"() {
+        def failure = new RuntimeException()
+        def startedLater = new CountDownLatch(1)
+        def a = brokenTaskInfo("a", failure)
+        def b = taskInfo("b")
+        def c = taskInfo("c", b) { startedLater.countDown() }
+        def handlerSawLaterTask = false
+
+        when:
+        executor.process([a, b, c], listener, failureHandler)
+
+        then:
+        1 * failureHandler.onTaskFailure(a.task) >> { handlerSawLaterTask = startedLater.await(5, TimeUnit.SECONDS) }
+        handlerSawLaterTask
+        c.executed
+    }
+
+    def "starts task with longest remaining path first"() {
+        def a = taskInfo("a")
+        def b = taskInfo("b")
+        def c = taskInfo("c", b)
+        def d = taskInfo("d")
+        def single = new ParallelTaskPlanExecutor(executorFactory, 1, durationRepository)
+
+        when:
+        single.process([a, b, c, d], listener, failureHandler)
+
+        then:
+        1 * durationRepository.getExpectedDurations([":a", ":b", ":c", ":d"]) >> [":a": 50L, ":b": 10L, ":c": 100L]
+        executed == [b.task, c.task, a.task, d.task]
+    }
+
+    def "starts longest chain of tasks first when there is no history"() {
+        def a = taskInfo("a")
+        def b = taskInfo("b")
+        def c = taskInfo("c", b)
+        def single = new ParallelTaskPlanExecutor(executorFactory, 1, durationRepository)
+
+        when:
+        single.process([a, b, c], listener, failureHandler)
+
+        then:
+        executed == [b.task, a.task, c.task]
+    }
+
+    def "records duration of tasks which did work"() {
+        def failure = new RuntimeException()
+        def a = taskInfo("a")
+        def b = brokenTaskInfo("b", failure)
+        def c = upToDateTaskInfo("c")
+
+        when:
+        executor.process([a, b, c], listener, failureHandler)
+
+        then:
+        1 * durationRepository.recordDurations({ it.keySet() == [":a"] as Set })
+    }
+
+    def "cannot create executor with no worker threads"() {
+        when:
+        new ParallelTaskPlanExecutor(executorFactory, 0, durationRepository)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private TaskInfo taskInfo(String name, TaskInfo... dependencies) {
+        return taskInfo(name, dependencies, {})
+    }
+
+    private TaskInfo taskInfo(String name, TaskInfo[] dependencies = [], Closure action) {
+        return createTaskInfo(name, dependencies, null, action)
+    }
+
+    private TaskInfo brokenTaskInfo(String name, RuntimeException failure, TaskInfo... dependencies) {
+        return createTaskInfo(name, dependencies, failure, {})
+    }
+
+    private TaskInfo upToDateTaskInfo(String name, TaskInfo... dependencies) {
+        return createTaskInfo(name, dependencies, null, {}, false)
+    }
+
+    private TaskInfo createTaskInfo(String name, TaskInfo[] dependencies, RuntimeException failure, Closure action, boolean didWork = true) {
+        TaskInternal task = Mock()
+        TaskStateInternal state = Mock()
+        _ * task.path >> ":$name"
+        _ * task.state >> state
+        _ * state.failure >> failure
+        _ * state.didWork >> didWork
+        _ * state.skipped >> !didWork
+        _ * task.executeWithoutThrowingTaskFailure() >> {
+            action.call()
+            executed << task
+        }
+        return new TaskInfo(task, dependencies as Set)
+    }
+}
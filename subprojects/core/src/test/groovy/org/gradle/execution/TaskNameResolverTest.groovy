@@ -16,12 +16,14 @@
 package org.gradle.execution
 
 import org.gradle.api.Task
+import org.gradle.api.internal.project.ProjectAccessListener
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.tasks.TaskContainerInternal
 import spock.lang.Specification
 
 class TaskNameResolverTest extends Specification {
-    private final TaskNameResolver resolver = new TaskNameResolver()
+    private final ProjectAccessListener projectAccessListener = Mock()
+    private final TaskNameResolver resolver = new TaskNameResolver(projectAccessListener)
 
     def selectsTaskForSingleProjectWhenThereIsAnExactMatchOnName() {
         ProjectInternal project = Mock()
@@ -100,6 +102,29 @@ class TaskNameResolverTest extends Specification {
         candidates.get('task') == [task1, task2] as Set
     }
 
+    def notifiesListenerBeforeSelectingTasksOfProjects() {
+        ProjectInternal project = Mock()
+        TaskContainerInternal tasks = Mock()
+        ProjectInternal childProject = Mock()
+        TaskContainerInternal childProjectTasks = Mock()
+        _ * project.tasks >> tasks
+        _ * project.subprojects >> ([childProject] as Set)
+        _ * childProject.tasks >> childProjectTasks
+
+        Task task1 = task('task')
+
+        when:
+        resolver.selectAll('task', project)
+
+        then:
+        1 * projectAccessListener.beforeRequestingTaskByPath(project)
+        1 * projectAccessListener.beforeRequestingTaskByPath(childProject)
+
+        then:
+        1 * tasks.findByName('task') >> task1
+        1 * childProjectTasks.findByName('task') >> null
+    }
+
     def selectsImplicitTaskForMultipleProjectsWhenThereIsAnExactMatchOnName() {
         ProjectInternal project = Mock()
         TaskContainerInternal tasks = Mock()
@@ -71,6 +71,17 @@ public class DefaultCommandLineConverterTest {
 
     private final DefaultCommandLineConverter commandLineConverter = new DefaultCommandLineConverter();
     private boolean expectedContinue;
+    private int expectedParallelThreadCount;
+    private boolean expectedParallelSnapshotting;
+    private boolean expectedFastFileHashing;
+    private boolean expectedParallelProjectConfiguration;
+    private boolean expectedConfigureOnDemand;
+    private boolean expectedTaskGraphCaching;
+    private boolean expectedModuleMetadataPrefetching;
+    private boolean expectedParallelArtifactDownloads;
+    private boolean expectedPooledHttpConnections;
+    private boolean expectedConcurrentRepositoryProbing;
+    private boolean expectedBinaryModuleDescriptors;
 
     @Test
     public void withoutAnyOptions() {
@@ -100,6 +111,17 @@ public class DefaultCommandLineConverterTest {
         assertEquals(expectedInitScripts, startParameter.getInitScripts());
         assertEquals(expectedProfile, startParameter.isProfile());
         assertEquals(expectedContinue, startParameter.isContinueOnFailure());
+        assertEquals(expectedParallelThreadCount, startParameter.getParallelThreadCount());
+        assertEquals(expectedParallelSnapshotting, startParameter.isParallelSnapshotting());
+        assertEquals(expectedFastFileHashing, startParameter.isFastFileHashing());
+        assertEquals(expectedParallelProjectConfiguration, startParameter.isParallelProjectConfiguration());
+        assertEquals(expectedConfigureOnDemand, startParameter.isConfigureOnDemand());
+        assertEquals(expectedTaskGraphCaching, startParameter.isTaskGraphCaching());
+        assertEquals(expectedModuleMetadataPrefetching, startParameter.isModuleMetadataPrefetching());
+        assertEquals(expectedParallelArtifactDownloads, startParameter.isParallelArtifactDownloads());
+        assertEquals(expectedPooledHttpConnections, startParameter.isPooledHttpConnections());
+        assertEquals(expectedConcurrentRepositoryProbing, startParameter.isConcurrentRepositoryProbing());
+        assertEquals(expectedBinaryModuleDescriptors, startParameter.isBinaryModuleDescriptors());
         assertEquals(expectedProjectCacheDir, startParameter.getProjectCacheDir());
     }
 
@@ -363,6 +385,82 @@ public class DefaultCommandLineConverterTest {
         checkConversion("--continue");
     }
 
+    @Test
+    public void withParallelThreads() {
+        expectedParallelThreadCount = 4;
+        checkConversion("--parallel-threads", "4");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withInvalidParallelThreads() {
+        checkConversion("--parallel-threads", "many");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withNegativeParallelThreads() {
+        checkConversion("--parallel-threads", "-1");
+    }
+
+    @Test
+    public void withParallelSnapshotting() {
+        expectedParallelSnapshotting = true;
+        checkConversion("--parallel-snapshotting");
+    }
+
+    @Test
+    public void withFastFileHashing() {
+        expectedFastFileHashing = true;
+        checkConversion("--fast-file-hashing");
+    }
+
+    @Test
+    public void withParallelProjectConfiguration() {
+        expectedParallelProjectConfiguration = true;
+        checkConversion("--parallel-configuration");
+    }
+
+    @Test
+    public void withConfigureOnDemand() {
+        expectedConfigureOnDemand = true;
+        checkConversion("--configure-on-demand");
+    }
+
+    @Test
+    public void withTaskGraphCaching() {
+        expectedTaskGraphCaching = true;
+        checkConversion("--cache-task-graph");
+    }
+
+    @Test
+    public void withModuleMetadataPrefetching() {
+        expectedModuleMetadataPrefetching = true;
+        checkConversion("--prefetch-module-metadata");
+    }
+
+    @Test
+    public void withParallelArtifactDownloads() {
+        expectedParallelArtifactDownloads = true;
+        checkConversion("--parallel-artifact-downloads");
+    }
+
+    @Test
+    public void withPooledHttpConnections() {
+        expectedPooledHttpConnections = true;
+        checkConversion("--pooled-http-connections");
+    }
+
+    @Test
+    public void withConcurrentRepositoryProbing() {
+        expectedConcurrentRepositoryProbing = true;
+        checkConversion("--concurrent-repository-probing");
+    }
+
+    @Test
+    public void withBinaryModuleDescriptors() {
+        expectedBinaryModuleDescriptors = true;
+        checkConversion("--binary-module-descriptors");
+    }
+
     @Test(expected = CommandLineArgumentException.class)
     public void withUnknownOption() {
         checkConversion("--unknown");
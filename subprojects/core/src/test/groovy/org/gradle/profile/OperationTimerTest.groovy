@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile
+
+import spock.lang.Specification
+
+class OperationTimerTest extends Specification {
+    final OperationTimer timer = new OperationTimer()
+
+    def cleanup() {
+        timer.stopRecording()
+    }
+
+    def "records nothing when not recording"() {
+        when:
+        def operation = timer.start("category", "name")
+        operation.addAttribute("key", "value")
+        operation.finish()
+
+        then:
+        !timer.recording
+        timer.stopRecording().empty
+        operation.attributes.isEmpty()
+    }
+
+    def "records finished operations"() {
+        given:
+        timer.startRecording()
+
+        when:
+        def operation = timer.start("category", "name")
+        operation.addAttribute("key", "value")
+        operation.finish()
+
+        then:
+        def operations = timer.stopRecording()
+        operations == [operation]
+        operation.category == "category"
+        operation.name == "name"
+        operation.parentId == 0
+        operation.threadId == Thread.currentThread().id
+        operation.attributes == [key: "value"]
+        operation.elapsedTime >= 0
+    }
+
+    def "nests operations started while another operation is in progress on the same thread"() {
+        given:
+        timer.startRecording()
+
+        when:
+        def outer = timer.start("category", "outer")
+        def inner = timer.start("category", "inner")
+        inner.finish()
+        def sibling = timer.start("category", "sibling")
+        sibling.finish()
+        outer.finish()
+        def next = timer.start("category", "next")
+        next.finish()
+
+        then:
+        timer.stopRecording() == [inner, sibling, outer, next]
+        inner.parentId == outer.id
+        sibling.parentId == outer.id
+        outer.parentId == 0
+        next.parentId == 0
+    }
+
+    def "does not nest operations started on other threads"() {
+        given:
+        timer.startRecording()
+        def outer = timer.start("category", "outer")
+
+        when:
+        TimedOperation other = null
+        def thread = new Thread({
+            other = timer.start("category", "other")
+            other.finish()
+        })
+        thread.start()
+        thread.join()
+        outer.finish()
+
+        then:
+        other.parentId == 0
+        other.threadId == thread.id
+    }
+
+    def "does not nest operations in an operation left over from an earlier recording"() {
+        given:
+        timer.startRecording()
+        def leftOver = timer.start("category", "left over")
+        timer.stopRecording()
+        timer.startRecording()
+
+        when:
+        def operation = timer.start("category", "name")
+        operation.finish()
+
+        then:
+        operation.parentId == 0
+        timer.stopRecording() == [operation]
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+class TraceEventReportRendererTest extends Specification {
+    final OperationTimer timer = new OperationTimer()
+    final TraceEventReportRenderer renderer = new TraceEventReportRenderer()
+
+    def "writes an event for each thread and each operation"() {
+        given:
+        timer.startRecording()
+        def outer = timer.start("task", ":compile")
+        def inner = timer.start("snapshot", "Snapshot files")
+        inner.addAttribute("hashedFiles", 12).addAttribute("mode", "with \"quotes\"\n")
+        inner.finish()
+        outer.finish()
+
+        when:
+        def writer = new StringWriter()
+        renderer.render(timer.stopRecording(), writer)
+        def trace = new JsonSlurper().parseText(writer.toString())
+
+        then:
+        trace.traceEvents.size() == 3
+        def thread = trace.traceEvents[0]
+        thread.ph == "M"
+        thread.tid == Thread.currentThread().id
+        thread.args.name == Thread.currentThread().name
+
+        def innerEvent = trace.traceEvents[1]
+        innerEvent.name == "Snapshot files"
+        innerEvent.cat == "snapshot"
+        innerEvent.ph == "X"
+        innerEvent.tid == Thread.currentThread().id
+        innerEvent.args == [id: inner.id, parentId: outer.id, hashedFiles: 12, mode: "with \"quotes\"\n"]
+
+        def outerEvent = trace.traceEvents[2]
+        outerEvent.name == ":compile"
+        outerEvent.ts == 0
+        outerEvent.args == [id: outer.id, parentId: 0]
+        innerEvent.ts >= outerEvent.ts
+        innerEvent.ts + innerEvent.dur <= outerEvent.ts + outerEvent.dur
+    }
+
+    def "writes an empty trace when there are no operations"() {
+        when:
+        def writer = new StringWriter()
+        renderer.render([], writer)
+
+        then:
+        new JsonSlurper().parseText(writer.toString()).traceEvents == []
+    }
+}
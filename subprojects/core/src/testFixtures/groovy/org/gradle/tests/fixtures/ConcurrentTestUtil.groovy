@@ -91,6 +91,10 @@ class ConcurrentTestUtil implements TestRule {
             StoppableExecutor create(String displayName) {
                 return new StoppableExecutorStub(ConcurrentTestUtil.this)
             }
+
+            StoppableExecutor create(String displayName, int fixedSize) {
+                return new StoppableExecutorStub(ConcurrentTestUtil.this)
+            }
         }
     }
 
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.performance
+
+/**
+ * The timings and heap usage of a single build.
+ */
+class BuildMeasurement {
+    long configurationTime
+    long executionTime
+    long totalTime
+    long peakHeap
+
+    static final List<String> METRICS = ['configurationTime', 'executionTime', 'totalTime', 'peakHeap']
+
+    /**
+     * Returns the average of each metric over the given measurements.
+     */
+    static BuildMeasurement average(List<BuildMeasurement> measurements) {
+        def average = new BuildMeasurement()
+        METRICS.each { metric ->
+            average[metric] = (long) (measurements.sum { it[metric] } / measurements.size())
+        }
+        return average
+    }
+
+    String toString() {
+        return "configuration: ${configurationTime}ms, execution: ${executionTime}ms, total: ${totalTime}ms, peak heap: ${(long) (peakHeap / 1024 / 1024)}MB"
+    }
+}
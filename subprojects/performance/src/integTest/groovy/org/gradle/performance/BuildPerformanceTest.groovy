@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.performance
+
+import org.gradle.integtests.fixtures.GradleDistribution
+import org.gradle.integtests.fixtures.GradleDistributionExecuter
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static org.gradle.integtests.fixtures.GradleDistributionExecuter.Executer.daemon
+import static org.gradle.integtests.fixtures.GradleDistributionExecuter.Executer.embedded
+
+/**
+ * Generates the projects defined by performanceTest/build.gradle, runs clean, no-op and incremental builds of them
+ * with the in-process and daemon executers, and compares the average measurements with the stored baseline.
+ */
+class BuildPerformanceTest extends Specification {
+    static final List<String> TEMPLATES = (System.getProperty("org.gradle.performance.templates") ?: "small,largeSrc,multi,mixedSize,multiGroovy").split(",") as List
+    // The warm up runs also bring the project up-to-date for the no-op and incremental builds
+    static final int WARM_UP_RUNS = 2
+    static final int MEASURED_RUNS = 5
+    static final PerformanceResults RESULTS = new PerformanceResults(
+            new File(System.getProperty("org.gradle.performance.baseline")),
+            new File(System.getProperty("org.gradle.performance.results")),
+            (System.getProperty("org.gradle.performance.threshold") ?: "0.1") as double)
+
+    @Rule final GradleDistribution distribution = new GradleDistribution()
+
+    def setupSpec() {
+        def templateBuildDir = new File(System.getProperty("org.gradle.performance.templateBuildDir"))
+        def generator = new GradleDistributionExecuter(embedded, new GradleDistribution())
+        generator.inDirectory(templateBuildDir).withTasks(TEMPLATES).run()
+    }
+
+    def cleanupSpec() {
+        if (System.getProperty("org.gradle.performance.updateBaseline") != null) {
+            RESULTS.updateBaseline()
+        }
+    }
+
+    @Unroll
+    def "#scenario build of #template using #executerType executer"() {
+        given:
+        def executer = new GradleDistributionExecuter(executerType, distribution)
+        def runner = new MeasuredBuildRunner(executer, distribution.testDir.createDir("measurements"))
+        def projectDir = new File(System.getProperty("org.gradle.performance.templateBuildDir"), "build/$template")
+
+        when:
+        List<BuildMeasurement> measurements = []
+        (WARM_UP_RUNS + MEASURED_RUNS).times { run ->
+            if (scenario == "incremental") {
+                changeSource(projectDir, run)
+            }
+            def measurement = runner.run(projectDir, tasks(scenario))
+            if (run >= WARM_UP_RUNS) {
+                measurements << measurement
+            }
+            executer.reset()
+        }
+        def average = BuildMeasurement.average(measurements)
+
+        then:
+        RESULTS.add("${template}.${scenario}.${executerType}", average) == []
+
+        cleanup:
+        if (executerType == daemon) {
+            executer.withArguments("--stop").run()
+        }
+
+        where:
+        [template, scenario, executerType] << [TEMPLATES, ["clean", "noOp", "incremental"], [embedded, daemon]].combinations()
+    }
+
+    private static List<String> tasks(String scenario) {
+        return scenario == "clean" ? ["clean", "build"] : ["build"]
+    }
+
+    /**
+     * Adds a method to the first production class of the first project with source, so that it has to be recompiled
+     * and its tests run again.
+     */
+    private static void changeSource(File projectDir, int run) {
+        TestFile sourceFile = null
+        projectDir.eachFileRecurse { file ->
+            if (sourceFile == null && file.name == "Production1.java") {
+                sourceFile = new TestFile(file)
+            }
+        }
+        assert sourceFile != null
+        def text = sourceFile.text
+        int end = text.lastIndexOf("}")
+        sourceFile.text = text.substring(0, end) + "    public int addedMethod${run}() { return ${run}; }\n}\n"
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.performance
+
+import org.gradle.integtests.fixtures.GradleExecuter
+import org.gradle.util.TestFile
+
+/**
+ * Runs builds using a given executer, and measures them using an init script. The configuration and execution times
+ * and the peak heap usage are measured in the build process, and the total time by the caller.
+ */
+class MeasuredBuildRunner {
+    private static final String INIT_SCRIPT = '''
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+
+def buildStarted = System.currentTimeMillis()
+def projectsEvaluated = buildStarted
+ManagementFactory.memoryPoolMXBeans.each { it.resetPeakUsage() }
+gradle.projectsEvaluated { projectsEvaluated = System.currentTimeMillis() }
+gradle.buildFinished {
+    def buildFinished = System.currentTimeMillis()
+    def peakHeap = ManagementFactory.memoryPoolMXBeans.findAll { it.type == MemoryType.HEAP }.sum { it.peakUsage.used }
+    new File(new URI(RESULT_FILE_URI)).text = "configurationTime=${projectsEvaluated - buildStarted}\\nexecutionTime=${buildFinished - projectsEvaluated}\\npeakHeap=${peakHeap}\\n"
+}
+'''
+    private final GradleExecuter executer
+    private final TestFile workDir
+
+    MeasuredBuildRunner(GradleExecuter executer, TestFile workDir) {
+        this.executer = executer
+        this.workDir = workDir
+    }
+
+    BuildMeasurement run(File projectDir, List<String> tasks) {
+        def resultFile = workDir.file("measurement.properties")
+        resultFile.delete()
+        def initScript = workDir.file("measure.gradle")
+        initScript.text = INIT_SCRIPT.replace('RESULT_FILE_URI', "'${resultFile.toURI()}'")
+
+        long start = System.currentTimeMillis()
+        executer.inDirectory(projectDir).usingInitScript(initScript).withTasks(tasks).run()
+        long totalTime = System.currentTimeMillis() - start
+
+        def properties = new Properties()
+        resultFile.withInputStream { properties.load(it) }
+        return new BuildMeasurement(
+                configurationTime: properties.configurationTime as long,
+                executionTime: properties.executionTime as long,
+                totalTime: totalTime,
+                peakHeap: properties.peakHeap as long)
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.performance
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+/**
+ * Collects the average measurement of each build scenario, writes them to a results file and compares them with a
+ * baseline file containing the results of an earlier run. A scenario regresses when a metric exceeds the baseline by
+ * more than the threshold, plus a small allowance for noise. The results file only contains the results of the
+ * current run.
+ */
+class PerformanceResults {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PerformanceResults)
+    private static final Map<String, Long> NOISE_ALLOWANCE = [configurationTime: 100L, executionTime: 100L, totalTime: 200L, peakHeap: 10L * 1024 * 1024]
+    private final File baselineFile
+    private final File resultsFile
+    private final double threshold
+    private final Properties baseline = new Properties()
+    private final Properties results = new Properties()
+
+    PerformanceResults(File baselineFile, File resultsFile, double threshold) {
+        this.baselineFile = baselineFile
+        this.resultsFile = resultsFile
+        this.threshold = threshold
+        if (baselineFile.isFile()) {
+            baselineFile.withInputStream { baseline.load(it) }
+        }
+        // Discard the results of an earlier run, so that they cannot end up in the baseline
+        resultsFile.delete()
+    }
+
+    /**
+     * Records the given measurement of the given scenario.
+     *
+     * @return A description of each metric which has regressed compared to the baseline. Empty when there is no
+     * regression, or when the baseline has no result for the scenario.
+     */
+    List<String> add(String scenario, BuildMeasurement measurement) {
+        LOGGER.info("Average measurement of {}: {}", scenario, measurement)
+        List<String> regressions = []
+        BuildMeasurement.METRICS.each { metric ->
+            String key = "${scenario}.${metric}"
+            long value = measurement[metric]
+            results[key] = value as String
+            String baselineValue = baseline[key]
+            if (baselineValue != null) {
+                long maxValue = (long) ((baselineValue as long) * (1 + threshold)) + NOISE_ALLOWANCE[metric]
+                if (value > maxValue) {
+                    regressions << "${metric} of ${scenario} is ${value}, which exceeds baseline ${baselineValue} by more than ${(int) (threshold * 100)}%".toString()
+                }
+            }
+        }
+        write(resultsFile, results)
+        regressions.each { LOGGER.warn(it) }
+        return regressions
+    }
+
+    /**
+     * Replaces the baseline with the results recorded so far.
+     */
+    void updateBaseline() {
+        baseline.putAll(results)
+        write(baselineFile, baseline)
+    }
+
+    private static void write(File file, Properties properties) {
+        file.parentFile.mkdirs()
+        file.withOutputStream { properties.store(it, "Average build measurements, in milliseconds and bytes") }
+    }
+}